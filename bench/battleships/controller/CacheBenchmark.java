@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import java.util.Random;
+
+/**
+ * Transposition cache benchmark for {@code CommandCenterController}.
+ * <p>
+ * Clicks random squares of a standard game, each through all of its states and
+ * back to open, the way a user trying out a square does. Two thirds of the
+ * states the board passes through have been seen before. The mean time of a
+ * click is measured with the cache off and on, in both the plain and the log
+ * scale mode.
+ * <p>
+ * Then every square of boards of growing size is clicked once, so every state
+ * is new. With the cache on, such clicks should cost no more than with it
+ * off, as results are only copied for states that come back.
+ * <p>
+ * Usage: {@code CacheBenchmark [squares]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class CacheBenchmark {
+
+    /**
+     * The sum of all maxima read, so the clicks are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * The number of states cached when the cache is on.
+     */
+    private static final int CACHE_CAPACITY = 256;
+
+    /**
+     * The sizes of the boards clicked through once.
+     */
+    private static final int[] BOARD_SIZES = {10, 40, 100};
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int squares = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        System.out.printf("%10s %12s %12s %10s%n", "mode", "off (us)", "on (us)", "hit rate");
+
+        for (boolean logScale : new boolean[]{false, true}) {
+            double[] times = new double[2];
+            CacheStats stats = null;
+
+            for (int on = 0; on < 2; on++) {
+                //First pass warms up
+                for (int pass = 0; pass < 2; pass++) {
+                    CommandCenterController controller = new CommandCenterController();
+                    controller.setLogScale(logScale);
+                    controller.setCacheCapacity(on == 1 ? CACHE_CAPACITY : 0);
+
+                    times[on] = run(controller, squares);
+                    stats = controller.getCacheStats();
+                }
+            }
+
+            System.out.printf("%10s %12.2f %12.2f %9.1f%%%n", logScale ? "log" : "plain",
+                    times[0], times[1], stats.getHitRate() * 100);
+        }
+
+        System.out.printf("%n%10s %12s %12s %10s%n", "new states", "off (us)", "on (us)", "cached");
+
+        for (int size : BOARD_SIZES) {
+            double[] times = new double[2];
+            CacheStats stats = null;
+
+            for (int on = 0; on < 2; on++) {
+                //First pass warms up
+                for (int pass = 0; pass < 2; pass++) {
+                    CommandCenterController controller = new CommandCenterController(size, size,
+                            GameDefinition.standard().getFleet());
+                    controller.setCacheCapacity(on == 1 ? CACHE_CAPACITY : 0);
+
+                    times[on] = sweep(controller);
+                    stats = controller.getCacheStats();
+                }
+            }
+
+            System.out.printf("%10s %12.2f %12.2f %10d%n", size + "x" + size, times[0], times[1], stats.getSize());
+        }
+    }
+
+    /**
+     * Clicks every square once, in a random order.
+     * <p>
+     * @param controller The controller
+     * @return The mean time of a click in microseconds
+     */
+    private static double sweep(CommandCenterController controller) {
+        int width = controller.getBoardWidth();
+        int height = controller.getBoardHeight();
+        int[] order = new int[width * height];
+        Random random = new Random(42);
+
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+
+        long sum = controller.getMax();
+        long start = System.nanoTime();
+
+        for (int square : order) {
+            controller.stateChange(square / height, square % height);
+            sum += controller.getMax();
+        }
+
+        double time = (System.nanoTime() - start) / 1e3 / order.length;
+        checksum += sum;
+
+        return time;
+    }
+
+    /**
+     * Clicks random squares through all their states.
+     * <p>
+     * @param controller The controller
+     * @param squares The number of squares to click
+     * @return The mean time of a click in microseconds
+     */
+    private static double run(CommandCenterController controller, int squares) {
+        Random random = new Random(42);
+        long sum = 0;
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < squares; i++) {
+            int x = random.nextInt(controller.getBoardWidth());
+            int y = random.nextInt(controller.getBoardHeight());
+
+            //OPEN > MISS > HIT > OPEN
+            for (int j = 0; j < 3; j++) {
+                controller.stateChange(x, y);
+                sum += controller.getMax();
+            }
+        }
+
+        double time = (System.nanoTime() - start) / 1e3 / (squares * 3);
+        checksum += sum;
+
+        return time;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import battleships.model.PlacementStorage;
+
+/**
+ * Construction benchmark for {@code CommandCenterController}.
+ * <p>
+ * Makes controllers for games with the standard fleet in two ways: with a
+ * board size and fleet, which builds the placement tables of every
+ * controller, and with a {@code GameDefinition}, whose controllers share one
+ * set of tables, kept on or off the heap. The mean time to make a controller
+ * is measured for each board size.
+ * <p>
+ * Usage: {@code ConstructionBenchmark [controllers]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class ConstructionBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {10, 20, 40};
+
+    /**
+     * The sum of the values read, so the controllers are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int controllers = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        GameDefinition standard = GameDefinition.standard();
+
+        System.out.printf("%6s %14s %14s %16s%n", "board", "build (us)", "shared (us)", "off heap (us)");
+
+        for (int size : BOARD_SIZES) {
+            GameDefinition[] definitions = {
+                new GameDefinition(size, size, standard.getFleet(), PlacementStorage.HEAP),
+                new GameDefinition(size, size, standard.getFleet(), PlacementStorage.OFF_HEAP)
+            };
+            int count = Math.max(controllers * 100 / (size * size), 100);
+            double[] times = new double[3];
+
+            //First pass warms up
+            for (int pass = 0; pass < 2; pass++) {
+                long sum = 0;
+                long start = System.nanoTime();
+
+                for (int i = 0; i < count; i++) {
+                    sum += new CommandCenterController(size, size, standard.getFleet()).getBoardWidth();
+                }
+
+                times[0] = (System.nanoTime() - start) / 1e3 / count;
+
+                for (int j = 0; j < definitions.length; j++) {
+                    start = System.nanoTime();
+
+                    for (int i = 0; i < count; i++) {
+                        sum += new CommandCenterController(definitions[j]).getBoardWidth();
+                    }
+
+                    times[j + 1] = (System.nanoTime() - start) / 1e3 / count;
+                }
+
+                checksum += sum;
+            }
+
+            System.out.printf("%6s %14.2f %14.2f %16.2f%n", size + "x" + size, times[0], times[1], times[2]);
+        }
+    }
+}
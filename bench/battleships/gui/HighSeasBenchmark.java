@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.gui;
+
+import battleships.model.Board;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Frame time benchmark for {@code HighSeas}.
+ * <p>
+ * The panel is rendered headless into an offscreen image for a range of board
+ * sizes. Three kinds of frames are timed:
+ * <ul>
+ * <li>hover: the mouse moves to another square, painting only the regions
+ * highlighted before and after the move
+ * <li>update: a single square changes value and state, as after a click
+ * <li>resize: the panel changes size, redrawing every cached layer
+ * </ul>
+ * <p>
+ * Usage: {@code HighSeasBenchmark [frames]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class HighSeasBenchmark {
+
+    /**
+     * The board sizes to benchmark.
+     */
+    private static final int[] SIZES = {10, 25, 50, 100, 200};
+    /**
+     * The size of the panel in pixels.
+     */
+    private static final int PANEL_SIZE = 800;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        System.out.printf("%6s %12s %12s %12s%n", "board", "hover (ms)", "update (ms)", "resize (ms)");
+
+        for (int size : SIZES) {
+            System.out.printf("%6s %12.3f %12.3f %12.3f%n", size + "x" + size,
+                    time(size, frames, Frame.HOVER),
+                    time(size, frames, Frame.UPDATE),
+                    time(size, Math.max(1, frames / 10), Frame.RESIZE));
+        }
+    }
+
+    /**
+     * The kind of frame to time.
+     */
+    private enum Frame {
+        HOVER, UPDATE, RESIZE
+    }
+
+    /**
+     * Times the mean frame of a kind, after warming up.
+     * <p>
+     * @param size The number of rows and columns
+     * @param frames The number of frames to time
+     * @param frame The kind of frame
+     * @return The mean frame time in milliseconds
+     */
+    private static double time(int size, int frames, Frame frame) {
+        Random random = new Random(size);
+
+        double[][] data = new double[size][size];
+        Board.SquareState[][] states = new Board.SquareState[size][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                data[i][j] = random.nextDouble();
+                states[i][j] = random.nextInt(10) == 0 ? Board.SquareState.MISS : Board.SquareState.OPEN;
+            }
+        }
+
+        HighSeas panel = new HighSeas();
+        panel.setSize(PANEL_SIZE, PANEL_SIZE);
+        panel.setSquares(size, size);
+        panel.setData(data, states);
+
+        BufferedImage screen = new BufferedImage(PANEL_SIZE, PANEL_SIZE, BufferedImage.TYPE_INT_ARGB);
+
+        //Warm up with the same amount of frames
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+
+            for (int f = 0; f < frames; f++) {
+                Rectangle[] regions = null;
+
+                switch (frame) {
+                    case HOVER: {
+                        Rectangle[] oldRegions = panel.hoverRegions();
+
+                        panel.setMousePos(random.nextInt(PANEL_SIZE), random.nextInt(PANEL_SIZE));
+
+                        Rectangle[] newRegions = panel.hoverRegions();
+                        regions = Arrays.copyOf(oldRegions, oldRegions.length + newRegions.length);
+                        System.arraycopy(newRegions, 0, regions, oldRegions.length, newRegions.length);
+                        break;
+                    }
+                    case UPDATE: {
+                        int x = random.nextInt(size);
+                        int y = random.nextInt(size);
+
+                        data[x][y] = random.nextDouble();
+                        states[x][y] = states[x][y] == Board.SquareState.OPEN ? Board.SquareState.HIT : Board.SquareState.OPEN;
+                        panel.setData(data, states);
+                        break;
+                    }
+                    case RESIZE:
+                        panel.setSize(PANEL_SIZE - f % 2, PANEL_SIZE);
+                        panel.refresh();
+                        break;
+                }
+
+                if (regions == null) {
+                    paint(panel, screen, null);
+                } else {
+                    for (Rectangle region : regions) {
+                        paint(panel, screen, region);
+                    }
+                }
+            }
+
+            if (pass == 1) {
+                return (System.nanoTime() - start) / 1e6 / frames;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Paints the panel onto the screen image.
+     * <p>
+     * @param panel The panel
+     * @param screen The image to paint on
+     * @param clip The region to paint, or null for the whole panel
+     */
+    private static void paint(HighSeas panel, BufferedImage screen, Rectangle clip) {
+        Graphics2D g = screen.createGraphics();
+        try {
+            if (clip != null) {
+                g.clip(clip);
+            }
+
+            panel.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Random;
+
+/**
+ * Counter benchmark for {@code IndependentBoard} on small boards.
+ * <p>
+ * Plays random state changes on a board with the standard fleet, reading the
+ * counts of the changed squares back after each change the way the heatmap
+ * does. The mean time of a change and of the reads that follow it are
+ * measured.
+ * <p>
+ * Usage: {@code CounterBenchmark [changes]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class CounterBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {10, 15, 20};
+    /**
+     * The lengths of the ships of the standard fleet.
+     */
+    private static final int[] FLEET = {5, 4, 3, 3, 2};
+
+    /**
+     * The sum of all counts read, so the reads are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        System.out.printf("%6s %16s %16s%n", "board", "change (ns)", "read (ns)");
+
+        for (int size : BOARD_SIZES) {
+            Board board = new IndependentBoard(size, size);
+
+            for (int length : FLEET) {
+                Ship ship = new BasicShip();
+
+                for (int j = 0; j < length; j++) {
+                    ship.addSquare(0, j);
+                }
+                board.addShip(ship);
+            }
+
+            long[] times = new long[2];
+
+            //First pass warms up
+            run(board, size, changes, times);
+            times[0] = 0;
+            times[1] = 0;
+            checksum += run(board, size, changes, times);
+
+            System.out.printf("%6s %16.1f %16.1f%n", size + "x" + size,
+                    (double) times[0] / changes, (double) times[1] / changes);
+        }
+    }
+
+    /**
+     * Plays state changes on random squares.
+     * <p>
+     * @param board The board
+     * @param size The size of the board
+     * @param changes The number of changes
+     * @param times Where the time spent changing and reading is added
+     * @return The sum of the counts read
+     */
+    private static long run(Board board, int size, int changes, long[] times) {
+        Random random = new Random(40);
+        long sum = 0;
+
+        for (int i = 0; i < changes; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+
+            long start = System.nanoTime();
+            board.stateChange(x, y, board.getState(x, y) == Board.SquareState.MISS
+                    ? Board.SquareState.OPEN : Board.SquareState.MISS);
+            long changed = System.nanoTime();
+
+            for (int square : board.pollChangedSquares()) {
+                long count = board.getShipCount(square / size, square % size);
+                sum += count + (long) board.getWeightedShipCount(square / size, square % size);
+            }
+
+            times[0] += changed - start;
+            times[1] += System.nanoTime() - changed;
+        }
+
+        return sum;
+    }
+}
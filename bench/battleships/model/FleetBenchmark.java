@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Random;
+
+/**
+ * Memory and state change benchmark for {@code IndependentBoard} with large
+ * fleets.
+ * <p>
+ * Fleets are made of straight ships of a few lengths, each length repeated
+ * many times, half of them laid out horizontally. For each fleet the heap
+ * retained by the board, the time to build it and the mean time of a state
+ * change are measured.
+ * <p>
+ * Usage: {@code FleetBenchmark [changes]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class FleetBenchmark {
+
+    /**
+     * The size of the board.
+     */
+    private static final int BOARD_SIZE = 20;
+    /**
+     * The fleets to benchmark, as the number of ships of each length from 2.
+     */
+    private static final int[][] FLEETS = {{1, 2, 1, 1}, {10, 10, 10, 10}, {50, 50, 50, 50}};
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        System.out.printf("%6s %12s %12s %16s%n", "ships", "heap (KiB)", "build (ms)", "change (us)");
+
+        for (int[] fleet : FLEETS) {
+            int ships = 0;
+            for (int count : fleet) {
+                ships += count;
+            }
+
+            long before = usedHeap();
+            long start = System.nanoTime();
+            Board board = build(fleet);
+            double build = (System.nanoTime() - start) / 1e6;
+            long heap = usedHeap() - before;
+
+            System.out.printf("%6d %12d %12.1f %16.2f%n", ships, heap / 1024, build, changeTime(board, changes));
+        }
+    }
+
+    /**
+     * Builds a board with a fleet.
+     * <p>
+     * @param fleet The number of ships of each length from 2
+     * @return The board
+     */
+    private static Board build(int[] fleet) {
+        Board board = new IndependentBoard(BOARD_SIZE, BOARD_SIZE);
+
+        for (int i = 0; i < fleet.length; i++) {
+            for (int n = 0; n < fleet[i]; n++) {
+                Ship ship = new BasicShip();
+
+                for (int j = 0; j < i + 2; j++) {
+                    if (n % 2 == 0) {
+                        ship.addSquare(0, j);
+                    } else {
+                        ship.addSquare(j, 0);
+                    }
+                }
+                board.addShip(ship);
+            }
+        }
+
+        return board;
+    }
+
+    /**
+     * Times state changes on random squares, after warming up.
+     * <p>
+     * @param board The board
+     * @param changes The number of changes to time
+     * @return The mean time of a change in microseconds
+     */
+    private static double changeTime(Board board, int changes) {
+        Random random = new Random(38);
+
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < changes; i++) {
+                int x = random.nextInt(BOARD_SIZE);
+                int y = random.nextInt(BOARD_SIZE);
+
+                board.stateChange(x, y, board.getState(x, y) == Board.SquareState.MISS
+                        ? Board.SquareState.OPEN : Board.SquareState.MISS);
+            }
+
+            if (pass == 1) {
+                return (System.nanoTime() - start) / 1e3 / changes;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Measures the heap in use after collecting garbage.
+     * <p>
+     * @return The used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
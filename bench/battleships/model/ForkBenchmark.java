@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Board set up benchmark for {@code IndependentBoard.fork()}.
+ * <p>
+ * Makes boards ready for a new game with the standard fleet in two ways: by
+ * making a new board and adding the ships, which builds the placement tables,
+ * and by forking a board that already has them. The mean time to make a board
+ * is measured.
+ * <p>
+ * Usage: {@code ForkBenchmark [boards]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class ForkBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {10, 20, 40};
+    /**
+     * The lengths of the ships of the standard fleet.
+     */
+    private static final int[] FLEET = {5, 4, 3, 3, 2};
+
+    /**
+     * The sum of the counts read, so the boards are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        List<Ship> fleet = new ArrayList<>();
+        for (int length : FLEET) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < length; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+
+        System.out.printf("%6s %16s %16s%n", "board", "new (us)", "fork (us)");
+
+        for (int size : BOARD_SIZES) {
+            IndependentBoard template = build(size, fleet);
+            template.markShared();
+            int count = Math.max(boards * 100 / (size * size), 100);
+            double[] times = new double[2];
+
+            //First pass warms up
+            for (int pass = 0; pass < 2; pass++) {
+                long sum = 0;
+                long start = System.nanoTime();
+
+                for (int i = 0; i < count; i++) {
+                    sum += build(size, fleet).getShipCount(0, 0);
+                }
+
+                long built = System.nanoTime();
+
+                for (int i = 0; i < count; i++) {
+                    sum += template.fork().getShipCount(0, 0);
+                }
+
+                times[0] = (built - start) / 1e3 / count;
+                times[1] = (System.nanoTime() - built) / 1e3 / count;
+                checksum += sum;
+            }
+
+            System.out.printf("%6s %16.2f %16.2f%n", size + "x" + size, times[0], times[1]);
+        }
+    }
+
+    /**
+     * Makes a new board with the fleet on it.
+     * <p>
+     * @param size The size of the board
+     * @param fleet The ships
+     * @return The board
+     */
+    private static IndependentBoard build(int size, List<Ship> fleet) {
+        IndependentBoard board = new IndependentBoard(size, size);
+
+        for (Ship ship : fleet) {
+            board.addShip(ship);
+        }
+
+        return board;
+    }
+}
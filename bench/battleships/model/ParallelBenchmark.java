@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel fold benchmark for {@code IndependentBoard}.
+ * <p>
+ * Reads the probability and ship matrices of a large mixed fleet after each
+ * change of a random square, so every ship has to be folded again. The mean
+ * time of each read is measured. Run it with
+ * {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=N} to see
+ * how it scales with the number of threads.
+ * <p>
+ * Usage: {@code ParallelBenchmark [changes]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class ParallelBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {50, 100, 200};
+    /**
+     * The number of ships in the fleet.
+     */
+    private static final int FLEET_SIZE = 32;
+
+    /**
+     * The sum of all values read, so the reads are not optimized away.
+     */
+    private static volatile double checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        System.out.printf("parallelism %d%n", ForkJoinPool.getCommonPoolParallelism());
+        System.out.printf("%8s %16s %16s%n", "board", "probability (ms)", "ships (ms)");
+
+        for (int size : BOARD_SIZES) {
+            Board board = new IndependentBoard(size, size);
+
+            //Lines and L shapes of 1 to 6 squares
+            for (int i = 0; i < FLEET_SIZE; i++) {
+                Ship ship = new BasicShip();
+
+                for (int j = 0; j <= i % 6; j++) {
+                    ship.addSquare(0, j);
+                }
+                if (i % 4 == 0) {
+                    ship.addSquare(1, 0);
+                }
+                board.addShip(ship);
+            }
+
+            long[] times = new long[2];
+
+            //First pass warms up
+            run(board, size, changes, times);
+            times[0] = 0;
+            times[1] = 0;
+            run(board, size, changes, times);
+
+            System.out.printf("%8s %16.3f %16.3f%n", size + "x" + size,
+                    times[0] / 1e6 / changes, times[1] / 1e6 / changes);
+        }
+    }
+
+    /**
+     * Changes random squares, reading both matrices after each.
+     * <p>
+     * @param board The board
+     * @param size The size of the board
+     * @param changes The number of changes
+     * @param times Where the time spent reading each matrix is added
+     */
+    private static void run(Board board, int size, int changes, long[] times) {
+        Random random = new Random(44);
+        double sum = 0;
+
+        for (int i = 0; i < changes; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+
+            board.stateChange(x, y, board.getState(x, y) == Board.SquareState.MISS
+                    ? Board.SquareState.OPEN : Board.SquareState.MISS);
+
+            long start = System.nanoTime();
+            sum += board.getProbabilityMatrix()[x][y];
+            long probability = System.nanoTime();
+            sum += board.getShipsMatrix()[x][y];
+
+            times[0] += probability - start;
+            times[1] += System.nanoTime() - probability;
+        }
+
+        checksum += sum;
+    }
+}
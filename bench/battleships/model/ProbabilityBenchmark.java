@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Probability matrix benchmark for {@code IndependentBoard}.
+ * <p>
+ * Reads the probability matrix of all ships of the standard fleet many times
+ * while the board is idle, the way hovering and repainting do, and once after
+ * each change of a random square. Single squares are also read while idle,
+ * without making the matrix. The mean time of a read is measured for each.
+ * <p>
+ * Usage: {@code ProbabilityBenchmark [reads]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class ProbabilityBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {10, 20, 40};
+    /**
+     * The lengths of the ships of the standard fleet.
+     */
+    private static final int[] FLEET = {5, 4, 3, 3, 2};
+    /**
+     * The number of reads between each change.
+     */
+    private static final int IDLE_READS = 50;
+
+    /**
+     * The sum of all probabilities read, so the reads are not optimized away.
+     */
+    private static volatile double checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int reads = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        System.out.printf("%6s %16s %16s %16s%n", "board", "changed (us)", "idle (us)", "square (us)");
+
+        for (int size : BOARD_SIZES) {
+            IndependentBoard board = new IndependentBoard(size, size);
+
+            for (int length : FLEET) {
+                Ship ship = new BasicShip();
+
+                for (int j = 0; j < length; j++) {
+                    ship.addSquare(0, j);
+                }
+                board.addShip(ship);
+            }
+
+            long[] times = new long[3];
+            int changes = Math.max(1, reads / IDLE_READS / (size / 10));
+
+            //First passes warm up
+            for (int pass = 0; pass < 5; pass++) {
+                run(board, size, changes, times);
+            }
+            Arrays.fill(times, 0);
+            run(board, size, changes, times);
+
+            System.out.printf("%6s %16.2f %16.2f %16.3f%n", size + "x" + size, times[0] / 1e3 / changes,
+                    times[1] / 1e3 / changes / (IDLE_READS - 1), times[2] / 1e3 / changes / (IDLE_READS - 1));
+        }
+    }
+
+    /**
+     * Changes random squares, reading the probability matrix after each.
+     * <p>
+     * @param board The board
+     * @param size The size of the board
+     * @param changes The number of changes
+     * @param times Where the time spent on the first read after a change, on
+     * the reads of the matrix after it and on reads of single squares after it
+     * is added
+     */
+    private static void run(IndependentBoard board, int size, int changes, long[] times) {
+        Random random = new Random(43);
+        double sum = 0;
+
+        for (int i = 0; i < changes; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+
+            board.stateChange(x, y, board.getState(x, y) == Board.SquareState.MISS
+                    ? Board.SquareState.OPEN : Board.SquareState.MISS);
+
+            long start = System.nanoTime();
+            sum += board.getProbabilityMatrix()[x][y];
+            long changed = System.nanoTime();
+
+            for (int j = 1; j < IDLE_READS; j++) {
+                sum += board.getProbabilityMatrix()[(x + j) % size][y];
+            }
+
+            long matrices = System.nanoTime();
+
+            for (int j = 1; j < IDLE_READS; j++) {
+                sum += board.getProbability((x + j) % size, y);
+            }
+
+            times[0] += changed - start;
+            times[1] += matrices - changed;
+            times[2] += System.nanoTime() - matrices;
+        }
+
+        checksum += sum;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fleet sampling benchmark for {@code FleetSampler}.
+ * <p>
+ * Draws uniform random fleets in two ways: with the sampler, and by picking
+ * a rotation and position for each ship and testing it against a new array
+ * of taken squares, drawing the whole fleet again on an overlap. Both throw
+ * away the same fleets, so only the cost of a fleet differs. The sampler is
+ * then run on a thread for each processor, each with it's own random number
+ * generator. Fleets drawn per second are reported.
+ * <p>
+ * Usage: {@code SamplerBenchmark [fleets]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class SamplerBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {10, 20, 40};
+    /**
+     * The lengths of the ships of the standard fleet.
+     */
+    private static final int[] FLEET = {5, 4, 3, 3, 2};
+
+    /**
+     * The sum of all positions drawn, so the draws are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     * @throws InterruptedException If interrupted while waiting for a thread
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int fleets = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        List<Ship> fleet = new ArrayList<>();
+        for (int length : FLEET) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < length; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+
+        System.out.printf("%6s %16s %16s %16s%n", "board", "naive (/s)", "sampler (/s)",
+                "x" + threads + " threads (/s)");
+
+        for (int size : BOARD_SIZES) {
+            FleetSampler sampler = new FleetSampler(size, size, fleet);
+            double[] rates = new double[3];
+
+            //First pass warms up
+            for (int pass = 0; pass < 2; pass++) {
+                rates[0] = naive(size, fleet, fleets);
+                rates[1] = sampled(sampler, fleets);
+                rates[2] = threaded(sampler, fleets, threads);
+            }
+
+            System.out.printf("%6s %16.0f %16.0f %16.0f%n", size + "x" + size, rates[0], rates[1], rates[2]);
+        }
+    }
+
+    /**
+     * Draws fleets with the sampler.
+     * <p>
+     * @param sampler The sampler
+     * @param fleets The number of fleets
+     * @return The fleets drawn per second
+     */
+    private static double sampled(FleetSampler sampler, int fleets) {
+        Random random = new Random(47);
+        int[] placements = new int[sampler.getFleetSize() * 3];
+        long sum = 0;
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < fleets; i++) {
+            sampler.sample(random, placements);
+            sum += placements[1] + placements[2];
+        }
+
+        double rate = fleets * 1e9 / (System.nanoTime() - start);
+        checksum += sum;
+
+        return rate;
+    }
+
+    /**
+     * Draws fleets with the sampler on a number of threads.
+     * <p>
+     * @param sampler The sampler
+     * @param fleets The number of fleets, shared between the threads
+     * @param threads The number of threads
+     * @return The fleets drawn per second
+     * @throws InterruptedException If interrupted while waiting for a thread
+     */
+    private static double threaded(FleetSampler sampler, int fleets, int threads) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                int[] placements = new int[sampler.getFleetSize() * 3];
+                long sum = 0;
+
+                for (int i = 0; i < fleets / threads; i++) {
+                    sampler.sample(ThreadLocalRandom.current(), placements);
+                    sum += placements[1] + placements[2];
+                }
+
+                checksum += sum;
+            });
+            workers[t].start();
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        return fleets / threads * threads * 1e9 / (System.nanoTime() - start);
+    }
+
+    /**
+     * Draws fleets by testing each ship against a new array of taken squares.
+     * <p>
+     * @param size The size of the board
+     * @param fleet The ships
+     * @param fleets The number of fleets
+     * @return The fleets drawn per second
+     */
+    private static double naive(int size, List<Ship> fleet, int fleets) {
+        Random random = new Random(47);
+        long sum = 0;
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < fleets; i++) {
+            boolean placed = false;
+
+            while (!placed) {
+                boolean[][] taken = new boolean[size][size];
+                placed = true;
+
+                for (int ship = 0; ship < fleet.size() && placed; ship++) {
+                    ShipShape shape = fleet.get(ship).getShape().rotateCWNinety(random.nextInt(4));
+                    int x = random.nextInt(size - shape.getMaxX());
+                    int y = random.nextInt(size - shape.getMaxY());
+
+                    for (Square square : shape) {
+                        placed &= !taken[x + square.getX()][y + square.getY()];
+                    }
+
+                    for (Square square : shape) {
+                        taken[x + square.getX()][y + square.getY()] = true;
+                    }
+
+                    sum += x + y;
+                }
+            }
+        }
+
+        double rate = fleets * 1e9 / (System.nanoTime() - start);
+        checksum += sum;
+
+        return rate;
+    }
+}
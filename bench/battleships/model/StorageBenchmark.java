@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Placement storage benchmark for {@code IndependentBoard}.
+ * <p>
+ * Makes a large board with the standard fleet, whose placement tables hold
+ * millions of placements, and plays random state changes on it while other
+ * garbage is made, the way a long running game does. Reports the time taken
+ * to make the board, the latency of the changes, the time spent in garbage
+ * collection during the changes, and the pause of a full collection
+ * afterwards.
+ * <p>
+ * Run each storage in its own JVM with the same heap settings, for example
+ * {@code -Xmx2g}, so one does not leave garbage for the other.
+ * <p>
+ * Usage: {@code StorageBenchmark [HEAP|OFF_HEAP] [size] [changes]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class StorageBenchmark {
+
+    /**
+     * The lengths of the ships of the standard fleet.
+     */
+    private static final int[] FLEET = {5, 4, 3, 3, 2};
+
+    /**
+     * Keeps the garbage made alive for a while, so it's not all young.
+     */
+    private static final Object[] CHURN = new Object[4096];
+
+    /**
+     * The sum of all counts read, so the reads are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        PlacementStorage storage = args.length > 0 ? PlacementStorage.valueOf(args[0]) : PlacementStorage.HEAP;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int changes = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+        long start = System.nanoTime();
+        IndependentBoard board = new IndependentBoard(size, size, storage);
+
+        for (int length : FLEET) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < length; j++) {
+                ship.addSquare(0, j);
+            }
+            board.addShip(ship);
+        }
+        double build = (System.nanoTime() - start) / 1e6;
+
+        long placements = 0;
+        for (int length : new int[]{5, 4, 3, 2}) {
+            placements += 2L * size * (size - length + 1);
+        }
+
+        //Warm up on the same board
+        play(board, size, changes / 4, new long[changes / 4]);
+
+        long[] latencies = new long[changes];
+        long gcBefore = gcMillis();
+        long countBefore = gcCount();
+
+        play(board, size, changes, latencies);
+
+        long gcTime = gcMillis() - gcBefore;
+        long gcCount = gcCount() - countBefore;
+
+        long fullStart = System.nanoTime();
+        System.gc();
+        double fullPause = (System.nanoTime() - fullStart) / 1e6;
+
+        Arrays.sort(latencies);
+
+        System.out.printf("%s %dx%d, %d placements%n", storage, size, size, placements);
+        System.out.printf("  build          %10.1f ms%n", build);
+        System.out.printf("  change p50     %10.1f us%n", latencies[changes / 2] / 1e3);
+        System.out.printf("  change p99     %10.1f us%n", latencies[changes * 99 / 100] / 1e3);
+        System.out.printf("  change max     %10.1f us%n", latencies[changes - 1] / 1e3);
+        System.out.printf("  gc during      %10d ms in %d collections%n", gcTime, gcCount);
+        System.out.printf("  full gc pause  %10.1f ms%n", fullPause);
+        System.out.printf("  heap used      %10d MiB%n",
+                (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20);
+
+        board.close();
+    }
+
+    /**
+     * Changes random squares, making garbage between changes.
+     * <p>
+     * @param board The board
+     * @param size The size of the board
+     * @param changes The number of changes
+     * @param latencies Where the time of each change is written
+     */
+    private static void play(Board board, int size, int changes, long[] latencies) {
+        Random random = new Random(45);
+        long sum = 0;
+
+        for (int i = 0; i < changes; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+
+            for (int j = 0; j < 16; j++) {
+                CHURN[random.nextInt(CHURN.length)] = new long[64];
+            }
+
+            long start = System.nanoTime();
+            board.stateChange(x, y, board.getState(x, y) == Board.SquareState.MISS
+                    ? Board.SquareState.OPEN : Board.SquareState.MISS);
+            latencies[i] = System.nanoTime() - start;
+
+            sum += board.getShipCount(x, y);
+        }
+
+        checksum += sum;
+    }
+
+    /**
+     * Returns the time spent in garbage collection so far.
+     * <p>
+     * @return The time in milliseconds
+     */
+    private static long gcMillis() {
+        long total = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the number of garbage collections so far.
+     * <p>
+     * @return The number of collections
+     */
+    private static long gcCount() {
+        long total = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+
+        return total;
+    }
+}
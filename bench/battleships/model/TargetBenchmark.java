@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Target count benchmark for {@code IndependentBoard}.
+ * <p>
+ * Clicks random squares through OPEN, MISS and HIT on a board with the
+ * standard fleet. After each click the target counts are brought up to date
+ * in two ways: by reading the changed squares from the board's hit count
+ * index, and by counting the hits of every placement of every ship from
+ * scratch. The mean time of a click for each is measured.
+ * <p>
+ * Usage: {@code TargetBenchmark [clicks]}
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class TargetBenchmark {
+
+    /**
+     * The sizes of the boards to benchmark.
+     */
+    private static final int[] BOARD_SIZES = {10, 20, 40};
+    /**
+     * The lengths of the ships of the standard fleet.
+     */
+    private static final int[] FLEET = {5, 4, 3, 3, 2};
+
+    /**
+     * The sum of all counts read, so the reads are not optimized away.
+     */
+    private static volatile long checksum;
+
+    /**
+     * Runs the benchmark.
+     * <p>
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int clicks = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        System.out.printf("%6s %16s %16s%n", "board", "index (us)", "scratch (us)");
+
+        for (int size : BOARD_SIZES) {
+            double[] times = new double[2];
+
+            for (int scratch = 0; scratch < 2; scratch++) {
+                //First pass warms up
+                for (int pass = 0; pass < 2; pass++) {
+                    times[scratch] = run(size, clicks, scratch == 1);
+                }
+            }
+
+            System.out.printf("%6s %16.2f %16.2f%n", size + "x" + size, times[0], times[1]);
+        }
+    }
+
+    /**
+     * Clicks random squares on a new board, keeping target counts up to date.
+     * <p>
+     * @param size The size of the board
+     * @param clicks The number of clicks
+     * @param scratch {@code true} to count from scratch after each click
+     * @return The mean time of a click in microseconds
+     */
+    private static double run(int size, int clicks, boolean scratch) {
+        Board board = new IndependentBoard(size, size);
+
+        for (int length : FLEET) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < length; j++) {
+                ship.addSquare(0, j);
+            }
+            board.addShip(ship);
+        }
+
+        long[][] counts = new long[size][size];
+        Random random = new Random(41);
+        long sum = 0;
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < clicks; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+
+            board.stateChange(x, y, next(board.getState(x, y)));
+
+            if (scratch) {
+                countFromScratch(board, counts);
+            } else {
+                for (int square : board.pollChangedSquares()) {
+                    counts[square / size][square % size] = board.getTargetCount(square / size, square % size);
+                }
+            }
+
+            sum += counts[x][y];
+        }
+
+        double time = (System.nanoTime() - start) / 1e3 / clicks;
+        checksum += sum;
+
+        return time;
+    }
+
+    /**
+     * Returns the state a click moves a square to.
+     * <p>
+     * @param state The state of the square
+     * @return The next state, in the order OPEN, MISS, HIT
+     */
+    private static Board.SquareState next(Board.SquareState state) {
+        switch (state) {
+            case OPEN:
+                return Board.SquareState.MISS;
+            case MISS:
+                return Board.SquareState.HIT;
+            default:
+                return Board.SquareState.OPEN;
+        }
+    }
+
+    /**
+     * Counts the target counts of every square by trying every placement of
+     * every ship.
+     * <p>
+     * @param board The board
+     * @param counts Where the counts are written
+     */
+    private static void countFromScratch(Board board, long[][] counts) {
+        for (long[] col : counts) {
+            Arrays.fill(col, 0);
+        }
+
+        for (Ship ship : board.getShips()) {
+            for (int r = 0; r < 4; r++) {
+                ShipShape shape = ship.getShape().rotateCWNinety(r);
+
+                for (int x = 0; x < board.getWidth() - shape.getMaxX(); x++) {
+                    for (int y = 0; y < board.getHeight() - shape.getMaxY(); y++) {
+                        int hits = 0;
+                        boolean fits = true;
+
+                        for (int i = 0; i < shape.size() && fits; i++) {
+                            Board.SquareState state = board.getState(x + shape.getX(i), y + shape.getY(i));
+
+                            fits = state == Board.SquareState.OPEN || state == Board.SquareState.HIT;
+                            hits += state == Board.SquareState.HIT ? 1 : 0;
+                        }
+
+                        if (fits && hits > 0) {
+                            for (int i = 0; i < shape.size(); i++) {
+                                counts[x + shape.getX(i)][y + shape.getY(i)] += hits;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.analysis;
+
+import battleships.model.BasicShip;
+import battleships.model.PlacementPrior;
+import battleships.model.Ship;
+import battleships.model.Square;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams logs of completed games and counts where each ship was placed.
+ * <p>
+ * A game log is a text file with one completed game per line. Each line lists
+ * the final placement of every ship in fleet order, as whitespace separated
+ * {@code rotation,x,y} triples. The rotation is the number of clockwise
+ * rotations of the ship and x, y the position of the rotated, normalized ship,
+ * the same keys {@code IndependentBoard} uses for its configurations. Blank
+ * lines and lines starting with {@code #} are skipped.
+ * <p>
+ * <pre>
+ * # carrier battleship submarine cruiser destroyer
+ * 0,0,0 1,2,4 0,9,0 3,5,5 0,7,7
+ * </pre>
+ * <p>
+ * Lines are read in chunks and parsed on a pool of worker threads, each
+ * collecting into it's own {@code PlacementPrior} that are merged at the end.
+ * Only a bounded number of chunks are in flight at any time, so memory use
+ * does not depend on the size of the log. Lines that are malformed or contain
+ * placements outside the board are counted as rejected.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see PlacementPrior
+ * @since v1.1.0
+ */
+public class GameLogAnalyzer {
+
+    /**
+     * The default number of lines parsed as one unit of work.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+    /**
+     * The height of the board.
+     */
+    private final int height;
+    /**
+     * The largest x position of each ship, for each rotation.
+     */
+    private final int[][] maxX;
+    /**
+     * The largest y position of each ship, for each rotation.
+     */
+    private final int[][] maxY;
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+    /**
+     * The number of lines in a chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * Creates an analyzer with a worker for each processor.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships, in the order they appear in the log
+     */
+    public GameLogAnalyzer(int width, int height, List<Ship> fleet) {
+        this(width, height, fleet, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an analyzer.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships, in the order they appear in the log
+     * @param threads The number of worker threads
+     * @param chunkSize The number of lines handed to a worker at a time
+     */
+    public GameLogAnalyzer(int width, int height, List<Ship> fleet, int threads, int chunkSize) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board width/height must be bigger than 0!");
+        }
+
+        if (threads <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Threads and chunk size must be bigger than 0!");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+
+        maxX = new int[fleet.size()][4];
+        maxY = new int[fleet.size()][4];
+
+        for (int i = 0; i < fleet.size(); i++) {
+            for (int rotation = 0; rotation < 4; rotation++) {
+                Square max = fleet.get(i).getShape().rotateCWNinety(rotation).getMaxSquare();
+                maxX[i][rotation] = max.getX();
+                maxY[i][rotation] = max.getY();
+            }
+        }
+    }
+
+    /**
+     * Reads the whole log and returns the collected prior.
+     * <p>
+     * The reader is read to the end but not closed.
+     * <p>
+     * @param log The game log
+     * @return The report containing the prior and throughput
+     * @throws IOException If the log cannot be read
+     */
+    public Report analyze(Reader log) throws IOException {
+        BufferedReader reader = log instanceof BufferedReader ? (BufferedReader) log : new BufferedReader(log, 1 << 16);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        //Bounds the chunks held in memory, whether queued or being parsed
+        Semaphore inFlight = new Semaphore(threads * 2);
+
+        Queue<Partial> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Partial> localPartial = ThreadLocal.withInitial(() -> {
+            Partial partial = new Partial(new PlacementPrior(width, height, maxX.length));
+            partials.add(partial);
+            return partial;
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        long start = System.nanoTime();
+
+        try {
+            String[] chunk = new String[chunkSize];
+            int size = 0;
+
+            for (String line = reader.readLine(); line != null && failure.get() == null; line = reader.readLine()) {
+                chunk[size++] = line;
+
+                if (size == chunkSize) {
+                    submit(pool, inFlight, chunk, size, localPartial, failure);
+                    chunk = new String[chunkSize];
+                    size = 0;
+                }
+            }
+
+            if (size > 0) {
+                submit(pool, inFlight, chunk, size, localPartial, failure);
+            }
+
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing game log!", ex);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw new IOException("Failed to analyze game log!", failure.get());
+        }
+
+        PlacementPrior prior = new PlacementPrior(width, height, maxX.length);
+        long rejected = 0;
+
+        for (Partial partial : partials) {
+            prior.merge(partial.prior);
+            rejected += partial.rejected;
+        }
+
+        return new Report(prior, rejected, System.nanoTime() - start);
+    }
+
+    /**
+     * Hands a chunk of lines to the pool, blocking while too many chunks are
+     * in flight.
+     * <p>
+     * @param pool The worker pool
+     * @param inFlight The permits for chunks in flight
+     * @param chunk The lines
+     * @param size The number of lines used in the chunk
+     * @param localPartial The accumulator of the worker thread
+     * @param failure Holder for the first unexpected failure of a worker
+     * @throws InterruptedException If interrupted while waiting for a permit
+     */
+    private void submit(ExecutorService pool, Semaphore inFlight, String[] chunk, int size,
+            ThreadLocal<Partial> localPartial, AtomicReference<Throwable> failure) throws InterruptedException {
+        inFlight.acquire();
+
+        pool.execute(() -> {
+            try {
+                Partial partial = localPartial.get();
+
+                for (int i = 0; i < size; i++) {
+                    parseLine(chunk[i], partial);
+                }
+            } catch (RuntimeException | Error ex) {
+                failure.compareAndSet(null, ex);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Parses a single game and adds it to the partial prior.
+     * <p>
+     * Placements are only added once the whole line is known to be valid.
+     * <p>
+     * @param line The line of the log
+     * @param partial The accumulator to add to
+     */
+    void parseLine(String line, Partial partial) {
+        int length = line.length();
+        int pos = skipWhitespace(line, 0);
+
+        if (pos == length || line.charAt(pos) == '#') {
+            return;
+        }
+
+        int[] placements = partial.placements;
+
+        for (int ship = 0; ship < maxX.length; ship++) {
+            //rotation,x,y
+            for (int field = 0; field < 3; field++) {
+                int value = 0;
+                int digits = 0;
+
+                //ASCII digits only, as Character.isDigit takes other scripts too
+                while (pos < length && line.charAt(pos) >= '0' && line.charAt(pos) <= '9' && digits < 9) {
+                    value = value * 10 + line.charAt(pos) - '0';
+                    digits++;
+                    pos++;
+                }
+
+                boolean separated = field < 2
+                        ? pos < length && line.charAt(pos) == ','
+                        : pos == length || Character.isWhitespace(line.charAt(pos));
+
+                if (digits == 0 || !separated) {
+                    partial.rejected++;
+                    return;
+                }
+
+                placements[ship * 3 + field] = value;
+                pos = field < 2 ? pos + 1 : skipWhitespace(line, pos);
+            }
+
+            int rotation = placements[ship * 3];
+            int x = placements[ship * 3 + 1];
+            int y = placements[ship * 3 + 2];
+
+            if (rotation > 3 || x < 0 || y < 0 || x >= width - maxX[ship][rotation] || y >= height - maxY[ship][rotation]) {
+                partial.rejected++;
+                return;
+            }
+        }
+
+        if (pos != length) {
+            partial.rejected++;
+            return;
+        }
+
+        for (int ship = 0; ship < maxX.length; ship++) {
+            partial.prior.add(ship, placements[ship * 3], placements[ship * 3 + 1], placements[ship * 3 + 2]);
+        }
+
+        partial.prior.addRecord();
+    }
+
+    /**
+     * Returns the position of the first non-whitespace character.
+     * <p>
+     * @param line The line
+     * @param pos The position to start from
+     * @return The position, or the length of the line
+     */
+    private static int skipWhitespace(String line, int pos) {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Analyzes a game log of standard games and writes the prior file.
+     * <p>
+     * Usage: {@code GameLogAnalyzer <game log> <prior file> [threads]}
+     * <p>
+     * The fleet is the standard fleet of {@code CommandCenterController}.
+     * <p>
+     * @param args the command line arguments
+     * @throws IOException If the log cannot be read or the prior written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameLogAnalyzer <game log> <prior file> [threads]");
+            System.exit(1);
+        }
+
+        List<Ship> fleet = new ArrayList<>();
+        for (int size : new int[]{5, 4, 3, 3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GameLogAnalyzer analyzer = new GameLogAnalyzer(10, 10, fleet, threads, DEFAULT_CHUNK_SIZE);
+
+        Report report;
+        try (Reader log = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            report = analyzer.analyze(log);
+        }
+
+        try (OutputStream out = Files.newOutputStream(Paths.get(args[1]))) {
+            report.getPrior().write(out);
+        }
+
+        System.out.println(report);
+    }
+
+    /**
+     * The result of analyzing a game log.
+     */
+    public static final class Report {
+
+        /**
+         * The collected prior.
+         */
+        private final PlacementPrior prior;
+        /**
+         * The number of lines rejected.
+         */
+        private final long rejected;
+        /**
+         * The time taken to analyze the log.
+         */
+        private final long elapsedNanos;
+
+        /**
+         * Setter constructor.
+         * <p>
+         * @param prior The collected prior
+         * @param rejected The number of lines rejected
+         * @param elapsedNanos The time taken
+         */
+        Report(PlacementPrior prior, long rejected, long elapsedNanos) {
+            this.prior = prior;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the collected prior.
+         * <p>
+         * @return The prior
+         */
+        public PlacementPrior getPrior() {
+            return prior;
+        }
+
+        /**
+         * Gets the number of games counted into the prior.
+         * <p>
+         * @return The number of games
+         */
+        public long getRecords() {
+            return prior.getRecords();
+        }
+
+        /**
+         * Gets the number of lines that were malformed or out of the board.
+         * <p>
+         * @return The number of rejected lines
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Gets the time taken to analyze the log.
+         * <p>
+         * @return The time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Gets the throughput of the analysis, counting rejected lines.
+         * <p>
+         * @return The number of records per second
+         */
+        public double getRecordsPerSecond() {
+            return elapsedNanos > 0 ? (getRecords() + rejected) * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d records, %d rejected in %.3f s (%.0f records/s)",
+                    getRecords(), rejected, elapsedNanos / 1e9, getRecordsPerSecond());
+        }
+    }
+
+    /**
+     * The accumulator of a single worker thread.
+     */
+    static final class Partial {
+
+        /**
+         * The prior collected by the worker.
+         */
+        final PlacementPrior prior;
+        /**
+         * The number of lines rejected by the worker.
+         */
+        long rejected;
+        /**
+         * Scratch space for the placements of the line being parsed.
+         */
+        final int[] placements;
+
+        /**
+         * Creates an accumulator.
+         * <p>
+         * @param prior The empty prior to collect into
+         */
+        Partial(PlacementPrior prior) {
+            this.prior = prior;
+            placements = new int[prior.getNumShips() * 3];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+
+/**
+ * Offline analysis of historical games.
+ * <p>
+ * Classes in this package process logs of completed games into data that can
+ * be fed back into the boards, such as placement priors.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+package battleships.analysis;
@@ -0,0 +1,469 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.cli;
+
+import battleships.controller.CommandCenterController;
+import battleships.controller.GameDefinition;
+import battleships.model.Board;
+import battleships.model.Ship;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plays any number of games from a stream of commands, without the GUI.
+ * <p>
+ * Each line of the input is one command for one game, as whitespace separated
+ * words, starting with the ID of the game. Blank lines and lines starting with
+ * {@code #} are skipped. The commands are:
+ * <p>
+ * <ul>
+ * <li>{@code <game> new [width height]} starts a game with the fleet of
+ * the batch, on the board of the batch unless a size is given, of at most
+ * {@value #MAX_SQUARES} squares. The ID must not be in play already</li>
+ * <li>{@code <game> miss|hit|open <x> <y>} sets the state of a square</li>
+ * <li>{@code <game> sink <ship> <rotation> <x> <y>} sinks a ship, given by
+ * its index in the fleet: in the standard fleet, 0 the aircraft carrier to 4
+ * the destroyer</li>
+ * <li>{@code <game> raise <ship>} raises a sunk ship</li>
+ * <li>{@code <game> target on|off} turns target mode on or off</li>
+ * <li>{@code <game> best} recommends the next shot</li>
+ * <li>{@code <game> heatmap} writes the data of every square</li>
+ * <li>{@code <game> end} ends the game</li>
+ * </ul>
+ * <p>
+ * Only {@code best}, {@code heatmap} and failed commands write a line, each
+ * starting with the ID of the game:
+ * <p>
+ * <pre>
+ * g1 best 4 5 48
+ * g1 heatmap 10 10 12 17 ...
+ * g1 error Square is sunk!
+ * </pre>
+ * <p>
+ * {@code best} gives the x and y of the open square with the most
+ * placements, or target counts in target mode, followed by that count, or
+ * {@code none} if no square is open. {@code heatmap} gives the width and
+ * height, then the value of each square, {@code x * height + y} in order, 0
+ * for squares that are not open. A failed command leaves its game as it was.
+ * <p>
+ * Every game keeps its controller between commands, so the engine stays warm
+ * however long a batch is. The boards of new games are forked from a board
+ * made once for each definition, so no placement tables are built for them,
+ * and games of the same size share their tables. Output
+ * is flushed whenever no more input is waiting, so the stream can also be
+ * used interactively.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see CommandCenterController
+ * @since v1.1.0
+ */
+public class BatchMode {
+
+    /**
+     * The largest number of squares of a board size given to {@code new}.
+     */
+    public static final int MAX_SQUARES = 1 << 16;
+
+    /**
+     * The number of other board sizes whose definitions are kept.
+     */
+    private static final int MAX_SIZES = 8;
+
+    /**
+     * The board size, fleet and engine of games started without a size.
+     */
+    private final GameDefinition definition;
+    /**
+     * The definitions of games started with other sizes, keyed by
+     * {@code width + "x" + height}, least recently used first.
+     * <p>
+     * Only {@code MAX_SIZES} are kept. Games still in play keep the tables of
+     * a definition dropped from the map, which are freed with the last of
+     * them.
+     */
+    private final Map<String, GameDefinition> definitions;
+    /**
+     * The controller of each game in play, by game ID.
+     */
+    private final Map<String, CommandCenterController> games;
+    /**
+     * The number of commands read.
+     */
+    private long commands;
+
+    /**
+     * Creates a batch with no games, playing standard games.
+     */
+    public BatchMode() {
+        this(GameDefinition.standard());
+    }
+
+    /**
+     * Creates a batch with no games, playing games of the given definition.
+     * <p>
+     * @param definition The board size, fleet and engine of the games
+     */
+    public BatchMode(GameDefinition definition) {
+        this.definition = definition;
+
+        definitions = new LinkedHashMap<String, GameDefinition>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2208851357935683529L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GameDefinition> eldest) {
+                return size() > MAX_SIZES;
+            }
+        };
+        games = new HashMap<>();
+    }
+
+    /**
+     * Reads commands to the end of the input, writing the results.
+     * <p>
+     * Games still in play at the end are kept, so more input can be run.
+     * Neither stream is closed.
+     * <p>
+     * @param in The commands
+     * @param out Where the results are written
+     * @throws IOException If reading or writing fails
+     */
+    public void run(Reader in, Writer out) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+        StringBuilder result = new StringBuilder();
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            result.setLength(0);
+            execute(line, result);
+
+            if (result.length() > 0) {
+                out.write(result.toString());
+            }
+
+            if (!reader.ready()) {
+                out.flush();
+            }
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Runs a single command.
+     * <p>
+     * @param line The line of the command
+     * @param result Where the output of the command is added, one line
+     * ending with a new line, if it has any
+     */
+    void execute(String line, StringBuilder result) {
+        String trimmed = line.trim();
+
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return;
+        }
+
+        commands++;
+
+        String[] words = trimmed.split("\\s+");
+        String id = words[0];
+
+        try {
+            if (words.length < 2) {
+                throw new IllegalArgumentException("Missing command!");
+            }
+
+            String command = words[1];
+
+            if (command.equals("new")) {
+                start(id, words);
+                return;
+            }
+
+            CommandCenterController controller = games.get(id);
+            if (controller == null) {
+                throw new IllegalArgumentException("No such game!");
+            }
+
+            switch (command) {
+                case "miss":
+                    setState(controller, words, Board.SquareState.MISS);
+                    break;
+                case "hit":
+                    setState(controller, words, Board.SquareState.HIT);
+                    break;
+                case "open":
+                    setState(controller, words, Board.SquareState.OPEN);
+                    break;
+                case "sink":
+                    expect(words, 6);
+                    if (!controller.sinkShip(ship(controller, words[2]), integer(words[3]), integer(words[4]),
+                            integer(words[5]))) {
+                        throw new IllegalArgumentException("Ship cannot be sunk there!");
+                    }
+                    break;
+                case "raise":
+                    expect(words, 3);
+                    controller.raiseShip(ship(controller, words[2]));
+                    break;
+                case "target":
+                    expect(words, 3);
+                    if (!words[2].equals("on") && !words[2].equals("off")) {
+                        throw new IllegalArgumentException("Target mode must be on or off!");
+                    }
+                    controller.setTargetMode(words[2].equals("on"));
+                    break;
+                case "best":
+                    expect(words, 2);
+                    best(id, controller, result);
+                    break;
+                case "heatmap":
+                    expect(words, 2);
+                    heatmap(id, controller, result);
+                    break;
+                case "end":
+                    expect(words, 2);
+                    games.remove(id);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command!");
+            }
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            result.append(id).append(" error ").append(ex.getMessage()).append('\n');
+        }
+    }
+
+    /**
+     * Starts a game.
+     * <p>
+     * @param id The ID of the game
+     * @param words The words of the command
+     */
+    private void start(String id, String[] words) {
+        if (words.length != 2 && words.length != 4) {
+            throw new IllegalArgumentException("Malformed command!");
+        }
+
+        if (games.containsKey(id)) {
+            throw new IllegalArgumentException("Game already in play!");
+        }
+
+        GameDefinition game = definition;
+
+        if (words.length == 4) {
+            int width = integer(words[2]);
+            int height = integer(words[3]);
+
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Board width/height must be bigger than 0!");
+            }
+
+            //Checked before anything the size of the board is made
+            if ((long) width * height > MAX_SQUARES) {
+                throw new IllegalArgumentException("Board must not have more than " + MAX_SQUARES + " squares!");
+            }
+
+            if (width != definition.getWidth() || height != definition.getHeight()) {
+                game = definitions.computeIfAbsent(width + "x" + height,
+                        (size) -> new GameDefinition(width, height, definition.getFleet(), definition.getStorage()));
+            }
+        }
+
+        CommandCenterController controller = new CommandCenterController(game);
+        //A game seldom goes back to an earlier state
+        controller.setCacheCapacity(0);
+
+        games.put(id, controller);
+    }
+
+    /**
+     * Sets the state of a square by cycling it through OPEN, MISS and HIT.
+     * <p>
+     * @param controller The controller of the game
+     * @param words The words of the command
+     * @param state The new state
+     */
+    private static void setState(CommandCenterController controller, String[] words, Board.SquareState state) {
+        expect(words, 4);
+
+        int x = integer(words[2]);
+        int y = integer(words[3]);
+
+        if (x < 0 || x >= controller.getBoardWidth() || y < 0 || y >= controller.getBoardHeight()) {
+            throw new IllegalArgumentException("Square out of board!");
+        }
+
+        Board.SquareState current = controller.getStateData()[x][y];
+
+        if (current == Board.SquareState.SUNK) {
+            throw new IllegalStateException("Square is sunk!");
+        }
+
+        //OPEN > MISS > HIT > OPEN
+        int cycles = Math.floorMod(state.ordinal() - current.ordinal(), 3);
+
+        if (cycles > 0) {
+            int[] xs = {x, x};
+            int[] ys = {y, y};
+            controller.stateChanges(xs, ys, cycles);
+        }
+    }
+
+    /**
+     * Writes the open square with the highest data.
+     * <p>
+     * @param id The ID of the game
+     * @param controller The controller of the game
+     * @param result Where the output is added
+     */
+    private static void best(String id, CommandCenterController controller, StringBuilder result) {
+        double[][] data = controller.getData();
+        Board.SquareState[][] states = controller.getStateData();
+        int bestX = -1;
+        int bestY = -1;
+
+        for (int x = 0; x < data.length; x++) {
+            for (int y = 0; y < data[x].length; y++) {
+                if (states[x][y] == Board.SquareState.OPEN && (bestX < 0 || data[x][y] > data[bestX][bestY])) {
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+        }
+
+        result.append(id).append(" best ");
+
+        if (bestX < 0) {
+            result.append("none");
+        } else {
+            result.append(bestX).append(' ').append(bestY).append(' ')
+                    .append(controller.getSqaureVal(bestX, bestY));
+        }
+
+        result.append('\n');
+    }
+
+    /**
+     * Writes the data of every square.
+     * <p>
+     * @param id The ID of the game
+     * @param controller The controller of the game
+     * @param result Where the output is added
+     */
+    private static void heatmap(String id, CommandCenterController controller, StringBuilder result) {
+        int width = controller.getBoardWidth();
+        int height = controller.getBoardHeight();
+        Board.SquareState[][] states = controller.getStateData();
+
+        result.append(id).append(" heatmap ").append(width).append(' ').append(height);
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                result.append(' ').append(states[x][y] == Board.SquareState.OPEN ? controller.getSqaureVal(x, y) : 0);
+            }
+        }
+
+        result.append('\n');
+    }
+
+    /**
+     * Looks up a ship of the fleet by index.
+     * <p>
+     * @param controller The controller of the game
+     * @param word The index
+     * @return The ship
+     */
+    private static Ship ship(CommandCenterController controller, String word) {
+        int index = integer(word);
+        List<String> names = new ArrayList<>(controller.getShipNames());
+
+        if (index < 0 || index >= names.size()) {
+            throw new IllegalArgumentException("No such ship!");
+        }
+
+        return controller.getShip(names.get(index));
+    }
+
+    /**
+     * Checks the number of words of a command.
+     * <p>
+     * @param words The words of the command
+     * @param count The number of words expected
+     */
+    private static void expect(String[] words, int count) {
+        if (words.length != count) {
+            throw new IllegalArgumentException("Malformed command!");
+        }
+    }
+
+    /**
+     * Parses a number of a command.
+     * <p>
+     * @param word The word
+     * @return The number
+     */
+    private static int integer(String word) {
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Malformed command!", ex);
+        }
+    }
+
+    /**
+     * Gets the number of games in play.
+     * <p>
+     * @return The number of games
+     */
+    public int getGames() {
+        return games.size();
+    }
+
+    /**
+     * Gets the number of commands read, not counting blank lines and
+     * comments.
+     * <p>
+     * @return The number of commands
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    /**
+     * Runs commands from standard input, writing results to standard output.
+     * <p>
+     * Usage: {@code BatchMode [definition]}
+     * <p>
+     * Standard games are played unless a definition file is given.
+     * <p>
+     * The number of commands and the time taken are written to standard
+     * error at the end.
+     * <p>
+     * @param args the command line arguments
+     * @throws IOException If reading or writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        BatchMode batch = new BatchMode(args.length > 0 ? GameDefinition.load(Paths.get(args[0]))
+                : GameDefinition.standard());
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+
+        long start = System.nanoTime();
+        batch.run(new InputStreamReader(System.in, StandardCharsets.UTF_8), out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.printf("%d commands in %.1f s (%.0f commands/s)%n", batch.getCommands(), seconds,
+                batch.getCommands() / seconds);
+    }
+}
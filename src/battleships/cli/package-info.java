@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+
+/**
+ * Headless use of the Battleships calculator.
+ * <p>
+ * Classes in this package drive the controllers from text streams rather than
+ * the GUI, so that many games can be piped through one JVM.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ * @see BatchMode
+ */
+package battleships.cli;
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import battleships.model.Board;
+import battleships.model.Ship;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * An immutable copy of the results of a {@code CommandCenterController}.
+ * <p>
+ * Snapshots are taken after the board changes and can be read from any
+ * thread, such as the GUI thread, while the controller moves on.
+ * <p>
+ * The arrays returned are owned by the snapshot and must not be modified.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see CommandCenterController#snapshot()
+ * @since v1.1.0
+ */
+public final class BoardSnapshot {
+
+    /**
+     * The normalized data.
+     */
+    private final double[][] data;
+    /**
+     * The states of the squares.
+     */
+    private final Board.SquareState[][] states;
+    /**
+     * The largest raw value.
+     */
+    private final long max;
+    /**
+     * The ships that are sunk.
+     */
+    private final Set<Ship> sunk;
+
+    /**
+     * Setter constructor, the arguments are not copied.
+     * <p>
+     * @param data The normalized data
+     * @param states The states of the squares
+     * @param max The largest raw value
+     * @param sunk The ships that are sunk
+     */
+    BoardSnapshot(double[][] data, Board.SquareState[][] states, long max, Set<Ship> sunk) {
+        this.data = data;
+        this.states = states;
+        this.max = max;
+        this.sunk = Collections.unmodifiableSet(sunk);
+    }
+
+    /**
+     * Returns the data to be shown on the display panel.
+     * <p>
+     * @return The numerical data from 0 to 1
+     * @see CommandCenterController#getData()
+     */
+    public double[][] getData() {
+        return data;
+    }
+
+    /**
+     * Returns the matrix for the states of the squares on the board.
+     * <p>
+     * @return The state matrix
+     */
+    public Board.SquareState[][] getStates() {
+        return states;
+    }
+
+    /**
+     * Returns the maximum result in the result matrix.
+     * <p>
+     * @return The maximum value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the value of the data at a certain square.
+     * <p>
+     * @param x The x position of the square.
+     * @param y The y position of the square.
+     * @return The data value.
+     * @see CommandCenterController#getSqaureVal(int, int)
+     */
+    public long getSquareVal(int x, int y) {
+        return Math.round(data[x][y] * max);
+    }
+
+    /**
+     * Checks if the ship was sunk when the snapshot was taken.
+     * <p>
+     * @param ship The original non-rotated ship object
+     * @return {@code true} if the ship was sunk, {@code false} otherwise
+     */
+    public boolean isSunk(Ship ship) {
+        return sunk.contains(ship);
+    }
+}
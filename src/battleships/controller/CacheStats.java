@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+/**
+ * The statistics of the result cache of a {@code CommandCenterController} at
+ * a point in time.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see CommandCenterController#getCacheStats()
+ * @since v1.1.0
+ */
+public final class CacheStats {
+
+    /**
+     * The number of lookups that found an entry.
+     */
+    private final long hits;
+    /**
+     * The number of lookups that found no entry.
+     */
+    private final long misses;
+    /**
+     * The number of entries evicted.
+     */
+    private final long evictions;
+    /**
+     * The number of entries.
+     */
+    private final int size;
+    /**
+     * The largest number of entries kept.
+     */
+    private final int capacity;
+
+    /**
+     * Setter constructor.
+     * <p>
+     * @param hits The number of lookups that found an entry
+     * @param misses The number of lookups that found no entry
+     * @param evictions The number of entries evicted
+     * @param size The number of entries
+     * @param capacity The largest number of entries kept
+     */
+    CacheStats(long hits, long misses, long evictions, int size, int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the number of lookups that found an entry.
+     * <p>
+     * @return The number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no entry.
+     * <p>
+     * @return The number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for others.
+     * <p>
+     * @return The number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     * <p>
+     * @return The size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the largest number of entries kept.
+     * <p>
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the fraction of lookups that found an entry.
+     * <p>
+     * @return The hit rate from 0 to 1, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%%), %d evictions, %d/%d entries",
+                hits, misses, getHitRate() * 100, evictions, size, capacity);
+    }
+}
@@ -4,10 +4,16 @@
  */
 package battleships.controller;
 
-import battleships.model.BasicShip;
+import battleships.metrics.EngineMetrics;
+import battleships.metrics.HeatmapRecalculationEvent;
 import battleships.model.Board;
 import battleships.model.IndependentBoard;
+import battleships.model.PlacementPrior;
 import battleships.model.Ship;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -17,12 +23,25 @@ import java.util.Set;
  * <p>
  * This class links up the GUI to the board objects models.
  * <p>
+ * Methods that read or change the board are synchronized, so the board may be
+ * updated on a background thread. Results that need to be read while the board
+ * changes should be taken with {@code snapshot()}.
+ * <p>
  * @author Shen Yichen <2007.yichen@gmail.com>
  * @since v1.0.0
  * @see battleships.gui.CommandCenter
  */
 public class CommandCenterController {
 
+    /**
+     * The number of board states whose results are cached by default.
+     * <p>
+     * Caching is off by default, as keeping a result costs a copy of the whole
+     * board. Turn it on with {@link #setCacheCapacity(int)} where the board
+     * often returns to earlier states.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 0;
+
     /**
      * The game board.
      */
@@ -44,7 +63,38 @@ public class CommandCenterController {
     /**
      * The largest value for raw data in the data matrix.
      */
-    private int maxResult;
+    private long maxResult;
+    /**
+     * The raw data of each square, 0 for squares that are not open.
+     * <p>
+     * Indexed by {@code x * height + y}, the same way the board reports
+     * changed squares.
+     */
+    private MaxTree rawData;
+    /**
+     * The largest raw value the cache was last normalized with.
+     */
+    private double rawMax;
+    /**
+     * Whether the data is calculated with placement weights.
+     */
+    private boolean weighted;
+    /**
+     * Whether the data is the log of the joint placement counts.
+     */
+    private boolean logScale;
+    /**
+     * Whether target counts are shown while there are unresolved hits.
+     */
+    private boolean targetMode;
+    /**
+     * Whether the cache holds target counts.
+     */
+    private boolean targeting;
+    /**
+     * The results of recent board states, keyed by state hash.
+     */
+    private final TranspositionCache<CachedResult> cache;
 
     /**
      * Creates a standard battleship game.
@@ -57,24 +107,89 @@ public class CommandCenterController {
      * <li>Cruiser (1x3)
      * <li>Destroyer (1x2)
      * </ul>
+     * <p>
+     * Standard games share one set of placement tables.
+     *
+     * @see GameDefinition#standard()
      */
     public CommandCenterController() {
-        board = new IndependentBoard(10, 10);
+        this(GameDefinition.standard());
+    }
 
-        ships = new LinkedHashMap<>();
+    /**
+     * Creates a game from a definition.
+     * <p>
+     * The board is forked from the one kept by the definition, so games with
+     * the same definition share its placement tables and none are built here
+     * after the first.
+     * <p>
+     * @param definition The board size, fleet and engine of the game
+     * @throws IllegalArgumentException If a ship does not fit on the board
+     * @since v1.1.0
+     */
+    public CommandCenterController(GameDefinition definition) {
+        this(definition.newBoard(), definition.getFleet());
+    }
 
-        int[] shipSizes = {5, 4, 3, 3, 2};
-        String[] shipNames = {"Aircraft carrier", "Battleship", "Submarine", "Cruiser", "Destroyer"};
+    /**
+     * Creates a game on a board of the given size with the given ships.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships by name, in the order they are listed
+     * @throws IllegalArgumentException If the board size is not positive or a
+     * ship is listed twice
+     * @since v1.1.0
+     */
+    public CommandCenterController(int width, int height, Map<String, Ship> fleet) {
+        this(newBoard(width, height, fleet.values()), fleet);
+    }
 
-        for (int i = 0; i < shipNames.length; i++) {
-            Ship newShip = new BasicShip();
+    /**
+     * Creates a game on a board that already holds the ships.
+     * <p>
+     * The board is taken in whatever state it is in, such as a fork of a board
+     * shared by many games, and should only be changed through the controller
+     * from then on.
+     * <p>
+     * @param board The board
+     * @param fleet The ships by name, in the order they are listed
+     * @throws IllegalArgumentException If a ship is not on the board
+     * @see IndependentBoard#fork()
+     * @since v1.1.0
+     */
+    public CommandCenterController(Board board, Map<String, Ship> fleet) {
+        Set<Ship> onBoard = Collections.newSetFromMap(new IdentityHashMap<>());
+        onBoard.addAll(board.getShips());
 
-            for (int j = 0; j < shipSizes[i]; j++) {
-                newShip.addSquare(0, j);
+        for (Ship ship : fleet.values()) {
+            if (!onBoard.contains(ship)) {
+                throw new IllegalArgumentException("Ship not on board!");
             }
-            board.addShip(newShip);
-            ships.put(shipNames[i], newShip);
         }
+
+        this.board = board;
+
+        ships = new LinkedHashMap<>(fleet);
+        cache = new TranspositionCache<>(DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Makes a board with ships on it.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships
+     * @return The board
+     */
+    private static Board newBoard(int width, int height, Collection<Ship> fleet) {
+        Board board = new IndependentBoard(width, height);
+
+        for (Ship ship : fleet) {
+            board.addShip(ship);
+        }
+
+        return board;
     }
 
     /**
@@ -132,7 +247,7 @@ public class CommandCenterController {
      * @return The numerical data to display
      * @see #recalculate()
      */
-    public double[][] getData() {
+    public synchronized double[][] getData() {
         if (resultCache == null) {
             recalculate();
         }
@@ -148,7 +263,7 @@ public class CommandCenterController {
      * <p>
      * @return The maximum value in the result matrix
      */
-    public int getMax() {
+    public synchronized long getMax() {
         if (resultCache == null) {
             recalculate();
         }
@@ -165,12 +280,12 @@ public class CommandCenterController {
      * @param y The y position of the square.
      * @return The data value.
      */
-    public int getSqaureVal(int x, int y) {
+    public synchronized long getSqaureVal(int x, int y) {
         if (resultCache == null) {
             recalculate();
         }
 
-        return (int) Math.round(resultCache[x][y] * maxResult);
+        return Math.round(resultCache[x][y] * maxResult);
     }
 
     /**
@@ -178,13 +293,120 @@ public class CommandCenterController {
      * <p>
      * @return The state matrix
      */
-    public Board.SquareState[][] getStateData() {
+    public synchronized Board.SquareState[][] getStateData() {
         if (stateCache == null) {
             recalculate();
         }
         return stateCache;
     }
 
+    /**
+     * Weights ship placements with the given historical prior.
+     * <p>
+     * The ships of the prior are matched by the order of the ships in this
+     * game. Supplying null goes back to counting placements.
+     * <p>
+     * The cache is recalculated afterwards.
+     * <p>
+     * @param prior The placement prior or null
+     * @throws IllegalArgumentException If the prior was collected on a
+     * different board or fleet
+     */
+    public synchronized void setPlacementPrior(PlacementPrior prior) {
+        if (prior != null && (prior.getWidth() != board.getWidth()
+                || prior.getHeight() != board.getHeight()
+                || prior.getNumShips() != ships.size())) {
+            throw new IllegalArgumentException("Prior does not match the board or fleet!");
+        }
+
+        int i = 0;
+        for (Ship ship : ships.values()) {
+            board.setPlacementWeights(ship, prior == null ? null : prior.forShip(i++));
+        }
+
+        weighted = prior != null;
+
+        //Every value changes
+        resultCache = null;
+        cache.clear();
+        recalculate();
+    }
+
+    /**
+     * Sets whether the data shows the natural log of the joint placement
+     * count of each square, rather than its placement count.
+     * <p>
+     * Joint placement counts, the number of ways to place the whole fleet
+     * with a ship on the square, outgrow any counter on large boards, and are
+     * only kept as logs. Every square changes with each state change, so the
+     * whole board is read again each time. Placement weights are not used in
+     * this mode.
+     * <p>
+     * The cache is recalculated afterwards.
+     * <p>
+     * @param logScale {@code true} to show log joint counts
+     * @see Board#getLogJointCount(int, int)
+     */
+    public synchronized void setLogScale(boolean logScale) {
+        this.logScale = logScale;
+
+        resultCache = null;
+        cache.clear();
+        recalculate();
+    }
+
+    /**
+     * Sets whether target counts are shown while any ship is hit but not
+     * sunk.
+     * <p>
+     * In target mode the data of a square is the number of unresolved hits
+     * covered by the placements through it, so placements next to hits stand
+     * out. With no unresolved hits, the usual placement counts are shown. The
+     * whole board is read again when switching between the two.
+     * <p>
+     * The cache is recalculated afterwards.
+     * <p>
+     * @param targetMode {@code true} to show target counts after a hit
+     * @see Board#getTargetCount(int, int)
+     */
+    public synchronized void setTargetMode(boolean targetMode) {
+        this.targetMode = targetMode;
+
+        resultCache = null;
+        cache.clear();
+        recalculate();
+    }
+
+    /**
+     * Sets the number of board states whose results are cached.
+     * <p>
+     * Results are cached by the hash of the board state, so returning to a
+     * recent state, such as by clicking a square through all its states,
+     * restores the results rather than working them out again. Changing the
+     * settings empties the cache. The least recently used results are evicted
+     * when the cache is full. A result is only copied into the cache the
+     * second time its state is seen, so clicks that reach new states still
+     * only cost the squares they change. With caching off, no copies of the
+     * results are taken at all.
+     * <p>
+     * @param capacity The number of states, 0 to turn caching off
+     * @throws IllegalArgumentException If the capacity is negative
+     * @see #DEFAULT_CACHE_CAPACITY
+     */
+    public synchronized void setCacheCapacity(int capacity) {
+        cache.setCapacity(capacity);
+    }
+
+    /**
+     * Returns the hit rate and other statistics of the result cache.
+     * <p>
+     * @return The cache statistics so far
+     * @see #setCacheCapacity(int)
+     */
+    public synchronized CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
     /**
      * Changes the state of the particular square on the board.
      * <p>
@@ -196,17 +418,26 @@ public class CommandCenterController {
      * @param x The X position.
      * @param y The Y position.
      */
-    public void stateChange(int x, int y) {
-        switch (board.getState(x, y)) {
-            case OPEN:
-                board.stateChange(x, y, Board.SquareState.MISS);
-                break;
-            case MISS:
-                board.stateChange(x, y, Board.SquareState.HIT);
-                break;
-            case HIT:
-                board.stateChange(x, y, Board.SquareState.OPEN);
-                break;
+    public synchronized void stateChange(int x, int y) {
+        cycleState(x, y);
+
+        recalculate();
+    }
+
+    /**
+     * Changes the state of a number of squares on the board, as if
+     * {@code stateChange} was called on each in order.
+     * <p>
+     * The cache is recalculated only once, after all the state changes.
+     * <p>
+     * @param xs The X positions
+     * @param ys The Y positions
+     * @param count The number of squares to change
+     * @see #stateChange(int, int)
+     */
+    public synchronized void stateChanges(int[] xs, int[] ys, int count) {
+        for (int i = 0; i < count; i++) {
+            cycleState(xs[i], ys[i]);
         }
 
         recalculate();
@@ -226,7 +457,7 @@ public class CommandCenterController {
      * @return {@code true} if the ship was successfully sunk, {@code false}
      * otherwise
      */
-    public boolean sinkShip(Ship ship, int rotate, int x, int y) {
+    public synchronized boolean sinkShip(Ship ship, int rotate, int x, int y) {
         boolean ret = board.sink(ship, rotate, x, y);
 
         if (ret) {
@@ -243,7 +474,7 @@ public class CommandCenterController {
      * @throws IllegalArgumentException If the ship does not exists or is not
      * sunk
      */
-    public void raiseShip(Ship ship) {
+    public synchronized void raiseShip(Ship ship) {
         board.raise(ship);
         recalculate();
     }
@@ -257,44 +488,267 @@ public class CommandCenterController {
      * @param ship The original non-rotated ship object.
      * @return {@code true} if the ship has been sunk, {@code false} otherwise
      */
-    public boolean isSunk(Ship ship) {
+    public synchronized boolean isSunk(Ship ship) {
         return board.isSunk(ship);
     }
 
+    /**
+     * Takes a copy of the current results.
+     * <p>
+     * The cache is recalculated first if it's empty.
+     * <p>
+     * @return The snapshot
+     */
+    public synchronized BoardSnapshot snapshot() {
+        if (resultCache == null) {
+            recalculate();
+        }
+
+        double[][] data = copyOf(resultCache);
+        Board.SquareState[][] states = copyOf(stateCache);
+
+        Set<Ship> sunk = new HashSet<>();
+        for (Ship ship : ships.values()) {
+            if (board.isSunk(ship)) {
+                sunk.add(ship);
+            }
+        }
+
+        return new BoardSnapshot(data, states, maxResult, sunk);
+    }
+
+    /**
+     * Moves a square to the next state in the order OPEN > MISS > HIT > OPEN,
+     * without recalculating.
+     * <p>
+     * @param x The X position.
+     * @param y The Y position.
+     */
+    private void cycleState(int x, int y) {
+        switch (board.getState(x, y)) {
+            case OPEN:
+                board.stateChange(x, y, Board.SquareState.MISS);
+                break;
+            case MISS:
+                board.stateChange(x, y, Board.SquareState.HIT);
+                break;
+            case HIT:
+                board.stateChange(x, y, Board.SquareState.OPEN);
+                break;
+        }
+    }
+
     /**
      * Recalculates the data in the cache.
      * <p>
-     * If the cache is null, a new array is instantiated.
+     * If the board state has a cached result, it's restored. If the cache is
+     * null, a new array is instantiated and filled. Otherwise only the squares
+     * the board reports as changed are read again, and the result is cached if
+     * the state has been seen before. The whole cache is only
+     * normalized again when the largest value changes.
      */
     private void recalculate() {
-        Integer[][] raw = board.getShipsMatrix();
+        HeatmapRecalculationEvent event = new HeatmapRecalculationEvent();
+        event.begin();
+
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+
+        int[] changed = board.pollChangedSquares();
+        long hash = board.getStateHash();
+        CachedResult cached = cache.get(hash);
+        long updated;
+
+        if (cached != null) {
+            resultCache = copyOf(cached.data);
+            stateCache = copyOf(cached.states);
+            rawData = new MaxTree(cached.raw);
+            rawMax = cached.rawMax;
+            maxResult = cached.max;
+            targeting = cached.targeting;
+
+            updated = (long) board.getWidth() * board.getHeight();
+        } else {
+            updated = update(changed);
+
+            //The copies are only worth taking for states that come back
+            if (cache.seenBefore(hash)) {
+                cache.put(hash, new CachedResult(copyOf(resultCache), copyOf(stateCache), new MaxTree(rawData),
+                        rawMax, maxResult, targeting));
+            }
+        }
 
-        stateCache = board.getStatesMatrix();
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.RECALCULATE, start, allocated, 0, updated);
+        }
 
-        int max = 0;
+        event.commit(board.getWidth(), board.getHeight(), ships.size(), updated, weighted);
+    }
 
-        for (int i = 0; i < raw.length; i++) {
-            for (int j = 0; j < raw[i].length; j++) {
-                if (stateCache[i][j].equals(Board.SquareState.OPEN)) {
-                    max = Math.max(raw[i][j], max);
+    /**
+     * Brings the data in the cache up to date with the board.
+     * <p>
+     * @param changed The squares the board reports as changed
+     * @return The number of squares normalized
+     */
+    private long update(int[] changed) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        long updated;
+
+        boolean target = targetMode && board.getHitCount() > 0;
+
+        if (resultCache == null || logScale || target != targeting) {
+            resultCache = new double[width][height];
+            stateCache = board.getStatesMatrix();
+            rawData = new MaxTree(width * height);
+            targeting = target;
+
+            Number[][] raw = logScale || targeting ? null
+                    : weighted ? board.getWeightedShipsMatrix() : board.getShipsMatrix();
+
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    if (stateCache[i][j].equals(Board.SquareState.OPEN)) {
+                        rawData.set(i * height + j, raw == null ? rawValue(i, j) : raw[i][j].doubleValue());
+                    }
                 }
             }
-        }
 
-        if (resultCache == null) {
-            resultCache = new double[board.getWidth()][board.getHeight()];
-        }
+            rawMax = Double.NaN;
+        } else {
+            for (int index : changed) {
+                int x = index / height;
+                int y = index % height;
+
+                stateCache[x][y] = board.getState(x, y);
 
-        for (int i = 0; i < resultCache.length; i++) {
-            for (int j = 0; j < resultCache[i].length; j++) {
-                if (Double.compare(max, 0) == 0 || !stateCache[i][j].equals(Board.SquareState.OPEN)) {
-                    resultCache[i][j] = 0;
+                if (stateCache[x][y].equals(Board.SquareState.OPEN)) {
+                    rawData.set(index, rawValue(x, y));
                 } else {
-                    resultCache[i][j] = raw[i][j] * 1.0 / max;
+                    rawData.set(index, 0);
                 }
             }
         }
 
-        maxResult = max;
+        double max = rawData.max();
+
+        if (Double.compare(max, rawMax) != 0) {
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    normalize(i, j, max);
+                }
+            }
+
+            rawMax = max;
+            updated = (long) width * height;
+        } else {
+            for (int index : changed) {
+                normalize(index / height, index % height, max);
+            }
+
+            updated = changed.length;
+        }
+
+        //Weighted counts and logs are shown rounded
+        maxResult = Math.round(max);
+
+        return updated;
+    }
+
+    /**
+     * Reads the raw data of an open square from the board.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The log joint count, target count, weighted or plain placement
+     * count, depending on the mode
+     */
+    private double rawValue(int x, int y) {
+        if (logScale) {
+            double count = board.getLogJointCount(x, y);
+
+            //No joint placement covers the square
+            return count > 0 ? count : 0;
+        }
+
+        if (targeting) {
+            return board.getTargetCount(x, y);
+        }
+
+        return weighted ? board.getWeightedShipCount(x, y) : board.getShipCount(x, y);
+    }
+
+    /**
+     * Copies a matrix of data.
+     * <p>
+     * @param data The matrix
+     * @return A deep copy of the matrix
+     */
+    private static double[][] copyOf(double[][] data) {
+        double[][] copy = new double[data.length][];
+
+        for (int i = 0; i < data.length; i++) {
+            copy[i] = data[i].clone();
+        }
+
+        return copy;
+    }
+
+    /**
+     * Copies a matrix of states.
+     * <p>
+     * @param states The matrix
+     * @return A deep copy of the matrix
+     */
+    private static Board.SquareState[][] copyOf(Board.SquareState[][] states) {
+        Board.SquareState[][] copy = new Board.SquareState[states.length][];
+
+        for (int i = 0; i < states.length; i++) {
+            copy[i] = states[i].clone();
+        }
+
+        return copy;
+    }
+
+    /**
+     * Normalizes the raw data of a square into the cache.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @param max The largest raw value
+     */
+    private void normalize(int x, int y, double max) {
+        if (Double.compare(max, 0) == 0) {
+            resultCache[x][y] = 0;
+        } else {
+            resultCache[x][y] = rawData.get(x * board.getHeight() + y) / max;
+        }
+    }
+
+    /**
+     * The results of a board state, kept in the transposition cache.
+     * <p>
+     * The arrays are owned by the entry, and are copied in and out.
+     */
+    private static final class CachedResult {
+
+        final double[][] data;
+        final Board.SquareState[][] states;
+        final MaxTree raw;
+        final double rawMax;
+        final long max;
+        final boolean targeting;
+
+        CachedResult(double[][] data, Board.SquareState[][] states, MaxTree raw, double rawMax, long max,
+                boolean targeting) {
+            this.data = data;
+            this.states = states;
+            this.raw = raw;
+            this.rawMax = rawMax;
+            this.max = max;
+            this.targeting = targeting;
+        }
     }
 }
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import battleships.model.BasicShip;
+import battleships.model.IndependentBoard;
+import battleships.model.PlacementStorage;
+import battleships.model.Ship;
+import battleships.model.Square;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The board size, fleet and engine of a game.
+ * <p>
+ * A definition builds the placement tables of its fleet once, on a board that
+ * is never played on, and every board it makes is a fork of that board. Games
+ * with the same definition so share one set of tables, however many there are,
+ * and making a game costs a copy of the counters rather than a pass over every
+ * placement.
+ * <p>
+ * Definitions can be read from text, one setting per line. Blank lines and
+ * lines starting with {@code #} are skipped:
+ * <p>
+ * <pre>
+ * # The standard game
+ * board 10 10
+ * storage heap
+ * ship Aircraft carrier = 0,0 0,1 0,2 0,3 0,4
+ * ship Destroyer = 0,0 0,1
+ * </pre>
+ * <p>
+ * {@code board} gives the width and height, 10x10 if left out.
+ * {@code storage} gives where the placement tables are kept, {@code heap} or
+ * {@code off-heap}, the heap if left out. Each {@code ship} line gives a name
+ * and the squares of the ship as x,y pairs, in fleet order. Definitions read
+ * from the same settings are the same definition, so processes that read a
+ * definition for every game still build its tables once. Only the
+ * {@value #MAX_READ} definitions read most recently are remembered.
+ * <p>
+ * A definition keeps its tables for as long as it is reachable. Closing it
+ * releases them at once, which matters for tables kept off the heap.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see CommandCenterController#CommandCenterController(GameDefinition)
+ * @since v1.1.0
+ */
+public final class GameDefinition implements AutoCloseable {
+
+    /**
+     * The number of definitions read that are remembered.
+     */
+    public static final int MAX_READ = 16;
+
+    /**
+     * The definitions read most recently, by their settings, least recently
+     * read first.
+     * <p>
+     * Definitions dropped from the map are not closed, as their boards may
+     * still be in use.
+     */
+    private static final Map<String, GameDefinition> READ = new LinkedHashMap<String, GameDefinition>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 4011318574283961283L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GameDefinition> eldest) {
+            return size() > MAX_READ;
+        }
+    };
+    /**
+     * The definition of the standard game.
+     */
+    private static final GameDefinition STANDARD = standardDefinition();
+
+    /**
+     * The board width in squares.
+     */
+    private final int width;
+    /**
+     * The board height in squares.
+     */
+    private final int height;
+    /**
+     * Where the placement tables are kept.
+     */
+    private final PlacementStorage storage;
+    /**
+     * The ships by name, in fleet order.
+     * <p>
+     * These are the ships on every board of the definition.
+     */
+    private final Map<String, Ship> fleet;
+    /**
+     * The board with the fleet and no shots that games are forked from, null
+     * until the first board is made.
+     */
+    private volatile IndependentBoard template;
+    /**
+     * Whether the definition has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a definition.
+     * <p>
+     * The ships are copied, so they may be changed afterwards.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships by name, in the order they are listed
+     * @param storage Where the placement tables are kept
+     * @throws IllegalArgumentException If the board size is not positive, the
+     * fleet or a ship is empty, or the storage is null
+     */
+    public GameDefinition(int width, int height, Map<String, Ship> fleet, PlacementStorage storage) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board width/height must be bigger than 0!");
+        }
+
+        if (fleet.isEmpty()) {
+            throw new IllegalArgumentException("Fleet must not be empty!");
+        }
+
+        if (storage == null) {
+            throw new IllegalArgumentException("Placement storage must not be null!");
+        }
+
+        Map<String, Ship> copies = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Ship> entry : fleet.entrySet()) {
+            if (entry.getValue().numSquares() == 0) {
+                throw new IllegalArgumentException("Ship has no squares!");
+            }
+
+            Ship copy = new BasicShip();
+            for (Square square : entry.getValue()) {
+                copy.addSquare(square.getX(), square.getY());
+            }
+            copies.put(entry.getKey(), copy);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.storage = storage;
+        this.fleet = Collections.unmodifiableMap(copies);
+    }
+
+    /**
+     * Returns the definition of the standard game.
+     * <p>
+     * A standard game comprises of a 10x10 board with the following ships,
+     * kept on the heap:
+     * <ul>
+     * <li>Aircraft Carrier (1x5)
+     * <li>Battleship (1x4)
+     * <li>Submarine (1x3)
+     * <li>Cruiser (1x3)
+     * <li>Destroyer (1x2)
+     * </ul>
+     * <p>
+     * @return The definition
+     */
+    public static GameDefinition standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Makes the definition of the standard game.
+     * <p>
+     * @return The definition
+     */
+    private static GameDefinition standardDefinition() {
+        Map<String, Ship> fleet = new LinkedHashMap<>();
+
+        int[] shipSizes = {5, 4, 3, 3, 2};
+        String[] shipNames = {"Aircraft carrier", "Battleship", "Submarine", "Cruiser", "Destroyer"};
+
+        for (int i = 0; i < shipNames.length; i++) {
+            Ship newShip = new BasicShip();
+
+            for (int j = 0; j < shipSizes[i]; j++) {
+                newShip.addSquare(0, j);
+            }
+            fleet.put(shipNames[i], newShip);
+        }
+
+        return new GameDefinition(10, 10, fleet, PlacementStorage.HEAP);
+    }
+
+    /**
+     * Reads a definition from a file.
+     * <p>
+     * @param file The file, in UTF-8
+     * @return The definition
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file is not a valid definition
+     * @see #read(Reader)
+     */
+    public static GameDefinition load(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a definition.
+     * <p>
+     * The same definition is returned for the same settings, however they are
+     * laid out, so its placement tables are only built once. The reader is
+     * not closed.
+     * <p>
+     * @param in The definition
+     * @return The definition
+     * @throws IOException If reading fails
+     * @throws IllegalArgumentException If the text is not a valid definition
+     */
+    public static GameDefinition read(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+
+        int width = 0;
+        int height = 0;
+        PlacementStorage storage = null;
+        Map<String, Ship> fleet = new LinkedHashMap<>();
+        int number = 0;
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            number++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] words = line.split("\\s+");
+
+            switch (words[0]) {
+                case "board":
+                    if (words.length != 3 || width != 0) {
+                        throw malformed(number);
+                    }
+
+                    width = integer(words[1], number);
+                    height = integer(words[2], number);
+
+                    if (width <= 0 || height <= 0) {
+                        throw malformed(number);
+                    }
+                    break;
+                case "storage":
+                    if (words.length != 2 || storage != null) {
+                        throw malformed(number);
+                    }
+
+                    storage = storage(words[1], number);
+                    break;
+                case "ship":
+                    int equals = line.lastIndexOf('=');
+                    String name = equals < 0 ? "" : line.substring(4, equals).trim();
+
+                    if (name.isEmpty() || fleet.containsKey(name)) {
+                        throw malformed(number);
+                    }
+
+                    fleet.put(name, ship(line.substring(equals + 1), number));
+                    break;
+                default:
+                    throw malformed(number);
+            }
+        }
+
+        if (fleet.isEmpty()) {
+            throw new IllegalArgumentException("Fleet must not be empty!");
+        }
+
+        GameDefinition definition = new GameDefinition(width == 0 ? 10 : width, height == 0 ? 10 : height, fleet,
+                storage == null ? PlacementStorage.HEAP : storage);
+
+        synchronized (READ) {
+            GameDefinition known = READ.get(definition.toString());
+
+            if (known == null || known.isClosed()) {
+                READ.put(definition.toString(), definition);
+                return definition;
+            }
+
+            return known;
+        }
+    }
+
+    /**
+     * Reads a definition from a string.
+     * <p>
+     * @param text The definition
+     * @return The definition
+     * @throws IllegalArgumentException If the text is not a valid definition
+     * @see #read(Reader)
+     */
+    public static GameDefinition parse(String text) {
+        try {
+            return read(new StringReader(text));
+        } catch (IOException ex) {
+            //Strings are always readable
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Reads the squares of a ship.
+     * <p>
+     * @param squares The squares as x,y pairs separated by whitespace
+     * @param number The line number
+     * @return The ship
+     */
+    private static Ship ship(String squares, int number) {
+        Ship ship = new BasicShip();
+
+        for (String pair : squares.trim().split("\\s+")) {
+            int comma = pair.indexOf(',');
+
+            if (comma < 0) {
+                throw malformed(number);
+            }
+
+            ship.addSquare(integer(pair.substring(0, comma), number), integer(pair.substring(comma + 1), number));
+        }
+
+        return ship;
+    }
+
+    /**
+     * Reads a placement storage, such as {@code heap} or {@code off-heap}.
+     * <p>
+     * @param word The storage
+     * @param number The line number
+     * @return The storage
+     */
+    private static PlacementStorage storage(String word, int number) {
+        try {
+            return PlacementStorage.valueOf(word.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException ex) {
+            throw malformed(number);
+        }
+    }
+
+    /**
+     * Reads an integer.
+     * <p>
+     * @param word The integer
+     * @param number The line number
+     * @return The integer
+     */
+    private static int integer(String word, int number) {
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException ex) {
+            throw malformed(number);
+        }
+    }
+
+    /**
+     * Makes the exception thrown for a line that cannot be read.
+     * <p>
+     * @param number The line number
+     * @return The exception
+     */
+    private static IllegalArgumentException malformed(int number) {
+        return new IllegalArgumentException("Malformed definition on line " + number + "!");
+    }
+
+    /**
+     * Makes a board with the fleet and no shots.
+     * <p>
+     * The board is a fork of a board kept by the definition, and shares its
+     * placement tables. The first board made builds the tables.
+     * <p>
+     * @return The board
+     * @throws IllegalArgumentException If a ship does not fit on the board
+     * @throws IllegalStateException If the definition has been closed
+     * @see IndependentBoard#fork()
+     */
+    public IndependentBoard newBoard() {
+        IndependentBoard board = template;
+
+        if (board == null) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Definition already closed!");
+                }
+
+                board = template;
+
+                if (board == null) {
+                    board = new IndependentBoard(width, height, storage);
+
+                    for (Ship ship : fleet.values()) {
+                        board.addShip(ship);
+                    }
+
+                    board.markShared();
+                    template = board;
+                }
+            }
+        }
+
+        return board.fork();
+    }
+
+    /**
+     * Releases the placement tables of the definition.
+     * <p>
+     * Boards made by the definition share its tables, so they must not be
+     * used after it's closed, and no more boards can be made. Closing more
+     * than once has no effect.
+     *
+     * @throws IllegalStateException If this is the standard definition, which
+     * is shared by the whole process
+     */
+    @Override
+    public synchronized void close() {
+        if (this == STANDARD) {
+            throw new IllegalStateException("Standard definition cannot be closed!");
+        }
+
+        closed = true;
+
+        if (template != null) {
+            template.close();
+            template = null;
+        }
+    }
+
+    /**
+     * Checks if the definition is closed.
+     * <p>
+     * @return {@code true} if the definition is closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the board width.
+     * <p>
+     * @return The board width in squares
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the board height.
+     * <p>
+     * @return The board height in squares
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns where the placement tables are kept.
+     * <p>
+     * @return The storage
+     */
+    public PlacementStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Gets the ships, which are on every board made by the definition.
+     * <p>
+     * The ships must not be changed.
+     * <p>
+     * @return The ships by name, in fleet order
+     */
+    public Map<String, Ship> getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Returns the definition in the form it is read in.
+     * <p>
+     * @return The definition
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+
+        text.append("board ").append(width).append(' ').append(height).append('\n');
+        text.append("storage ").append(storage.name().toLowerCase(Locale.ROOT).replace('_', '-')).append('\n');
+
+        for (Map.Entry<String, Ship> entry : fleet.entrySet()) {
+            List<Square> squares = new ArrayList<>();
+            entry.getValue().forEach(squares::add);
+            Collections.sort(squares);
+
+            text.append("ship ").append(entry.getKey()).append(" =");
+            for (Square square : squares) {
+                text.append(' ').append(square.getX()).append(',').append(square.getY());
+            }
+            text.append('\n');
+        }
+
+        return text.toString();
+    }
+}
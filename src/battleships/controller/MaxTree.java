@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+/**
+ * A fixed size array of values that keeps track of its maximum.
+ * <p>
+ * Values are kept in the leaves of a binary tree, with every parent holding
+ * the larger of its children. Setting a value only walks up from its leaf, and
+ * stops as soon as a parent is unchanged, so updates take at most
+ * O(log(size)) and the maximum is read in constant time.
+ * <p>
+ * All values start at 0.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+final class MaxTree {
+
+    /**
+     * The number of values.
+     */
+    private final int size;
+    /**
+     * The tree, with the root at 1 and the values at {@code size} onwards.
+     */
+    private final double[] tree;
+
+    /**
+     * Creates a tree of values set to 0.
+     * <p>
+     * @param size The number of values, at least 1
+     */
+    MaxTree(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be bigger than 0!");
+        }
+
+        this.size = size;
+        tree = new double[size * 2];
+    }
+
+    /**
+     * Creates a copy of a tree.
+     * <p>
+     * @param other The tree to copy
+     */
+    MaxTree(MaxTree other) {
+        size = other.size;
+        tree = other.tree.clone();
+    }
+
+    /**
+     * Gets the number of values.
+     * <p>
+     * @return The size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets a value.
+     * <p>
+     * @param index The index of the value
+     * @return The value
+     */
+    double get(int index) {
+        return tree[index + size];
+    }
+
+    /**
+     * Sets a value, updating the maximum.
+     * <p>
+     * @param index The index of the value
+     * @param value The new value
+     */
+    void set(int index, double value) {
+        int node = index + size;
+        tree[node] = value;
+
+        for (node >>= 1; node > 0; node >>= 1) {
+            double max = Math.max(tree[node * 2], tree[node * 2 + 1]);
+
+            if (Double.compare(tree[node], max) == 0) {
+                //Nothing above changes either
+                break;
+            }
+
+            tree[node] = max;
+        }
+    }
+
+    /**
+     * Gets the largest value.
+     * <p>
+     * @return The maximum
+     */
+    double max() {
+        return tree[1];
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of results keyed by board state hash.
+ * <p>
+ * Clicking a square through OPEN, MISS, HIT and back, or undoing a change,
+ * brings the board back to a state it has been in before. Keeping the results
+ * of recent states by their hash saves working them out again.
+ * <p>
+ * Entries are kept in order of use, and the least recently used entry is
+ * evicted once the cache is full. Hits, misses and evictions are counted for
+ * the life of the cache.
+ * <p>
+ * Keeping a result costs a copy of it, so the hashes of the states looked up
+ * are remembered as well, and only states that come back are worth keeping.
+ * Most states are only seen once, and those cost no copies at all.
+ * <p>
+ * @param <V> The type of the results
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see battleships.model.Board#getStateHash()
+ * @since v1.1.0
+ */
+final class TranspositionCache<V> {
+
+    /**
+     * The number of state hashes remembered for each entry kept.
+     */
+    private static final int SEEN_PER_ENTRY = 4;
+
+    /**
+     * The entries, least recently used first.
+     */
+    private final LinkedHashMap<Long, V> entries;
+    /**
+     * The hashes of the states most recently looked up, least recently used
+     * first.
+     */
+    private final LinkedHashMap<Long, Boolean> seen;
+    /**
+     * The largest number of entries kept.
+     */
+    private int capacity;
+    /**
+     * The number of lookups that found an entry.
+     */
+    private long hits;
+    /**
+     * The number of lookups that found no entry.
+     */
+    private long misses;
+    /**
+     * The number of entries evicted.
+     */
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     * <p>
+     * @param capacity The largest number of entries kept, 0 to keep none
+     * @throws IllegalArgumentException If the capacity is negative
+     */
+    TranspositionCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative!");
+        }
+
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Long, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                if (size() > TranspositionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+        seen = new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > (long) TranspositionCache.this.capacity * SEEN_PER_ENTRY;
+            }
+        };
+    }
+
+    /**
+     * Looks up the result of a state.
+     * <p>
+     * @param hash The state hash
+     * @return The result, or null if it's not cached
+     */
+    V get(long hash) {
+        if (capacity == 0) {
+            return null;
+        }
+
+        V value = entries.get(hash);
+
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return value;
+    }
+
+    /**
+     * Caches the result of a state, evicting the least recently used entry if
+     * the cache is full.
+     * <p>
+     * @param hash The state hash
+     * @param value The result
+     */
+    void put(long hash, V value) {
+        if (capacity > 0) {
+            entries.put(hash, value);
+        }
+    }
+
+    /**
+     * Remembers the hash of a state and tells whether it has been seen before.
+     * <p>
+     * Only results of states seen before need to be kept, as a state looked
+     * up once is rarely looked up again.
+     * <p>
+     * @param hash The state hash
+     * @return {@code true} if the state was seen recently, {@code false} if
+     * it's new or the cache is off
+     */
+    boolean seenBefore(long hash) {
+        if (capacity == 0) {
+            return false;
+        }
+
+        return seen.put(hash, Boolean.TRUE) != null;
+    }
+
+    /**
+     * Tells whether results are kept at all.
+     * <p>
+     * @return {@code false} if the capacity is 0
+     */
+    boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Removes all entries, such as when the results of every state change.
+     * <p>
+     * The counts are kept.
+     */
+    void clear() {
+        entries.clear();
+        seen.clear();
+    }
+
+    /**
+     * Sets the largest number of entries kept, evicting the least recently
+     * used entries over it.
+     * <p>
+     * @param capacity The capacity, 0 to keep none
+     * @throws IllegalArgumentException If the capacity is negative
+     */
+    void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative!");
+        }
+
+        this.capacity = capacity;
+
+        while (entries.size() > capacity) {
+            entries.remove(entries.keySet().iterator().next());
+            evictions++;
+        }
+
+        while (seen.size() > (long) capacity * SEEN_PER_ENTRY) {
+            seen.remove(seen.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Returns the counts of the cache.
+     * <p>
+     * @return The statistics
+     */
+    CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, entries.size(), capacity);
+    }
+}
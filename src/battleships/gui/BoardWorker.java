@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.gui;
+
+import battleships.controller.BoardSnapshot;
+import battleships.controller.CommandCenterController;
+import battleships.model.Ship;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Applies board changes and recalculations on a background thread.
+ * <p>
+ * Changes are queued and applied in order by a single worker thread. Square
+ * clicks that arrive one after another are merged into a single batch, which
+ * is recalculated only once. When new changes are queued while the worker is
+ * recalculating, the result being computed is stale: it is not published and
+ * the new changes are applied on top of it instead.
+ * <p>
+ * Results are published to the GUI as a {@code BoardSnapshot} on the event
+ * dispatch thread, followed by any callbacks of the changes that led to it.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+class BoardWorker {
+
+    /**
+     * The logger for failed changes.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BoardWorker.class.getName());
+
+    /**
+     * The controller changes are applied to.
+     */
+    private final CommandCenterController controller;
+    /**
+     * Receives the results on the event dispatch thread.
+     */
+    private final Consumer<BoardSnapshot> publisher;
+    /**
+     * The worker thread.
+     */
+    private final ExecutorService executor;
+    /**
+     * Changes waiting to be applied.
+     * <p>
+     * Guarded by itself.
+     */
+    private final Deque<Change> queue = new ArrayDeque<>();
+    /**
+     * Whether the worker has been asked to drain the queue.
+     * <p>
+     * Guarded by {@code queue}.
+     */
+    private boolean scheduled;
+
+    /**
+     * Creates a worker.
+     * <p>
+     * @param controller The controller to apply changes to
+     * @param publisher Receives the results on the event dispatch thread
+     */
+    BoardWorker(CommandCenterController controller, Consumer<BoardSnapshot> publisher) {
+        this.controller = controller;
+        this.publisher = publisher;
+
+        executor = Executors.newSingleThreadExecutor((Runnable r) -> {
+            Thread thread = new Thread(r, "BoardWorker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a change of state of a square.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @see CommandCenterController#stateChange(int, int)
+     */
+    void stateChange(int x, int y) {
+        synchronized (queue) {
+            Change last = queue.peekLast();
+
+            if (last instanceof Clicks) {
+                ((Clicks) last).add(x, y);
+            } else {
+                Clicks clicks = new Clicks();
+                clicks.add(x, y);
+                queue.add(clicks);
+            }
+
+            schedule();
+        }
+    }
+
+    /**
+     * Queues the sinking of a ship.
+     * <p>
+     * @param ship The ship to sink
+     * @param rotate The number of rotations clockwise
+     * @param x The x position to reference the position from
+     * @param y The y position to reference the position from
+     * @param onDone Receives whether the ship was sunk, on the event dispatch
+     * thread
+     * @see CommandCenterController#sinkShip(battleships.model.Ship, int, int,
+     * int)
+     */
+    void sinkShip(Ship ship, int rotate, int x, int y, Consumer<Boolean> onDone) {
+        submit((CommandCenterController c) -> {
+            boolean sunk = c.sinkShip(ship, rotate, x, y);
+            return () -> onDone.accept(sunk);
+        });
+    }
+
+    /**
+     * Queues the raising of a sunken ship.
+     * <p>
+     * @param ship The ship to raise
+     * @param onDone Called on the event dispatch thread once raised
+     * @see CommandCenterController#raiseShip(battleships.model.Ship)
+     */
+    void raiseShip(Ship ship, Runnable onDone) {
+        submit((CommandCenterController c) -> {
+            c.raiseShip(ship);
+            return onDone;
+        });
+    }
+
+    /**
+     * Queues a change.
+     * <p>
+     * @param change The change
+     */
+    private void submit(Change change) {
+        synchronized (queue) {
+            queue.add(change);
+            schedule();
+        }
+    }
+
+    /**
+     * Starts draining the queue if the worker is not doing so already.
+     * <p>
+     * Must be called holding the lock on {@code queue}.
+     */
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Applies queued changes until the queue is empty, publishing a snapshot
+     * whenever the results are not superseded by newer changes.
+     */
+    private void drain() {
+        List<Runnable> callbacks = new ArrayList<>();
+
+        while (true) {
+            Change[] changes;
+
+            synchronized (queue) {
+                if (queue.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+
+                changes = queue.toArray(new Change[queue.size()]);
+                queue.clear();
+            }
+
+            for (Change change : changes) {
+                try {
+                    Runnable callback = change.apply(controller);
+
+                    if (callback != null) {
+                        callbacks.add(callback);
+                    }
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Unable to apply board change", ex);
+                }
+            }
+
+            synchronized (queue) {
+                if (!queue.isEmpty()) {
+                    //Stale, apply the newer changes before publishing
+                    continue;
+                }
+            }
+
+            BoardSnapshot snapshot = controller.snapshot();
+            List<Runnable> done = callbacks;
+            callbacks = new ArrayList<>();
+
+            SwingUtilities.invokeLater(() -> {
+                publisher.accept(snapshot);
+                done.forEach(Runnable::run);
+            });
+        }
+    }
+
+    /**
+     * A queued change to the board.
+     */
+    @FunctionalInterface
+    private interface Change {
+
+        /**
+         * Applies the change.
+         * <p>
+         * @param controller The controller to apply the change to
+         * @return A callback to run on the event dispatch thread once the
+         * result is published, or null
+         */
+        Runnable apply(CommandCenterController controller);
+    }
+
+    /**
+     * A batch of square clicks, applied with a single recalculation.
+     */
+    private static final class Clicks implements Change {
+
+        private int[] xs = new int[4];
+        private int[] ys = new int[4];
+        private int count;
+
+        /**
+         * Adds a click to the batch.
+         * <p>
+         * @param x The X position
+         * @param y The Y position
+         */
+        void add(int x, int y) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+            }
+
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+
+        @Override
+        public Runnable apply(CommandCenterController controller) {
+            controller.stateChanges(xs, ys, count);
+            return null;
+        }
+    }
+}
@@ -4,11 +4,18 @@
  */
 package battleships.gui;
 
+import battleships.cli.BatchMode;
+import battleships.controller.BoardSnapshot;
 import battleships.controller.CommandCenterController;
+import battleships.controller.GameDefinition;
+import battleships.metrics.EngineMetrics;
 import battleships.model.Ship;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Set;
 import javax.swing.AbstractAction;
 import javax.swing.DefaultListModel;
@@ -19,6 +26,10 @@ import javax.swing.KeyStroke;
  * The main and standard GUI for displaying and calculating probabilities for a
  * game of battleships.
  * <p>
+ * Changes to the board are applied by a {@code BoardWorker} off the event
+ * dispatch thread. The GUI shows and reads from the latest snapshot the worker
+ * published.
+ * <p>
  * @author Shen Yichen <2007.yichen@gmail.com>
  * @since v1.0.0
  */
@@ -35,6 +46,14 @@ public class CommandCenter extends javax.swing.JFrame {
      * The controller for this GUI.
      */
     private final CommandCenterController controller;
+    /**
+     * Applies board changes in the background.
+     */
+    private final BoardWorker worker;
+    /**
+     * The latest results published by the worker.
+     */
+    private BoardSnapshot snapshot;
     /**
      * The list model for the ship list.
      */
@@ -53,12 +72,30 @@ public class CommandCenter extends javax.swing.JFrame {
      * The mode indicator for when the GUI is in sinking mode.
      */
     private boolean sinking;
+    /**
+     * The X position of the square under the mouse, or -1.
+     */
+    private int hoverX = -1;
+    /**
+     * The Y position of the square under the mouse, or -1.
+     */
+    private int hoverY = -1;
 
     /**
      * Creates new form CommandCenter
      */
     public CommandCenter() {
-        controller = new CommandCenterController();
+        this(GameDefinition.standard());
+    }
+
+    /**
+     * Creates new form CommandCenter for games of the given definition.
+     * <p>
+     * @param definition The board size, fleet and engine of the game
+     * @since v1.1.0
+     */
+    public CommandCenter(GameDefinition definition) {
+        controller = new CommandCenterController(definition);
 
         shipSelectModel = new DefaultListModel();
         Set<String> names = controller.getShipNames();
@@ -69,7 +106,10 @@ public class CommandCenter extends javax.swing.JFrame {
 
         highSeasBoard.setSquares(controller.getBoardWidth(), controller.getBoardHeight());
 
-        highSeasBoard.setData(controller.getData(), controller.getStateData());
+        snapshot = controller.snapshot();
+        highSeasBoard.setData(snapshot.getData(), snapshot.getStates());
+
+        worker = new BoardWorker(controller, this::publish);
 
         highSeasBoard.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "exitSink");
 
@@ -263,32 +303,11 @@ public class CommandCenter extends javax.swing.JFrame {
         int x = highSeasBoard.getGridX(evt.getX());
         int y = highSeasBoard.getGridY(evt.getY());
 
-        if (x != -1 && y != -1) {
+        if (x != hoverX || y != hoverY) {
+            hoverX = x;
+            hoverY = y;
 
-            StringBuilder label = new StringBuilder();
-
-            label.append("(").append(x + 1).append(", ").append(y + 1).append("): ");
-
-            switch (controller.getStateData()[x][y]) {
-                case OPEN: {
-                    label.append(controller.getSqaureVal(x, y)).append(" possible configs.");
-                    break;
-                }
-                case HIT: {
-                    label.append("Hit ");
-                    break;
-                }
-                case MISS: {
-                    label.append("Miss ");
-                    break;
-                }
-            }
-
-            label.append(" Highest: ").append(controller.getMax());
-
-            statusLabel.setText(label.toString());
-        } else {
-            statusLabel.setText("Status");
+            updateStatus();
         }
     }//GEN-LAST:event_highSeasBoardMouseMoved
 
@@ -299,14 +318,15 @@ public class CommandCenter extends javax.swing.JFrame {
         if (sinking) {
             if (evt.getButton() == MouseEvent.BUTTON1) {
 
-                if (controller.sinkShip(select, sinkRotate, x, y)) {
-                    highSeasBoard.setData(controller.getData(), controller.getStateData());
-                    sinkButton.setText("Raise");
+                worker.sinkShip(select, sinkRotate, x, y, (Boolean sunk) -> {
+                    if (sunk) {
+                        sinkButton.setText("Raise");
 
-                    exitSinkMode();
-                } else {
-                    statusLabel.setText("Invalid position to sink ship!");
-                }
+                        exitSinkMode();
+                    } else {
+                        statusLabel.setText("Invalid position to sink ship!");
+                    }
+                });
             } else if (evt.getButton() == MouseEvent.BUTTON3) {
                 sinkRotate = ++sinkRotate % 4;
 
@@ -314,9 +334,7 @@ public class CommandCenter extends javax.swing.JFrame {
             }
         } else if (evt.getButton() == MouseEvent.BUTTON1) {
             if (x != -1 && y != -1) {
-                controller.stateChange(x, y);
-
-                highSeasBoard.setData(controller.getData(), controller.getStateData());
+                worker.stateChange(x, y);
             }
         }
     }//GEN-LAST:event_highSeasBoardMouseClicked
@@ -327,7 +345,7 @@ public class CommandCenter extends javax.swing.JFrame {
             sinkButton.setEnabled(true);
             shipDisplay.display(select);
 
-            if (controller.isSunk(select)) {
+            if (snapshot.isSunk(select)) {
                 sinkButton.setText("Raise");
             } else {
                 sinkButton.setText("Sink");
@@ -336,10 +354,8 @@ public class CommandCenter extends javax.swing.JFrame {
     }//GEN-LAST:event_shipsListValueChanged
 
     private void sinkButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_sinkButtonActionPerformed
-        if (controller.isSunk(select)) {
-            controller.raiseShip(select);
-            highSeasBoard.setData(controller.getData(), controller.getStateData());
-            sinkButton.setText("Sink");
+        if (snapshot.isSunk(select)) {
+            worker.raiseShip(select, () -> sinkButton.setText("Sink"));
         } else {
             highSeasBoard.setSinkShip(select);
             shipsList.setEnabled(false);
@@ -351,9 +367,25 @@ public class CommandCenter extends javax.swing.JFrame {
     /**
      * Main method to start the GUI.
      * <p>
+     * With {@code --batch} as the first argument, no GUI is started, and
+     * commands are read from standard input by {@code BatchMode} instead.
+     * Otherwise a definition file may be given, to play a game other than the
+     * standard game.
+     * <p>
      * @param args the command line arguments
+     * @throws IOException If the definition cannot be read, or reading or
+     * writing in batch mode fails
+     * @see BatchMode
      */
-    public static void main(String args[]) {
+    public static void main(String args[]) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchMode.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        GameDefinition definition = args.length > 0 ? GameDefinition.load(Paths.get(args[0]))
+                : GameDefinition.standard();
+
         /* Set the Nimbus look and feel */
         //<editor-fold defaultstate="collapsed" desc=" Look and feel setting code (optional) ">
         /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
@@ -373,12 +405,61 @@ public class CommandCenter extends javax.swing.JFrame {
         }
         //</editor-fold>
 
+        //Metrics are only collected when enabled, through JMX or -Dbattleships.metrics=true
+        EngineMetrics.registerMBean();
+
         /* Create and display the form */
         java.awt.EventQueue.invokeLater(() -> {
-            new CommandCenter().setVisible(true);
+            new CommandCenter(definition).setVisible(true);
         });
     }
 
+    /**
+     * Shows the results published by the worker.
+     * <p>
+     * @param newSnapshot The latest results
+     */
+    private void publish(BoardSnapshot newSnapshot) {
+        snapshot = newSnapshot;
+        highSeasBoard.setData(snapshot.getData(), snapshot.getStates());
+
+        updateStatus();
+    }
+
+    /**
+     * Shows the value of the hovered square from the latest snapshot on the
+     * status label.
+     */
+    private void updateStatus() {
+        if (hoverX != -1 && hoverY != -1) {
+
+            StringBuilder label = new StringBuilder();
+
+            label.append("(").append(hoverX + 1).append(", ").append(hoverY + 1).append("): ");
+
+            switch (snapshot.getStates()[hoverX][hoverY]) {
+                case OPEN: {
+                    label.append(snapshot.getSquareVal(hoverX, hoverY)).append(" possible configs.");
+                    break;
+                }
+                case HIT: {
+                    label.append("Hit ");
+                    break;
+                }
+                case MISS: {
+                    label.append("Miss ");
+                    break;
+                }
+            }
+
+            label.append(" Highest: ").append(snapshot.getMax());
+
+            statusLabel.setText(label.toString());
+        } else {
+            statusLabel.setText("Status");
+        }
+    }
+
     private void exitSinkMode() {
         if (sinking) {
             highSeasBoard.setSinkShip(null);
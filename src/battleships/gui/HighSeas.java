@@ -6,18 +6,22 @@ package battleships.gui;
 
 import battleships.model.Board;
 import battleships.model.Ship;
-import battleships.model.Square;
+import battleships.model.ShipShape;
 
 import javax.swing.JPanel;
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 
 /**
  * A GUI panel for the game board display.
@@ -28,6 +32,16 @@ import java.awt.geom.Rectangle2D;
  * Call {@code setSquares(int cols, int rows)} to set the desired number of
  * columns and rows.
  * <p>
+ * Squares and their state markers are drawn into a cached image. When new data
+ * is set, only the squares whose value or state changed since the last
+ * {@code setData} are redrawn. The image is only brought up to date by
+ * {@code setData} and {@code refresh}, never by painting, so changes made to
+ * the arrays in place show after a call to {@code refresh}. Hover overlays are
+ * drawn on top of the cached image on every paint, so moving the mouse does
+ * not look at any square outside the highlighted row and column. The
+ * grid lines and labels are cached in another image, redrawn only when the
+ * number or size of squares change.
+ * <p>
  * @author Shen Yichen <2007.yichen@gmail.com>
  * @since v1.0.0
  */
@@ -61,6 +75,10 @@ public class HighSeas extends JPanel {
      * Padding for markers in the square.
      */
     private static final int PADDING = 2;
+    /**
+     * The stroke for state markers.
+     */
+    private static final BasicStroke MARKER_STROKE = new BasicStroke(3);
     /**
      * The UID for serialization.
      *
@@ -120,6 +138,53 @@ public class HighSeas extends JPanel {
      * grid.
      */
     private Ship sinkShip = null;
+    /**
+     * The squares covered by {@code sinkShip}, relative to it's origin.
+     * <p>
+     * Null when not in sinking mode.
+     */
+    private boolean[][] sinkShipMap = null;
+    /**
+     * The cached image of all squares and their state markers.
+     */
+    private transient BufferedImage cellLayer;
+    /**
+     * The data each square of {@code cellLayer} was drawn with.
+     * <p>
+     * Null when the whole layer needs to be redrawn.
+     */
+    private double[][] paintedData;
+    /**
+     * The state each square of {@code cellLayer} was drawn with.
+     */
+    private Board.SquareState[][] paintedStates;
+    /**
+     * Whether the data or states may differ from {@code cellLayer}, set by
+     * {@code refresh} until the layer has been brought up to date.
+     */
+    private boolean cellsDirty = true;
+    /**
+     * The cached image of the grid lines and labels.
+     * <p>
+     * Null when the grid needs to be redrawn.
+     */
+    private transient BufferedImage gridLayer;
+    /**
+     * Reused shape for grid lines.
+     */
+    private final Line2D.Double gridLine = new Line2D.Double();
+    /**
+     * Reused shape for drawing squares.
+     */
+    private final Rectangle2D.Double cellShape = new Rectangle2D.Double();
+    /**
+     * Reused shape for circle markers.
+     */
+    private final Ellipse2D.Double markShape = new Ellipse2D.Double();
+    /**
+     * Reused shape for cross markers.
+     */
+    private final Path2D.Double crossShape = new Path2D.Double();
 
     /**
      * Create a new HighSeas Panel.
@@ -180,6 +245,7 @@ public class HighSeas extends JPanel {
         this.cols = cols;
         this.rows = rows;
 
+        gridLayer = null;
         refresh();
     }
 
@@ -208,6 +274,9 @@ public class HighSeas extends JPanel {
      * This grid it is hovering over is calculated, thus allowing the row and
      * column to be highlighted.
      * <p>
+     * Only the regions highlighted before and after the move are painted, right
+     * away. This method should be called on the event dispatch thread.
+     * <p>
      * @param x
      * @param y
      */
@@ -216,10 +285,87 @@ public class HighSeas extends JPanel {
         int newY = getGridY(y);
 
         if (mouseGridX != newX || mouseGridY != newY) {
+            Rectangle[] oldRegions = hoverRegions();
+
             mouseGridX = newX;
             mouseGridY = newY;
 
-            refresh();
+            Rectangle[] newRegions = hoverRegions();
+
+            for (Rectangle region : oldRegions) {
+                paintRegion(region, newRegions);
+            }
+
+            for (Rectangle region : newRegions) {
+                paintRegion(region, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the regions of the panel highlighted by the hover overlay.
+     * <p>
+     * This is the row and column of the square under the mouse, or the
+     * bounding box of the ship when in sinking mode.
+     * <p>
+     * @return The regions in pixels, empty if nothing is highlighted
+     */
+    Rectangle[] hoverRegions() {
+        if (data == null || mouseGridX == -1 || mouseGridY == -1) {
+            return new Rectangle[0];
+        }
+
+        if (sinkShipMap == null) {
+            return new Rectangle[]{
+                cellBounds(0, mouseGridY, cols, 1),
+                cellBounds(mouseGridX, 0, 1, rows)
+            };
+        } else {
+            return new Rectangle[]{
+                cellBounds(mouseGridX, mouseGridY, sinkShipMap.length, sinkShipMap[0].length)
+            };
+        }
+    }
+
+    /**
+     * Returns the pixel bounds of a block of squares, rounded outwards.
+     * <p>
+     * @param x The X-coordinate of the first square
+     * @param y The Y-coordinate of the first square
+     * @param width The number of squares across
+     * @param height The number of squares down
+     * @return The bounds
+     */
+    private Rectangle cellBounds(int x, int y, int width, int height) {
+        int left = (int) Math.floor(sqrSize * (x + 1) + xOffset);
+        int top = (int) Math.floor(sqrSize * (y + 1) + yOffset);
+        int right = (int) Math.ceil(sqrSize * (x + 1 + width) + xOffset);
+        int bottom = (int) Math.ceil(sqrSize * (y + 1 + height) + yOffset);
+
+        //Extra pixel for anti-aliased grid lines on the edges
+        return new Rectangle(left - 1, top - 1, right - left + 2, bottom - top + 2);
+    }
+
+    /**
+     * Paints a region of the panel, unless it is covered by one of the other
+     * regions given.
+     * <p>
+     * @param region The region to paint
+     * @param others Regions that will be painted anyway, or null
+     */
+    private void paintRegion(Rectangle region, Rectangle[] others) {
+        if (others != null) {
+            for (Rectangle other : others) {
+                if (other.contains(region)) {
+                    return;
+                }
+            }
+        }
+
+        if (isShowing()) {
+            paintImmediately(region);
+        } else {
+            repaint(region);
         }
     }
 
@@ -236,21 +382,61 @@ public class HighSeas extends JPanel {
      */
     public void setSinkShip(Ship sinkShip) {
         this.sinkShip = sinkShip;
+
+        //Sets the ship map for easy reference later
+        if (sinkShip != null) {
+            ShipShape shape = sinkShip.getShape();
+            sinkShipMap = new boolean[shape.getMaxX() + 1][shape.getMaxY() + 1];
+
+            for (int i = 0; i < shape.size(); i++) {
+                sinkShipMap[shape.getX(i)][shape.getY(i)] = true;
+            }
+        } else {
+            sinkShipMap = null;
+        }
+
         refresh();
     }
 
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        gridLayer = null;
+    }
+
+    @Override
+    public void setForeground(Color fg) {
+        super.setForeground(fg);
+        gridLayer = null;
+    }
+
     /**
      * Refreshes the board.
      * <p>
      * This method calculates the the suitable square size based on the current
-     * height and width and calls {@code repaint()}.
+     * height and width, brings the cached squares up to date and calls
+     * {@code repaint()}.
+     * <p>
+     * All squares are redrawn if the size or position of the squares changed.
      */
     public void refresh() {
+        double oldSqrSize = sqrSize;
+        double oldXOffset = xOffset;
+        double oldYOffset = yOffset;
+
         sqrSize = Math.min(MAX_SQUARE_SIZE, Math.min((getWidth() - 1) * 1.0 / (cols + 1), (getHeight() - 1) * 1.0 / (rows + 1)));
 
         xOffset = (getWidth() - 1 - (cols + 1) * sqrSize) / 2;
         yOffset = (getHeight() - 1 - (rows + 1) * sqrSize) / 2;
 
+        if (Double.compare(oldSqrSize, sqrSize) != 0 || Double.compare(oldXOffset, xOffset) != 0 || Double.compare(oldYOffset, yOffset) != 0) {
+            paintedData = null;
+            gridLayer = null;
+        }
+
+        cellsDirty = true;
+        updateCellLayer();
+
         repaint();
     }
 
@@ -259,121 +445,228 @@ public class HighSeas extends JPanel {
         super.paint(g);
 
         if (data != null) {
+            //Only a resize since the last refresh needs the squares redrawn
+            if (cellsDirty || cellLayer == null || cellLayer.getWidth() != getWidth()
+                    || cellLayer.getHeight() != getHeight()) {
+                updateCellLayer();
+            }
 
-            boolean[][] shipMap = null;
+            g.drawImage(cellLayer, 0, 0, null);
 
-            //Sets the ship map for easy reference later
-            if (sinkShip != null) {
-                Square size = sinkShip.getMaxSquare();
-                shipMap = new boolean[size.getX() + 1][size.getY() + 1];
+            //Paint overlay for hover
+            if (mouseGridX != -1 && mouseGridY != -1) {
+                final Graphics2D g2 = (Graphics2D) g.create();
 
-                for (boolean[] shipMapRow : shipMap) {
-                    for (int j = 0; j < shipMapRow.length; j++) {
-                        shipMapRow[j] = false;
-                    }
-                }
+                try {
+                    g2.setPaint(OVERLAY);
+
+                    if (sinkShipMap == null) {
+                        //Row, then the column above and below it
+                        fillCells(g2, 0, mouseGridY, data.length, 1);
+                        fillCells(g2, mouseGridX, 0, 1, mouseGridY);
+                        fillCells(g2, mouseGridX, mouseGridY + 1, 1, data[mouseGridX].length - mouseGridY - 1);
+                    } else { //Draw sinking ship
+                        for (int i = 0; i < sinkShipMap.length; i++) {
+                            for (int j = 0; j < sinkShipMap[i].length; j++) {
+                                int x = mouseGridX + i;
+                                int y = mouseGridY + j;
 
-                for (Square square : sinkShip) {
-                    shipMap[square.getX()][square.getY()] = true;
+                                if (sinkShipMap[i][j] && x < data.length && y < data[x].length) {
+                                    fillCells(g2, x, y, 1, 1);
+                                }
+                            }
+                        }
+                    }
+                } finally {
+                    g2.dispose();
                 }
             }
+        }
 
-            for (int i = 0; i < data.length; i++) {
-                for (int j = 0; j < data[i].length; j++) {
-                    final Graphics2D g2 = (Graphics2D) g.create();
+        updateGridLayer();
 
-                    try {
-                        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (gridLayer != null) {
+            g.drawImage(gridLayer, 0, 0, null);
+        }
+    }
 
-                        Rectangle2D cell = new Rectangle2D.Double(sqrSize * (i + 1) + xOffset, sqrSize * (j + 1) + yOffset, sqrSize, sqrSize);
+    /**
+     * Redraws the cached grid image if it is missing or no longer fits the
+     * panel.
+     */
+    private void updateGridLayer() {
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
 
-                        if (Double.compare(data[i][j], 0) == 0 || states[i][j] != Board.SquareState.OPEN) {
-                            g2.setPaint(TRANSPARENT);
-                        } else {
-                            g2.setPaint(Color.getHSBColor((float) (1f / 3 - Math.pow(data[i][j], HUE_SLOPE) / 3), SATURATION, BRIGHTNESS));
-                        }
+        if (gridLayer == null || gridLayer.getWidth() != getWidth() || gridLayer.getHeight() != getHeight()) {
+            gridLayer = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
 
-                        g2.fill(cell);
+            final Graphics2D g2 = gridLayer.createGraphics();
 
-                        //Paint overlay for hover
-                        g2.setPaint(OVERLAY);
+            try {
+                g2.setFont(getFont());
+                g2.setColor(getForeground());
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-                        if (mouseGridX != -1 && mouseGridY != -1) {
-                            if (shipMap == null) {
-                                if (i == mouseGridX || j == mouseGridY) {
-                                    g2.fill(cell);
-                                }
-                            } else { //Draw sinking ship
-                                int newX = i - mouseGridX;
-                                int newY = j - mouseGridY;
+                paintGrid(g2);
+            } finally {
+                g2.dispose();
+            }
+        }
+    }
 
-                                if (newX >= 0 && newX < shipMap.length && newY >= 0 && newY < shipMap[newX].length && shipMap[newX][newY]) {
-                                    g2.fill(cell);
-                                }
-                            }
-                        }
+    /**
+     * Fills a block of squares with the current paint.
+     * <p>
+     * @param g2 The graphics object to use for drawing
+     * @param x The X-coordinate of the first square
+     * @param y The Y-coordinate of the first square
+     * @param width The number of squares across
+     * @param height The number of squares down
+     */
+    private void fillCells(Graphics2D g2, int x, int y, int width, int height) {
+        if (width > 0 && height > 0) {
+            cellShape.setRect(sqrSize * (x + 1) + xOffset, sqrSize * (y + 1) + yOffset, sqrSize * width, sqrSize * height);
+            g2.fill(cellShape);
+        }
+    }
 
-                        //Draw state markers
-                        double xIni = sqrSize * (i + 1) + xOffset + PADDING;
-                        double yIni = sqrSize * (j + 1) + yOffset + PADDING;
-
-                        g2.setPaint(Color.BLACK);
-                        g2.setStroke(new BasicStroke(3));
-                        switch (states[i][j]) {
-                            case MISS: {
-                                Ellipse2D mark = new Ellipse2D.Double(xIni, yIni, sqrSize - PADDING * 2, sqrSize - PADDING * 2);
-                                g2.draw(mark);
-                                break;
-                            }
-                            case HIT: {
-                                Path2D cross = new Path2D.Double();
-                                cross.moveTo(xIni, yIni);
-                                cross.lineTo(xIni + sqrSize - PADDING * 2, yIni + sqrSize - PADDING * 2);
+    /**
+     * Brings the cached image of the squares up to date with the data and
+     * states.
+     * <p>
+     * Only squares whose data or state differ from what they were last drawn
+     * with are redrawn, unless the whole image is invalid. This looks at every
+     * square, so it's only done when the data may have changed.
+     */
+    private void updateCellLayer() {
+        if (data == null || states == null || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+
+        if (cellLayer == null || cellLayer.getWidth() != getWidth() || cellLayer.getHeight() != getHeight()) {
+            cellLayer = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
+            paintedData = null;
+        }
 
-                                cross.moveTo(xIni + sqrSize - PADDING * 2, yIni);
-                                cross.lineTo(xIni, yIni + sqrSize - PADDING * 2);
+        boolean full = paintedData == null || paintedData.length != data.length
+                || (data.length > 0 && paintedData[0].length != data[0].length);
 
-                                g2.draw(cross);
-                                break;
-                            }
-                            case SUNK: {
-                                Ellipse2D mark = new Ellipse2D.Double(xIni, yIni, sqrSize - PADDING * 2, sqrSize - PADDING * 2);
-                                g2.draw(mark);
+        final Graphics2D g2 = cellLayer.createGraphics();
 
-                                double offset = (1 - Math.sqrt(2) / 2) * sqrSize / 2;
+        try {
+            if (full) {
+                g2.setComposite(AlphaComposite.Clear);
+                g2.fillRect(0, 0, cellLayer.getWidth(), cellLayer.getHeight());
+                g2.setComposite(AlphaComposite.SrcOver);
 
-                                Path2D cross = new Path2D.Double();
-                                cross.moveTo(xIni + offset, yIni + offset);
-                                cross.lineTo(xIni + sqrSize - offset - PADDING * 2, yIni + sqrSize - offset - PADDING * 2);
+                paintedData = new double[data.length][];
+                paintedStates = new Board.SquareState[data.length][];
 
-                                cross.moveTo(xIni + sqrSize - offset - PADDING * 2, yIni + offset);
-                                cross.lineTo(xIni + offset, yIni + sqrSize - offset - PADDING * 2);
+                for (int i = 0; i < data.length; i++) {
+                    paintedData[i] = new double[data[i].length];
+                    paintedStates[i] = new Board.SquareState[data[i].length];
+                }
+            }
 
-                                g2.draw(cross);
-                                break;
-                            }
-                        }
-                    } finally {
-                        g2.dispose();
+            g2.setStroke(MARKER_STROKE);
+
+            for (int i = 0; i < data.length; i++) {
+                for (int j = 0; j < data[i].length; j++) {
+                    if (full || Double.compare(paintedData[i][j], data[i][j]) != 0 || paintedStates[i][j] != states[i][j]) {
+                        paintCell(g2, i, j, !full);
+
+                        paintedData[i][j] = data[i][j];
+                        paintedStates[i][j] = states[i][j];
                     }
                 }
             }
+
+            cellsDirty = false;
+        } finally {
+            g2.dispose();
         }
+    }
 
-        final Graphics2D g2 = (Graphics2D) g.create();
+    /**
+     * Draws a square and it's state marker.
+     * <p>
+     * The square is filled without anti-aliasing, so that squares tile the
+     * image exactly and a square can be cleared without touching it's
+     * neighbours.
+     * <p>
+     * @param g2 The graphics object of the cached image
+     * @param i The X-coordinate of the square
+     * @param j The Y-coordinate of the square
+     * @param clear {@code true} to clear what was previously drawn
+     */
+    private void paintCell(Graphics2D g2, int i, int j, boolean clear) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
 
-        try {
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        cellShape.setRect(sqrSize * (i + 1) + xOffset, sqrSize * (j + 1) + yOffset, sqrSize, sqrSize);
 
-            paintGrid(g2);
-        } finally {
-            g2.dispose();
+        if (clear) {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fill(cellShape);
+            g2.setComposite(AlphaComposite.SrcOver);
+        }
+
+        if (Double.compare(data[i][j], 0) != 0 && states[i][j] == Board.SquareState.OPEN) {
+            g2.setPaint(Color.getHSBColor((float) (1f / 3 - Math.pow(data[i][j], HUE_SLOPE) / 3), SATURATION, BRIGHTNESS));
+            g2.fill(cellShape);
+        }
+
+        //Draw state markers
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        double xIni = sqrSize * (i + 1) + xOffset + PADDING;
+        double yIni = sqrSize * (j + 1) + yOffset + PADDING;
+        double markSize = sqrSize - PADDING * 2;
+
+        g2.setPaint(Color.BLACK);
+        switch (states[i][j]) {
+            case MISS: {
+                markShape.setFrame(xIni, yIni, markSize, markSize);
+                g2.draw(markShape);
+                break;
+            }
+            case HIT: {
+                crossShape.reset();
+                crossShape.moveTo(xIni, yIni);
+                crossShape.lineTo(xIni + markSize, yIni + markSize);
+
+                crossShape.moveTo(xIni + markSize, yIni);
+                crossShape.lineTo(xIni, yIni + markSize);
+
+                g2.draw(crossShape);
+                break;
+            }
+            case SUNK: {
+                markShape.setFrame(xIni, yIni, markSize, markSize);
+                g2.draw(markShape);
+
+                double offset = (1 - Math.sqrt(2) / 2) * sqrSize / 2;
+
+                crossShape.reset();
+                crossShape.moveTo(xIni + offset, yIni + offset);
+                crossShape.lineTo(xIni + markSize - offset, yIni + markSize - offset);
+
+                crossShape.moveTo(xIni + markSize - offset, yIni + offset);
+                crossShape.lineTo(xIni + offset, yIni + markSize - offset);
+
+                g2.draw(crossShape);
+                break;
+            }
         }
     }
 
     /**
      * Draws a grid based on rows and columns on the panel.
      * <p>
+     * Only called when the cached grid image is redrawn.
+     * <p>
      * @param g2 The graphics object to use for drawing.
      */
     private void paintGrid(Graphics2D g2) {
@@ -406,8 +699,8 @@ public class HighSeas extends JPanel {
 
                     g2.drawString(Integer.toString(x), (float) (xRel + xOffset), (float) (yRel + yOffset));
                 }
-                Line2D.Double xGrid = new Line2D.Double(xSquareStart + xOffset, sqrSize + yOffset, xSquareStart + xOffset, (rows + 1) * sqrSize + yOffset);
-                g2.draw(xGrid);
+                gridLine.setLine(xSquareStart + xOffset, sqrSize + yOffset, xSquareStart + xOffset, (rows + 1) * sqrSize + yOffset);
+                g2.draw(gridLine);
             }
 
             //Total height of font
@@ -426,8 +719,8 @@ public class HighSeas extends JPanel {
                     g2.drawString(Integer.toString(y), (float) (xRel + xOffset), (float) (yRel + yOffset));
                 }
 
-                Line2D.Double yGrid = new Line2D.Double(sqrSize + xOffset, ySquareStart + yOffset, (cols + 1) * sqrSize + xOffset, ySquareStart + yOffset);
-                g2.draw(yGrid);
+                gridLine.setLine(sqrSize + xOffset, ySquareStart + yOffset, (cols + 1) * sqrSize + xOffset, ySquareStart + yOffset);
+                g2.draw(gridLine);
             }
         }
     }
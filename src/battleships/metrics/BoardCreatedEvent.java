@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for the construction of a board.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Name("battleships.BoardCreated")
+@Label("Board Created")
+@Description("Construction of an empty board")
+public class BoardCreatedEvent extends BoardEvent {
+
+    /**
+     * Commits the event if enabled.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     */
+    public void commit(int width, int height) {
+        if (shouldCommit()) {
+            describe(width, height, 0);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+
+/**
+ * The base of all Flight Recorder events of board operations.
+ * <p>
+ * Every event carries the size of the board and the number of ships on it, so
+ * recordings can relate the duration of an operation to the board it ran on.
+ * Events are created and begun before the operation, and committed with
+ * the board description after it. Committing is skipped when the event is
+ * not enabled in the recording.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Category("Battleships")
+public abstract class BoardEvent extends jdk.jfr.Event {
+
+    @Label("Board Width")
+    int width;
+
+    @Label("Board Height")
+    int height;
+
+    @Label("Ships")
+    int ships;
+
+    /**
+     * Sets the board description.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     * @param ships The number of ships on the board
+     */
+    void describe(int width, int height, int ships) {
+        this.width = width;
+        this.height = height;
+        this.ships = ships;
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects metrics of the hot paths of the probability engine.
+ * <p>
+ * Instrumented methods check {@code isEnabled()} once and only read the clock
+ * and record when it's on, so disabled metrics cost a single volatile read per
+ * call. Every counter, including each bucket of the latency histogram, is a
+ * striped adder, so threads recording at once do not contend on a shared
+ * slot and metrics can be left on across threads.
+ * <p>
+ * Reading the bytes a thread has allocated costs far more than reading the
+ * clock, so it's off unless asked for with {@code setAllocationTracked} or
+ * {@code -Dbattleships.metrics.allocation=true}. Until then
+ * {@code allocatedBytes()} returns 0 without asking the JVM, and no
+ * allocations are recorded.
+ * <p>
+ * A typical instrumented method looks like this:
+ * <pre>
+ * boolean metrics = EngineMetrics.isEnabled();
+ * long start = metrics ? System.nanoTime() : 0;
+ * long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+ * ...
+ * if (metrics) {
+ *     EngineMetrics.record(Operation.ENABLE, start, allocated, configs, writes);
+ * }
+ * </pre>
+ * <p>
+ * Metrics are off by default, and are turned on by
+ * {@code setEnabled(boolean)}, through JMX or by starting the JVM with
+ * {@code -Dbattleships.metrics=true}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public final class EngineMetrics {
+
+    /**
+     * The instrumented operations.
+     */
+    public enum Operation {
+
+        /**
+         * {@code IndependentBoard.enable}, activating configurations.
+         */
+        ENABLE,
+        /**
+         * {@code IndependentBoard.disable}, deactivating configurations.
+         */
+        DISABLE,
+        /**
+         * {@code IndependentBoard.sink}.
+         */
+        SINK,
+        /**
+         * {@code IndependentBoard.raise}.
+         */
+        RAISE,
+        /**
+         * {@code IndependentBoard.genMap}, generating the configurations of a
+         * ship.
+         */
+        GEN_MAP,
+        /**
+         * {@code IndependentBoard.hitChanged}, updating the hit counts of
+         * configurations.
+         */
+        HIT_INDEX,
+        /**
+         * {@code CommandCenterController.recalculate}, rebuilding the heatmap.
+         */
+        RECALCULATE
+    }
+
+    /**
+     * The name the MBean is registered under.
+     */
+    public static final String OBJECT_NAME = "battleships:type=EngineMetrics";
+
+    /**
+     * The number of latency histogram buckets, one for each bit of a long.
+     */
+    private static final int BUCKETS = 65;
+    /**
+     * The thread management bean, for reading allocated bytes.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS;
+    /**
+     * The statistics of each operation.
+     */
+    private static final Stats[] STATS;
+    /**
+     * Whether metrics are collected.
+     */
+    private static volatile boolean enabled = Boolean.getBoolean("battleships.metrics");
+    /**
+     * Whether the bytes allocated by calls are measured.
+     */
+    private static volatile boolean allocationTracked = Boolean.getBoolean("battleships.metrics.allocation");
+
+    static {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            THREADS = (com.sun.management.ThreadMXBean) threads;
+        } else {
+            THREADS = null;
+        }
+
+        STATS = new Stats[Operation.values().length];
+        for (int i = 0; i < STATS.length; i++) {
+            STATS[i] = new Stats();
+        }
+    }
+
+    /**
+     * Not to be instantiated.
+     */
+    private EngineMetrics() {
+    }
+
+    /**
+     * Checks if metrics are being collected.
+     * <p>
+     * @return {@code true} if metrics are collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the collection of metrics on or off.
+     * <p>
+     * Metrics already collected are kept.
+     * <p>
+     * @param on {@code true} to collect metrics
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Checks if the bytes allocated by calls are measured.
+     * <p>
+     * @return {@code true} if allocations are measured
+     */
+    public static boolean isAllocationTracked() {
+        return allocationTracked;
+    }
+
+    /**
+     * Turns the measuring of the bytes allocated by calls on or off.
+     * <p>
+     * Only calls that start while it's on record their allocations.
+     * <p>
+     * @param on {@code true} to measure allocations
+     */
+    public static void setAllocationTracked(boolean on) {
+        allocationTracked = on;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     * <p>
+     * @return The allocated bytes, or 0 if allocations are not tracked or the
+     * JVM cannot measure them
+     * @see #setAllocationTracked(boolean)
+     */
+    public static long allocatedBytes() {
+        return THREADS == null || !allocationTracked ? 0
+                : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Records a call of an operation.
+     * <p>
+     * @param op The operation
+     * @param startNanos The {@code System.nanoTime()} at the start of the call
+     * @param startAllocated The {@code allocatedBytes()} at the start of the
+     * call, 0 if allocations were not tracked
+     * @param configs The number of configurations touched
+     * @param writes The number of counter writes
+     */
+    public static void record(Operation op, long startNanos, long startAllocated, long configs, long writes) {
+        long nanos = Math.max(0, System.nanoTime() - startNanos);
+        Stats stats = STATS[op.ordinal()];
+
+        stats.calls.increment();
+        stats.configs.add(configs);
+        stats.writes.add(writes);
+        stats.nanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+        stats.histogram[64 - Long.numberOfLeadingZeros(nanos)].increment();
+
+        if (startAllocated > 0) {
+            stats.allocated.add(Math.max(0, allocatedBytes() - startAllocated));
+        }
+    }
+
+    /**
+     * Returns the metrics of one operation.
+     * <p>
+     * @param op The operation
+     * @return The metrics collected so far
+     */
+    public static OperationSnapshot snapshot(Operation op) {
+        Stats stats = STATS[op.ordinal()];
+
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = stats.histogram[i].sum();
+        }
+
+        return new OperationSnapshot(op.name(), stats.calls.sum(), stats.configs.sum(), stats.writes.sum(),
+                stats.nanos.sum(), stats.maxNanos.get(), stats.allocated.sum(), histogram);
+    }
+
+    /**
+     * Returns the metrics of all operations.
+     * <p>
+     * Each operation is read separately, so calls that happen while the
+     * snapshot is taken may be seen by some operations only.
+     * <p>
+     * @return An unmodifiable map of the metrics collected so far
+     */
+    public static Map<Operation, OperationSnapshot> snapshot() {
+        Map<Operation, OperationSnapshot> snapshots = new EnumMap<>(Operation.class);
+
+        for (Operation op : Operation.values()) {
+            snapshots.put(op, snapshot(op));
+        }
+
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * Clears all collected metrics.
+     */
+    public static void reset() {
+        for (Stats stats : STATS) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     * <p>
+     * Registering more than once has no effect.
+     * <p>
+     * @throws IllegalStateException If the MBean cannot be registered
+     * @see #OBJECT_NAME
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ex) {
+            //Already registered
+        } catch (JMException ex) {
+            throw new IllegalStateException("Unable to register engine metrics!", ex);
+        }
+    }
+
+    /**
+     * The accumulators of an operation.
+     */
+    private static final class Stats {
+
+        final LongAdder calls = new LongAdder();
+        final LongAdder configs = new LongAdder();
+        final LongAdder writes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Stats() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void reset() {
+            calls.reset();
+            configs.reset();
+            writes.reset();
+            nanos.reset();
+            allocated.reset();
+            maxNanos.reset();
+
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+    }
+
+    /**
+     * The MBean exposing the metrics.
+     */
+    private static final class MXBean implements EngineMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return EngineMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            EngineMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public boolean isAllocationTracked() {
+            return EngineMetrics.isAllocationTracked();
+        }
+
+        @Override
+        public void setAllocationTracked(boolean tracked) {
+            EngineMetrics.setAllocationTracked(tracked);
+        }
+
+        @Override
+        public void reset() {
+            EngineMetrics.reset();
+        }
+
+        @Override
+        public OperationSnapshot[] getOperations() {
+            return snapshot().values().toArray(new OperationSnapshot[0]);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+/**
+ * The JMX management interface of {@code EngineMetrics}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see EngineMetrics#registerMBean()
+ * @since v1.1.0
+ */
+public interface EngineMetricsMXBean {
+
+    /**
+     * Checks if metrics are being collected.
+     * <p>
+     * @return {@code true} if metrics are collected
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns the collection of metrics on or off.
+     * <p>
+     * @param enabled {@code true} to collect metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Checks if the bytes allocated by calls are measured.
+     * <p>
+     * @return {@code true} if allocations are measured
+     */
+    boolean isAllocationTracked();
+
+    /**
+     * Turns the measuring of the bytes allocated by calls on or off.
+     * <p>
+     * @param tracked {@code true} to measure allocations
+     */
+    void setAllocationTracked(boolean tracked);
+
+    /**
+     * Clears all collected metrics.
+     */
+    void reset();
+
+    /**
+     * Returns the metrics of every instrumented operation.
+     * <p>
+     * @return The operation metrics
+     */
+    OperationSnapshot[] getOperations();
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for the recalculation of the displayed heatmap.
+ * <p>
+ * The heatmap is rebuilt from the board's counters and does not touch
+ * configurations itself, the number of squares recomputed is recorded
+ * instead.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Name("battleships.HeatmapRecalculation")
+@Label("Heatmap Recalculation")
+@Description("Recalculation of the normalized heatmap shown to the user")
+public class HeatmapRecalculationEvent extends BoardEvent {
+
+    @Label("Squares")
+    @Description("Squares recomputed")
+    long squares;
+
+    @Label("Weighted")
+    @Description("Whether placement weights were used")
+    boolean weighted;
+
+    /**
+     * Commits the event if enabled.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     * @param ships The number of ships on the board
+     * @param squares The number of squares recomputed
+     * @param weighted {@code true} if placement weights were used
+     */
+    public void commit(int width, int height, int ships, long squares, boolean weighted) {
+        if (shouldCommit()) {
+            describe(width, height, ships);
+            this.squares = squares;
+            this.weighted = weighted;
+            commit();
+        }
+    }
+}
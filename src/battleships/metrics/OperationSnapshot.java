@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+/**
+ * The metrics of an instrumented operation at a point in time.
+ * <p>
+ * Latencies are kept in a histogram of power of 2 buckets. Bucket {@code i}
+ * counts calls that took less than 2<sup>i</sup> nanoseconds and at least
+ * 2<sup>i - 1</sup>, so percentiles are upper bounds within a factor of 2.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see EngineMetrics#snapshot()
+ * @since v1.1.0
+ */
+public class OperationSnapshot {
+
+    /**
+     * The name of the operation.
+     */
+    private final String name;
+    /**
+     * The number of calls.
+     */
+    private final long calls;
+    /**
+     * The number of configurations touched.
+     */
+    private final long configsTouched;
+    /**
+     * The number of counter writes.
+     */
+    private final long counterWrites;
+    /**
+     * The total time of all calls.
+     */
+    private final long totalNanos;
+    /**
+     * The longest call.
+     */
+    private final long maxNanos;
+    /**
+     * The bytes allocated by all calls.
+     */
+    private final long allocatedBytes;
+    /**
+     * The latency histogram.
+     */
+    private final long[] latencyHistogram;
+
+    /**
+     * Setter constructor.
+     * <p>
+     * @param name The name of the operation
+     * @param calls The number of calls
+     * @param configsTouched The number of configurations touched
+     * @param counterWrites The number of counter writes
+     * @param totalNanos The total time of all calls
+     * @param maxNanos The longest call
+     * @param allocatedBytes The bytes allocated by all calls
+     * @param latencyHistogram The latency histogram, not copied
+     */
+    OperationSnapshot(String name, long calls, long configsTouched, long counterWrites,
+            long totalNanos, long maxNanos, long allocatedBytes, long[] latencyHistogram) {
+        this.name = name;
+        this.calls = calls;
+        this.configsTouched = configsTouched;
+        this.counterWrites = counterWrites;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    /**
+     * Gets the name of the operation.
+     * <p>
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of calls.
+     * <p>
+     * @return The number of calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Gets the number of configurations touched by all calls.
+     * <p>
+     * @return The number of configurations
+     */
+    public long getConfigsTouched() {
+        return configsTouched;
+    }
+
+    /**
+     * Gets the number of counter writes of all calls.
+     * <p>
+     * @return The number of counter writes
+     */
+    public long getCounterWrites() {
+        return counterWrites;
+    }
+
+    /**
+     * Gets the total time of all calls.
+     * <p>
+     * @return The time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Gets the mean time of a call.
+     * <p>
+     * @return The time in nanoseconds, 0 if there were no calls
+     */
+    public long getMeanNanos() {
+        return calls > 0 ? totalNanos / calls : 0;
+    }
+
+    /**
+     * Gets the time of the longest call.
+     * <p>
+     * @return The time in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Gets the median time of a call.
+     * <p>
+     * @return The upper bound of the median in nanoseconds
+     */
+    public long getP50Nanos() {
+        return percentileNanos(0.5);
+    }
+
+    /**
+     * Gets the 99th percentile time of a call.
+     * <p>
+     * @return The upper bound of the percentile in nanoseconds
+     */
+    public long getP99Nanos() {
+        return percentileNanos(0.99);
+    }
+
+    /**
+     * Gets the bytes allocated by all calls on the calling threads.
+     * <p>
+     * This is 0 if allocations are not tracked or the JVM cannot measure
+     * thread allocation.
+     * <p>
+     * @return The allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the latency histogram.
+     * <p>
+     * @return A copy of the bucket counts
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * Returns the time at or below which the given fraction of calls took.
+     * <p>
+     * @param fraction The fraction of calls, from 0 to 1
+     * @return The upper bound of the bucket containing the percentile in
+     * nanoseconds, capped by the longest call
+     */
+    public long percentileNanos(double fraction) {
+        if (calls == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(fraction * calls);
+        long seen = 0;
+
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+
+            if (seen >= rank) {
+                return i >= 63 ? maxNanos : Math.min(1L << i, maxNanos);
+            }
+        }
+
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{calls=%d, configs=%d, writes=%d, mean=%dns, p50=%dns, p99=%dns, max=%dns, allocated=%dB}",
+                name, calls, configsTouched, counterWrites, getMeanNanos(), getP50Nanos(), getP99Nanos(), maxNanos, allocatedBytes);
+    }
+}
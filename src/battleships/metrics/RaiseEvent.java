@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for raising a sunken ship.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Name("battleships.Raise")
+@Label("Raise")
+@Description("Raising of a sunken ship")
+public class RaiseEvent extends BoardEvent {
+
+    @Label("Affected Configurations")
+    @Description("Configurations over the raised squares and of the ship")
+    long configs;
+
+    /**
+     * Commits the event if enabled.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     * @param ships The number of ships on the board
+     * @param configs The number of configurations affected
+     */
+    public void commit(int width, int height, int ships, long configs) {
+        if (shouldCommit()) {
+            describe(width, height, ships);
+            this.configs = configs;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for adding a ship to a board, which generates all of
+ * the ship's configurations.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Name("battleships.ShipAdded")
+@Label("Ship Added")
+@Description("Addition of a ship and generation of it's configurations")
+public class ShipAddedEvent extends BoardEvent {
+
+    @Label("Ship Squares")
+    int squares;
+
+    @Label("Configurations")
+    @Description("Configurations generated for the ship")
+    long configs;
+
+    /**
+     * Commits the event if enabled.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     * @param ships The number of ships on the board, including the new ship
+     * @param squares The number of squares of the ship
+     * @param configs The number of configurations generated
+     */
+    public void commit(int width, int height, int ships, int squares, long configs) {
+        if (shouldCommit()) {
+            describe(width, height, ships);
+            this.squares = squares;
+            this.configs = configs;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for an attempt to sink a ship.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Name("battleships.Sink")
+@Label("Sink")
+@Description("Attempt to sink a ship")
+public class SinkEvent extends BoardEvent {
+
+    @Label("Sunk")
+    @Description("Whether the ship could be sunk at the position")
+    boolean sunk;
+
+    @Label("Affected Configurations")
+    @Description("Configurations deactivated by the sunken squares and ship")
+    long configs;
+
+    /**
+     * Commits the event if enabled.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     * @param ships The number of ships on the board
+     * @param sunk {@code true} if the ship was sunk
+     * @param configs The number of configurations affected
+     */
+    public void commit(int width, int height, int ships, boolean sunk, long configs) {
+        if (shouldCommit()) {
+            describe(width, height, ships);
+            this.sunk = sunk;
+            this.configs = configs;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a change in the state of a square.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+@Name("battleships.StateChange")
+@Label("State Change")
+@Description("Change of the state of a square and the configurations over it")
+public class StateChangeEvent extends BoardEvent {
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("New State")
+    String state;
+
+    @Label("Affected Configurations")
+    @Description("Configurations overlapping the square")
+    long configs;
+
+    /**
+     * Commits the event if enabled.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     * @param ships The number of ships on the board
+     * @param x The x position of the square
+     * @param y The y position of the square
+     * @param state The new state of the square
+     * @param configs The number of configurations affected
+     */
+    public void commit(int width, int height, int ships, int x, int y, String state, long configs) {
+        if (shouldCommit()) {
+            describe(width, height, ships);
+            this.x = x;
+            this.y = y;
+            this.state = state;
+            this.configs = configs;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+
+/**
+ * Runtime metrics for the probability engine.
+ * <p>
+ * Metrics are collected by the boards and controllers when enabled, and can be
+ * read programmatically or through JMX. Board operations are also emitted as
+ * Flight Recorder events under the "Battleships" category, which are recorded
+ * whenever a recording enables them.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ * @see EngineMetrics
+ */
+package battleships.metrics;
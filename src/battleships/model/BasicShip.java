@@ -5,7 +5,6 @@
 
 package battleships.model;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
@@ -23,6 +22,11 @@ public class BasicShip implements Ship {
 
     private final Set<Square> shipSquares;
     private final Square bottomRight;
+    /**
+     * The shape of the current squares, null until asked for or after the
+     * squares change.
+     */
+    private ShipShape shape;
 
     /**
      * Creates a new BasicShip with no squares.
@@ -41,6 +45,7 @@ public class BasicShip implements Ship {
     @Override
     public void addSquare(Square sqr) {
         shipSquares.add(sqr);
+        shape = null;
 
         if (sqr.getX() > bottomRight.getX()) {
             bottomRight.offset(sqr.getX() - bottomRight.getX(), 0);
@@ -62,6 +67,7 @@ public class BasicShip implements Ship {
         shipSquares.forEach((Square s) -> s.offset(x, y));
 
         bottomRight.offset(x, y);
+        shape = null;
     }
 
     @Override
@@ -80,24 +86,47 @@ public class BasicShip implements Ship {
         return new Square(bottomRight);
     }
 
+    /**
+     * Returns a new ship, that is this ship rotated 90 degrees clockwise times
+     * the number of time specified, normalized.
+     * <p>
+     * The four rotations are worked out once from the shape of the ship, and
+     * are kept until the squares of the ship change, so only the squares of
+     * the new ship are made. Engines that only read the rotated squares should
+     * use {@code getShape().rotateCWNinety(int)}, which makes nothing.
+     * <p>
+     * @param repeat Number of times to rotate 90 degrees
+     * @return The rotated ship
+     * @see ShipShape#rotateCWNinety(int)
+     */
     @Override
-    public Ship rotateCWNinety(int repeat) {
-        repeat %= 4;
+    public BasicShip rotateCWNinety(int repeat) {
+        ShipShape rotated = getShape().rotateCWNinety(repeat);
+        BasicShip rotatedShip = new BasicShip();
 
-        ArrayList<Square> squareList = new ArrayList<>(shipSquares.size());
-        for (Square sqr : this) {
-            squareList.add(new Square(sqr));
+        for (int i = 0; i < rotated.size(); i++) {
+            rotatedShip.addSquare(rotated.getX(i), rotated.getY(i));
         }
+        rotatedShip.shape = rotated;
 
-        for (int i = 0; i < repeat; i++) {
-            squareList.forEach(battleships.model.Square::rotateCW);
-        }
+        return rotatedShip;
+    }
 
-        Ship rotatedShip = new BasicShip();
-        squareList.forEach(rotatedShip::addSquare);
-        rotatedShip.normalize();
+    /**
+     * Returns the squares of the ship as an immutable shape.
+     * <p>
+     * The shape is cached until the squares of the ship change. Squares added
+     * as objects and modified from outside the ship are not detected.
+     * <p>
+     * @return The shape of the ship
+     */
+    @Override
+    public ShipShape getShape() {
+        if (shape == null) {
+            shape = ShipShape.of(this);
+        }
 
-        return rotatedShip;
+        return shape;
     }
 
     @Override
@@ -89,6 +89,158 @@ public interface Board {
      */
     Integer[][] getShipsMatrix(Ship ship);
 
+    /**
+     * Returns the matrix showing the weighted number of possible ship
+     * placements for each square.
+     * <p>
+     * Ships without placement weights count each placement as 1.
+     * <p>
+     * @return The weighted ship placement matrix
+     * @see #setPlacementWeights(battleships.model.Ship,
+     * battleships.model.PlacementWeight)
+     */
+    Double[][] getWeightedShipsMatrix();
+
+    /**
+     * Returns the map showing the weighted number of possible ship placements
+     * for each square, for the given ship.
+     * <p>
+     * @param ship Ship to get map for
+     * @return The weighted ship placement map
+     */
+    Double[][] getWeightedShipsMatrix(Ship ship);
+
+    /**
+     * Sets the weights of each placement of a ship.
+     * <p>
+     * Weighted counts are kept up to date together with the placement counts
+     * as states change. Supplying null removes the weights from the ship.
+     * <p>
+     * @param ship The ship (non-rotated)
+     * @param weights The placement weights or null
+     * @throws IllegalArgumentException If the ship is not on the board or a
+     * weight is negative
+     */
+    void setPlacementWeights(Ship ship, PlacementWeight weights);
+
+    /**
+     * Returns the number of possible ship placements on a square.
+     * <p>
+     * The count is summed over all ships in 64 bits, so it does not overflow
+     * on large boards or fleets.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The ship placement count of the square
+     * @see #getShipsMatrix()
+     */
+    long getShipCount(int x, int y);
+
+    /**
+     * Returns the weighted number of possible ship placements on a square.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The weighted ship placement count of the square
+     * @see #getWeightedShipsMatrix()
+     */
+    double getWeightedShipCount(int x, int y);
+
+    /**
+     * Returns the number of unresolved hits covered by the possible ship
+     * placements on a square.
+     * <p>
+     * This is the count to use in target mode, once a ship has been hit but
+     * not sunk. Placements that cover no hit add nothing, and each placement
+     * adds the number of hits it covers. Squares that are hit are counted like
+     * any other, and are best left out by the caller.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The target count of the square
+     * @see #getHitCount()
+     * @since v1.1.0
+     */
+    long getTargetCount(int x, int y);
+
+    /**
+     * Returns the number of squares that are hit but not sunk.
+     * <p>
+     * @return The number of unresolved hits
+     * @since v1.1.0
+     */
+    int getHitCount();
+
+    /**
+     * Returns a hash of the state of the board.
+     * <p>
+     * The hash covers the state of every square, the ships on the board and
+     * where each sunk ship lies. Boards with the same fleet that reach the
+     * same state by any order of changes have the same hash, so it can key
+     * results computed from the board. Placement weights are not covered.
+     * <p>
+     * Different states are very unlikely, but not certain, to have different
+     * hashes.
+     * <p>
+     * @return The state hash
+     * @since v1.1.0
+     */
+    long getStateHash();
+
+    /**
+     * Returns the number of ways to place all ships that are not sunk at once.
+     * <p>
+     * Ships are placed independently of each other, so this is the product of
+     * the placement totals of the ships. The product quickly grows past 64 bits
+     * on large boards; use {@code getLogJointCount()} for those.
+     * <p>
+     * @return The joint placement count
+     * @throws ArithmeticException If the count does not fit in a {@code long}
+     * @see #getLogJointCount()
+     * @since v1.1.0
+     */
+    long getJointCount();
+
+    /**
+     * Returns the natural logarithm of the number of ways to place all ships
+     * that are not sunk at once.
+     * <p>
+     * Works for any board size, with the precision of a {@code double}.
+     * <p>
+     * @return The log of the joint placement count, negative infinity if a
+     * ship cannot be placed
+     * @see #getJointCount()
+     * @since v1.1.0
+     */
+    double getLogJointCount();
+
+    /**
+     * Returns the natural logarithm of the number of ways to place all ships
+     * that are not sunk at once, with at least one of them on a square.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The log of the joint placement count of the square, negative
+     * infinity if no joint placement covers it
+     * @see #getLogJointCount()
+     * @since v1.1.0
+     */
+    double getLogJointCount(int x, int y);
+
+    /**
+     * Returns the squares that changed since this method was last called.
+     * <p>
+     * A square has changed if its state or any of its placement counts,
+     * weighted or not, or its target count may have changed. Each square is packed as
+     * {@code x * getHeight() + y}, and appears once.
+     * <p>
+     * This allows results derived from the board to be updated only where
+     * needed, rather than reading every square after each change.
+     * <p>
+     * @return The packed squares, in no particular order
+     */
+    int[] pollChangedSquares();
+
     /**
      * Returns the state of the specified square.
      * <p>
@@ -208,6 +360,24 @@ public interface Board {
      */
     void raise(Ship ship);
 
+    /**
+     * Registers a listener to be told of the changes made to the board.
+     * <p>
+     * Changes are delivered once per operation that changes the board, on the
+     * thread that called the operation.
+     * <p>
+     * @param listener The listener
+     */
+    void addBoardListener(BoardListener listener);
+
+    /**
+     * Removes a listener registered with {@code addBoardListener}.
+     * <p>
+     * @param listener The listener
+     * @see #addBoardListener(battleships.model.BoardListener)
+     */
+    void removeBoardListener(BoardListener listener);
+
     /**
      * Checks if the ship is sunk.
      *
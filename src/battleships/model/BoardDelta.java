@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Arrays;
+
+/**
+ * The changes made to a board by a single operation.
+ * <p>
+ * A delta holds two lists. The first has the net change of the placement
+ * counts of each square whose counts were written, plain and weighted, with
+ * each square listed once. Changes that cancel out are listed with a net change
+ * of 0. The second has the state transitions of squares, in the order they
+ * happened.
+ * <p>
+ * Squares are packed as {@code x * height + y}. Entries are kept in primitive
+ * arrays that are reused from one operation to the next, so no objects are
+ * created for each change.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see BoardListener
+ * @since v1.1.0
+ */
+public final class BoardDelta {
+
+    /**
+     * All square states, indexed by ordinal.
+     */
+    private static final Board.SquareState[] STATES = Board.SquareState.values();
+
+    /**
+     * The height of the board, for unpacking squares.
+     */
+    private final int height;
+    /**
+     * The position of each square in the count list, or -1 if it's not listed.
+     */
+    private final int[] slot;
+    /**
+     * The squares of the count list.
+     */
+    private final int[] squares;
+    /**
+     * The net placement count change of each square in the count list.
+     */
+    private final long[] counts;
+    /**
+     * The net weighted placement count change of each square in the count
+     * list.
+     */
+    private final double[] weighted;
+    /**
+     * The number of squares in the count list.
+     */
+    private int size;
+    /**
+     * The squares of the state list.
+     */
+    private int[] stateSquares;
+    /**
+     * The ordinal of the state each square in the state list changed from.
+     */
+    private byte[] oldStates;
+    /**
+     * The ordinal of the state each square in the state list changed to.
+     */
+    private byte[] newStates;
+    /**
+     * The number of transitions in the state list.
+     */
+    private int stateSize;
+
+    /**
+     * Creates an empty delta for a board.
+     * <p>
+     * @param width The board width
+     * @param height The board height
+     */
+    BoardDelta(int width, int height) {
+        this.height = height;
+
+        slot = new int[width * height];
+        Arrays.fill(slot, -1);
+
+        squares = new int[width * height];
+        counts = new long[width * height];
+        weighted = new double[width * height];
+
+        stateSquares = new int[8];
+        oldStates = new byte[8];
+        newStates = new byte[8];
+    }
+
+    /**
+     * Gets the number of squares whose placement counts changed.
+     * <p>
+     * @return The size of the count list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a square of the count list.
+     * <p>
+     * @param i The position in the count list
+     * @return The packed square
+     */
+    public int getSquare(int i) {
+        return squares[i];
+    }
+
+    /**
+     * Gets the X position of a square of the count list.
+     * <p>
+     * @param i The position in the count list
+     * @return The X position
+     */
+    public int getX(int i) {
+        return squares[i] / height;
+    }
+
+    /**
+     * Gets the Y position of a square of the count list.
+     * <p>
+     * @param i The position in the count list
+     * @return The Y position
+     */
+    public int getY(int i) {
+        return squares[i] % height;
+    }
+
+    /**
+     * Gets the net change of the placement count of a square.
+     * <p>
+     * @param i The position in the count list
+     * @return The count change
+     * @see Board#getShipCount(int, int)
+     */
+    public long getCountDelta(int i) {
+        return counts[i];
+    }
+
+    /**
+     * Gets the net change of the weighted placement count of a square.
+     * <p>
+     * @param i The position in the count list
+     * @return The weighted count change
+     * @see Board#getWeightedShipCount(int, int)
+     */
+    public double getWeightedDelta(int i) {
+        return weighted[i];
+    }
+
+    /**
+     * Gets the number of state transitions.
+     * <p>
+     * @return The size of the state list
+     */
+    public int stateChanges() {
+        return stateSize;
+    }
+
+    /**
+     * Gets the square of a state transition.
+     * <p>
+     * @param i The position in the state list
+     * @return The packed square
+     */
+    public int getStateSquare(int i) {
+        return stateSquares[i];
+    }
+
+    /**
+     * Gets the state a square changed from.
+     * <p>
+     * @param i The position in the state list
+     * @return The old state
+     */
+    public Board.SquareState getOldState(int i) {
+        return STATES[oldStates[i]];
+    }
+
+    /**
+     * Gets the state a square changed to.
+     * <p>
+     * @param i The position in the state list
+     * @return The new state
+     */
+    public Board.SquareState getNewState(int i) {
+        return STATES[newStates[i]];
+    }
+
+    /**
+     * Checks if nothing has been recorded.
+     * <p>
+     * @return {@code true} if both lists are empty
+     */
+    boolean isEmpty() {
+        return size == 0 && stateSize == 0;
+    }
+
+    /**
+     * Adds to the count changes of a square.
+     * <p>
+     * @param square The packed square
+     * @param count The placement count change
+     * @param weight The weighted placement count change
+     */
+    void addCount(int square, long count, double weight) {
+        int i = slot[square];
+
+        if (i == -1) {
+            i = size++;
+            slot[square] = i;
+            squares[i] = square;
+            counts[i] = 0;
+            weighted[i] = 0;
+        }
+
+        counts[i] += count;
+        weighted[i] += weight;
+    }
+
+    /**
+     * Records a state transition.
+     * <p>
+     * @param square The packed square
+     * @param from The old state
+     * @param to The new state
+     */
+    void addState(int square, Board.SquareState from, Board.SquareState to) {
+        if (stateSize == stateSquares.length) {
+            stateSquares = Arrays.copyOf(stateSquares, stateSize * 2);
+            oldStates = Arrays.copyOf(oldStates, stateSize * 2);
+            newStates = Arrays.copyOf(newStates, stateSize * 2);
+        }
+
+        stateSquares[stateSize] = square;
+        oldStates[stateSize] = (byte) from.ordinal();
+        newStates[stateSize] = (byte) to.ordinal();
+        stateSize++;
+    }
+
+    /**
+     * Empties both lists for the next operation.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            slot[squares[i]] = -1;
+        }
+
+        size = 0;
+        stateSize = 0;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+/**
+ * Receives the changes of a board as they are applied.
+ * <p>
+ * Changes are delivered in a batch once per board operation, such as a state
+ * change or the sinking of a ship, after the operation is complete.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Board#addBoardListener(battleships.model.BoardListener)
+ * @since v1.1.0
+ */
+@FunctionalInterface
+public interface BoardListener {
+
+    /**
+     * Called after an operation has changed the board.
+     * <p>
+     * The delta is reused by the board and is only valid during this call. It
+     * must not be kept or modified.
+     * <p>
+     * @param delta The changes made by the operation
+     */
+    void boardChanged(BoardDelta delta);
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws random placements of a whole fleet, with no two ships overlapping.
+ * <p>
+ * Every placement of every ship is listed once up front, the same way
+ * {@code IndependentBoard} lists them: each of the four rotations given by
+ * {@code Ship.rotateCWNinety}, at each position where it fits within the
+ * board. To draw a fleet, a placement is picked for each ship in turn, and
+ * the whole fleet is drawn again as soon as a ship overlaps one picked
+ * before it. As nothing but overlapping fleets is thrown away, every fleet
+ * without overlaps is drawn with the same probability.
+ * <p>
+ * The placements of a ship can be given weights, in which case a fleet is
+ * drawn with probability in proportion to the product of the weights of its
+ * placements. Weighted placements are picked with an alias table, so picking
+ * one takes constant time either way.
+ * <p>
+ * Overlaps are found on a bitboard of the squares taken, with one bit per
+ * square. Only the squares of the ships picked are set and cleared, so
+ * drawing a fleet does not depend on the size of the board, and allocates
+ * nothing. A sampler can be shared between threads, each with it's own
+ * random number generator.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see PlacementWeight
+ * @since v1.1.0
+ */
+public final class FleetSampler {
+
+    /**
+     * The number of fleets drawn before giving up.
+     */
+    static final int MAX_ATTEMPTS = 1 << 20;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+    /**
+     * The height of the board.
+     */
+    private final int height;
+    /**
+     * The index of the first placement of each ship, and the number of
+     * placements at the end.
+     */
+    private final int[] placementStart;
+    /**
+     * The number of squares of each ship.
+     */
+    private final int[] shipSize;
+    /**
+     * The index of the first square of the placements of each ship.
+     */
+    private final int[] squareStart;
+    /**
+     * The squares covered by each placement, packed as
+     * {@code x * height + y}.
+     */
+    private final int[] squares;
+    /**
+     * The rotation, x and y position of each placement.
+     */
+    private final int[] keys;
+    /**
+     * The probability of keeping each weighted placement once its column of
+     * the alias table is picked, null for ships without weights.
+     */
+    private final double[][] keep;
+    /**
+     * The placement picked instead of each weighted placement when it is not
+     * kept, null for ships without weights.
+     */
+    private final int[][] alias;
+    /**
+     * The squares taken, one bitboard for each thread.
+     */
+    private final ThreadLocal<long[]> taken;
+
+    /**
+     * Creates a sampler that draws every fleet with the same probability.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships, in the order their placements are drawn
+     * @throws IllegalArgumentException If a ship does not fit on the board
+     */
+    public FleetSampler(int width, int height, List<Ship> fleet) {
+        this(width, height, fleet, null);
+    }
+
+    /**
+     * Creates a sampler with placement weights.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships, in the order their placements are drawn
+     * @param weights The placement weights of each ship, or null for no
+     * weights. A null entry gives all placements of that ship the same weight
+     * @throws IllegalArgumentException If the board size is not positive, a
+     * ship does not fit on the board, or a weight is negative or all weights
+     * of a ship are 0
+     */
+    public FleetSampler(int width, int height, List<Ship> fleet, List<PlacementWeight> weights) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board width/height must be bigger than 0!");
+        }
+
+        if (weights != null && weights.size() != fleet.size()) {
+            throw new IllegalArgumentException("Weights must be given for each ship!");
+        }
+
+        this.width = width;
+        this.height = height;
+
+        int ships = fleet.size();
+        ShipShape[][] shapes = new ShipShape[ships][4];
+        placementStart = new int[ships + 1];
+        shipSize = new int[ships];
+        squareStart = new int[ships];
+
+        long placementTotal = 0;
+        long squareTotal = 0;
+
+        for (int ship = 0; ship < ships; ship++) {
+            long count = 0;
+
+            for (int rotation = 0; rotation < 4; rotation++) {
+                ShipShape shape = fleet.get(ship).getShape().rotateCWNinety(rotation);
+                shapes[ship][rotation] = shape;
+                count += (long) Math.max(0, width - shape.getMaxX()) * Math.max(0, height - shape.getMaxY());
+            }
+
+            if (count == 0) {
+                throw new IllegalArgumentException("Ship does not fit on the board!");
+            }
+
+            shipSize[ship] = shapes[ship][0].size();
+            placementStart[ship] = (int) placementTotal;
+            squareStart[ship] = (int) squareTotal;
+
+            placementTotal += count;
+            squareTotal += count * shipSize[ship];
+
+            if (squareTotal > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many placements to sample!");
+            }
+        }
+        placementStart[ships] = (int) placementTotal;
+
+        keys = new int[(int) placementTotal * 3];
+        squares = new int[(int) squareTotal];
+
+        for (int ship = 0; ship < ships; ship++) {
+            int placement = placementStart[ship];
+
+            for (int rotation = 0; rotation < 4; rotation++) {
+                ShipShape shape = shapes[ship][rotation];
+
+                for (int x = 0; x < width - shape.getMaxX(); x++) {
+                    for (int y = 0; y < height - shape.getMaxY(); y++) {
+                        keys[placement * 3] = rotation;
+                        keys[placement * 3 + 1] = x;
+                        keys[placement * 3 + 2] = y;
+
+                        int square = squareStart[ship] + (placement - placementStart[ship]) * shipSize[ship];
+                        for (int i = 0; i < shape.size(); i++) {
+                            squares[square + i] = (x + shape.getX(i)) * height + y + shape.getY(i);
+                        }
+
+                        placement++;
+                    }
+                }
+            }
+        }
+
+        keep = new double[ships][];
+        alias = new int[ships][];
+
+        for (int ship = 0; ship < ships && weights != null; ship++) {
+            if (weights.get(ship) != null) {
+                buildAlias(ship, weights.get(ship));
+            }
+        }
+
+        int words = (int) (((long) width * height + 63) >>> 6);
+        taken = ThreadLocal.withInitial(() -> new long[words]);
+    }
+
+    /**
+     * Builds the alias table of a ship from it's placement weights.
+     * <p>
+     * Uses Vose's method: columns that are under the mean weight are topped up
+     * from one that is over it, until every column holds exactly the mean.
+     * <p>
+     * @param ship The index of the ship
+     * @param weight The placement weights
+     * @throws IllegalArgumentException If a weight is negative or all are 0
+     */
+    private void buildAlias(int ship, PlacementWeight weight) {
+        int start = placementStart[ship];
+        int count = placementStart[ship + 1] - start;
+        double[] scaled = new double[count];
+        double total = 0;
+
+        for (int i = 0; i < count; i++) {
+            int key = (start + i) * 3;
+            double value = weight.weight(keys[key], keys[key + 1], keys[key + 2]);
+
+            if (!(value >= 0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Placement weights must not be negative!");
+            }
+
+            scaled[i] = value;
+            total += value;
+        }
+
+        if (total == 0) {
+            throw new IllegalArgumentException("Ship has no placement with weight!");
+        }
+
+        keep[ship] = new double[count];
+        alias[ship] = new int[count];
+
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+
+        for (int i = 0; i < count; i++) {
+            scaled[i] = scaled[i] * count / total;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int under = small.pop();
+            int over = large.pop();
+
+            keep[ship][under] = scaled[under];
+            alias[ship][under] = over;
+
+            scaled[over] += scaled[under] - 1;
+            (scaled[over] < 1 ? small : large).push(over);
+        }
+
+        //Whatever is left holds the mean, give or take rounding
+        while (!large.isEmpty()) {
+            int i = large.pop();
+            keep[ship][i] = 1;
+            alias[ship][i] = i;
+        }
+
+        while (!small.isEmpty()) {
+            int i = small.pop();
+            keep[ship][i] = 1;
+            alias[ship][i] = i;
+        }
+    }
+
+    /**
+     * Gets the horizontal size of the board.
+     * <p>
+     * @return The width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the vertical size of the board.
+     * <p>
+     * @return The height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of ships in the fleet.
+     * <p>
+     * @return The number of ships
+     */
+    public int getFleetSize() {
+        return shipSize.length;
+    }
+
+    /**
+     * Gets the number of placements of a ship, counted once for each of the
+     * four rotations.
+     * <p>
+     * @param ship The index of the ship
+     * @return The number of placements
+     */
+    public int getPlacementCount(int ship) {
+        return placementStart[ship + 1] - placementStart[ship];
+    }
+
+    /**
+     * Draws a fleet with the random number generator of the current thread.
+     * <p>
+     * @param placements Where the placement of each ship is written, in fleet
+     * order, as {@code rotation, x, y} triples
+     * @return The number of fleets drawn, including the one returned
+     * @throws IllegalStateException If no fleet without overlaps is found
+     * @see #sample(java.util.Random, int[])
+     */
+    public int sample(int[] placements) {
+        return sample(ThreadLocalRandom.current(), placements);
+    }
+
+    /**
+     * Draws a fleet.
+     * <p>
+     * The rotation, x and y written for a ship are those taken by
+     * {@code Board.sink}. The same sequence of random numbers draws the same
+     * fleet.
+     * <p>
+     * @param random The random number generator
+     * @param placements Where the placement of each ship is written, in fleet
+     * order, as {@code rotation, x, y} triples
+     * @return The number of fleets drawn, including the one returned
+     * @throws IllegalStateException If no fleet without overlaps is found
+     * after many tries, such as when the fleet does not fit on the board
+     * @throws IllegalArgumentException If the array is too short
+     */
+    public int sample(Random random, int[] placements) {
+        int ships = shipSize.length;
+
+        if (placements.length < ships * 3) {
+            throw new IllegalArgumentException("Placements array too short!");
+        }
+
+        long[] bits = taken.get();
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            int placed = 0;
+
+            while (placed < ships) {
+                int placement = pick(placed, random);
+
+                if (!take(placed, placement, bits)) {
+                    break;
+                }
+
+                //The placement is kept here until the fleet is done
+                placements[placed * 3] = placement;
+                placed++;
+            }
+
+            for (int ship = 0; ship < placed; ship++) {
+                release(ship, placements[ship * 3], bits);
+            }
+
+            if (placed == ships) {
+                for (int ship = ships - 1; ship >= 0; ship--) {
+                    int key = placements[ship * 3] * 3;
+
+                    placements[ship * 3] = keys[key];
+                    placements[ship * 3 + 1] = keys[key + 1];
+                    placements[ship * 3 + 2] = keys[key + 2];
+                }
+
+                return attempt;
+            }
+        }
+
+        throw new IllegalStateException("No fleet placement found!");
+    }
+
+    /**
+     * Picks a placement of a ship at random, by weight if it has weights.
+     * <p>
+     * @param ship The index of the ship
+     * @param random The random number generator
+     * @return The index of the placement
+     */
+    private int pick(int ship, Random random) {
+        int start = placementStart[ship];
+        int column = random.nextInt(placementStart[ship + 1] - start);
+
+        if (keep[ship] == null || random.nextDouble() < keep[ship][column]) {
+            return start + column;
+        }
+
+        return start + alias[ship][column];
+    }
+
+    /**
+     * Sets the squares of a placement on the bitboard, if none are set.
+     * <p>
+     * @param ship The index of the ship
+     * @param placement The index of the placement
+     * @param bits The bitboard
+     * @return {@code true} if the squares were set, {@code false} if the
+     * placement overlaps and nothing was set
+     */
+    private boolean take(int ship, int placement, long[] bits) {
+        int from = squareStart[ship] + (placement - placementStart[ship]) * shipSize[ship];
+        int to = from + shipSize[ship];
+
+        for (int i = from; i < to; i++) {
+            if ((bits[squares[i] >>> 6] & (1L << squares[i])) != 0) {
+                return false;
+            }
+        }
+
+        for (int i = from; i < to; i++) {
+            bits[squares[i] >>> 6] |= 1L << squares[i];
+        }
+
+        return true;
+    }
+
+    /**
+     * Clears the squares of a placement on the bitboard.
+     * <p>
+     * @param ship The index of the ship
+     * @param placement The index of the placement
+     * @param bits The bitboard
+     */
+    private void release(int ship, int placement, long[] bits) {
+        int from = squareStart[ship] + (placement - placementStart[ship]) * shipSize[ship];
+        int to = from + shipSize[ship];
+
+        for (int i = from; i < to; i++) {
+            bits[squares[i] >>> 6] &= ~(1L << squares[i]);
+        }
+    }
+}
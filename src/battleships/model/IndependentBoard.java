@@ -4,13 +4,19 @@
  */
 package battleships.model;
 
+import battleships.metrics.BoardCreatedEvent;
+import battleships.metrics.EngineMetrics;
+import battleships.metrics.RaiseEvent;
+import battleships.metrics.ShipAddedEvent;
+import battleships.metrics.SinkEvent;
+import battleships.metrics.StateChangeEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * An implementation of Board that calculates probability independently for each
@@ -39,13 +45,55 @@ import java.util.TreeMap;
  * This allows the totals and probabilities to be recalculated when the state of
  * a square changes without having to regenerate the configurations.
  * <p>
+ * Ships of the same canonical shape share their configurations and counters,
+ * as a configuration fits or clashes the same way for all of them. Only
+ * whether each ship is sunk, and its placement weights, are kept for the ship
+ * itself. A sunk ship counts no configurations, while the shared counters
+ * carry on for the rest of its group. Fleets with many ships of the same type
+ * are then as cheap to keep up to date as a fleet with one of each.
+ * <p>
+ * The placement tables may be kept off the heap, for boards with too many
+ * placements to leave to the garbage collector. Such boards should be closed
+ * once done with.
+ * <p>
  * Square coordinates in this class are 0 indexed.
  * <p>
  * @author Shen Yichen <2007.yichen@gmail.com>
  * @see Ship
+ * @see Ship#getCanonicalShape()
  * @since v1.0.0
  */
-public class IndependentBoard implements Board {
+public class IndependentBoard implements Board, AutoCloseable {
+
+    /**
+     * The number of square states.
+     */
+    private static final int STATES = SquareState.values().length;
+    /**
+     * Salts the keys of ships on the board.
+     */
+    private static final long SHIP_SALT = 0x5DEECE66DL;
+    /**
+     * Salts the keys of squares covered by sunk ships.
+     */
+    private static final long SUNK_SALT = 0xC2B2AE3D27D4EB4FL;
+    /**
+     * The number of squares times ships above which matrices of all ships are
+     * worked out in parallel.
+     * <p>
+     * Each parallel task also folds at least this much, so the cost of
+     * forking stays small against the work.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * The largest board width or height.
+     * <p>
+     * Squares are packed into an int with 16 bits for each coordinate.
+     *
+     * @see Square#pack(int, int)
+     * @since v1.1.0
+     */
+    public static final int MAX_SIZE = Short.MAX_VALUE;
 
     // <editor-fold desc="Class variables">
     /**
@@ -53,40 +101,109 @@ public class IndependentBoard implements Board {
      */
     private SquareState[][] board;
     /**
-     * Stores the list of ships.
+     * Makes the stores of the placement tables and active bits.
+     */
+    private StoreArena arena;
+    /**
+     * Gives each ship the ID indexing the arrays below.
+     */
+    private ShipRegistry ships;
+    /**
+     * Stores the configurations and counters of each ship shape, keyed by
+     * canonical shape.
+     */
+    private Map<ShipShape, ShapeGroup> groups;
+    /**
+     * Stores the group of each ship, indexed by ship ID.
+     */
+    private ShapeGroup[] shipGroup;
+    /**
+     * Stores the number of times the shape of each ship's group has to be
+     * rotated to be laid out like the ship, indexed by ship ID.
+     *
+     * @see PlacementTable#rotationOf(battleships.model.Ship)
+     */
+    private int[] shipRotation;
+    /**
+     * Stores the configuration for the position of each sunken ship, as packed
+     * positions, indexed by ship ID.
+     * <p>
+     * Null for ships that are not sunk.
+     */
+    private int[][] sunkMap;
+    /**
+     * Stores the weighted counters of ships, indexed by ship ID.
+     * <p>
+     * Null for ships without placement weights.
+     */
+    private WeightedCounter[] weightedCounter;
+    /**
+     * Stamps each ship when it joins the board, is sunk or is raised, indexed
+     * by ship ID.
+     * <p>
+     * Together with the stamp of its group, which moves whenever the group's
+     * counters change, it tells when the probabilities of a ship are stale.
+     */
+    private long[] shipStamp;
+    /**
+     * Stamps the board whenever the counters of any group or ship change.
      */
-    private Collection<Ship> ships;
+    private long boardStamp;
     /**
-     * Stores the possible configurations of all ships.
+     * The last probabilities worked out for each ship, indexed by ship ID.
      * <p>
-     * Each configuration is given an incremental ID.
+     * Null for ships whose probabilities have not been asked for.
+     */
+    private double[][][] probabilityCache;
+    /**
+     * The stamp of each ship when its probabilities were worked out, indexed
+     * by ship ID.
+     */
+    private long[] probabilityStamp;
+    /**
+     * The last probabilities worked out for all ships, or null.
+     */
+    private double[][] combinedProbability;
+    /**
+     * The board stamp when {@code combinedProbability} was worked out.
      */
-    private SortedMap<Integer, Collection<Square>> possibleShipConfigs;
+    private long combinedStamp;
     /**
-     * Stores a boolean for each configuration to denote if it's active.
+     * The number of squares that are hit but not sunk.
      */
-    private Map<Integer, Boolean> configActive;
+    private int hitCount;
     /**
-     * Stores a link from a square to a configuration that affects it.
+     * The Zobrist hash of the board state.
+     * <p>
+     * The XOR of the keys of every square that is not open, every ship on the
+     * board and every square covered by a sunk ship. Each change flips the
+     * keys it adds or removes, so the hash is kept up to date in constant time
+     * for each square changed.
+     */
+    private long stateHash;
+    /**
+     * Marks the squares changed since {@code pollChangedSquares()} was last
+     * called, indexed by {@code x * height + y}.
      */
-    private ArrayList<ArrayList<Collection<Integer>>> reverseMap;
+    private boolean[] changed;
     /**
-     * Stores a link from ship to configurations involving it.
+     * The squares marked in {@code changed}, in the order they were marked.
      */
-    private Map<Ship, Collection<Integer>> shipToConfigID;
+    private int[] changedSquares;
     /**
-     * Stores boards of possible configurations on each square, one for each
-     * ship.
+     * The number of squares in {@code changedSquares}.
      */
-    private Map<Ship, Integer[][]> shipCounter;
+    private int changedCount;
     /**
-     * Stores the total number of configurations for each ship.
+     * The listeners told of changes to the board.
      */
-    private Map<Ship, Integer> totalCounter;
+    private Collection<BoardListener> listeners;
     /**
-     * Stores the configuration for the position of a sunken ship.
+     * Collects the changes of the current operation for the listeners.
+     * <p>
+     * Null when there are no listeners, so no changes are collected.
      */
-    private Map<Ship, Collection<Square>> sunkMap;
+    private BoardDelta delta;
     // </editor-fold>
 
     /**
@@ -94,34 +211,127 @@ public class IndependentBoard implements Board {
      * <p>
      * @param width The board width in squares
      * @param height The board height in squares
+     * @throws IllegalArgumentException If the width or height is not between 1
+     * and {@link #MAX_SIZE}
      */
     public IndependentBoard(int width, int height) {
+        this(width, height, PlacementStorage.HEAP);
+    }
+
+    /**
+     * Creates a board with given width and height, keeping its placement
+     * tables in the given storage.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param storage Where the placement tables are kept
+     * @throws IllegalArgumentException If the width or height is not between 1
+     * and {@link #MAX_SIZE}, or the storage is null
+     * @since v1.1.0
+     */
+    public IndependentBoard(int width, int height, PlacementStorage storage) {
         if (width <= 0 || height <= 0) {
             throw new IllegalArgumentException("Board width/height must be bigger than 0!");
         }
 
+        if (width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Board width/height must not be bigger than " + MAX_SIZE + "!");
+        }
+
+        if (storage == null) {
+            throw new IllegalArgumentException("Placement storage must not be null!");
+        }
+
+        BoardCreatedEvent event = new BoardCreatedEvent();
+        event.begin();
+
         board = new SquareState[width][];
-        reverseMap = new ArrayList<>(width);
-        shipToConfigID = new HashMap<>();
 
         for (int i = 0; i < board.length; i++) {
             board[i] = new SquareState[height];
-            reverseMap.add(new ArrayList<>(height));
+            Arrays.fill(board[i], SquareState.OPEN);
+        }
 
-            for (int j = 0; j < board[i].length; j++) {
-                board[i][j] = SquareState.OPEN;
-                //Using array to store reverse mapping indices, change implementation here
-                reverseMap.get(i).add(new ArrayList<>());
-            }
+        arena = new StoreArena(storage);
+        ships = new ShipRegistry();
+        groups = new LinkedHashMap<>();
+        shipGroup = new ShapeGroup[0];
+        shipRotation = new int[0];
+        sunkMap = new int[0][];
+        weightedCounter = new WeightedCounter[0];
+        shipStamp = new long[0];
+        probabilityCache = new double[0][][];
+        probabilityStamp = new long[0];
+
+        changed = new boolean[width * height];
+        changedSquares = new int[width * height];
+        listeners = new ArrayList<>();
+
+        event.commit(width, height);
+    }
+
+    /**
+     * Creates a copy of a board, sharing its placement tables.
+     * <p>
+     * @param other The board to copy
+     * @see #fork()
+     */
+    private IndependentBoard(IndependentBoard other) {
+        if (other.arena.isClosed()) {
+            throw new IllegalStateException("Board already closed!");
+        }
+
+        BoardCreatedEvent event = new BoardCreatedEvent();
+        event.begin();
+
+        int width = other.getWidth();
+        int height = other.getHeight();
+
+        board = new SquareState[width][];
+        for (int i = 0; i < board.length; i++) {
+            board[i] = other.board[i].clone();
+        }
+
+        arena = new StoreArena(other.arena.getStorage());
+        ships = new ShipRegistry(other.ships);
+        groups = new LinkedHashMap<>();
+
+        Map<ShapeGroup, ShapeGroup> copies = new IdentityHashMap<>();
+        for (Map.Entry<ShipShape, ShapeGroup> entry : other.groups.entrySet()) {
+            ShapeGroup copy = new ShapeGroup(entry.getValue(), arena);
+
+            groups.put(entry.getKey(), copy);
+            copies.put(entry.getValue(), copy);
         }
 
-        shipCounter = new HashMap<>();
-        totalCounter = new HashMap<>();
+        int capacity = other.shipGroup.length;
+        shipGroup = new ShapeGroup[capacity];
+        weightedCounter = new WeightedCounter[capacity];
+
+        for (int id = 0; id < ships.size(); id++) {
+            shipGroup[id] = copies.get(other.shipGroup[id]);
+
+            if (other.weightedCounter[id] != null) {
+                weightedCounter[id] = new WeightedCounter(other.weightedCounter[id]);
+                shipGroup[id].weighted.add(weightedCounter[id]);
+            }
+        }
 
-        ships = new ArrayList<>();
-        possibleShipConfigs = new TreeMap<>();
-        configActive = new HashMap<>();
-        sunkMap = new HashMap<>();
+        shipRotation = other.shipRotation.clone();
+        //The positions of a sunk ship are never changed, only replaced
+        sunkMap = other.sunkMap.clone();
+        shipStamp = other.shipStamp.clone();
+        boardStamp = other.boardStamp;
+        probabilityCache = new double[capacity][][];
+        probabilityStamp = new long[capacity];
+        hitCount = other.hitCount;
+        stateHash = other.stateHash;
+
+        changed = new boolean[width * height];
+        changedSquares = new int[width * height];
+        listeners = new ArrayList<>();
+
+        event.commit(width, height);
     }
 
     @Override
@@ -145,56 +355,93 @@ public class IndependentBoard implements Board {
      * are not exact! It is preferred to use {@code getShipsMatrix()} in this
      * case.
      * <p>
+     * The probabilities are worked out again only after the board changes,
+     * and then only those of the ships that changed are. Each call returns a
+     * new matrix, so reading single squares is cheaper through
+     * {@code getProbability(int, int)}.
+     * <p>
+     * Large fleets on large boards are folded in parallel, in the common
+     * fork/join pool. The independence formula is combined in a different
+     * order then, and may differ from a sequential fold in the last bits.
+     * <p>
      * @return Probability matrix
      * @see #getShipsMatrix()
      */
     @Override
     public Double[][] getProbabilityMatrix() {
-        Double[][] summedProbMatrix = new Double[getWidth()][getHeight()];
+        return box(combinedProbabilities());
+    }
 
-        for (Double[] summedProbMatrixCol : summedProbMatrix) {
-            for (int j = 0; j < summedProbMatrixCol.length; j++) {
-                summedProbMatrixCol[j] = 0.0;
-            }
-        }
+    /**
+     * Gets the probability that any ship may occupy a square.
+     * <p>
+     * This is the value of the square in {@code getProbabilityMatrix()},
+     * without making the matrix. Reads on a board that has not changed since
+     * the last read take constant time.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @return The probability
+     * @see #getProbabilityMatrix()
+     */
+    public double getProbability(int x, int y) {
+        return combinedProbabilities()[x][y];
+    }
 
-        for (Ship ship : ships) {
-            boardMapper(summedProbMatrix,
-                    ship,
-                    (int newVal, Double orgVal, int total) -> {
-                        double newProb = total > 0 ? (double) newVal / total : 0;
-                        return orgVal + newProb - orgVal * newProb;
-                    });
+    /**
+     * Returns the probabilities of all ships, working them out again only if
+     * the board has changed since they were last worked out.
+     * <p>
+     * @return The probabilities, shared until the board changes
+     */
+    private double[][] combinedProbabilities() {
+        if (combinedProbability == null || combinedStamp != boardStamp) {
+            //P(A or B) = P(A) + P(B) - P(A and B)
+            //P(A and B) = P(A)P(B) as we are assuming they are independent
+            combinedProbability = new ProbabilityFold(0, ships.size()).invoke();
+            combinedStamp = boardStamp;
         }
-        //P(A or B) = P(A) + P(B) - P(A and B)
-        //P(A and B) = P(A)P(B) as we are assuming they are independent
 
-        return summedProbMatrix;
+        return combinedProbability;
     }
 
+    /**
+     * Gets the probability matrix for a single ship on this board.
+     * <p>
+     * The probabilities are worked out again only after the ship's counters
+     * change. Each call returns a new matrix.
+     * <p>
+     * @param ship Ship to get matrix for
+     * @return Probability matrix
+     */
     @Override
     public Double[][] getProbabilityMatrix(Ship ship) {
-        Double[][] probMatrix = new Double[getWidth()][getHeight()];
-
-        boardMapper(probMatrix, ship, (int newVal, Double orgVal, int total) -> total > 0 ? ((double) newVal) / total : 0);
-
-        return probMatrix;
+        return box(probabilities(shipID(ship, "No such ship on board!")));
     }
 
+    /**
+     * Gets the number of possible placements of all ships on each square.
+     * <p>
+     * Large fleets on large boards are summed in parallel, in the common
+     * fork/join pool.
+     * <p>
+     * @return The ship placement counts
+     * @throws ArithmeticException If a count is past the int range, which
+     * {@code getShipCount(int, int)} is not
+     */
     @Override
     public Integer[][] getShipsMatrix() {
-        Integer[][] sumMatrix = new Integer[getWidth()][getHeight()];
+        int[][] sum = new CountFold(0, ships.size()).invoke();
+        Integer[][] sumMatrix = new Integer[sum.length][];
 
-        for (Integer[] sumMatrixCol : sumMatrix) {
-            for (int j = 0; j < sumMatrixCol.length; j++) {
-                sumMatrixCol[j] = 0;
+        for (int i = 0; i < sum.length; i++) {
+            sumMatrix[i] = new Integer[sum[i].length];
+
+            for (int j = 0; j < sum[i].length; j++) {
+                sumMatrix[i][j] = sum[i][j];
             }
         }
 
-        ships.stream().forEach((ship) -> {
-            boardMapper(sumMatrix, ship, (int newVal, Integer orgVal, int total) -> orgVal + newVal);
-        });
-
         return sumMatrix;
     }
 
@@ -207,6 +454,229 @@ public class IndependentBoard implements Board {
         return copyMatrix;
     }
 
+    @Override
+    public Double[][] getWeightedShipsMatrix() {
+        Double[][] sumMatrix = new Double[getWidth()][getHeight()];
+
+        for (Double[] sumMatrixCol : sumMatrix) {
+            for (int j = 0; j < sumMatrixCol.length; j++) {
+                sumMatrixCol[j] = 0.0;
+            }
+        }
+
+        for (int shipID = 0; shipID < ships.size(); shipID++) {
+            weightedMapper(sumMatrix, shipID, (double newVal, Double orgVal) -> orgVal + newVal);
+        }
+
+        return sumMatrix;
+    }
+
+    @Override
+    public Double[][] getWeightedShipsMatrix(Ship ship) {
+        Double[][] copyMatrix = new Double[getWidth()][getHeight()];
+
+        weightedMapper(copyMatrix, shipID(ship, "No such ship on board!"), (double newVal, Double orgVal) -> newVal);
+
+        return copyMatrix;
+    }
+
+    /**
+     * Sets the weights of each placement of a ship.
+     * <p>
+     * Weighted counts are kept up to date together with the placement counts
+     * as states change. Supplying null removes the weights from the ship.
+     * <p>
+     * Configurations added directly with
+     * {@code addConfig(Ship, Ship, int, int)} have no known rotation and are
+     * weighted as 1.
+     * <p>
+     * The weights only apply to the ship given, not to other ships of the
+     * same shape.
+     * <p>
+     * @param ship The ship (non-rotated)
+     * @param weights The placement weights or null
+     * @throws IllegalArgumentException If the ship is not on the board or a
+     * weight is negative
+     */
+    @Override
+    public void setPlacementWeights(Ship ship, PlacementWeight weights) {
+        int shipID = shipID(ship, "No such ship on board!");
+        ShapeGroup group = shipGroup[shipID];
+
+        //Weighted counts of the ship's squares change either way
+        markAllChanged();
+
+        double[][] before = delta == null ? null : weightedCounts(shipID);
+
+        if (weightedCounter[shipID] != null) {
+            group.weighted.remove(weightedCounter[shipID]);
+            weightedCounter[shipID] = null;
+        }
+
+        if (weights != null) {
+            PlacementTable table = group.table;
+            WeightedCounter counter = new WeightedCounter(shipID, weights, table.size(), getWidth(), getHeight());
+            int offset = shipRotation[shipID];
+
+            for (int id = 0; id < table.size(); id++) {
+                counter.configWeight[id] = placementWeight(weights, table, id, offset);
+
+                if (group.isActive(id)) {
+                    counter.add(table, id, counter.configWeight[id], group.counter);
+                }
+            }
+
+            weightedCounter[shipID] = counter;
+            group.weighted.add(counter);
+        }
+
+        if (before != null) {
+            double[][] after = weightedCounts(shipID);
+
+            for (int i = 0; i < after.length; i++) {
+                for (int j = 0; j < after[i].length; j++) {
+                    if (Double.compare(before[i][j], after[i][j]) != 0) {
+                        delta.addCount(i * getHeight() + j, 0, after[i][j] - before[i][j]);
+                    }
+                }
+            }
+        }
+
+        fireChanges();
+    }
+
+    @Override
+    public long getShipCount(int x, int y) {
+        long count = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            count += (long) group.live * group.counter[x][y];
+        }
+
+        return count;
+    }
+
+    @Override
+    public double getWeightedShipCount(int x, int y) {
+        double count = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            double groupCount = group.live * group.counter[x][y];
+
+            //Swap the plain count of weighted ships for their weighted count
+            for (WeightedCounter weighted : group.weighted) {
+                if (sunkMap[weighted.ship] == null) {
+                    groupCount += weighted.counts[x][y] - group.counter[x][y];
+                }
+            }
+
+            count += groupCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of unresolved hits covered by the possible ship
+     * placements on a square.
+     * <p>
+     * Each placement counts once for every hit it covers, so placements
+     * through no hit are left out, and placements through several hits, such
+     * as along a line of hits, count the most. This is kept for each
+     * placement as squares are hit, sunk or cleared, rather than worked out
+     * from scratch.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The target count of the square
+     */
+    @Override
+    public long getTargetCount(int x, int y) {
+        long count = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            count += (long) group.live * group.targetCounter[x][y];
+        }
+
+        return count;
+    }
+
+    @Override
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    @Override
+    public long getJointCount() {
+        long count = 1;
+
+        for (ShapeGroup group : groups.values()) {
+            for (int i = 0; i < group.live; i++) {
+                count = Math.multiplyExact(count, group.total);
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public double getLogJointCount() {
+        double count = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            if (group.live > 0) {
+                //log(0) is negative infinity, so a ship that cannot be placed leaves no joint placements
+                count += group.live * Math.log(group.total);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the natural logarithm of the number of ways to place all ships
+     * that are not sunk at once, with at least one of them on a square.
+     * <p>
+     * The joint placements that miss the square are those where each ship
+     * misses it. The fraction of them is worked out in log space, as the
+     * product {@code (1 - count / total)} over all ships, and taken away from
+     * 1.
+     * <p>
+     * @param x The X position
+     * @param y The Y position
+     * @return The log of the joint placement count of the square, negative
+     * infinity if no joint placement covers it
+     */
+    @Override
+    public double getLogJointCount(int x, int y) {
+        double logMissed = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            if (group.live > 0 && group.total > 0) {
+                logMissed += group.live * Math.log1p(-(double) group.counter[x][y] / group.total);
+            }
+        }
+
+        return getLogJointCount() + Math.log(-Math.expm1(logMissed));
+    }
+
+    @Override
+    public int[] pollChangedSquares() {
+        int[] squares = Arrays.copyOf(changedSquares, changedCount);
+
+        for (int i = 0; i < changedCount; i++) {
+            changed[changedSquares[i]] = false;
+        }
+        changedCount = 0;
+
+        return squares;
+    }
+
     @Override
     public SquareState getState(int x, int y) {
         return board[x][y];
@@ -217,37 +687,70 @@ public class IndependentBoard implements Board {
         SquareState[][] copyMatrix = new SquareState[getWidth()][getHeight()];
 
         for (int i = 0; i < board.length; i++) {
-            System.arraycopy(board[i], 0, copyMatrix[i], 0, board.length);
+            System.arraycopy(board[i], 0, copyMatrix[i], 0, board[i].length);
         }
 
         return copyMatrix;
     }
 
+    /**
+     * Adds a ship to the board.
+     * <p>
+     * The ship is given the next ship ID. Ships are told apart by identity, so
+     * two ships of the same shape can be added, but not the same ship twice.
+     * <p>
+     * @param ship The ship
+     * @throws IllegalArgumentException If the ship is already on the board
+     */
     @Override
     public void addShip(Ship ship) {
-        ships.add(ship);
+        int shipID = ships.register(ship);
 
-        Integer[][] counterMatrix = new Integer[getWidth()][getHeight()];
-        for (int i = 0; i < getWidth(); i++) {
-            for (int j = 0; j < getHeight(); j++) {
-                counterMatrix[i][j] = 0;
-            }
+        ShipAddedEvent event = new ShipAddedEvent();
+        event.begin();
+
+        if (shipID == shipGroup.length) {
+            int capacity = Math.max(8, shipID * 2);
+
+            shipGroup = Arrays.copyOf(shipGroup, capacity);
+            shipRotation = Arrays.copyOf(shipRotation, capacity);
+            sunkMap = Arrays.copyOf(sunkMap, capacity);
+            weightedCounter = Arrays.copyOf(weightedCounter, capacity);
+            shipStamp = Arrays.copyOf(shipStamp, capacity);
+            probabilityCache = Arrays.copyOf(probabilityCache, capacity);
+            probabilityStamp = Arrays.copyOf(probabilityStamp, capacity);
+        }
+
+        ShipShape canonical = ship.getCanonicalShape();
+        ShapeGroup group = groups.get(canonical);
+
+        //Only the first ship of a shape generates configurations
+        if (group == null) {
+            group = new ShapeGroup(new PlacementTable(ship.getShape(), getWidth(), getHeight(), arena),
+                    getWidth(), getHeight(), arena);
+            groups.put(canonical, group);
+            genMap(group);
         }
-        shipCounter.put(ship, counterMatrix);
-        totalCounter.put(ship, 0);
-        shipToConfigID.put(ship, new ArrayList<>());
-        genMap(ship);
+
+        shipGroup[shipID] = group;
+        shipRotation[shipID] = group.table.rotationOf(ship);
+        stateHash ^= zobrist(SHIP_SALT + shipID);
+
+        countShip(shipID, 1);
+
+        event.commit(getWidth(), getHeight(), ships.size(), ship.numSquares(), group.table.size());
+
+        fireChanges();
     }
 
     @Override
     public Collection<Ship> getShips() {
-        return new ArrayList<>(ships);
+        return ships.toList();
     }
 
     @Override
     public boolean shipWithinBoard(Ship ship, int x, int y) {
-        return x >= 0 && x < getWidth() - ship.getMaxSquare().getX()
-                && y >= 0 && y < getHeight() - ship.getMaxSquare().getY();
+        return shapeWithinBoard(ship.getShape(), x, y);
     }
 
     @Override
@@ -262,9 +765,15 @@ public class IndependentBoard implements Board {
             throw new IllegalArgumentException("Coordinates out-of-bound: (" + x + ", " + y + ")");
         }
 
+        StateChangeEvent event = new StateChangeEvent();
+        event.begin();
+
+        SquareState oldState = board[x][y];
+        int affected = 0;
+
         switch (newState) {
             case MISS: {
-                disable(x, y);
+                affected = disable(x, y);
                 break;
             }
 
@@ -272,7 +781,7 @@ public class IndependentBoard implements Board {
             case OPEN: {
                 //Need to set to OPEN for check config
                 board[x][y] = SquareState.OPEN;
-                enable(x, y);
+                affected = enable(x, y);
                 break;
                 //TODO add other
                 //Hit: similiar to miss
@@ -281,29 +790,47 @@ public class IndependentBoard implements Board {
             }
         }
 
+        if (oldState == SquareState.HIT && newState != SquareState.HIT) {
+            affected += hitChanged(x, y, -1);
+        } else if (oldState != SquareState.HIT && newState == SquareState.HIT) {
+            affected += hitChanged(x, y, 1);
+        }
+
         //If new state is not to be assigned, an IllegalStateException should be thrown before this.
         //TODO after everything is implemented, relook this line
         board[x][y] = newState;
+        stateChanged(x, y, oldState, newState);
         //TODO add in other states
+
+        fireChanges();
+
+        event.commit(getWidth(), getHeight(), ships.size(), x, y, newState.name(), affected);
     }
 
     @Override
     public boolean sink(Ship ship, int rotateCW, int x, int y) {
-        if (!ships.contains(ship)) {
-            throw new IllegalArgumentException("No such ship!");
-        }
+        int shipID = shipID(ship, "No such ship!");
 
-        if (sunkMap.containsKey(ship)) {
+        if (sunkMap[shipID] != null) {
             throw new IllegalArgumentException("Ship already sunk!");
         }
 
-        Ship rotatedShip = ship.rotateCWNinety(rotateCW);
+        SinkEvent event = new SinkEvent();
+        event.begin();
+
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+        long configs = 0;
+        long writes = 0;
+        long affected = 0;
+
+        ShipShape rotatedShape = ship.getShape().rotateCWNinety(rotateCW);
 
         boolean sinkable = true;
-        for (Iterator<Square> it = rotatedShip.iterator(); it.hasNext() && sinkable;) {
-            Square sqr = it.next();
-            int absX = sqr.getX() + x;
-            int absY = sqr.getY() + y;
+        for (int i = 0; i < rotatedShape.size() && sinkable; i++) {
+            int absX = rotatedShape.getX(i) + x;
+            int absY = rotatedShape.getY(i) + y;
 
             if (absX >= 0 && absX < getWidth() && absY >= 0 && absY < getHeight()) {
                 sinkable &= board[absX][absY].equals(SquareState.HIT);
@@ -313,78 +840,203 @@ public class IndependentBoard implements Board {
         }
 
         if (sinkable) {
-            Collection<Square> sunkPos = new ArrayList<>();
-            for (Square sqr : rotatedShip) {
-                int absX = sqr.getX() + x;
-                int absY = sqr.getY() + y;
+            int[] sunkPos = new int[rotatedShape.size()];
+            for (int i = 0; i < rotatedShape.size(); i++) {
+                int absX = rotatedShape.getX(i) + x;
+                int absY = rotatedShape.getY(i) + y;
 
                 //Disable required to deactivate configs of other ships
                 board[absX][absY] = SquareState.SUNK;
-                sunkPos.add(new Square(absX, absY));
+                stateChanged(absX, absY, SquareState.HIT, SquareState.SUNK);
+                sunkPos[i] = Square.pack(absX, absY);
 
-                disable(absX, absY);
+                affected += disable(absX, absY);
+                //Hits of a sunk ship are resolved
+                affected += hitChanged(absX, absY, -1);
             }
 
-            sunkMap.put(ship, sunkPos);
+            sunkMap[shipID] = sunkPos;
+            stateHash ^= sunkKey(shipID, sunkPos);
 
-            Collection<Integer> configList = shipToConfigID.get(ship);
+            //The group's configurations stay active for its other ships
+            countShip(shipID, -1);
 
-            configList.forEach((id) -> configActive.put(id, Boolean.FALSE));
+            configs = shipGroup[shipID].table.size();
+            writes = (long) getWidth() * getHeight();
+            affected += configs;
+        }
 
-            totalCounter.put(ship, 0);
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.SINK, start, allocated, configs, writes);
+        }
 
-            Integer[][] countMatrix = shipCounter.get(ship);
+        event.commit(getWidth(), getHeight(), ships.size(), sinkable, affected);
 
-            for (Integer[] row : countMatrix) {
-                for (int j = 0; j < row.length; j++) {
-                    row[j] = 0;
-                }
-            }
-        }
+        fireChanges();
 
         return sinkable;
     }
 
     @Override
     public void raise(Ship ship) {
-        if (!sunkMap.containsKey(ship)) {
+        int shipID = ships.idOf(ship);
+
+        if (shipID < 0 || sunkMap[shipID] == null) {
             throw new IllegalArgumentException("No such sunken ship!");
         }
 
-        sunkMap.get(ship).stream().forEach((sqr) -> board[sqr.getX()][sqr.getY()] = SquareState.HIT);
-        sunkMap.get(ship).stream().forEach((sqr) -> enable(sqr.getX(), sqr.getY()));
+        RaiseEvent event = new RaiseEvent();
+        event.begin();
+
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+        long affected = 0;
 
-        sunkMap.remove(ship);
+        int[] sunkPos = sunkMap[shipID];
+        for (int sqr : sunkPos) {
+            int x = Square.unpackX(sqr);
+            int y = Square.unpackY(sqr);
 
-        Collection<Integer> configList = shipToConfigID.get(ship);
+            board[x][y] = SquareState.HIT;
+            stateChanged(x, y, SquareState.SUNK, SquareState.HIT);
+        }
+        for (int sqr : sunkPos) {
+            affected += enable(Square.unpackX(sqr), Square.unpackY(sqr));
+            affected += hitChanged(Square.unpackX(sqr), Square.unpackY(sqr), 1);
+        }
 
-        configList.forEach((id) -> {
-            Iterable<Square> config = possibleShipConfigs.get(id);
-            if (!configActive.get(id) && checkConfig(config)) {
-                configActive.put(id, Boolean.TRUE);
+        sunkMap[shipID] = null;
+        stateHash ^= sunkKey(shipID, sunkPos);
 
-                config.forEach(
-                        (Square sqr) -> {
-                            shipCounter.get(ship)[sqr.getX()][sqr.getY()]++;
-                        }
-                );
+        ShapeGroup group = shipGroup[shipID];
+        countShip(shipID, 1);
 
-                totalCounter.put(ship, totalCounter.get(ship) + 1);
-            }
-        });
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.RAISE, start, allocated, group.table.size(),
+                    (long) group.total * ship.numSquares());
+        }
+
+        event.commit(getWidth(), getHeight(), ships.size(), affected + group.table.size());
+
+        fireChanges();
     }
 
     @Override
-    public boolean isSunk(Ship ship) {
-        if (!ships.contains(ship)) {
-            throw new IllegalArgumentException("No such ship on board!");
-        }
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
 
-        return sunkMap.containsKey(ship);
+        if (delta == null) {
+            delta = new BoardDelta(getWidth(), getHeight());
+        }
     }
 
-    /**
-     * Check if the ship could fit onto the board starting at the specified
+    @Override
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
+
+        if (listeners.isEmpty()) {
+            delta = null;
+        }
+    }
+
+    /**
+     * Releases the placement tables of the board.
+     * <p>
+     * Off heap tables are freed at once where the runtime allows it, and
+     * otherwise by the garbage collector, as described in
+     * {@code PlacementStorage}. Forks have stores of their own, and are closed
+     * separately. The board must not be used after it's closed, nor closed
+     * while forks sharing its tables are in use. Closing more than once has no
+     * effect.
+     *
+     * @since v1.1.0
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Returns where the placement tables of the board are kept.
+     * <p>
+     * @return The storage
+     * @since v1.1.0
+     */
+    public PlacementStorage getPlacementStorage() {
+        return arena.getStorage();
+    }
+
+    /**
+     * Marks the placement tables of the board as shared with its forks.
+     * <p>
+     * Until then, every fork copies the tables, since this board may still
+     * add placements to them. Afterwards, forks share the tables, and this
+     * board, like its forks, copies a table before adding placements to it.
+     * Tables of ships added later are not shared until this is called again.
+     * <p>
+     * Call this once the board is set up, before it is forked on other
+     * threads.
+     *
+     * @see #fork()
+     * @since v1.1.0
+     */
+    public void markShared() {
+        for (ShapeGroup group : groups.values()) {
+            group.sharedTable = true;
+        }
+    }
+
+    /**
+     * Returns a copy of the board in its current state.
+     * <p>
+     * Once the board is marked shared, the copy shares the placement tables
+     * of this board rather than making its own, so forking takes time in
+     * proportion to the counters and not to the placements, and a fork of a
+     * new board is the cheap way to start another game with the same fleet.
+     * Changes made to either board after the fork are not seen by the other.
+     * <p>
+     * Listeners are not copied, and no squares are marked changed on the copy.
+     * Forking only reads this board, so forks can be taken on other threads at
+     * the same time, as long as this board is not changed meanwhile. Shared
+     * tables belong to this board, which must not be closed while its forks
+     * are in use.
+     * <p>
+     * @return The copy
+     * @throws IllegalStateException If the board has been closed
+     * @see #markShared()
+     * @since v1.1.0
+     */
+    public IndependentBoard fork() {
+        return new IndependentBoard(this);
+    }
+
+    @Override
+    public boolean isSunk(Ship ship) {
+        return sunkMap[shipID(ship, "No such ship on board!")] != null;
+    }
+
+    /**
+     * Looks up the ID of a ship on the board.
+     * <p>
+     * @param ship The ship
+     * @param error The message of the exception thrown if the ship is not on
+     * the board
+     * @return The ID of the ship
+     * @throws IllegalArgumentException If the ship is not on the board
+     */
+    private int shipID(Ship ship, String error) {
+        int shipID = ships.idOf(ship);
+
+        if (shipID < 0) {
+            throw new IllegalArgumentException(error);
+        }
+
+        return shipID;
+    }
+
+    /**
+     * Check if the ship could fit onto the board starting at the specified
      * position, without interference from obstacles.
      * <p>
      * @param ship The ship
@@ -394,19 +1046,47 @@ public class IndependentBoard implements Board {
      * cannot fit
      */
     protected boolean checkConfig(Ship ship, int x, int y) {
-        boolean fits = shipWithinBoard(ship, x, y);
+        return checkConfig(ship.getShape(), x, y);
+    }
+
+    /**
+     * Check if the shape could fit onto the board starting at the specified
+     * position, without interference from obstacles.
+     * <p>
+     * @param shape The shape of the ship
+     * @param x The starting x-position
+     * @param y The starting y-position
+     * @return {@code true} if the shape can fit, {@code false} if the shape
+     * cannot fit
+     */
+    private boolean checkConfig(ShipShape shape, int x, int y) {
+        if (!shapeWithinBoard(shape, x, y)) {
+            return false;
+        }
 
-        if (fits) {
-            for (Square square : ship) {
-                int checkX = x + square.getX();
-                int checkY = y + square.getY();
+        for (int i = 0; i < shape.size(); i++) {
+            SquareState state = board[x + shape.getX(i)][y + shape.getY(i)];
 
-                fits &= (board[checkX][checkY] == SquareState.OPEN || board[checkX][checkY] == SquareState.HIT);
+            if (state != SquareState.OPEN && state != SquareState.HIT) {
+                return false;
             }
         }
 
-        return fits;
-        //TODO define in terms of function below
+        return true;
+    }
+
+    /**
+     * Checks if the shape fits into the board at specified position.
+     * <p>
+     * @param shape The shape of the ship
+     * @param x Starting x-position
+     * @param y Starting y-position
+     * @return {@code true} if the shape fits, {@code false} if it extends out
+     * of the board
+     */
+    private boolean shapeWithinBoard(ShipShape shape, int x, int y) {
+        return x >= 0 && x < getWidth() - shape.getMaxX()
+                && y >= 0 && y < getHeight() - shape.getMaxY();
     }
 
     /**
@@ -419,18 +1099,63 @@ public class IndependentBoard implements Board {
      * configuration cannot fit
      */
     protected boolean checkConfig(Iterable<Square> config) {
-        boolean fits = true;
+        return checkConfig(ShipShape.of(config).toArray());
+    }
+
+    /**
+     * Checks if the given configuration is within the board and is clear of any
+     * obstacles.
+     * <p>
+     * @param config The packed positions of the squares that make up the
+     * configuration
+     * @return {@code true} if the configuration can fit, {@code false} if the
+     * configuration cannot fit
+     */
+    private boolean checkConfig(int[] config) {
+        for (int sqr : config) {
+            if (!squareClear(sqr)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a configuration of a table is clear of any obstacles.
+     * <p>
+     * @param table The table of the configuration
+     * @param id The index of the configuration in the table
+     * @return {@code true} if the configuration can fit, {@code false} if the
+     * configuration cannot fit
+     */
+    private boolean checkConfig(PlacementTable table, int id) {
+        int end = table.getConfigEnd(id);
 
-        for (Square square : config) {
-            int x = square.getX();
-            int y = square.getY();
+        for (int i = table.getConfigStart(id); i < end; i++) {
+            if (!squareClear(table.getSquare(i))) {
+                return false;
+            }
+        }
 
-            fits &= (x >= 0 && x < getWidth() && y >= 0 && y < getHeight());
+        return true;
+    }
 
-            fits &= (board[x][y] == SquareState.OPEN || board[x][y] == SquareState.HIT);
+    /**
+     * Checks if a square is within the board and open or hit.
+     * <p>
+     * @param sqr The packed square
+     * @return {@code true} if a ship can lie on the square
+     */
+    private boolean squareClear(int sqr) {
+        int x = Square.unpackX(sqr);
+        int y = Square.unpackY(sqr);
+
+        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
+            return false;
         }
 
-        return fits;
+        return board[x][y] == SquareState.OPEN || board[x][y] == SquareState.HIT;
     }
 
     /**
@@ -448,13 +1173,66 @@ public class IndependentBoard implements Board {
      * @param <T> The data type of the matrix cells
      */
     protected <T> void boardMapper(T[][] resultMatrix, Ship ship, ShipFold<T> folder) {
-        Integer[][] shipMatrix = shipCounter.get(ship);
+        boardMapper(resultMatrix, shipID(ship, "No such ship on board!"), folder);
+    }
+
+    /**
+     * Maps ship count values to a computed value stored in resultMatrix.
+     * <p>
+     * @param resultMatrix Matrix to operate on (must be the same size as the
+     * board!)
+     * @param shipID The ID of the ship to map for
+     * @param folder Function that takes in (boardCellData, originalMatrixData,
+     * shipTotalCount) and returns a new value to assign to the matrix.
+     * @param <T> The data type of the matrix cells
+     * @see #boardMapper(java.lang.Object[][], battleships.model.Ship,
+     * battleships.model.IndependentBoard.ShipFold)
+     */
+    private <T> void boardMapper(T[][] resultMatrix, int shipID, ShipFold<T> folder) {
+        ShapeGroup group = shipGroup[shipID];
+        //Sunk ships have no configurations of their own
+        boolean sunk = sunkMap[shipID] != null;
+        int total = sunk ? 0 : group.total;
+
+        for (int i = 0; i < group.counter.length; i++) {
+            int[] col = group.counter[i];
+
+            for (int j = 0; j < col.length; j++) {
+                resultMatrix[i][j] = folder.fold(sunk ? 0 : col[j], resultMatrix[i][j], total);
+            }
+        }
+    }
+
+    /**
+     * Maps weighted ship count values to a computed value stored in
+     * resultMatrix.
+     * <p>
+     * Works like {@code boardMapper}, using the weighted counts of the ship.
+     * Ships without placement weights use their plain counts.
+     * <p>
+     * @param resultMatrix Matrix to operate on (must be the same size as the
+     * board!)
+     * @param shipID The ID of the ship to map for
+     * @param folder Function that takes in (boardCellData,
+     * originalMatrixData) and returns a new value to assign to the matrix.
+     * @see #boardMapper(java.lang.Object[][], battleships.model.Ship,
+     * battleships.model.IndependentBoard.ShipFold)
+     */
+    private void weightedMapper(Double[][] resultMatrix, int shipID, WeightedFold folder) {
+        WeightedCounter weighted = weightedCounter[shipID];
+
+        if (weighted == null) {
+            boardMapper(resultMatrix, shipID, (int newVal, Double orgVal, int total) -> folder.fold(newVal, orgVal));
+            return;
+        }
 
-        for (int i = 0; i < shipMatrix.length; i++) {
-            Integer[] col = shipMatrix[i];
+        boolean sunk = sunkMap[shipID] != null;
+
+        for (int i = 0; i < weighted.counts.length; i++) {
+            double[] col = weighted.counts[i];
 
             for (int j = 0; j < col.length; j++) {
-                resultMatrix[i][j] = folder.fold(col[j], resultMatrix[i][j], totalCounter.get(ship));
+                resultMatrix[i][j] = folder.fold(sunk ? 0 : col[j], resultMatrix[i][j]);
             }
         }
     }
@@ -467,12 +1245,12 @@ public class IndependentBoard implements Board {
      * <p>
      * If the config overlaps illegal squares e.g. {@code SquareState.MISS}, it
      * will be marked as inactive, if not it'll remain active. Only active
-     * squares will cause {@code shipCounter} and {@code totalCounter} to
-     * increment.
+     * squares will cause the counters to increment.
      * <p>
      * You should supply both the original ship, and the ship that has been
      * rotated. The original ship will be used for mapping and the rotated to
-     * set up positions.
+     * set up positions. The config is added to the group of the original ship,
+     * and so counts for every ship of the same shape.
      * <p>
      * Note that this method will add a config given to it as long as it fits,
      * and will set it to active as long as it is valid given current
@@ -480,6 +1258,8 @@ public class IndependentBoard implements Board {
      * possible to add 2 identical configs and they will both contribute to
      * counts.
      * <p>
+     * Configs added this way have no known rotation, and are weighted as 1.
+     * <p>
      * @param orgShip The ship for mapping
      * @param shipRotated The ship, rotated for the config
      * @param x The starting x position of the config
@@ -488,55 +1268,35 @@ public class IndependentBoard implements Board {
      * {@code orgShip} is invalid.
      */
     void addConfig(Ship orgShip, Ship shipRotated, int x, int y) {
-        if (!ships.contains(orgShip)) {
-            throw new IllegalArgumentException("Unknown original ship supplied");
-        }
+        ShapeGroup group = shipGroup[shipID(orgShip, "Unknown original ship supplied")];
+
+        ShipShape shape = shipRotated.getShape();
 
         //Check if ship is within board
-        if (!shipWithinBoard(shipRotated, x, y)) {
+        if (!shapeWithinBoard(shape, x, y)) {
             throw new IllegalArgumentException(String.format(
                     "Ship is not contained within board!\n(x, y): (%d, %d)\nAccepted Range => x: [0, %d), y: [0, %d)",
                     x,
                     y,
-                    getWidth() - shipRotated.getMaxSquare().getX(),
-                    getHeight() - shipRotated.getMaxSquare().getY()));
-        }
-
-        int key;
-        if (possibleShipConfigs.isEmpty()) {
-            key = 1;
-        } else {
-            key = possibleShipConfigs.lastKey() + 1;
+                    getWidth() - shape.getMaxX(),
+                    getHeight() - shape.getMaxY()));
         }
 
-        Collection<Square> coords = new ArrayList<>(shipRotated.numSquares());
+        group.ownTable(arena);
+        int id = group.table.add(shape, -1, x, y);
+        group.grow(group.table.size());
+        group.hits[id] = countHits(group.table, id);
 
-        boolean active = checkConfig(shipRotated, x, y);
-
-        for (Square square : shipRotated) {
-            int checkX = x + square.getX();
-            int checkY = y + square.getY();
-
-            //Add coords to list
-            coords.add(new Square(checkX, checkY));
-            //Reverse Map
-            reverseMap.get(checkX).get(checkY).add(key);
-            //Add to square count
-            if (active) {
-                shipCounter.get(orgShip)[checkX][checkY]++;
-            }
+        for (WeightedCounter weighted : group.weighted) {
+            weighted.grow(group.table.size());
         }
 
-        possibleShipConfigs.put(key, coords);
-        shipToConfigID.get(orgShip).add(key);
-
-        //Set configActive and totalCounter if ship is active
-        if (active) {
-            totalCounter.put(orgShip, totalCounter.get(orgShip) + 1);
-            configActive.put(key, Boolean.TRUE);
-        } else {
-            configActive.put(key, Boolean.FALSE);
+        if (checkConfig(shape, x, y)) {
+            group.setActive(id, true);
+            changeConfig(group, id, 1);
         }
+
+        fireChanges();
     }
 
     /**
@@ -546,29 +1306,37 @@ public class IndependentBoard implements Board {
      * <p>
      * @param x The X-coordinate of the square
      * @param y The Y-coordinate of the square
+     * @return The number of configurations overlapping the square
      */
-    private void enable(int x, int y) {
-        Collection<Integer> affectedConfig = reverseMap.get(x).get(y);
-
-        affectedConfig.forEach(
-                (Integer id) -> {
-                    //Ship of this config
-                    Ship ship = getShipOfConfig(id);
-                    Collection<Square> config = possibleShipConfigs.get(id);
+    private int enable(int x, int y) {
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+        long writes = 0;
+        int affected = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            PlacementTable table = group.table;
+            int from = table.getCoverStart(x, y);
+            int to = table.getCoverEnd(x, y);
+
+            for (int k = from; k < to; k++) {
+                int id = table.getCover(k);
+
+                if (!group.isActive(id) && checkConfig(table, id)) {
+                    group.setActive(id, true);
+                    writes += changeConfig(group, id, 1);
+                }
+            }
 
-                    if (!configActive.get(id) && !sunkMap.containsKey(ship) && checkConfig(config)) {
-                        configActive.put(id, Boolean.TRUE);
+            affected += to - from;
+        }
 
-                        config.forEach(
-                                (Square sqr) -> {
-                                    shipCounter.get(ship)[sqr.getX()][sqr.getY()]++;
-                                }
-                        );
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.ENABLE, start, allocated, affected, writes);
+        }
 
-                        totalCounter.put(ship, totalCounter.get(ship) + 1);
-                    }
-                }
-        );
+        return affected;
     }
 
     /**
@@ -579,88 +1347,468 @@ public class IndependentBoard implements Board {
      * <p>
      * @param x The X-coordinate of the square
      * @param y The Y-coordinate of the square
+     * @return The number of configurations overlapping the square
      */
-    private void disable(int x, int y) {
-        Collection<Integer> affectedConfig = reverseMap.get(x).get(y);
+    private int disable(int x, int y) {
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+        long writes = 0;
+        int affected = 0;
+
+        for (ShapeGroup group : groups.values()) {
+            PlacementTable table = group.table;
+            int from = table.getCoverStart(x, y);
+            int to = table.getCoverEnd(x, y);
+
+            for (int k = from; k < to; k++) {
+                int id = table.getCover(k);
+
+                if (group.isActive(id)) {
+                    group.setActive(id, false);
+                    writes += changeConfig(group, id, -1);
+                }
+            }
 
-        affectedConfig.forEach(
-                (Integer id) -> {
-                    if (configActive.get(id)) {
-                        //Ship of this config
-                        Ship ship = getShipOfConfig(id);
+            affected += to - from;
+        }
 
-                        configActive.put(id, Boolean.FALSE);
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.DISABLE, start, allocated, affected, writes);
+        }
 
-                        Collection<Square> config = possibleShipConfigs.get(id);
+        return affected;
+    }
 
-                        config.forEach(
-                                (Square sqr) -> {
-                                    shipCounter.get(ship)[sqr.getX()][sqr.getY()]--;
-                                }
-                        );
+    /**
+     * Adds or removes an unresolved hit, updating the hit count of every
+     * configuration covering the square.
+     * <p>
+     * Only the target counters of the active configurations are written, so
+     * the work done is in proportion to the configurations affected.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @param sign 1 if the square was hit, -1 if the hit was resolved or undone
+     * @return The number of configurations overlapping the square
+     */
+    private int hitChanged(int x, int y, int sign) {
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+        long writes = 0;
+        int affected = 0;
+
+        hitCount += sign;
+
+        for (ShapeGroup group : groups.values()) {
+            PlacementTable table = group.table;
+            int from = table.getCoverStart(x, y);
+            int to = table.getCoverEnd(x, y);
 
-                        //Decrement total configs for ship
-                        totalCounter.put(ship, totalCounter.get(ship) - 1);
+            for (int k = from; k < to; k++) {
+                int id = table.getCover(k);
+                group.hits[id] += sign;
+
+                if (group.isActive(id)) {
+                    int configEnd = table.getConfigEnd(id);
+
+                    for (int i = table.getConfigStart(id); i < configEnd; i++) {
+                        int sqr = table.getSquare(i);
+                        int sqrX = Square.unpackX(sqr);
+                        int sqrY = Square.unpackY(sqr);
+
+                        group.targetCounter[sqrX][sqrY] += sign;
+
+                        if (group.live > 0) {
+                            markChanged(sqrX, sqrY);
+                        }
                     }
+                    writes += configEnd - table.getConfigStart(id);
                 }
-        );
+            }
+
+            affected += to - from;
+        }
+
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.HIT_INDEX, start, allocated, affected, writes);
+        }
+
+        return affected;
+    }
+
+    /**
+     * Counts the unresolved hits a configuration covers.
+     * <p>
+     * @param table The table of the configuration
+     * @param id The index of the configuration in the table
+     * @return The number of squares that are hit
+     */
+    private int countHits(PlacementTable table, int id) {
+        int count = 0;
+
+        for (int i = table.getConfigStart(id); i < table.getConfigEnd(id); i++) {
+            int sqr = table.getSquare(i);
+            int x = Square.unpackX(sqr);
+            int y = Square.unpackY(sqr);
+
+            if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight() && board[x][y] == SquareState.HIT) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds or removes a configuration from the counters of its group.
+     * <p>
+     * The change is reported once for all ships of the group that are not
+     * sunk.
+     * <p>
+     * @param group The group of the configuration
+     * @param id The index of the configuration in the group's table
+     * @param sign 1 to add the configuration, -1 to remove it
+     * @return The number of counters written
+     */
+    private int changeConfig(ShapeGroup group, int id, int sign) {
+        PlacementTable table = group.table;
+        int start = table.getConfigStart(id);
+        int end = table.getConfigEnd(id);
+        double weight = group.live;
+
+        for (WeightedCounter weighted : group.weighted) {
+            if (sunkMap[weighted.ship] == null) {
+                weight += weighted.configWeight[id] - 1;
+            }
+        }
+
+        int targetChange = sign * group.hits[id];
+
+        for (int i = start; i < end; i++) {
+            int sqr = table.getSquare(i);
+            int sqrX = Square.unpackX(sqr);
+            int sqrY = Square.unpackY(sqr);
+
+            group.counter[sqrX][sqrY] += sign;
+            group.targetCounter[sqrX][sqrY] += targetChange;
+
+            if (group.live > 0) {
+                countChanged(sqrX, sqrY, (long) sign * group.live, sign * weight);
+            }
+        }
+
+        //After the counters, so the weighted counts see which squares are left
+        for (WeightedCounter weighted : group.weighted) {
+            weighted.add(table, id, sign * weighted.configWeight[id], group.counter);
+        }
+
+        group.total += sign;
+        group.stamp++;
+        boardStamp++;
+
+        return end - start;
     }
 
     /**
-     * Generates mapping for a given ship.
+     * Starts or stops counting a ship's share of its group's counters.
      * <p>
-     * This method adds 4 mappings.
+     * Used when a ship joins its group, is sunk or is raised. The counts of the
+     * ship are reported as changed.
      * <p>
-     * One giving an incremental index to a fitted configuration coordinate
-     * list.
+     * @param shipID The ID of the ship
+     * @param sign 1 to count the ship, -1 to stop counting it
+     */
+    private void countShip(int shipID, int sign) {
+        ShapeGroup group = shipGroup[shipID];
+        group.live += sign;
+
+        shipStamp[shipID]++;
+        boardStamp++;
+
+        WeightedCounter weighted = weightedCounter[shipID];
+
+        for (int i = 0; i < group.counter.length; i++) {
+            int[] col = group.counter[i];
+
+            for (int j = 0; j < col.length; j++) {
+                if (col[j] != 0) {
+                    countChanged(i, j, sign * col[j], sign * (weighted == null ? col[j] : weighted.counts[i][j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates mapping for a new group.
      * <p>
-     * One matching squares that are affected by this configuration to the
-     * index.
+     * Each configuration of the group's table is checked against the board,
+     * and marked active if it fits. The counters are incremented for active
+     * configurations.
      * <p>
-     * One that matches ships to the index.
+     * No changes are reported, as no ship counts the group yet.
      * <p>
-     * And finally one that denotes if the configuration is active.
+     * @param group Group to generate mapping for.
+     */
+    private void genMap(ShapeGroup group) {
+        boolean metrics = EngineMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        long allocated = metrics ? EngineMetrics.allocatedBytes() : 0;
+
+        long writes = 0;
+
+        PlacementTable table = group.table;
+
+        for (int id = 0; id < table.size(); id++) {
+            group.hits[id] = countHits(table, id);
+
+            //Config still kept even if it conflicts with board elements, but marked as inactive
+            if (checkConfig(table, id)) {
+                group.setActive(id, true);
+                writes += changeConfig(group, id, 1);
+            }
+        }
+
+        if (metrics) {
+            EngineMetrics.record(EngineMetrics.Operation.GEN_MAP, start, allocated, table.size(), writes);
+        }
+    }
+
+    /**
+     * Looks up the weight of a configuration.
      * <p>
-     * The counter are incremented for active configurations. Make sure
-     * {@code shipCounter} and {@code totalCounter} are initialised for the ship
-     * before calling.
+     * @param weights The placement weights of the configuration's ship
+     * @param table The table of the configuration
+     * @param id The index of the configuration in the table
+     * @param offset The rotation of the ship relative to the table
+     * @return The weight
+     * @throws IllegalArgumentException If the weight is negative
+     */
+    private double placementWeight(PlacementWeight weights, PlacementTable table, int id, int offset) {
+        int rotation = table.getRotation(id);
+
+        if (rotation < 0) {
+            return 1;
+        }
+
+        double weight = weights.weight(Math.floorMod(rotation - offset, 4), table.getOriginX(id), table.getOriginY(id));
+
+        if (!(weight >= 0)) {
+            throw new IllegalArgumentException("Placement weight must not be negative: " + weight);
+        }
+
+        return weight;
+    }
+
+    /**
+     * Returns the probabilities of a ship, working them out again only if the
+     * ship's stamp has moved since they were last worked out.
      * <p>
-     * @param ship Ship to generate mapping for.
+     * @param shipID The ID of the ship
+     * @return The probabilities, shared until the ship changes
      */
-    private void genMap(Ship ship) {
-        Ship rotatedShip = ship;
+    private double[][] probabilities(int shipID) {
+        //Both stamps only go up, so their sum moves whenever either does
+        long stamp = shipGroup[shipID].stamp + shipStamp[shipID];
+
+        if (probabilityCache[shipID] == null || probabilityStamp[shipID] != stamp) {
+            ShapeGroup group = shipGroup[shipID];
+            //Only read through this class, so the arrays are reused
+            double[][] probs = probabilityCache[shipID] == null
+                    ? new double[getWidth()][getHeight()] : probabilityCache[shipID];
+
+            //Sunk ships have no configurations of their own
+            boolean counted = sunkMap[shipID] == null && group.total > 0;
 
-        for (int i = 0; i < 4; i++) {
-            //Just consider all, let checkConfig figure out if ship is outside board
-            for (int x = 0; x < getWidth() - rotatedShip.getMaxSquare().getX(); x++) {
-                for (int y = 0; y < getHeight() - rotatedShip.getMaxSquare().getY(); y++) {
-                    //Config still added even if it conflicts with board elements, but marked as inactive
-                    addConfig(ship, rotatedShip, x, y);
+            for (int i = 0; i < probs.length; i++) {
+                int[] col = group.counter[i];
+
+                for (int j = 0; j < col.length; j++) {
+                    probs[i][j] = counted ? (double) col[j] / group.total : 0;
                 }
             }
 
-            //Rotate the ship and try again
-            rotatedShip = rotatedShip.rotateCWNinety(1);
+            probabilityCache[shipID] = probs;
+            probabilityStamp[shipID] = stamp;
         }
+
+        return probabilityCache[shipID];
     }
 
     /**
-     * Returns the ship which the configuration as specified by {@code configID}
-     * is related to.
+     * Copies a matrix of probabilities into a matrix of boxed values.
      * <p>
-     * @param configID The ID of the configuration for matching.
-     * @return The matching ship.
+     * @param probs The probabilities
+     * @return The boxed matrix
      */
-    private Ship getShipOfConfig(int configID) {
-        return ships.stream()
-                .filter(
-                        (Ship ship) -> {
-                            return shipToConfigID.get(ship).stream().anyMatch((Integer id) -> id == configID);
-                        }
-                )
-                .findFirst()
-                .orElse(null);
+    private static Double[][] box(double[][] probs) {
+        Double[][] boxed = new Double[probs.length][];
+
+        for (int i = 0; i < probs.length; i++) {
+            boxed[i] = new Double[probs[i].length];
+
+            for (int j = 0; j < probs[i].length; j++) {
+                boxed[i][j] = probs[i][j];
+            }
+        }
+
+        return boxed;
+    }
+
+    /**
+     * Marks a square as changed for {@code pollChangedSquares()}.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     */
+    private void markChanged(int x, int y) {
+        int index = x * getHeight() + y;
+
+        if (!changed[index]) {
+            changed[index] = true;
+            changedSquares[changedCount++] = index;
+        }
+    }
+
+    /**
+     * Records a change of the counters of a square.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @param count The placement count change
+     * @param weight The weighted placement count change
+     */
+    private void countChanged(int x, int y, long count, double weight) {
+        markChanged(x, y);
+
+        if (delta != null) {
+            delta.addCount(x * getHeight() + y, count, weight);
+        }
+    }
+
+    /**
+     * Records a change of the state of a square.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @param from The old state
+     * @param to The new state
+     */
+    private void stateChanged(int x, int y, SquareState from, SquareState to) {
+        markChanged(x, y);
+
+        int index = x * getHeight() + y;
+        stateHash ^= squareKey(index, from) ^ squareKey(index, to);
+
+        if (delta != null && from != to) {
+            delta.addState(x * getHeight() + y, from, to);
+        }
+    }
+
+    /**
+     * Returns the Zobrist key of a square in a state.
+     * <p>
+     * Keys are worked out from the square and state rather than drawn from a
+     * table, as a table would take more memory than the board itself. Open
+     * squares have no key, so a new board hashes to its ships alone.
+     * <p>
+     * @param index The square, as {@code x * height + y}
+     * @param state The state of the square
+     * @return The key
+     */
+    private static long squareKey(int index, SquareState state) {
+        if (state == SquareState.OPEN) {
+            return 0;
+        }
+
+        return zobrist((long) index * STATES + state.ordinal());
+    }
+
+    /**
+     * Returns the Zobrist key of a sunk ship.
+     * <p>
+     * The key does not depend on the order of the squares, so a symmetric ship
+     * sunk with different rotations onto the same squares has the same key.
+     * <p>
+     * @param shipID The ID of the ship
+     * @param sunkPos The packed squares the ship covers
+     * @return The key
+     */
+    private static long sunkKey(int shipID, int[] sunkPos) {
+        long key = 0;
+
+        for (int sqr : sunkPos) {
+            key ^= zobrist(SUNK_SALT ^ ((long) shipID << 32 | (sqr & 0xFFFFFFFFL)));
+        }
+
+        return key;
+    }
+
+    /**
+     * Scrambles a value into a Zobrist key, with the SplitMix64 finalizer.
+     * <p>
+     * @param value The value
+     * @return The key
+     */
+    private static long zobrist(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Delivers the changes of the current operation to the listeners.
+     */
+    private void fireChanges() {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
 
+        try {
+            for (BoardListener listener : listeners) {
+                listener.boardChanged(delta);
+            }
+        } finally {
+            delta.clear();
+        }
+    }
+
+    /**
+     * Returns a copy of the weighted counts of a ship.
+     * <p>
+     * @param shipID The ID of the ship
+     * @return The weighted counts, or the plain counts if the ship has no
+     * placement weights, all 0 if the ship is sunk
+     */
+    private double[][] weightedCounts(int shipID) {
+        double[][] counts = new double[getWidth()][getHeight()];
+        WeightedCounter weighted = weightedCounter[shipID];
+        int[][] plain = shipGroup[shipID].counter;
+
+        if (sunkMap[shipID] != null) {
+            return counts;
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            for (int j = 0; j < counts[i].length; j++) {
+                counts[i][j] = weighted == null ? plain[i][j] : weighted.counts[i][j];
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Marks every square as changed for {@code pollChangedSquares()}.
+     */
+    private void markAllChanged() {
+        for (int x = 0; x < getWidth(); x++) {
+            for (int y = 0; y < getHeight(); y++) {
+                markChanged(x, y);
+            }
+        }
     }
 
     /**
@@ -673,4 +1821,401 @@ public class IndependentBoard implements Board {
 
         T fold(int nextVal, T retVal, int divisor);
     }
+
+    /**
+     * Functional interface for collating weighted output matrices.
+     */
+    @FunctionalInterface
+    private interface WeightedFold {
+
+        Double fold(double nextVal, Double retVal);
+    }
+
+    /**
+     * The configurations and counters shared by ships of the same shape.
+     */
+    private static final class ShapeGroup {
+
+        /**
+         * The configurations of the shape.
+         */
+        PlacementTable table;
+        /**
+         * Whether the table is shared with the groups of forked boards, and
+         * must be copied before configurations are added.
+         * <p>
+         * Only set by the board of the group, when it is marked shared.
+         */
+        boolean sharedTable;
+        /**
+         * Whether each configuration is active, which is whether it fits the
+         * board regardless of sunk ships, one bit for each.
+         */
+        IntStore active;
+        /**
+         * The number of active configurations on each square.
+         */
+        final int[][] counter;
+        /**
+         * The total number of active configurations.
+         */
+        int total;
+        /**
+         * The number of unresolved hits each configuration covers, whether
+         * it's active or not.
+         */
+        int[] hits;
+        /**
+         * The number of unresolved hits covered by the active configurations
+         * on each square.
+         */
+        final int[][] targetCounter;
+        /**
+         * The number of ships of the group that are not sunk.
+         */
+        int live;
+        /**
+         * Moves whenever a configuration is added to or removed from the
+         * counters.
+         */
+        long stamp;
+        /**
+         * The weighted counters of the ships of the group with placement
+         * weights.
+         */
+        final Collection<WeightedCounter> weighted;
+
+        /**
+         * Creates a group with no ships and no active configurations.
+         * <p>
+         * @param table The configurations of the shape
+         * @param width The board width
+         * @param height The board height
+         * @param arena The arena making the active bits
+         */
+        ShapeGroup(PlacementTable table, int width, int height, StoreArena arena) {
+            this.table = table;
+            active = arena.allocate(words(table.size()));
+            counter = new int[width][height];
+            hits = new int[table.size()];
+            targetCounter = new int[width][height];
+            weighted = new ArrayList<>();
+        }
+
+        /**
+         * Creates a copy of a group, sharing its table if it is marked shared
+         * and copying it otherwise.
+         * <p>
+         * The group copied is only read. Weighted counters are not copied,
+         * they are added by the board.
+         * <p>
+         * @param group The group to copy
+         * @param arena The arena making the stores of the copy
+         */
+        ShapeGroup(ShapeGroup group, StoreArena arena) {
+            sharedTable = group.sharedTable;
+            table = sharedTable ? group.table : new PlacementTable(group.table, arena);
+
+            active = arena.allocate(group.active.length());
+            for (int i = 0; i < active.length(); i++) {
+                active.set(i, group.active.get(i));
+            }
+
+            counter = copyOf(group.counter);
+            total = group.total;
+            hits = group.hits.clone();
+            targetCounter = copyOf(group.targetCounter);
+            live = group.live;
+            stamp = group.stamp;
+            weighted = new ArrayList<>();
+        }
+
+        /**
+         * Copies the table of the group if it is shared, so configurations
+         * can be added to it.
+         * <p>
+         * @param arena The arena making the stores of the copy
+         */
+        void ownTable(StoreArena arena) {
+            if (sharedTable) {
+                table = new PlacementTable(table, arena);
+                sharedTable = false;
+            }
+        }
+
+        /**
+         * Copies a matrix of counters.
+         * <p>
+         * @param matrix The matrix
+         * @return The copy
+         */
+        static int[][] copyOf(int[][] matrix) {
+            int[][] copy = new int[matrix.length][];
+
+            for (int i = 0; i < matrix.length; i++) {
+                copy[i] = matrix[i].clone();
+            }
+
+            return copy;
+        }
+
+        /**
+         * Makes sure {@code active} and {@code hits} can hold the number of
+         * configurations given.
+         * <p>
+         * @param size The number of configurations
+         */
+        void grow(int size) {
+            if (hits.length < size) {
+                hits = Arrays.copyOf(hits, Math.max(size, hits.length * 2));
+            }
+
+            if (active.length() < words(size)) {
+                active = active.resize(words(hits.length));
+            }
+        }
+
+        /**
+         * Checks if a configuration is active.
+         * <p>
+         * @param id The index of the configuration
+         * @return {@code true} if the configuration is active
+         */
+        boolean isActive(int id) {
+            return (active.get(id >>> 5) & (1 << id)) != 0;
+        }
+
+        /**
+         * Marks a configuration active or inactive.
+         * <p>
+         * @param id The index of the configuration
+         * @param on {@code true} to mark the configuration active
+         */
+        void setActive(int id, boolean on) {
+            int word = active.get(id >>> 5);
+
+            active.set(id >>> 5, on ? word | (1 << id) : word & ~(1 << id));
+        }
+
+        /**
+         * Returns the number of words holding the active bits of a number of
+         * configurations.
+         * <p>
+         * @param size The number of configurations
+         * @return The number of words, at least 1
+         */
+        static int words(int size) {
+            return Math.max(1, (size + 31) >>> 5);
+        }
+    }
+
+    /**
+     * Folds the probabilities of a range of ships with the independence
+     * formula.
+     * <p>
+     * Ranges with more work than {@code PARALLEL_THRESHOLD} are split in half
+     * and folded in parallel. Each ship's probabilities are only worked out by
+     * the task folding it, so tasks never write the same cache.
+     */
+    private final class ProbabilityFold extends RecursiveTask<double[][]> {
+
+        private static final long serialVersionUID = -3860251749021535611L;
+
+        private final int from;
+        private final int to;
+
+        ProbabilityFold(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[][] compute() {
+            if (to - from > 1 && (long) (to - from) * getWidth() * getHeight() > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                ProbabilityFold right = new ProbabilityFold(mid, to);
+                right.fork();
+
+                double[][] left = new ProbabilityFold(from, mid).compute();
+                double[][] other = right.join();
+
+                for (int i = 0; i < left.length; i++) {
+                    for (int j = 0; j < left[i].length; j++) {
+                        left[i][j] = left[i][j] + other[i][j] - left[i][j] * other[i][j];
+                    }
+                }
+
+                return left;
+            }
+
+            double[][] summed = new double[getWidth()][getHeight()];
+
+            for (int shipID = from; shipID < to; shipID++) {
+                double[][] probs = probabilities(shipID);
+
+                for (int i = 0; i < summed.length; i++) {
+                    for (int j = 0; j < summed[i].length; j++) {
+                        summed[i][j] = summed[i][j] + probs[i][j] - summed[i][j] * probs[i][j];
+                    }
+                }
+            }
+
+            return summed;
+        }
+    }
+
+    /**
+     * Sums the placement counts of a range of ships.
+     * <p>
+     * Ranges with more work than {@code PARALLEL_THRESHOLD} are split in half
+     * and summed in parallel. Sums past the int range throw rather than wrap.
+     */
+    private final class CountFold extends RecursiveTask<int[][]> {
+
+        private static final long serialVersionUID = 5218034696342801407L;
+
+        private final int from;
+        private final int to;
+
+        CountFold(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (to - from > 1 && (long) (to - from) * getWidth() * getHeight() > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                CountFold right = new CountFold(mid, to);
+                right.fork();
+
+                int[][] left = new CountFold(from, mid).compute();
+                int[][] other = right.join();
+
+                for (int i = 0; i < left.length; i++) {
+                    for (int j = 0; j < left[i].length; j++) {
+                        left[i][j] = Math.addExact(left[i][j], other[i][j]);
+                    }
+                }
+
+                return left;
+            }
+
+            int[][] sum = new int[getWidth()][getHeight()];
+
+            for (int shipID = from; shipID < to; shipID++) {
+                //Sunk ships have no configurations of their own
+                if (sunkMap[shipID] != null) {
+                    continue;
+                }
+
+                int[][] counter = shipGroup[shipID].counter;
+
+                for (int i = 0; i < sum.length; i++) {
+                    for (int j = 0; j < sum[i].length; j++) {
+                        sum[i][j] = Math.addExact(sum[i][j], counter[i][j]);
+                    }
+                }
+            }
+
+            return sum;
+        }
+    }
+
+    /**
+     * The weighted counters of a ship with placement weights.
+     * <p>
+     * Counters are kept up to date while the ship is sunk, so they are ready
+     * when it's raised. Weights are added and taken away as configurations
+     * change, so rounding builds up over a game. A square no active
+     * configuration covers is set to exactly 0 rather than left with the
+     * rounding, so squares no ship can be on never seem possible.
+     */
+    private static final class WeightedCounter {
+
+        /**
+         * The ID of the ship weighted.
+         */
+        final int ship;
+        /**
+         * The placement weights of the ship.
+         */
+        final PlacementWeight weights;
+        /**
+         * The weight of each configuration of the ship's group.
+         */
+        double[] configWeight;
+        /**
+         * The weighted number of active configurations on each square.
+         */
+        final double[][] counts;
+
+        /**
+         * Creates empty counters.
+         * <p>
+         * @param ship The ID of the ship weighted
+         * @param weights The placement weights of the ship
+         * @param configs The number of configurations of the ship's group
+         * @param width The board width
+         * @param height The board height
+         */
+        WeightedCounter(int ship, PlacementWeight weights, int configs, int width, int height) {
+            this.ship = ship;
+            this.weights = weights;
+            configWeight = new double[configs];
+            counts = new double[width][height];
+        }
+
+        /**
+         * Creates a copy of the counters.
+         * <p>
+         * @param counter The counters to copy
+         */
+        WeightedCounter(WeightedCounter counter) {
+            ship = counter.ship;
+            weights = counter.weights;
+            configWeight = counter.configWeight.clone();
+            counts = new double[counter.counts.length][];
+
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = counter.counts[i].clone();
+            }
+        }
+
+        /**
+         * Makes sure {@code configWeight} can hold the number of
+         * configurations given.
+         * <p>
+         * New configurations are weighted as 1.
+         * <p>
+         * @param size The number of configurations
+         */
+        void grow(int size) {
+            int oldLength = configWeight.length;
+
+            if (oldLength < size) {
+                configWeight = Arrays.copyOf(configWeight, Math.max(size, oldLength * 2));
+                Arrays.fill(configWeight, oldLength, configWeight.length, 1);
+            }
+        }
+
+        /**
+         * Adds the weight of a configuration to the counters.
+         * <p>
+         * @param table The table of the configuration
+         * @param id The index of the configuration in the table
+         * @param weight The weight to add, negative to remove
+         * @param active The number of active configurations of the group on
+         * each square, after the change
+         */
+        void add(PlacementTable table, int id, double weight, int[][] active) {
+            for (int i = table.getConfigStart(id); i < table.getConfigEnd(id); i++) {
+                int sqr = table.getSquare(i);
+                int x = Square.unpackX(sqr);
+                int y = Square.unpackY(sqr);
+
+                counts[x][y] = active[x][y] == 0 ? 0 : counts[x][y] + weight;
+            }
+        }
+    }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A fixed length array of ints, on or off the heap.
+ * <p>
+ * Stores are made by a {@code StoreArena}, and are grown by copying them into
+ * a longer store with {@code resize(int)}. Off heap stores must not be used
+ * after they're closed.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see StoreArena
+ * @since v1.1.0
+ */
+abstract class IntStore {
+
+    /**
+     * The arena the store was made by.
+     */
+    final StoreArena arena;
+
+    /**
+     * Creates a store owned by an arena.
+     * <p>
+     * @param arena The arena
+     */
+    IntStore(StoreArena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * Gets a value.
+     * <p>
+     * @param index The index of the value
+     * @return The value
+     */
+    abstract int get(int index);
+
+    /**
+     * Sets a value.
+     * <p>
+     * @param index The index of the value
+     * @param value The new value
+     */
+    abstract void set(int index, int value);
+
+    /**
+     * Returns the number of values.
+     * <p>
+     * @return The length
+     */
+    abstract int length();
+
+    /**
+     * Releases the memory of the store. Closing more than once has no effect.
+     */
+    abstract void close();
+
+    /**
+     * Copies the store into a new store of the same arena, closing this one.
+     * <p>
+     * Values past the end of this store are 0.
+     * <p>
+     * @param length The length of the new store
+     * @return The new store
+     */
+    IntStore resize(int length) {
+        IntStore resized = arena.allocate(length);
+        int copied = Math.min(length, length());
+
+        for (int i = 0; i < copied; i++) {
+            resized.set(i, get(i));
+        }
+
+        close();
+
+        return resized;
+    }
+
+    /**
+     * A store in an int array.
+     */
+    static final class Heap extends IntStore {
+
+        private int[] values;
+
+        Heap(StoreArena arena, int length) {
+            super(arena);
+            values = new int[length];
+        }
+
+        @Override
+        int get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        @Override
+        int length() {
+            return values.length;
+        }
+
+        @Override
+        void close() {
+            values = null;
+        }
+
+        @Override
+        IntStore resize(int length) {
+            Heap resized = new Heap(arena, 0);
+            resized.values = Arrays.copyOf(values, length);
+            values = null;
+
+            return resized;
+        }
+    }
+
+    /**
+     * A store in a direct buffer, in native byte order.
+     * <p>
+     * Closing the store drops the buffer, and its memory is freed by the
+     * buffer's cleaner once the garbage collector finds it unreachable. Where
+     * {@code sun.misc.Unsafe.invokeCleaner}, from the {@code jdk.unsupported}
+     * module, can be reached, the cleaner is also run at once so the memory
+     * does not wait for a collection. That call is only a shortcut: if it
+     * cannot be made, or fails, the store is closed all the same.
+     */
+    static final class Direct extends IntStore {
+
+        /**
+         * Runs the cleaner of a buffer at once, or null if
+         * {@code sun.misc.Unsafe} cannot be reached.
+         */
+        static final Consumer<ByteBuffer> UNSAFE_RELEASER = unsafeReleaser();
+
+        private ByteBuffer buffer;
+        private IntBuffer values;
+        /**
+         * Runs the cleaner of the buffer when closed, or null to leave it to
+         * the garbage collector.
+         */
+        private final Consumer<ByteBuffer> releaser;
+
+        /**
+         * Creates a store that frees its buffer on close with the releaser
+         * given.
+         * <p>
+         * @param arena The arena
+         * @param length The length
+         * @param releaser Runs the cleaner of the buffer, or null to leave it to
+         * the garbage collector
+         */
+        Direct(StoreArena arena, int length, Consumer<ByteBuffer> releaser) {
+            super(arena);
+            buffer = ByteBuffer.allocateDirect(Math.multiplyExact(length, Integer.BYTES))
+                    .order(ByteOrder.nativeOrder());
+            values = buffer.asIntBuffer();
+            this.releaser = releaser;
+        }
+
+        /**
+         * Looks up {@code sun.misc.Unsafe.invokeCleaner}.
+         * <p>
+         * @return A releaser calling it, or null if it cannot be reached
+         */
+        private static Consumer<ByteBuffer> unsafeReleaser() {
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+
+                Object unsafe = field.get(null);
+                Method invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+
+                return freed -> {
+                    try {
+                        invokeCleaner.invoke(unsafe, freed);
+                    } catch (ReflectiveOperationException ex) {
+                        throw new IllegalStateException("Unable to free direct buffer!", ex);
+                    }
+                };
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+                //Left to the garbage collector
+                return null;
+            }
+        }
+
+        /**
+         * Tells whether closed stores free their memory at once.
+         * <p>
+         * @return {@code false} if memory is only freed by the garbage
+         * collector
+         */
+        static boolean freesOnClose() {
+            return UNSAFE_RELEASER != null;
+        }
+
+        @Override
+        int get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void set(int index, int value) {
+            values.put(index, value);
+        }
+
+        @Override
+        int length() {
+            return values.capacity();
+        }
+
+        @Override
+        void close() {
+            if (buffer == null) {
+                return;
+            }
+
+            ByteBuffer freed = buffer;
+            buffer = null;
+            values = null;
+            arena.released(this);
+
+            if (releaser != null) {
+                try {
+                    releaser.accept(freed);
+                } catch (RuntimeException | LinkageError ex) {
+                    //The cleaner still frees it after collection
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Historical placement frequencies for each ship of a fleet.
+ * <p>
+ * A placement is keyed the same way {@code IndependentBoard} enumerates
+ * configurations: the number of clockwise rotations of the ship (0 to 3) and
+ * the x, y position of the rotated, normalized ship on the board. Ships are
+ * identified by their index in the fleet, in the order they were added to the
+ * board.
+ * <p>
+ * Priors can be merged, which allows partial counts to be collected in
+ * parallel, and stored in a compact binary file where each count is written as
+ * a variable length integer. A board can be weighted with a prior through
+ * {@code forShip(int)}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see IndependentBoard
+ * @since v1.1.0
+ */
+public class PlacementPrior {
+
+    /**
+     * The magic number at the start of a prior file ("BSPR").
+     */
+    private static final int MAGIC = 0x42535052;
+    /**
+     * The version of the prior file format.
+     */
+    private static final int VERSION = 1;
+    /**
+     * The number of distinct rotations of a ship.
+     */
+    private static final int ROTATIONS = 4;
+    /**
+     * The largest number of counts, over all ships, a prior file may hold.
+     */
+    private static final long MAX_READ_COUNTS = 1 << 24;
+
+    /**
+     * The width of the board the prior was collected on.
+     */
+    private final int width;
+    /**
+     * The height of the board the prior was collected on.
+     */
+    private final int height;
+    /**
+     * The placement counts of each ship.
+     * <p>
+     * Indexed by ship, then by {@code (rotation * width + x) * height + y}.
+     */
+    private final long[][] counts;
+    /**
+     * The number of games that contributed to this prior.
+     */
+    private long records;
+
+    /**
+     * Creates an empty prior.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param numShips The number of ships in the fleet
+     * @throws IllegalArgumentException If the board size is not positive, the
+     * number of ships is negative or a ship has too many placements to count
+     */
+    public PlacementPrior(int width, int height, int numShips) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board width/height must be bigger than 0!");
+        }
+
+        if (numShips < 0) {
+            throw new IllegalArgumentException("Number of ships cannot be negative!");
+        }
+
+        int placements;
+        try {
+            placements = Math.multiplyExact(ROTATIONS, Math.multiplyExact(width, height));
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Board too large for a placement prior!", ex);
+        }
+
+        this.width = width;
+        this.height = height;
+
+        counts = new long[numShips][placements];
+    }
+
+    /**
+     * Gets the width of the board the prior was collected on.
+     * <p>
+     * @return The board width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the board the prior was collected on.
+     * <p>
+     * @return The board height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of ships in the fleet.
+     * <p>
+     * @return The number of ships
+     */
+    public int getNumShips() {
+        return counts.length;
+    }
+
+    /**
+     * Gets the number of games recorded.
+     * <p>
+     * @return The number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Records one more completed game.
+     * <p>
+     * The placements of the game are added separately with
+     * {@code add(int, int, int, int)}.
+     * <p>
+     * @see #add(int, int, int, int)
+     */
+    public void addRecord() {
+        records++;
+    }
+
+    /**
+     * Counts one occurrence of a ship placement.
+     * <p>
+     * @param ship The index of the ship in the fleet
+     * @param rotation The number of clockwise rotations of the ship
+     * @param x The x position of the rotated ship
+     * @param y The y position of the rotated ship
+     */
+    public void add(int ship, int rotation, int x, int y) {
+        counts[ship][index(rotation, x, y)]++;
+    }
+
+    /**
+     * Gets the number of times a ship placement was seen.
+     * <p>
+     * @param ship The index of the ship in the fleet
+     * @param rotation The number of clockwise rotations of the ship
+     * @param x The x position of the rotated ship
+     * @param y The y position of the rotated ship
+     * @return The placement count
+     */
+    public long getCount(int ship, int rotation, int x, int y) {
+        return counts[ship][index(rotation, x, y)];
+    }
+
+    /**
+     * Returns the placement weights of a ship as learnt from this prior.
+     * <p>
+     * Counts are smoothed by adding 1 to every placement, so placements never
+     * seen still keep a small weight. Weights are scaled so that they average
+     * to 1 over all placement keys, keeping weighted counts in the same range
+     * as plain configuration counts.
+     * <p>
+     * The weights share the counts of this prior, and should not be used
+     * after the prior is modified.
+     * <p>
+     * @param ship The index of the ship in the fleet
+     * @return The weights of the ship's placements
+     */
+    public PlacementWeight forShip(int ship) {
+        long[] shipCounts = counts[ship];
+
+        long total = 0;
+        for (long count : shipCounts) {
+            total += count;
+        }
+
+        double scale = (double) shipCounts.length / (total + shipCounts.length);
+
+        return (int rotation, int x, int y) -> (shipCounts[index(rotation, x, y)] + 1) * scale;
+    }
+
+    /**
+     * Adds the counts of another prior to this one.
+     * <p>
+     * @param other The prior to merge in, must have the same dimensions
+     * @throws IllegalArgumentException If the board size or fleet size differs
+     */
+    public void merge(PlacementPrior other) {
+        if (other.width != width || other.height != height || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Cannot merge priors of different boards or fleets!");
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            long[] shipCounts = counts[i];
+            long[] otherCounts = other.counts[i];
+
+            for (int j = 0; j < shipCounts.length; j++) {
+                shipCounts[j] += otherCounts[j];
+            }
+        }
+
+        records += other.records;
+    }
+
+    /**
+     * Writes the prior to a stream.
+     * <p>
+     * The stream is flushed but not closed.
+     * <p>
+     * @param out The stream to write to
+     * @throws IOException If the stream cannot be written to
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(VERSION);
+        dataOut.writeInt(width);
+        dataOut.writeInt(height);
+        dataOut.writeInt(counts.length);
+        writeVarLong(dataOut, records);
+
+        for (long[] shipCounts : counts) {
+            for (long count : shipCounts) {
+                writeVarLong(dataOut, count);
+            }
+        }
+
+        dataOut.flush();
+    }
+
+    /**
+     * Reads a prior previously written with {@code write(OutputStream)}.
+     * <p>
+     * @param in The stream to read from
+     * @return The prior
+     * @throws IOException If the stream cannot be read, is not a prior file or
+     * its board or fleet size is out of range
+     * @see #write(java.io.OutputStream)
+     */
+    public static PlacementPrior read(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
+
+        if (dataIn.readInt() != MAGIC) {
+            throw new IOException("Not a placement prior file!");
+        }
+
+        int version = dataIn.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported placement prior version: " + version);
+        }
+
+        int width = dataIn.readInt();
+        int height = dataIn.readInt();
+        int numShips = dataIn.readInt();
+
+        //Checked before anything is allocated, so a corrupt header cannot
+        //exhaust the heap
+        if (width <= 0 || height <= 0 || numShips < 0 || (long) width * height > MAX_READ_COUNTS
+                || (long) numShips * ROTATIONS * width * height > MAX_READ_COUNTS) {
+            throw new IOException("Corrupt placement prior header: " + width + "x" + height + ", "
+                    + numShips + " ships");
+        }
+
+        PlacementPrior prior = new PlacementPrior(width, height, numShips);
+        prior.records = readVarLong(dataIn);
+
+        for (long[] shipCounts : prior.counts) {
+            for (int j = 0; j < shipCounts.length; j++) {
+                shipCounts[j] = readVarLong(dataIn);
+            }
+        }
+
+        return prior;
+    }
+
+    /**
+     * Computes the index of a placement in a ship's count array.
+     * <p>
+     * @param rotation The number of clockwise rotations
+     * @param x The x position
+     * @param y The y position
+     * @return The index
+     */
+    private int index(int rotation, int x, int y) {
+        if (rotation < 0 || rotation >= ROTATIONS || x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException("Placement out-of-bound: (" + rotation + ", " + x + ", " + y + ")");
+        }
+
+        return (rotation * width + x) * height + y;
+    }
+
+    /**
+     * Writes a non-negative long using 7 bits per byte.
+     * <p>
+     * @param out The stream
+     * @param value The value
+     * @throws IOException If the stream cannot be written to
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a long written by {@code writeVarLong}.
+     * <p>
+     * @param in The stream
+     * @return The value
+     * @throws IOException If the stream cannot be read
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new EOFException("Malformed count in placement prior!");
+    }
+}
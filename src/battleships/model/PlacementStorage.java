@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+/**
+ * Where a board keeps its placement tables.
+ * <p>
+ * Boards list every placement of every ship shape, which on large boards runs
+ * into tens of millions of placements. Kept off the heap, they are left out of
+ * garbage collection altogether.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see IndependentBoard#IndependentBoard(int, int, PlacementStorage)
+ * @since v1.1.0
+ */
+public enum PlacementStorage {
+
+    /**
+     * In int arrays on the Java heap, the default.
+     */
+    HEAP,
+    /**
+     * In direct buffers outside the Java heap, released when the board is
+     * closed where the runtime allows it, and otherwise by the garbage
+     * collector.
+     *
+     * @see IndependentBoard#close()
+     */
+    OFF_HEAP
+}
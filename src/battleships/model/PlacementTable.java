@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+/**
+ * All the placements of a ship shape on a board of a certain size.
+ * <p>
+ * A placement, or configuration, is the shape turned to one of its four
+ * rotations and moved to a position where it fits within the board. It's kept
+ * as the packed positions of the squares it covers, together with the rotation
+ * and position it was made with. For each square of the board, the table also
+ * lists the placements covering it.
+ * <p>
+ * The table only depends on the shape and the size of the board, not on the
+ * state of the squares, so ships of the same shape can share one table. The
+ * rotations are those of the shape the table was made with; a ship laid out
+ * differently can translate them with {@code rotationOf(Ship)}.
+ * <p>
+ * The squares of all placements are kept end to end in one store, and so are
+ * the placements covering each square, so the table is made of a handful of
+ * flat stores however many placements it has. The squares of placement
+ * {@code c} are {@code getSquare(k)} for {@code k} from
+ * {@code getConfigStart(c)} to {@code getConfigEnd(c)}, and the placements
+ * covering a square are read the same way with {@code getCoverStart},
+ * {@code getCoverEnd} and {@code getCover}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see IndependentBoard
+ * @since v1.1.0
+ */
+final class PlacementTable {
+
+    /**
+     * The number of distinct rotations of a shape.
+     */
+    private static final int ROTATIONS = 4;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+    /**
+     * The height of the board.
+     */
+    private final int height;
+    /**
+     * The shape rotated 0 to 3 times clockwise.
+     */
+    private final ShipShape[] shapes;
+    /**
+     * The packed squares of all placements, end to end.
+     */
+    private IntStore squares;
+    /**
+     * Where the squares of each placement start in {@code squares}, with the
+     * end of the last placement after them.
+     */
+    private IntStore configStart;
+    /**
+     * The rotation of each placement, or -1 if unknown.
+     */
+    private IntStore rotations;
+    /**
+     * The packed position of each placement.
+     */
+    private IntStore origins;
+    /**
+     * The number of placements.
+     */
+    private int size;
+    /**
+     * The placements covering each square, end to end by square.
+     */
+    private IntStore covers;
+    /**
+     * Where the placements covering each square start in {@code covers},
+     * indexed by {@code x * height + y}, with the end of the last square
+     * after them.
+     */
+    private final IntStore coverStart;
+
+    /**
+     * Creates a table with every placement of a shape that fits the board.
+     * <p>
+     * Placements are listed by rotation, then by x and y position. Shapes that
+     * look the same in more than one rotation have each of their placements
+     * listed once for every such rotation.
+     * <p>
+     * @param shape The shape
+     * @param width The board width
+     * @param height The board height
+     * @param arena The arena making the stores of the table
+     */
+    PlacementTable(ShipShape shape, int width, int height, StoreArena arena) {
+        this.width = width;
+        this.height = height;
+
+        shapes = new ShipShape[ROTATIONS];
+        for (int i = 0; i < ROTATIONS; i++) {
+            shapes[i] = shape.rotateCWNinety(i);
+        }
+
+        int capacity = 0;
+        for (ShipShape rotated : shapes) {
+            capacity += Math.max(0, width - rotated.getMaxX()) * Math.max(0, height - rotated.getMaxY());
+        }
+        capacity = Math.max(capacity, 1);
+
+        squares = arena.allocate(Math.multiplyExact(capacity, Math.max(shape.size(), 1)));
+        configStart = arena.allocate(capacity + 1);
+        rotations = arena.allocate(capacity);
+        origins = arena.allocate(capacity);
+        covers = arena.allocate(squares.length());
+        coverStart = arena.allocate(width * height + 1);
+
+        for (int i = 0; i < ROTATIONS; i++) {
+            ShipShape rotated = shapes[i];
+
+            for (int x = 0; x < width - rotated.getMaxX(); x++) {
+                for (int y = 0; y < height - rotated.getMaxY(); y++) {
+                    append(rotated, i, x, y);
+                }
+            }
+        }
+
+        indexCovers();
+    }
+
+    /**
+     * Creates a copy of a table, with stores made by another arena.
+     * <p>
+     * Tables are shared by boards forked from each other, and a board adding
+     * placements to a shared table first takes a copy of it.
+     * <p>
+     * @param table The table to copy
+     * @param arena The arena making the stores of the copy
+     */
+    PlacementTable(PlacementTable table, StoreArena arena) {
+        width = table.width;
+        height = table.height;
+        shapes = table.shapes;
+        size = table.size;
+
+        squares = copy(table.squares, arena);
+        configStart = copy(table.configStart, arena);
+        rotations = copy(table.rotations, arena);
+        origins = copy(table.origins, arena);
+        covers = copy(table.covers, arena);
+        coverStart = copy(table.coverStart, arena);
+    }
+
+    /**
+     * Returns the number of placements.
+     * <p>
+     * @return The number of placements
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns where the squares of a placement start.
+     * <p>
+     * @param config The index of the placement
+     * @return The index of the first square in {@code getSquare(int)}
+     */
+    int getConfigStart(int config) {
+        return configStart.get(config);
+    }
+
+    /**
+     * Returns where the squares of a placement end.
+     * <p>
+     * @param config The index of the placement
+     * @return The index after the last square in {@code getSquare(int)}
+     */
+    int getConfigEnd(int config) {
+        return configStart.get(config + 1);
+    }
+
+    /**
+     * Returns a square of a placement.
+     * <p>
+     * @param index The index of the square, from {@code getConfigStart} to
+     * {@code getConfigEnd} of its placement
+     * @return The packed square
+     */
+    int getSquare(int index) {
+        return squares.get(index);
+    }
+
+    /**
+     * Returns the packed squares of a placement.
+     * <p>
+     * @param config The index of the placement
+     * @return A new array of the packed squares
+     */
+    int[] getConfig(int config) {
+        int start = getConfigStart(config);
+        int[] packed = new int[getConfigEnd(config) - start];
+
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = squares.get(start + i);
+        }
+
+        return packed;
+    }
+
+    /**
+     * Returns the rotation a placement was made with.
+     * <p>
+     * @param config The index of the placement
+     * @return The number of clockwise rotations, or -1 if unknown
+     */
+    int getRotation(int config) {
+        return rotations.get(config);
+    }
+
+    /**
+     * Returns the x position a placement was made with.
+     * <p>
+     * @param config The index of the placement
+     * @return The x position of the rotated shape
+     */
+    int getOriginX(int config) {
+        return Square.unpackX(origins.get(config));
+    }
+
+    /**
+     * Returns the y position a placement was made with.
+     * <p>
+     * @param config The index of the placement
+     * @return The y position of the rotated shape
+     */
+    int getOriginY(int config) {
+        return Square.unpackY(origins.get(config));
+    }
+
+    /**
+     * Returns where the placements covering a square start.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @return The index of the first placement in {@code getCover(int)}
+     */
+    int getCoverStart(int x, int y) {
+        return coverStart.get(x * height + y);
+    }
+
+    /**
+     * Returns where the placements covering a square end.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @return The index after the last placement in {@code getCover(int)}
+     */
+    int getCoverEnd(int x, int y) {
+        return coverStart.get(x * height + y + 1);
+    }
+
+    /**
+     * Returns a placement covering a square.
+     * <p>
+     * @param index The index from {@code getCoverStart} to
+     * {@code getCoverEnd} of the square
+     * @return The index of the placement
+     */
+    int getCover(int index) {
+        return covers.get(index);
+    }
+
+    /**
+     * Returns the placements covering a square.
+     * <p>
+     * @param x The X-coordinate of the square
+     * @param y The Y-coordinate of the square
+     * @return A new array of the indices of the placements
+     */
+    int[] configsAt(int x, int y) {
+        int start = getCoverStart(x, y);
+        int[] configs = new int[getCoverEnd(x, y) - start];
+
+        for (int i = 0; i < configs.length; i++) {
+            configs[i] = covers.get(start + i);
+        }
+
+        return configs;
+    }
+
+    /**
+     * Finds how many more times the table's shape has to be rotated to be laid
+     * out like a ship.
+     * <p>
+     * Rotating the ship {@code r} times gives the same shape as the table's
+     * rotation {@code r + rotationOf(ship)}.
+     * <p>
+     * @param ship The ship
+     * @return The rotation, or -1 if the ship has a different shape
+     */
+    int rotationOf(Ship ship) {
+        ShipShape normalized = ship.getShape().rotateCWNinety(0);
+
+        for (int i = 0; i < ROTATIONS; i++) {
+            if (shapes[i].equals(normalized)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Adds a placement of a shape.
+     * <p>
+     * The shape need not be one of the table's, and is not checked for
+     * duplicates. The placements covering each square are listed again, so
+     * adding placements one at a time is slow on large boards.
+     * <p>
+     * @param shape The shape as placed
+     * @param rotation The number of clockwise rotations of the table's shape,
+     * or -1 if unknown
+     * @param x The x position of the shape
+     * @param y The y position of the shape
+     * @return The index of the placement
+     */
+    int add(ShipShape shape, int rotation, int x, int y) {
+        int config = append(shape, rotation, x, y);
+        indexCovers();
+
+        return config;
+    }
+
+    /**
+     * Releases the stores of the table.
+     */
+    void close() {
+        squares.close();
+        configStart.close();
+        rotations.close();
+        origins.close();
+        covers.close();
+        coverStart.close();
+    }
+
+    /**
+     * Copies a store into a new store of an arena.
+     * <p>
+     * @param store The store
+     * @param arena The arena
+     * @return The copy
+     */
+    private static IntStore copy(IntStore store, StoreArena arena) {
+        IntStore copy = arena.allocate(store.length());
+
+        for (int i = 0; i < store.length(); i++) {
+            copy.set(i, store.get(i));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Adds a placement without listing it for the squares it covers.
+     * <p>
+     * @param shape The shape as placed
+     * @param rotation The rotation of the placement, or -1 if unknown
+     * @param x The x position of the shape
+     * @param y The y position of the shape
+     * @return The index of the placement
+     */
+    private int append(ShipShape shape, int rotation, int x, int y) {
+        int config = size++;
+        int start = configStart.get(config);
+        int end = start + shape.size();
+
+        if (config == rotations.length()) {
+            configStart = configStart.resize(config * 2 + 1);
+            rotations = rotations.resize(config * 2);
+            origins = origins.resize(config * 2);
+        }
+
+        if (end > squares.length()) {
+            squares = squares.resize(Math.max(end, squares.length() * 2));
+        }
+
+        for (int i = 0; i < shape.size(); i++) {
+            squares.set(start + i, Square.pack(x + shape.getX(i), y + shape.getY(i)));
+        }
+
+        configStart.set(config + 1, end);
+        rotations.set(config, rotation);
+        origins.set(config, Square.pack(x, y));
+
+        return config;
+    }
+
+    /**
+     * Lists the placements covering each square, in order of index.
+     */
+    private void indexCovers() {
+        int total = configStart.get(size);
+
+        if (total > covers.length()) {
+            covers = covers.resize(total);
+        }
+
+        //Count the placements of each square, then turn the counts into starts
+        for (int i = 0; i <= width * height; i++) {
+            coverStart.set(i, 0);
+        }
+
+        for (int k = 0; k < total; k++) {
+            int square = index(squares.get(k));
+            coverStart.set(square + 1, coverStart.get(square + 1) + 1);
+        }
+
+        for (int i = 0; i < width * height; i++) {
+            coverStart.set(i + 1, coverStart.get(i + 1) + coverStart.get(i));
+        }
+
+        //Fill each square from its end, going down through the placements
+        for (int config = size - 1; config >= 0; config--) {
+            for (int k = configStart.get(config); k < configStart.get(config + 1); k++) {
+                int square = index(squares.get(k));
+                int end = coverStart.get(square + 1) - 1;
+
+                covers.set(end, config);
+                coverStart.set(square + 1, end);
+            }
+        }
+
+        //Each square's end has moved down to its start, one place along
+        for (int i = 0; i < width * height; i++) {
+            coverStart.set(i, coverStart.get(i + 1));
+        }
+        coverStart.set(width * height, total);
+    }
+
+    /**
+     * Returns the index of a packed square in {@code coverStart}.
+     * <p>
+     * @param square The packed square
+     * @return The index
+     */
+    private int index(int square) {
+        return Square.unpackX(square) * height + Square.unpackY(square);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+/**
+ * A weight given to each placement of a ship.
+ * <p>
+ * Placements are keyed by the number of clockwise rotations of the ship and
+ * the x, y position of the rotated, normalized ship on the board. A weight of
+ * 1 for every placement is the same as counting placements.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Board#setPlacementWeights(battleships.model.Ship,
+ * battleships.model.PlacementWeight)
+ * @since v1.1.0
+ */
+@FunctionalInterface
+public interface PlacementWeight {
+
+    /**
+     * Returns the weight of a placement.
+     * <p>
+     * @param rotation The number of clockwise rotations of the ship
+     * @param x The x position of the rotated ship
+     * @param y The y position of the rotated ship
+     * @return The weight, must not be negative
+     */
+    double weight(int rotation, int x, int y);
+}
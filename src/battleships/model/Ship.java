@@ -65,14 +65,43 @@ public interface Ship extends Iterable<Square> {
     Square getMaxSquare();
 
     /**
-     * Returns a new ship, that is this ship rotated 90 degrees clockwise times
-     * the number of time specified.
+     * Returns a ship, that is this ship rotated 90 degrees clockwise times the
+     * number of time specified.
      * <p>
-     * Ship is normalized after rotation.
+     * Ship is normalized after rotation. A {@code ShipShape} is rotated into
+     * another shape, which cannot be changed. Other ships return a new ship.
      * <p>
      * @param repeat Number of times to rotate 90 degrees
      * @return The new rotated ship
      * @see #normalize()
      */
     Ship rotateCWNinety(int repeat);
+
+    /**
+     * Returns the squares of the ship as an immutable shape.
+     * <p>
+     * The shape is a copy of the ship's current squares, it does not follow
+     * later changes to the ship.
+     * <p>
+     * @return The shape of the ship
+     * @since v1.1.0
+     */
+    default ShipShape getShape() {
+        return ShipShape.of(this);
+    }
+
+    /**
+     * Returns the shape of the ship in a form that is the same for all of its
+     * rotations.
+     * <p>
+     * Two ships are of the same type if their canonical shapes are equal, no
+     * matter how each of them is laid out.
+     * <p>
+     * @return The canonical shape of the ship
+     * @see ShipShape#canonical()
+     * @since v1.1.0
+     */
+    default ShipShape getCanonicalShape() {
+        return getShape().canonical();
+    }
 }
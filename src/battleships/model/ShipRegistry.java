@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Gives each ship on a board a dense ID.
+ * <p>
+ * IDs count up from 0 in the order ships are registered, so a board can keep
+ * everything it knows about a ship in arrays indexed by ID. Ships are told
+ * apart by identity: two ships with the same squares are still different
+ * ships.
+ * <p>
+ * Looking up the ID of a ship takes constant time, and is the only lookup a
+ * board needs for each operation on a ship.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see IndependentBoard
+ * @since v1.1.0
+ */
+final class ShipRegistry {
+
+    /**
+     * The ID of each ship.
+     */
+    private final Map<Ship, Integer> ids;
+    /**
+     * The ships, indexed by ID.
+     */
+    private Ship[] ships;
+    /**
+     * The number of ships.
+     */
+    private int size;
+
+    /**
+     * Creates an empty registry.
+     */
+    ShipRegistry() {
+        ids = new IdentityHashMap<>();
+        ships = new Ship[8];
+    }
+
+    /**
+     * Creates a registry with the same ships and IDs as another.
+     * <p>
+     * @param registry The registry to copy
+     */
+    ShipRegistry(ShipRegistry registry) {
+        ids = new IdentityHashMap<>(registry.ids);
+        ships = registry.ships.clone();
+        size = registry.size;
+    }
+
+    /**
+     * Registers a ship, giving it the next ID.
+     * <p>
+     * @param ship The ship
+     * @return The ID of the ship
+     * @throws IllegalArgumentException If the ship is already registered
+     */
+    int register(Ship ship) {
+        if (ids.containsKey(ship)) {
+            throw new IllegalArgumentException("Ship already on board!");
+        }
+
+        if (size == ships.length) {
+            ships = Arrays.copyOf(ships, size * 2);
+        }
+
+        ships[size] = ship;
+        ids.put(ship, size);
+
+        return size++;
+    }
+
+    /**
+     * Returns the ID of a ship.
+     * <p>
+     * @param ship The ship
+     * @return The ID, or -1 if the ship is not registered
+     */
+    int idOf(Ship ship) {
+        Integer id = ids.get(ship);
+
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the ship with an ID.
+     * <p>
+     * @param id The ID
+     * @return The ship
+     */
+    Ship get(int id) {
+        return ships[id];
+    }
+
+    /**
+     * Returns the number of ships registered, which is also the next ID.
+     * <p>
+     * @return The number of ships
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ships, in order of ID.
+     * <p>
+     * @return A new list of the ships
+     */
+    Collection<Ship> toList() {
+        return new ArrayList<>(Arrays.asList(ships).subList(0, size));
+    }
+}
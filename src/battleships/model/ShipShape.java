@@ -0,0 +1,545 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of squares making up the shape of a ship.
+ * <p>
+ * A shape is a {@code Ship} that cannot be changed: methods that would add or
+ * move squares throw an {@code UnsupportedOperationException}. Its four
+ * normalized rotations are worked out together the first time one is asked
+ * for, and are shared from then on, so rotating a shape is a lookup. The
+ * rotations of a rotation are the same shapes, rotated further.
+ * <p>
+ * Shapes that are rotations of one another share the same canonical shape,
+ * which is the rotation with the smallest packed positions. Comparing or
+ * hashing canonical shapes groups ships of the same type whatever way they
+ * were laid out.
+ * <p>
+ * Squares are kept as a sorted array of packed positions, in the same order a
+ * {@code BasicShip} iterates its squares, with the bounding box worked out
+ * once. Board engines can walk a shape by index without creating any objects:
+ * <pre>
+ * for (int i = 0; i &lt; shape.size(); i++) {
+ *     int x = shape.getX(i);
+ *     int y = shape.getY(i);
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * Iterating a shape as {@code Square} objects is supported for compatibility,
+ * and creates a new square for each position.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Square#pack(int, int)
+ * @see Ship#getShape()
+ * @since v1.1.0
+ */
+public final class ShipShape implements Ship {
+
+    /**
+     * The number of distinct rotations of a shape.
+     */
+    private static final int ROTATIONS = 4;
+
+    /**
+     * The packed positions of the squares, sorted and without duplicates.
+     */
+    private final int[] squares;
+    /**
+     * The smallest x position.
+     */
+    private final int minX;
+    /**
+     * The smallest y position.
+     */
+    private final int minY;
+    /**
+     * The largest x position.
+     */
+    private final int maxX;
+    /**
+     * The largest y position.
+     */
+    private final int maxY;
+    /**
+     * The normalized shape rotated 0 to 3 times clockwise, null until first
+     * asked for.
+     */
+    private volatile ShipShape[] rotations;
+    /**
+     * The rotation picked to stand for all four, set with {@code rotations}.
+     */
+    private ShipShape canonical;
+    /**
+     * The hash code, 0 until worked out.
+     */
+    private int hash;
+
+    /**
+     * Creates a shape from packed positions.
+     * <p>
+     * @param squares The packed positions, sorted and without duplicates, not
+     * copied
+     */
+    private ShipShape(int[] squares) {
+        this.squares = squares;
+
+        int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE, highY = Integer.MIN_VALUE;
+
+        for (int square : squares) {
+            int x = Square.unpackX(square);
+            int y = Square.unpackY(square);
+
+            lowX = Math.min(lowX, x);
+            lowY = Math.min(lowY, y);
+            highX = Math.max(highX, x);
+            highY = Math.max(highY, y);
+        }
+
+        minX = lowX;
+        minY = lowY;
+        maxX = highX;
+        maxY = highY;
+    }
+
+    /**
+     * Creates a shape from squares.
+     * <p>
+     * Squares are packed into 16 bits for each coordinate, so every square
+     * and every rotation of the shape must fit in a {@code short}.
+     * <p>
+     * @param squares The squares
+     * @return The shape
+     * @throws IllegalArgumentException If a coordinate is further than
+     * {@code Short.MAX_VALUE} from 0, or the shape is wider or taller than
+     * that
+     * @see Square#pack(int, int)
+     */
+    public static ShipShape of(Iterable<Square> squares) {
+        int[] packed = new int[8];
+        int size = 0;
+        int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE, highY = Integer.MIN_VALUE;
+
+        for (Square sqr : squares) {
+            int x = sqr.getX();
+            int y = sqr.getY();
+
+            if (Math.abs(x) > Short.MAX_VALUE || Math.abs(y) > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Ship square out of range: (" + x + ", " + y + ")");
+            }
+
+            lowX = Math.min(lowX, x);
+            lowY = Math.min(lowY, y);
+            highX = Math.max(highX, x);
+            highY = Math.max(highY, y);
+
+            //Rotations are normalized, so they span the same range from 0
+            if (highX - lowX > Short.MAX_VALUE || highY - lowY > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Ship width/height must not be bigger than 32767!");
+            }
+
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+
+            packed[size++] = sqr.pack();
+        }
+
+        return of(packed, size);
+    }
+
+    /**
+     * Creates a shape from packed positions.
+     * <p>
+     * @param packed The packed positions, in any order
+     * @return The shape
+     * @see Square#pack(int, int)
+     */
+    public static ShipShape of(int... packed) {
+        return of(packed.clone(), packed.length);
+    }
+
+    /**
+     * Sorts and removes duplicates from the start of an array, then creates a
+     * shape of it.
+     * <p>
+     * @param packed The array, which is modified
+     * @param size The number of positions to use
+     * @return The shape
+     */
+    private static ShipShape of(int[] packed, int size) {
+        Arrays.sort(packed, 0, size);
+
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || packed[i] != packed[unique - 1]) {
+                packed[unique++] = packed[i];
+            }
+        }
+
+        return new ShipShape(Arrays.copyOf(packed, unique));
+    }
+
+    /**
+     * Returns the number of squares in the shape.
+     * <p>
+     * @return The number of squares
+     */
+    public int size() {
+        return squares.length;
+    }
+
+    /**
+     * Returns the packed position of a square.
+     * <p>
+     * @param i The index of the square, in sorted order
+     * @return The packed position
+     */
+    public int getSquare(int i) {
+        return squares[i];
+    }
+
+    /**
+     * Returns the x position of a square.
+     * <p>
+     * @param i The index of the square, in sorted order
+     * @return x-coordinate position
+     */
+    public int getX(int i) {
+        return Square.unpackX(squares[i]);
+    }
+
+    /**
+     * Returns the y position of a square.
+     * <p>
+     * @param i The index of the square, in sorted order
+     * @return y-coordinate position
+     */
+    public int getY(int i) {
+        return Square.unpackY(squares[i]);
+    }
+
+    /**
+     * Returns the smallest x position of the shape.
+     * <p>
+     * @return The left of the bounding box
+     */
+    public int getMinX() {
+        return minX;
+    }
+
+    /**
+     * Returns the smallest y position of the shape.
+     * <p>
+     * @return The top of the bounding box
+     */
+    public int getMinY() {
+        return minY;
+    }
+
+    /**
+     * Returns the largest x position of the shape.
+     * <p>
+     * @return The right of the bounding box
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Returns the largest y position of the shape.
+     * <p>
+     * @return The bottom of the bounding box
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Returns this shape.
+     * <p>
+     * @return This shape
+     */
+    @Override
+    public ShipShape getShape() {
+        return this;
+    }
+
+    @Override
+    public int numSquares() {
+        return squares.length;
+    }
+
+    @Override
+    public Square getMaxSquare() {
+        return new Square(maxX, maxY);
+    }
+
+    /**
+     * Returns the shape rotated 90 degrees clockwise times the number of time
+     * specified, normalized.
+     * <p>
+     * The shape returned is shared, and is the same object each time.
+     * <p>
+     * @param repeat Number of times to rotate 90 degrees, negative to rotate
+     * counter-clockwise
+     * @return The rotated shape
+     */
+    @Override
+    public ShipShape rotateCWNinety(int repeat) {
+        ShipShape[] cached = rotations;
+
+        if (cached == null) {
+            cached = computeRotations();
+        }
+
+        return cached[Math.floorMod(repeat, ROTATIONS)];
+    }
+
+    /**
+     * Returns the canonical shape, which is the same for all rotations of this
+     * shape.
+     * <p>
+     * Of the four normalized rotations, the one whose sorted packed positions
+     * compare the smallest is picked.
+     * <p>
+     * @return The canonical shape
+     */
+    public ShipShape canonical() {
+        ShipShape[] cached = rotations;
+
+        if (cached == null) {
+            cached = computeRotations();
+        }
+
+        //All rotations share the canonical shape
+        return cached[0].canonical;
+    }
+
+    /**
+     * Returns the hash code of the canonical shape.
+     * <p>
+     * Ships with equal canonical hashes are likely, but not certain, to be of
+     * the same shape. Use {@code canonical().equals()} to be sure.
+     * <p>
+     * @return The canonical hash
+     * @see #canonical()
+     */
+    public int canonicalHash() {
+        return canonical().hashCode();
+    }
+
+    /**
+     * Shapes cannot be changed.
+     * <p>
+     * @param x X-coordinate of square
+     * @param y Y-coordinate of square
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public void addSquare(int x, int y) {
+        throw new UnsupportedOperationException("Ship shapes cannot be changed!");
+    }
+
+    /**
+     * Shapes cannot be changed.
+     * <p>
+     * @param sqr The {@code Square} object
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public void addSquare(Square sqr) {
+        throw new UnsupportedOperationException("Ship shapes cannot be changed!");
+    }
+
+    /**
+     * Shapes cannot be changed.
+     * <p>
+     * @param x X offset
+     * @param y Y offset
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public void move(int x, int y) {
+        throw new UnsupportedOperationException("Ship shapes cannot be changed!");
+    }
+
+    /**
+     * Shapes cannot be changed, use {@code rotateCWNinety(0)} for the
+     * normalized shape.
+     * <p>
+     * @throws UnsupportedOperationException Always
+     * @see #rotateCWNinety(int)
+     */
+    @Override
+    public void normalize() {
+        throw new UnsupportedOperationException("Ship shapes cannot be changed!");
+    }
+
+    /**
+     * Checks if the shape has a square at the position.
+     * <p>
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return {@code true} if the square is part of the shape
+     */
+    public boolean contains(int x, int y) {
+        return Arrays.binarySearch(squares, Square.pack(x, y)) >= 0;
+    }
+
+    /**
+     * Returns a copy of the packed positions.
+     * <p>
+     * @return The packed positions, sorted
+     */
+    public int[] toArray() {
+        return squares.clone();
+    }
+
+    /**
+     * Works out the four rotations, and shares them with each rotation.
+     * <p>
+     * @return The rotations of this shape
+     */
+    private synchronized ShipShape[] computeRotations() {
+        if (rotations != null) {
+            return rotations;
+        }
+
+        ShipShape[] computed = new ShipShape[ROTATIONS];
+        computed[0] = minX == 0 && minY == 0 ? this : translated(-minX, -minY);
+
+        for (int i = 1; i < ROTATIONS; i++) {
+            computed[i] = computed[i - 1].rotatedOnce();
+        }
+
+        ShipShape smallest = computed[0];
+        for (int i = 1; i < ROTATIONS; i++) {
+            if (Arrays.compare(computed[i].squares, smallest.squares) < 0) {
+                smallest = computed[i];
+            }
+        }
+
+        for (int i = 0; i < ROTATIONS; i++) {
+            computed[i].canonical = smallest;
+        }
+
+        for (int i = 0; i < ROTATIONS; i++) {
+            ShipShape[] shifted = new ShipShape[ROTATIONS];
+
+            for (int j = 0; j < ROTATIONS; j++) {
+                shifted[j] = computed[(i + j) % ROTATIONS];
+            }
+
+            computed[i].rotations = shifted;
+        }
+
+        rotations = computed;
+
+        return computed;
+    }
+
+    /**
+     * Returns the shape rotated 90 degrees clockwise and normalized.
+     * <p>
+     * @return The new shape
+     */
+    private ShipShape rotatedOnce() {
+        int[] rotated = new int[squares.length];
+
+        for (int i = 0; i < squares.length; i++) {
+            //(x, y) goes to (y, -x), then back to the origin
+            rotated[i] = Square.pack(getY(i) - minY, maxX - getX(i));
+        }
+
+        return of(rotated, rotated.length);
+    }
+
+    /**
+     * Returns the shape moved by an offset.
+     * <p>
+     * @param x X offset
+     * @param y Y offset
+     * @return The new shape
+     */
+    private ShipShape translated(int x, int y) {
+        int[] moved = new int[squares.length];
+
+        for (int i = 0; i < squares.length; i++) {
+            moved[i] = Square.pack(getX(i) + x, getY(i) + y);
+        }
+
+        //Order is kept when every square moves by the same offset
+        return new ShipShape(moved);
+    }
+
+    @Override
+    public Iterator<Square> iterator() {
+        return new Iterator<Square>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < squares.length;
+            }
+
+            @Override
+            public Square next() {
+                if (next >= squares.length) {
+                    throw new NoSuchElementException();
+                }
+
+                int square = squares[next++];
+                return new Square(Square.unpackX(square), Square.unpackY(square));
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        return Arrays.equals(squares, ((ShipShape) o).squares);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+
+        if (result == 0) {
+            result = Arrays.hashCode(squares);
+            hash = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ShipShape{");
+
+        for (int i = 0; i < squares.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('(').append(getX(i)).append(", ").append(getY(i)).append(')');
+        }
+
+        return builder.append('}').toString();
+    }
+}
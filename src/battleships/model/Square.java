@@ -36,6 +36,57 @@ public class Square implements Comparable<Square> {
         y = sqr.getY();
     }
 
+    /**
+     * Packs a position into a single int.
+     * <p>
+     * The x position is kept in the upper 16 bits and the y position in the
+     * lower 16, so both must fit in a {@code short}. This is not checked here,
+     * and positions out of range wrap; {@code ShipShape} and
+     * {@code IndependentBoard} check their squares and sizes instead. Packed
+     * positions sort the same way as squares do, by x and then by y.
+     * <p>
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return The packed position
+     * @see #unpackX(int)
+     * @see #unpackY(int)
+     */
+    public static int pack(int x, int y) {
+        return (x << 16) + y;
+    }
+
+    /**
+     * Returns the x position of a packed position.
+     * <p>
+     * @param packed The packed position
+     * @return x-coordinate position
+     * @see #pack(int, int)
+     */
+    public static int unpackX(int packed) {
+        return (packed - unpackY(packed)) >> 16;
+    }
+
+    /**
+     * Returns the y position of a packed position.
+     * <p>
+     * @param packed The packed position
+     * @return y-coordinate position
+     * @see #pack(int, int)
+     */
+    public static int unpackY(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * Returns the position of this square packed into a single int.
+     * <p>
+     * @return The packed position
+     * @see #pack(int, int)
+     */
+    public int pack() {
+        return pack(x, y);
+    }
+
     /**
      * Returns the x position of the square.
      * <p>
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Makes the int stores of a board, and releases them together.
+ * <p>
+ * An off heap arena keeps track of the stores it makes, so closing the board
+ * closes them all, including the stores of its forks' copied tables, which
+ * are made by the forks' own arenas. Stores replaced by {@code resize(int)}
+ * are closed as they are replaced.
+ * <p>
+ * Java 17 has no public API to free a direct buffer on the spot. A closed
+ * store drops its buffer, and the memory is freed by the buffer's cleaner
+ * after the next garbage collection. Where {@code sun.misc.Unsafe} from the
+ * {@code jdk.unsupported} module can be reached, as on standard runtimes, the
+ * cleaner is also run at once.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see PlacementStorage
+ * @since v1.1.0
+ */
+final class StoreArena {
+
+    /**
+     * Where the stores are kept.
+     */
+    private final PlacementStorage storage;
+    /**
+     * The off heap stores made and not yet closed, or null once the arena is
+     * closed.
+     */
+    private Set<IntStore> stores;
+    /**
+     * Runs the cleaner of a closed off heap store's buffer, or null to leave
+     * it to the garbage collector.
+     */
+    private final Consumer<ByteBuffer> releaser;
+
+    /**
+     * Creates an arena.
+     * <p>
+     * @param storage Where the stores are kept
+     */
+    StoreArena(PlacementStorage storage) {
+        this(storage, IntStore.Direct.UNSAFE_RELEASER);
+    }
+
+    /**
+     * Creates an arena whose off heap stores are freed with the releaser
+     * given.
+     * <p>
+     * @param storage Where the stores are kept
+     * @param releaser Runs the cleaner of a closed store's buffer, or null to
+     * leave it to the garbage collector
+     */
+    StoreArena(PlacementStorage storage, Consumer<ByteBuffer> releaser) {
+        this.storage = storage;
+        this.releaser = releaser;
+        stores = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Returns where the stores are kept.
+     * <p>
+     * @return The storage
+     */
+    PlacementStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Makes a store of zeroes.
+     * <p>
+     * @param length The length of the store
+     * @return The store
+     * @throws IllegalStateException If the arena is closed
+     */
+    IntStore allocate(int length) {
+        if (stores == null) {
+            throw new IllegalStateException("Arena already closed!");
+        }
+
+        if (storage == PlacementStorage.HEAP) {
+            return new IntStore.Heap(this, length);
+        }
+
+        IntStore store = new IntStore.Direct(this, length, releaser);
+        stores.add(store);
+
+        return store;
+    }
+
+    /**
+     * Forgets a store that has been closed.
+     * <p>
+     * @param store The store
+     */
+    void released(IntStore store) {
+        if (stores != null) {
+            stores.remove(store);
+        }
+    }
+
+    /**
+     * Returns the number of off heap stores made and not yet closed.
+     * <p>
+     * @return The number of stores, 0 once the arena is closed
+     */
+    int openStores() {
+        return stores == null ? 0 : stores.size();
+    }
+
+    /**
+     * Closes all stores made. Closing more than once has no effect.
+     */
+    void close() {
+        if (stores != null) {
+            Collection<IntStore> open = new ArrayList<>(stores);
+            stores = null;
+
+            for (IntStore store : open) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Checks if the arena is closed.
+     * <p>
+     * @return {@code true} if the arena is closed
+     */
+    boolean isClosed() {
+        return stores == null;
+    }
+}
@@ -0,0 +1,652 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.model.BasicShip;
+import battleships.model.FleetSampler;
+import battleships.model.Ship;
+import battleships.model.ShipShape;
+import battleships.model.Square;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches for fleet layouts that a solver takes the most shots to sink.
+ * <p>
+ * The search is simulated annealing over layouts. Each step proposes a batch
+ * of layouts, each moving one ship of the current layout either by a square
+ * or to anywhere it fits. The layouts of a batch are scored on a pool of
+ * worker threads, the score of a layout being the mean number of shots the
+ * solver takes over a number of games. The best layout of the batch replaces
+ * the current one if it scores higher, or otherwise with a chance that
+ * shrinks with the loss and with the temperature, which cools geometrically
+ * to a hundredth of its start over the search.
+ * <p>
+ * Every layout is scored with the same random number generators for the
+ * solver's games, so two layouts differ in score only because of where the
+ * ships are. A layout proposed again would score the same, so the scores of
+ * the search are kept by layout, and only new layouts are played. Layouts are
+ * told apart by the squares each ship covers, so a straight ship turned half
+ * way round, or two ships of the same shape trading places, is the same
+ * layout. The layouts
+ * proposed and the games played only depend on the seed, not on the number of
+ * threads.
+ * <p>
+ * Solver games are played through {@code Tournament}, so the built in
+ * strategies play on forks of one board, and no placement tables are built
+ * for each game.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Strategies
+ * @since v1.1.0
+ */
+public class PlacementOptimizer {
+
+    /**
+     * The default number of layouts proposed at each step.
+     */
+    public static final int DEFAULT_BATCH = 8;
+    /**
+     * The default temperature the search starts with, in shots.
+     */
+    public static final double DEFAULT_TEMPERATURE = 1;
+
+    /**
+     * The number of times a move is tried before the ship is left where it
+     * is.
+     */
+    private static final int MAX_TRIES = 100;
+    /**
+     * The fraction of the starting temperature the search cools to.
+     */
+    private static final double FINAL_COOLING = 0.01;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+    /**
+     * The height of the board.
+     */
+    private final int height;
+    /**
+     * The shape of each ship, for each rotation.
+     */
+    private final ShipShape[][] shapes;
+    /**
+     * The indices of the ships of each shape, which can trade places without
+     * changing a layout.
+     */
+    private final int[][] sameShape;
+    /**
+     * Draws the layout the search starts from.
+     */
+    private final FleetSampler sampler;
+    /**
+     * Plays the solver's games.
+     */
+    private final Tournament referee;
+    /**
+     * The strategy whose shots are counted.
+     */
+    private final Strategy solver;
+    /**
+     * The number of games played for each layout.
+     */
+    private final int games;
+    /**
+     * The number of layouts proposed at each step.
+     */
+    private final int batch;
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Creates an optimizer with a worker for each processor.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships of the layouts
+     * @param solver The strategy whose shots are counted
+     * @param games The number of games played for each layout
+     */
+    public PlacementOptimizer(int width, int height, List<Ship> fleet, Strategy solver, int games) {
+        this(width, height, fleet, solver, games, DEFAULT_BATCH, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an optimizer.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships of the layouts
+     * @param solver The strategy whose shots are counted
+     * @param games The number of games played for each layout
+     * @param batch The number of layouts proposed at each step
+     * @param threads The number of worker threads
+     * @throws IllegalArgumentException If the board size, games, batch or
+     * threads is not positive, or the fleet is empty or does not fit on the
+     * board
+     */
+    public PlacementOptimizer(int width, int height, List<Ship> fleet, Strategy solver, int games, int batch,
+            int threads) {
+        if (games <= 0 || batch <= 0) {
+            throw new IllegalArgumentException("Games and batch must be bigger than 0!");
+        }
+
+        referee = new Tournament(width, height, fleet, Collections.singletonList(solver), threads);
+        sampler = new FleetSampler(width, height, fleet);
+
+        this.width = width;
+        this.height = height;
+        this.solver = solver;
+        this.games = games;
+        this.batch = batch;
+        this.threads = threads;
+
+        shapes = new ShipShape[fleet.size()][4];
+        for (int i = 0; i < shapes.length; i++) {
+            for (int rotation = 0; rotation < 4; rotation++) {
+                shapes[i][rotation] = fleet.get(i).getShape().rotateCWNinety(rotation);
+            }
+        }
+
+        Map<ShipShape, List<Integer>> byShape = new LinkedHashMap<>();
+        for (int i = 0; i < shapes.length; i++) {
+            byShape.computeIfAbsent(shapes[i][0].canonical(), shape -> new ArrayList<>()).add(i);
+        }
+
+        sameShape = new int[byShape.size()][];
+        int group = 0;
+        for (List<Integer> ships : byShape.values()) {
+            sameShape[group] = new int[ships.size()];
+
+            for (int i = 0; i < ships.size(); i++) {
+                sameShape[group][i] = ships.get(i);
+            }
+            group++;
+        }
+    }
+
+    /**
+     * Searches for the layout the solver takes the most shots to sink.
+     * <p>
+     * @param steps The number of batches of layouts proposed
+     * @param temperature The temperature the search starts with, in shots
+     * @param seed The seed of the search
+     * @return The best layout found
+     * @throws IllegalArgumentException If the steps are negative or the
+     * temperature is not positive
+     * @throws IllegalStateException If a solver game fails, or the search is
+     * interrupted
+     */
+    public Result optimize(int steps, double temperature, long seed) {
+        if (steps < 0 || !(temperature > 0)) {
+            throw new IllegalArgumentException("Steps must not be negative and temperature must be positive!");
+        }
+
+        Random random = new Random(seed);
+        int[] current = new int[shapes.length * 3];
+        sampler.sample(random, current);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+
+        try {
+            Map<Layout, Double> known = new HashMap<>();
+            double currentScore = score(pool, Collections.singletonList(current), seed, known)[0];
+            double initialScore = currentScore;
+            int[] best = current.clone();
+            double bestScore = currentScore;
+            long proposed = 1;
+
+            for (int step = 0; step < steps; step++) {
+                double heat = temperature * Math.pow(FINAL_COOLING, (double) step / steps);
+
+                List<int[]> candidates = new ArrayList<>();
+                for (int i = 0; i < batch; i++) {
+                    candidates.add(neighbour(current, random));
+                }
+
+                double[] scores = score(pool, candidates, seed, known);
+                proposed += batch;
+
+                int pick = 0;
+                for (int i = 1; i < batch; i++) {
+                    if (scores[i] > scores[pick]) {
+                        pick = i;
+                    }
+                }
+
+                double gain = scores[pick] - currentScore;
+                //Drawn every step, so the search does not depend on the scores
+                double chance = random.nextDouble();
+
+                if (gain >= 0 || chance < Math.exp(gain / heat)) {
+                    current = candidates.get(pick);
+                    currentScore = scores[pick];
+                }
+
+                if (currentScore > bestScore) {
+                    best = current.clone();
+                    bestScore = currentScore;
+                }
+            }
+
+            return new Result(best, bestScore, initialScore, known.size(), proposed - known.size(),
+                    System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Scores layouts on the worker pool, playing only the layouts not scored
+     * before.
+     * <p>
+     * @param pool The worker pool
+     * @param layouts The layouts
+     * @param seed The seed of the search
+     * @param known The scores of the layouts scored so far, which the new
+     * scores are added to
+     * @return The mean shots of each layout
+     */
+    private double[] score(ExecutorService pool, List<int[]> layouts, long seed, Map<Layout, Double> known) {
+        List<Layout> keys = new ArrayList<>();
+        List<Layout> played = new ArrayList<>();
+        List<Callable<Double>> tasks = new ArrayList<>();
+
+        for (int[] layout : layouts) {
+            Layout key = new Layout(coveredSquares(layout));
+            keys.add(key);
+
+            //Layouts repeated within the batch are only played once too
+            if (!known.containsKey(key) && !played.contains(key)) {
+                played.add(key);
+                tasks.add(() -> score(layout, seed));
+            }
+        }
+
+        try {
+            List<Future<Double>> results = pool.invokeAll(tasks);
+
+            for (int i = 0; i < results.size(); i++) {
+                known.put(played.get(i), results.get(i).get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while optimizing placements!", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Solver game failed!", ex.getCause());
+        }
+
+        double[] scores = new double[layouts.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = known.get(keys.get(i));
+        }
+
+        return scores;
+    }
+
+    /**
+     * Lists the squares covered by the ships of a layout, in a form that is
+     * the same for all layouts covering the same squares with each shape.
+     * <p>
+     * The squares of each ship are packed and sorted. Ships of the same shape
+     * are sorted by their squares, and the shapes are listed in fleet order.
+     * <p>
+     * @param layout The placement of each ship, as {@code rotation, x, y}
+     * triples
+     * @return The packed squares
+     * @see Square#pack(int, int)
+     */
+    int[] coveredSquares(int[] layout) {
+        int size = 0;
+        for (ShipShape[] rotations : shapes) {
+            size += rotations[0].size();
+        }
+
+        int[] covered = new int[size];
+        int pos = 0;
+
+        for (int[] ships : sameShape) {
+            int[][] group = new int[ships.length][];
+
+            for (int i = 0; i < ships.length; i++) {
+                int ship = ships[i];
+                ShipShape shape = shapes[ship][layout[ship * 3]];
+                group[i] = new int[shape.size()];
+
+                //Shapes are sorted and normalized, so the squares stay sorted
+                for (int j = 0; j < shape.size(); j++) {
+                    group[i][j] = Square.pack(layout[ship * 3 + 1] + shape.getX(j),
+                            layout[ship * 3 + 2] + shape.getY(j));
+                }
+            }
+
+            Arrays.sort(group, Arrays::compare);
+
+            for (int[] squares : group) {
+                System.arraycopy(squares, 0, covered, pos, squares.length);
+                pos += squares.length;
+            }
+        }
+
+        return covered;
+    }
+
+    /**
+     * Scores a layout by playing the solver against it.
+     * <p>
+     * @param layout The placement of each ship, as {@code rotation, x, y}
+     * triples
+     * @param seed The seed of the search
+     * @return The mean number of shots the solver took
+     */
+    double score(int[] layout, long seed) {
+        long shots = 0;
+
+        for (int game = 0; game < games; game++) {
+            shots += referee.play(solver, layout, new Random(Tournament.gameSeed(seed, game)));
+        }
+
+        return (double) shots / games;
+    }
+
+    /**
+     * Proposes a layout that moves one ship of a layout.
+     * <p>
+     * Half of the moves shift the ship by a square, the others place it
+     * anywhere at random. A ship that cannot be moved is left where it is.
+     * <p>
+     * @param layout The layout
+     * @param random The random number generator
+     * @return The new layout
+     */
+    int[] neighbour(int[] layout, Random random) {
+        int[] moved = layout.clone();
+        int ship = random.nextInt(shapes.length);
+        boolean[] taken = new boolean[width * height];
+
+        for (int other = 0; other < shapes.length; other++) {
+            if (other != ship) {
+                mark(taken, other, layout);
+            }
+        }
+
+        boolean local = random.nextBoolean();
+
+        for (int tries = 0; tries < MAX_TRIES; tries++) {
+            int rotation;
+            int x;
+            int y;
+
+            if (local) {
+                rotation = layout[ship * 3];
+                x = layout[ship * 3 + 1] + random.nextInt(3) - 1;
+                y = layout[ship * 3 + 2] + random.nextInt(3) - 1;
+            } else {
+                rotation = random.nextInt(4);
+                x = random.nextInt(width);
+                y = random.nextInt(height);
+            }
+
+            if (fits(taken, ship, rotation, x, y)) {
+                moved[ship * 3] = rotation;
+                moved[ship * 3 + 1] = x;
+                moved[ship * 3 + 2] = y;
+                break;
+            }
+        }
+
+        return moved;
+    }
+
+    /**
+     * Marks the squares of a ship as taken.
+     * <p>
+     * @param taken Whether each square is taken
+     * @param ship The index of the ship
+     * @param layout The layout
+     */
+    private void mark(boolean[] taken, int ship, int[] layout) {
+        ShipShape shape = shapes[ship][layout[ship * 3]];
+
+        for (int i = 0; i < shape.size(); i++) {
+            taken[(layout[ship * 3 + 1] + shape.getX(i)) * height + layout[ship * 3 + 2] + shape.getY(i)] = true;
+        }
+    }
+
+    /**
+     * Checks if a ship fits within the board without overlapping a square
+     * taken.
+     * <p>
+     * @param taken Whether each square is taken
+     * @param ship The index of the ship
+     * @param rotation The rotation of the ship
+     * @param x The x position of the ship
+     * @param y The y position of the ship
+     * @return {@code true} if the ship fits
+     */
+    private boolean fits(boolean[] taken, int ship, int rotation, int x, int y) {
+        ShipShape shape = shapes[ship][rotation];
+
+        if (x < 0 || y < 0 || x + shape.getMaxX() >= width || y + shape.getMaxY() >= height) {
+            return false;
+        }
+
+        for (int i = 0; i < shape.size(); i++) {
+            if (taken[(x + shape.getX(i)) * height + y + shape.getY(i)]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Searches for a standard layout that the heatmap is slowest to sink.
+     * <p>
+     * Usage: {@code PlacementOptimizer [steps] [seed] [games] [threads]}
+     * <p>
+     * The fleet is the standard fleet of {@code CommandCenterController}, and
+     * the solver the {@code max-count} strategy. The best layout is printed in
+     * the format of a game log line.
+     * <p>
+     * @param args the command line arguments
+     * @see battleships.analysis.GameLogAnalyzer
+     */
+    public static void main(String[] args) {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        List<Ship> fleet = new ArrayList<>();
+        for (int size : new int[]{5, 4, 3, 3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+
+        PlacementOptimizer optimizer = new PlacementOptimizer(10, 10, fleet, Strategies.maxCount(), games,
+                DEFAULT_BATCH, threads);
+
+        System.out.println(optimizer.optimize(steps, DEFAULT_TEMPERATURE, seed));
+    }
+
+    /**
+     * A layout as a key of the scores of a search.
+     */
+    private static final class Layout {
+
+        final int[] squares;
+        final int hash;
+
+        /**
+         * Creates a key.
+         * <p>
+         * @param squares The squares covered by the layout, from
+         * {@code coveredSquares(int[])}, which must not be changed afterwards
+         */
+        Layout(int[] squares) {
+            this.squares = squares;
+            hash = Arrays.hashCode(squares);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Layout && Arrays.equals(squares, ((Layout) o).squares);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The best layout found by a search.
+     */
+    public static final class Result {
+
+        /**
+         * The placement of each ship.
+         */
+        private final int[] placements;
+        /**
+         * The mean shots the solver took on the layout.
+         */
+        private final double score;
+        /**
+         * The mean shots the solver took on the layout the search started
+         * from.
+         */
+        private final double initialScore;
+        /**
+         * The number of layouts scored.
+         */
+        private final long evaluations;
+        /**
+         * The number of layouts proposed again, whose scores were known.
+         */
+        private final long repeats;
+        /**
+         * The time taken by the search.
+         */
+        private final long elapsedNanos;
+
+        /**
+         * Setter constructor.
+         * <p>
+         * @param placements The placement of each ship
+         * @param score The score of the layout
+         * @param initialScore The score of the starting layout
+         * @param evaluations The number of layouts scored
+         * @param repeats The number of layouts proposed again
+         * @param elapsedNanos The time taken
+         */
+        Result(int[] placements, double score, double initialScore, long evaluations, long repeats,
+                long elapsedNanos) {
+            this.placements = placements;
+            this.score = score;
+            this.initialScore = initialScore;
+            this.evaluations = evaluations;
+            this.repeats = repeats;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the placement of each ship.
+         * <p>
+         * @return The placements in fleet order, as {@code rotation, x, y}
+         * triples
+         */
+        public int[] getPlacements() {
+            return placements.clone();
+        }
+
+        /**
+         * Gets the mean number of shots the solver took on the layout.
+         * <p>
+         * @return The score
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Gets the mean number of shots the solver took on the layout the
+         * search started from.
+         * <p>
+         * @return The starting score
+         */
+        public double getInitialScore() {
+            return initialScore;
+        }
+
+        /**
+         * Gets the number of layouts scored, each by playing the solver's
+         * games.
+         * <p>
+         * @return The number of layouts
+         */
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        /**
+         * Gets the number of layouts proposed that had been scored before, and
+         * were not played again.
+         * <p>
+         * @return The number of layouts
+         */
+        public long getRepeats() {
+            return repeats;
+        }
+
+        /**
+         * Gets the number of layouts scored per second.
+         * <p>
+         * @return The layouts per second
+         */
+        public double getEvaluationsPerSecond() {
+            return elapsedNanos > 0 ? evaluations * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder layout = new StringBuilder();
+
+            for (int i = 0; i < placements.length; i += 3) {
+                if (i > 0) {
+                    layout.append(' ');
+                }
+                layout.append(placements[i]).append(',').append(placements[i + 1]).append(',')
+                        .append(placements[i + 2]);
+            }
+
+            return String.format("%s%n%.2f shots, from %.2f, after %d layouts and %d repeats in %.1f s"
+                    + " (%.1f layouts/s)", layout, score, initialScore, evaluations, repeats, elapsedNanos / 1e9,
+                    getEvaluationsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.model.Square;
+
+/**
+ * A strategy playing a single game against a hidden fleet.
+ * <p>
+ * The player is asked for a shot, then told the result of it before it is
+ * asked for the next. A shot that sinks a ship is first reported as a hit,
+ * then the ship and where it lay are given with {@code sunk}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Strategy
+ * @since v1.1.0
+ */
+public interface Player {
+
+    /**
+     * Picks the next square to shoot.
+     * <p>
+     * The square must be on the board and not shot before.
+     * <p>
+     * @return The square
+     */
+    Square nextShot();
+
+    /**
+     * Tells the player that the last shot missed.
+     * <p>
+     * @param x The X position of the shot
+     * @param y The Y position of the shot
+     */
+    void miss(int x, int y);
+
+    /**
+     * Tells the player that the last shot hit a ship.
+     * <p>
+     * @param x The X position of the shot
+     * @param y The Y position of the shot
+     */
+    void hit(int x, int y);
+
+    /**
+     * Tells the player that the last shot sunk a ship.
+     * <p>
+     * The position is the origin of the rotated ship, as taken by
+     * {@code Board.sink}.
+     * <p>
+     * @param ship The index of the ship in the fleet
+     * @param rotation The number of clockwise rotations of the ship
+     * @param x The X position of the ship
+     * @param y The Y position of the ship
+     * @see battleships.model.Board#sink(battleships.model.Ship, int, int, int)
+     */
+    void sunk(int ship, int rotation, int x, int y);
+}
@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.controller.CommandCenterController;
+import battleships.model.Board;
+import battleships.model.IndependentBoard;
+import battleships.model.Ship;
+import battleships.model.Square;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The built in targeting strategies.
+ * <p>
+ * <ul>
+ * <li>{@code max-count} shoots the open square with the highest value in
+ * {@code CommandCenterController.getData()}, with target mode on, which is
+ * what the heatmap shows the user.</li>
+ * <li>{@code probability} shoots the open square with the highest probability
+ * in {@code Board.getProbabilityMatrix()}.</li>
+ * <li>{@code parity} hunts at random on a checkerboard spaced by the smallest
+ * ship afloat, and shoots the neighbours of each hit until the ship is
+ * sunk.</li>
+ * <li>{@code entropy} shoots the open square whose result is the least
+ * certain, that is with the highest binary entropy of the probability in
+ * {@code Board.getProbabilityMatrix()}.</li>
+ * </ul>
+ * <p>
+ * Ties are broken by taking the first square in column order, so only
+ * {@code parity} uses the random number generator of the game.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public final class Strategies {
+
+    /**
+     * Should not be created.
+     */
+    private Strategies() {
+    }
+
+    /**
+     * Returns the strategy that follows the heatmap of the controller.
+     * <p>
+     * @return The {@code max-count} strategy
+     */
+    public static Strategy maxCount() {
+        return new ForkingStrategy("max-count", MaxCountPlayer::new);
+    }
+
+    /**
+     * Returns the strategy that shoots the most likely square.
+     * <p>
+     * @return The {@code probability} strategy
+     */
+    public static Strategy probability() {
+        return new ForkingStrategy("probability", (board, fleet) -> new BoardPlayer(board, fleet) {
+            @Override
+            double score(double probability) {
+                return probability;
+            }
+        });
+    }
+
+    /**
+     * Returns the strategy that hunts on a checkerboard.
+     * <p>
+     * @return The {@code parity} strategy
+     */
+    public static Strategy parity() {
+        return new Strategy() {
+            @Override
+            public String getName() {
+                return "parity";
+            }
+
+            @Override
+            public Player newPlayer(int width, int height, List<Ship> fleet, Random random) {
+                return new ParityPlayer(width, height, fleet, random);
+            }
+
+            @Override
+            public String toString() {
+                return getName();
+            }
+        };
+    }
+
+    /**
+     * Returns the strategy that shoots the least certain square.
+     * <p>
+     * @return The {@code entropy} strategy
+     */
+    public static Strategy entropy() {
+        return new ForkingStrategy("entropy", (board, fleet) -> new BoardPlayer(board, fleet) {
+            @Override
+            double score(double probability) {
+                double p = Math.min(Math.max(probability, 0), 1);
+
+                if (p == 0 || p == 1) {
+                    return 0;
+                }
+
+                return -p * Math.log(p) - (1 - p) * Math.log(1 - p);
+            }
+        });
+    }
+
+    /**
+     * Returns all the built in strategies.
+     * <p>
+     * @return The strategies, in the order they are listed above
+     */
+    public static List<Strategy> all() {
+        return Arrays.asList(maxCount(), probability(), parity(), entropy());
+    }
+
+    /**
+     * A strategy whose players play on forks of a board with the fleet on it.
+     * <p>
+     * The board is made once for each board size and fleet, so the placement
+     * tables are not built again for every game. It's never shot at itself.
+     */
+    private static final class ForkingStrategy implements Strategy {
+
+        /**
+         * The name of the strategy.
+         */
+        private final String name;
+        /**
+         * Makes the players.
+         */
+        private final PlayerFactory factory;
+        /**
+         * The board last forked, or null.
+         */
+        private volatile Template template;
+
+        /**
+         * Names a player factory.
+         * <p>
+         * @param name The name of the strategy
+         * @param factory Makes the players
+         */
+        ForkingStrategy(String name, PlayerFactory factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Player newPlayer(int width, int height, List<Ship> fleet, Random random) {
+            Template current = template;
+
+            //Threads racing here each make a board, and one is kept
+            if (current == null || !current.matches(width, height, fleet)) {
+                current = new Template(width, height, fleet);
+                template = current;
+            }
+
+            return factory.newPlayer(current.board.fork(), fleet);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * A board with a fleet on it and no shots, to be forked.
+     */
+    private static final class Template {
+
+        final int width;
+        final int height;
+        final Ship[] fleet;
+        final IndependentBoard board;
+
+        /**
+         * Creates a board with the fleet on it.
+         * <p>
+         * @param width The board width in squares
+         * @param height The board height in squares
+         * @param fleet The ships of the hidden fleet
+         */
+        Template(int width, int height, List<Ship> fleet) {
+            this.width = width;
+            this.height = height;
+            this.fleet = fleet.toArray(new Ship[0]);
+
+            board = new IndependentBoard(width, height);
+            for (Ship ship : fleet) {
+                board.addShip(ship);
+            }
+
+            board.markShared();
+        }
+
+        /**
+         * Checks if the board is for a board size and fleet.
+         * <p>
+         * Ships are told apart by identity, as they are on the board.
+         * <p>
+         * @param width The board width in squares
+         * @param height The board height in squares
+         * @param fleet The ships of the hidden fleet
+         * @return {@code true} if the board can be forked for the game
+         */
+        boolean matches(int width, int height, List<Ship> fleet) {
+            if (width != this.width || height != this.height || fleet.size() != this.fleet.length) {
+                return false;
+            }
+
+            for (int i = 0; i < this.fleet.length; i++) {
+                if (fleet.get(i) != this.fleet[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Makes the players of a strategy.
+     */
+    @FunctionalInterface
+    private interface PlayerFactory {
+
+        /**
+         * Makes a player for a new game.
+         * <p>
+         * @param board A board of its own, with the fleet on it
+         * @param fleet The ships of the hidden fleet
+         * @return The player
+         */
+        Player newPlayer(IndependentBoard board, List<Ship> fleet);
+    }
+
+    /**
+     * Plays by the data of a controller.
+     */
+    private static final class MaxCountPlayer implements Player {
+
+        /**
+         * The controller keeping the counts.
+         */
+        private final CommandCenterController controller;
+        /**
+         * The ships of the fleet.
+         */
+        private final List<Ship> fleet;
+
+        /**
+         * Creates a player on a new controller.
+         * <p>
+         * @param board The board of the controller, with the fleet on it
+         * @param fleet The ships of the hidden fleet
+         */
+        MaxCountPlayer(IndependentBoard board, List<Ship> fleet) {
+            Map<String, Ship> named = new LinkedHashMap<>();
+            for (int i = 0; i < fleet.size(); i++) {
+                named.put(Integer.toString(i), fleet.get(i));
+            }
+
+            this.fleet = fleet;
+            controller = new CommandCenterController(board, named);
+            //A game never goes back to an earlier state
+            controller.setCacheCapacity(0);
+            controller.setTargetMode(true);
+        }
+
+        @Override
+        public Square nextShot() {
+            return argmax(controller.getData(), controller.getStateData());
+        }
+
+        @Override
+        public void miss(int x, int y) {
+            controller.stateChange(x, y);
+        }
+
+        @Override
+        public void hit(int x, int y) {
+            //OPEN > MISS > HIT
+            controller.stateChanges(new int[]{x, x}, new int[]{y, y}, 2);
+        }
+
+        @Override
+        public void sunk(int ship, int rotation, int x, int y) {
+            controller.sinkShip(fleet.get(ship), rotation, x, y);
+        }
+    }
+
+    /**
+     * Plays by a score of the probabilities of a board.
+     */
+    private abstract static class BoardPlayer implements Player {
+
+        /**
+         * The board keeping the probabilities.
+         */
+        private final IndependentBoard board;
+        /**
+         * The ships of the fleet.
+         */
+        private final List<Ship> fleet;
+
+        /**
+         * Creates a player on a board.
+         * <p>
+         * @param board The board, with the fleet on it
+         * @param fleet The ships of the hidden fleet
+         */
+        BoardPlayer(IndependentBoard board, List<Ship> fleet) {
+            this.board = board;
+            this.fleet = fleet;
+        }
+
+        /**
+         * Scores a square from its probability, the highest score is shot.
+         * <p>
+         * @param probability The probability that a ship is on the square
+         * @return The score
+         */
+        abstract double score(double probability);
+
+        @Override
+        public Square nextShot() {
+            double[][] scores = new double[board.getWidth()][board.getHeight()];
+
+            for (int x = 0; x < scores.length; x++) {
+                for (int y = 0; y < scores[x].length; y++) {
+                    scores[x][y] = score(board.getProbability(x, y));
+                }
+            }
+
+            return argmax(scores, board.getStatesMatrix());
+        }
+
+        @Override
+        public void miss(int x, int y) {
+            board.stateChange(x, y, Board.SquareState.MISS);
+        }
+
+        @Override
+        public void hit(int x, int y) {
+            board.stateChange(x, y, Board.SquareState.HIT);
+        }
+
+        @Override
+        public void sunk(int ship, int rotation, int x, int y) {
+            board.sink(fleet.get(ship), rotation, x, y);
+        }
+    }
+
+    /**
+     * Hunts on a checkerboard and targets the neighbours of hits.
+     */
+    private static final class ParityPlayer implements Player {
+
+        /**
+         * The board width.
+         */
+        private final int width;
+        /**
+         * The board height.
+         */
+        private final int height;
+        /**
+         * The random number generator of the game.
+         */
+        private final Random random;
+        /**
+         * Whether each square was shot, packed as {@code x * height + y}.
+         */
+        private final boolean[] shot;
+        /**
+         * The number of squares of each ship, 0 once sunk.
+         */
+        private final int[] lengths;
+        /**
+         * The squares next to unresolved hits, still to be shot.
+         */
+        private final Deque<Integer> targets;
+        /**
+         * The number of hits not part of a sunk ship.
+         */
+        private int unresolved;
+
+        /**
+         * Creates a player.
+         * <p>
+         * @param width The board width in squares
+         * @param height The board height in squares
+         * @param fleet The ships of the hidden fleet
+         * @param random The random number generator of the game
+         */
+        ParityPlayer(int width, int height, List<Ship> fleet, Random random) {
+            this.width = width;
+            this.height = height;
+            this.random = random;
+
+            shot = new boolean[width * height];
+            lengths = new int[fleet.size()];
+            targets = new ArrayDeque<>();
+
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] = fleet.get(i).getShape().size();
+            }
+        }
+
+        @Override
+        public Square nextShot() {
+            while (!targets.isEmpty()) {
+                int square = targets.pop();
+
+                if (!shot[square]) {
+                    return new Square(square / height, square % height);
+                }
+            }
+
+            int spacing = Integer.MAX_VALUE;
+            for (int length : lengths) {
+                if (length > 0) {
+                    spacing = Math.min(spacing, length);
+                }
+            }
+
+            int[] candidates = new int[shot.length];
+            int count = 0;
+
+            for (int square = 0; square < shot.length; square++) {
+                if (!shot[square] && (square / height + square % height) % spacing == 0) {
+                    candidates[count++] = square;
+                }
+            }
+
+            //Parity squares run out when the remaining ships hide elsewhere
+            if (count == 0) {
+                for (int square = 0; square < shot.length; square++) {
+                    if (!shot[square]) {
+                        candidates[count++] = square;
+                    }
+                }
+            }
+
+            int square = candidates[random.nextInt(count)];
+
+            return new Square(square / height, square % height);
+        }
+
+        @Override
+        public void miss(int x, int y) {
+            shot[x * height + y] = true;
+        }
+
+        @Override
+        public void hit(int x, int y) {
+            shot[x * height + y] = true;
+            unresolved++;
+
+            //Pushed in reverse, so they are shot up, down, left, right
+            push(x + 1, y);
+            push(x - 1, y);
+            push(x, y + 1);
+            push(x, y - 1);
+        }
+
+        @Override
+        public void sunk(int ship, int rotation, int x, int y) {
+            unresolved -= lengths[ship];
+            lengths[ship] = 0;
+
+            if (unresolved == 0) {
+                targets.clear();
+            }
+        }
+
+        /**
+         * Adds a square to the targets if it is on the board and not shot.
+         * <p>
+         * @param x The X position
+         * @param y The Y position
+         */
+        private void push(int x, int y) {
+            if (x >= 0 && x < width && y >= 0 && y < height && !shot[x * height + y]) {
+                targets.push(x * height + y);
+            }
+        }
+    }
+
+    /**
+     * Finds the open square with the highest value.
+     * <p>
+     * @param values The value of each square
+     * @param states The state of each square
+     * @return The first open square with the highest value
+     */
+    private static Square argmax(double[][] values, Board.SquareState[][] states) {
+        Square best = null;
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int x = 0; x < values.length; x++) {
+            for (int y = 0; y < values[x].length; y++) {
+                if (states[x][y] == Board.SquareState.OPEN && (best == null || values[x][y] > max)) {
+                    best = new Square(x, y);
+                    max = values[x][y];
+                }
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.model.Ship;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A way of picking shots, that can be entered into a tournament.
+ * <p>
+ * A strategy makes a new player for each game. Games are played on many
+ * threads at once, so a strategy must be safe to call from any thread, while
+ * each player is only used by one.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Strategies
+ * @see Tournament
+ * @since v1.1.0
+ */
+public interface Strategy {
+
+    /**
+     * Gets the name of the strategy, as written to the results.
+     * <p>
+     * @return The name
+     */
+    String getName();
+
+    /**
+     * Makes a player for a new game.
+     * <p>
+     * The ships must not be changed. A player that makes random choices should
+     * only use the random number generator given, so that games can be played
+     * again from their seed.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships of the hidden fleet, non-rotated
+     * @param random The random number generator of the game
+     * @return The player
+     */
+    Player newPlayer(int width, int height, List<Ship> fleet, Random random);
+}
@@ -0,0 +1,644 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.model.BasicShip;
+import battleships.model.FleetSampler;
+import battleships.model.Ship;
+import battleships.model.ShipShape;
+import battleships.model.Square;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plays strategies against each other on the same hidden fleets.
+ * <p>
+ * Each game has a seed worked out from the seed of the tournament and the
+ * number of the game. The seed places the hidden fleet at random and seeds
+ * the random number generator of every player, so all strategies play the
+ * same fleets and any game can be played again with {@code play}.
+ * <p>
+ * Games are played on a pool of worker threads, each game playing every
+ * strategy in turn. As each strategy finishes a game, a line is written to
+ * the results as CSV:
+ * <p>
+ * <pre>
+ * game,seed,strategy,shots,nanos
+ * 0,-3071140521839745217,max-count,47,812004
+ * </pre>
+ * <p>
+ * Lines are written in the order games finish, which differs between runs on
+ * more than one thread. The shots of every game are the same on every run.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see Strategies
+ * @since v1.1.0
+ */
+public class Tournament {
+
+    /**
+     * The header line of the results.
+     */
+    public static final String CSV_HEADER = "game,seed,strategy,shots,nanos";
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+    /**
+     * The height of the board.
+     */
+    private final int height;
+    /**
+     * The ships of the hidden fleets.
+     */
+    private final List<Ship> fleet;
+    /**
+     * The shape of each ship, for each rotation.
+     */
+    private final ShipShape[][] shapes;
+    /**
+     * Draws the hidden fleets.
+     */
+    private final FleetSampler sampler;
+    /**
+     * The strategies playing.
+     */
+    private final List<Strategy> strategies;
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Creates a tournament with a worker for each processor.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships of the hidden fleets
+     * @param strategies The strategies to play
+     */
+    public Tournament(int width, int height, List<Ship> fleet, List<Strategy> strategies) {
+        this(width, height, fleet, strategies, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a tournament.
+     * <p>
+     * @param width The board width in squares
+     * @param height The board height in squares
+     * @param fleet The ships of the hidden fleets
+     * @param strategies The strategies to play
+     * @param threads The number of worker threads
+     * @throws IllegalArgumentException If the board size or number of threads
+     * is not positive, there are no ships or strategies, or two strategies
+     * have the same name, or a ship does not fit on the board
+     */
+    public Tournament(int width, int height, List<Ship> fleet, List<Strategy> strategies, int threads) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board width/height must be bigger than 0!");
+        }
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be bigger than 0!");
+        }
+
+        if (fleet.isEmpty() || strategies.isEmpty()) {
+            throw new IllegalArgumentException("Fleet and strategies must not be empty!");
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Strategy strategy : strategies) {
+            if (!names.add(strategy.getName())) {
+                throw new IllegalArgumentException("Strategy names must be unique!");
+            }
+        }
+
+        this.width = width;
+        this.height = height;
+        this.fleet = Collections.unmodifiableList(new ArrayList<>(fleet));
+        this.strategies = new ArrayList<>(strategies);
+        this.threads = threads;
+
+        sampler = new FleetSampler(width, height, fleet);
+
+        shapes = new ShipShape[fleet.size()][4];
+        for (int i = 0; i < shapes.length; i++) {
+            for (int rotation = 0; rotation < 4; rotation++) {
+                shapes[i][rotation] = fleet.get(i).getShape().rotateCWNinety(rotation);
+            }
+        }
+    }
+
+    /**
+     * Returns the seed of a game.
+     * <p>
+     * @param seed The seed of the tournament
+     * @param game The number of the game, from 0
+     * @return The seed of the game
+     */
+    public static long gameSeed(long seed, int game) {
+        //SplitMix64 finalizer, so nearby games have unrelated seeds
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a number of games with every strategy.
+     * <p>
+     * The results are written to the writer as each game finishes, after a
+     * header line. The writer is flushed but not closed.
+     * <p>
+     * @param games The number of games
+     * @param seed The seed of the tournament
+     * @param results Where the CSV results are written
+     * @return The report of shots taken by each strategy
+     * @throws IOException If the results cannot be written
+     * @throws IllegalStateException If a strategy fails or shoots a square it
+     * may not
+     */
+    public Report run(int games, long seed, Writer results) throws IOException {
+        if (games <= 0) {
+            throw new IllegalArgumentException("Games must be bigger than 0!");
+        }
+
+        results.write(CSV_HEADER + "\n");
+
+        int[][] shots = new int[strategies.size()][games];
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        //Bounds the games queued, so memory use does not depend on their number
+        Semaphore inFlight = new Semaphore(threads * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        long start = System.nanoTime();
+
+        try {
+            for (int game = 0; game < games && failure.get() == null; game++) {
+                int number = game;
+                inFlight.acquire();
+
+                pool.execute(() -> {
+                    try {
+                        playAll(number, gameSeed(seed, number), shots, results);
+                    } catch (IOException | RuntimeException | Error ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while playing tournament!", ex);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        Throwable ex = failure.get();
+        if (ex instanceof IOException) {
+            throw (IOException) ex;
+        } else if (ex != null) {
+            throw new IllegalStateException("Tournament game failed!", ex);
+        }
+
+        results.flush();
+
+        List<Result> standings = new ArrayList<>();
+        for (int i = 0; i < strategies.size(); i++) {
+            standings.add(new Result(strategies.get(i).getName(), shots[i]));
+        }
+
+        return new Report(standings, games, elapsed);
+    }
+
+    /**
+     * Plays one game with every strategy and writes the results.
+     * <p>
+     * @param game The number of the game
+     * @param gameSeed The seed of the game
+     * @param shots Where the shots of each strategy are stored
+     * @param results Where the CSV results are written
+     * @throws IOException If the results cannot be written
+     */
+    private void playAll(int game, long gameSeed, int[][] shots, Writer results) throws IOException {
+        StringBuilder lines = new StringBuilder();
+
+        for (int i = 0; i < strategies.size(); i++) {
+            Strategy strategy = strategies.get(i);
+
+            long start = System.nanoTime();
+            shots[i][game] = play(strategy, gameSeed);
+            long elapsed = System.nanoTime() - start;
+
+            lines.append(game).append(',').append(gameSeed).append(',').append(strategy.getName())
+                    .append(',').append(shots[i][game]).append(',').append(elapsed).append('\n');
+        }
+
+        synchronized (results) {
+            results.write(lines.toString());
+        }
+    }
+
+    /**
+     * Plays a single game.
+     * <p>
+     * @param strategy The strategy to play
+     * @param gameSeed The seed of the game
+     * @return The number of shots taken to sink every ship
+     * @throws IllegalStateException If the strategy shoots outside the board
+     * or a square it has shot before, or the fleet cannot be placed
+     * @see #gameSeed(long, int)
+     */
+    public int play(Strategy strategy, long gameSeed) {
+        Random random = new Random(gameSeed);
+
+        return play(strategy, placeFleet(random), random);
+    }
+
+    /**
+     * Plays a single game against a fleet placed by the caller.
+     * <p>
+     * @param strategy The strategy to play
+     * @param placements The placement of each ship in fleet order, as
+     * {@code rotation, x, y} triples
+     * @param random The random number generator of the player
+     * @return The number of shots taken to sink every ship
+     * @throws IllegalArgumentException If a ship is outside the board or two
+     * ships overlap
+     * @throws IllegalStateException If the strategy shoots outside the board
+     * or a square it has shot before
+     */
+    public int play(Strategy strategy, int[] placements, Random random) {
+        int[] occupant = new int[width * height];
+        int[] afloat = new int[shapes.length];
+        Arrays.fill(occupant, -1);
+
+        for (int ship = 0; ship < shapes.length; ship++) {
+            int rotation = placements[ship * 3];
+
+            if (rotation < 0 || rotation > 3) {
+                throw new IllegalArgumentException("Invalid fleet placement!");
+            }
+
+            ShipShape shape = shapes[ship][rotation];
+
+            for (int i = 0; i < shape.size(); i++) {
+                int x = placements[ship * 3 + 1] + shape.getX(i);
+                int y = placements[ship * 3 + 2] + shape.getY(i);
+
+                if (x < 0 || x >= width || y < 0 || y >= height || occupant[x * height + y] >= 0) {
+                    throw new IllegalArgumentException("Invalid fleet placement!");
+                }
+
+                occupant[x * height + y] = ship;
+            }
+            afloat[ship] = shape.size();
+        }
+
+        Player player = strategy.newPlayer(width, height, fleet, random);
+        boolean[] shot = new boolean[width * height];
+        int sunk = 0;
+        int shots = 0;
+
+        while (sunk < shapes.length) {
+            Square target = player.nextShot();
+
+            if (target == null || target.getX() < 0 || target.getX() >= width
+                    || target.getY() < 0 || target.getY() >= height) {
+                throw new IllegalStateException(strategy.getName() + " shot outside the board!");
+            }
+
+            int x = target.getX();
+            int y = target.getY();
+
+            if (shot[x * height + y]) {
+                throw new IllegalStateException(strategy.getName() + " shot " + target + " twice!");
+            }
+
+            shot[x * height + y] = true;
+            shots++;
+
+            int ship = occupant[x * height + y];
+            if (ship < 0) {
+                player.miss(x, y);
+            } else {
+                player.hit(x, y);
+
+                if (--afloat[ship] == 0) {
+                    player.sunk(ship, placements[ship * 3], placements[ship * 3 + 1], placements[ship * 3 + 2]);
+                    sunk++;
+                }
+            }
+        }
+
+        return shots;
+    }
+
+    /**
+     * Places every ship of the fleet at random, without overlaps.
+     * <p>
+     * Every fleet without overlaps is equally likely.
+     * <p>
+     * @param random The random number generator
+     * @return The placement of each ship in fleet order, as
+     * {@code rotation, x, y} triples
+     * @see FleetSampler
+     */
+    int[] placeFleet(Random random) {
+        int[] placements = new int[shapes.length * 3];
+        sampler.sample(random, placements);
+
+        return placements;
+    }
+
+    /**
+     * Plays the built in strategies on standard games.
+     * <p>
+     * Usage: {@code Tournament [games] [seed] [results file] [threads]}
+     * <p>
+     * The fleet is the standard fleet of {@code CommandCenterController}. The
+     * results are only written if a file is given.
+     * <p>
+     * @param args the command line arguments
+     * @throws IOException If the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        List<Ship> fleet = new ArrayList<>();
+        for (int size : new int[]{5, 4, 3, 3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+
+        Tournament tournament = new Tournament(10, 10, fleet, Strategies.all(), threads);
+
+        Report report;
+        if (args.length > 2) {
+            try (Writer results = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+                report = tournament.run(games, seed, results);
+            }
+        } else {
+            report = tournament.run(games, seed, Writer.nullWriter());
+        }
+
+        System.out.print(report);
+    }
+
+    /**
+     * The shots taken by one strategy over a tournament.
+     */
+    public static final class Result {
+
+        /**
+         * The z-score of a two sided 95% confidence interval.
+         */
+        private static final double Z_95 = 1.959964;
+
+        /**
+         * The name of the strategy.
+         */
+        private final String name;
+        /**
+         * The shots taken in each game, sorted.
+         */
+        private final int[] sorted;
+        /**
+         * The mean number of shots.
+         */
+        private final double mean;
+        /**
+         * The sample standard deviation of the number of shots.
+         */
+        private final double deviation;
+
+        /**
+         * Setter constructor.
+         * <p>
+         * @param name The name of the strategy
+         * @param shots The shots taken in each game
+         */
+        Result(String name, int[] shots) {
+            this.name = name;
+            sorted = shots.clone();
+            Arrays.sort(sorted);
+
+            double sum = 0;
+            for (int value : sorted) {
+                sum += value;
+            }
+            mean = sum / sorted.length;
+
+            double squares = 0;
+            for (int value : sorted) {
+                squares += (value - mean) * (value - mean);
+            }
+            deviation = sorted.length > 1 ? Math.sqrt(squares / (sorted.length - 1)) : 0;
+        }
+
+        /**
+         * Gets the name of the strategy.
+         * <p>
+         * @return The name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of games played.
+         * <p>
+         * @return The number of games
+         */
+        public int getGames() {
+            return sorted.length;
+        }
+
+        /**
+         * Gets the mean number of shots taken to win.
+         * <p>
+         * @return The mean
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Gets the sample standard deviation of the shots taken to win.
+         * <p>
+         * @return The standard deviation
+         */
+        public double getStandardDeviation() {
+            return deviation;
+        }
+
+        /**
+         * Gets the half width of the 95% confidence interval of the mean.
+         * <p>
+         * The interval is the normal approximation,
+         * {@code mean +/- 1.96 * deviation / sqrt(games)}.
+         * <p>
+         * @return The half width
+         */
+        public double getConfidence95() {
+            return Z_95 * deviation / Math.sqrt(sorted.length);
+        }
+
+        /**
+         * Gets a percentile of the shots taken to win, by nearest rank.
+         * <p>
+         * @param percent The percentile, from 0 to 100
+         * @return The smallest number of shots at least that percent of games
+         * were won in
+         * @throws IllegalArgumentException If the percentile is out of range
+         */
+        public int getPercentile(double percent) {
+            if (percent < 0 || percent > 100) {
+                throw new IllegalArgumentException("Percentile must be from 0 to 100!");
+            }
+
+            int rank = (int) Math.ceil(percent / 100 * sorted.length);
+
+            return sorted[Math.max(rank - 1, 0)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %8.2f +/- %5.2f %6d %6d %6d %6d %6d", name, mean, getConfidence95(),
+                    sorted[0], getPercentile(50), getPercentile(90), getPercentile(99), sorted[sorted.length - 1]);
+        }
+    }
+
+    /**
+     * The results of a tournament.
+     */
+    public static final class Report {
+
+        /**
+         * The result of each strategy.
+         */
+        private final List<Result> results;
+        /**
+         * The number of games each strategy played.
+         */
+        private final int games;
+        /**
+         * The time taken to play the tournament.
+         */
+        private final long elapsedNanos;
+
+        /**
+         * Setter constructor.
+         * <p>
+         * @param results The result of each strategy
+         * @param games The number of games each strategy played
+         * @param elapsedNanos The time taken
+         */
+        Report(List<Result> results, int games, long elapsedNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.games = games;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the result of each strategy.
+         * <p>
+         * @return The results, in the order the strategies were given
+         */
+        public List<Result> getResults() {
+            return results;
+        }
+
+        /**
+         * Gets the result of a strategy.
+         * <p>
+         * @param name The name of the strategy
+         * @return The result, or null if no strategy has the name
+         */
+        public Result getResult(String name) {
+            for (Result result : results) {
+                if (result.getName().equals(name)) {
+                    return result;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets the number of games each strategy played.
+         * <p>
+         * @return The number of games
+         */
+        public int getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the time taken to play the tournament.
+         * <p>
+         * @return The time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Gets the number of games played per second, counting a game once
+         * for each strategy.
+         * <p>
+         * @return The games per second
+         */
+        public double getGamesPerSecond() {
+            return elapsedNanos > 0 ? (double) games * results.size() * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%-12s %18s %6s %6s %6s %6s %6s%n",
+                    "strategy", "mean +/- 95% CI", "min", "p50", "p90", "p99", "max"));
+
+            for (Result result : results) {
+                text.append(result).append(String.format("%n"));
+            }
+
+            text.append(String.format("%d games per strategy in %.1f s (%.1f games/s)%n",
+                    games, elapsedNanos / 1e9, getGamesPerSecond()));
+
+            return text.toString();
+        }
+    }
+}
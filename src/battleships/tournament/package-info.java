@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+
+/**
+ * Headless games between targeting strategies.
+ * <p>
+ * Classes in this package play strategies against hidden fleets placed from
+ * a seed, so that strategies can be compared on the same games and any game
+ * can be played again.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+package battleships.tournament;
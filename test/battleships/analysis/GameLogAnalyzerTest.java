@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.analysis;
+
+import battleships.model.BasicShip;
+import battleships.model.PlacementPrior;
+import battleships.model.Ship;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code GameLogAnalyzer}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class GameLogAnalyzerTest {
+
+    GameLogAnalyzer analyzer;
+
+    @Before
+    public void setUp() throws Exception {
+        // x x x
+        Ship ship1 = new BasicShip();
+        ship1.addSquare(0, 0);
+        ship1.addSquare(0, 1);
+        ship1.addSquare(0, 2);
+
+        // x
+        Ship ship2 = new BasicShip();
+        ship2.addSquare(0, 0);
+
+        //Tiny chunks so that several workers take part
+        analyzer = new GameLogAnalyzer(4, 4, Arrays.asList(ship1, ship2), 3, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        analyzer = null;
+    }
+
+    @Test
+    public void testAnalyze() throws Exception {
+        String log = "# comment\n"
+                + "0,0,0 0,3,3\n"
+                + "\n"
+                + "0,0,0 2,1,1\n"
+                + "1,1,3\t0,0,0\n"
+                + "3,1,1 1,2,2\n";
+
+        GameLogAnalyzer.Report report = analyzer.analyze(new StringReader(log));
+        PlacementPrior prior = report.getPrior();
+
+        assertEquals(4, report.getRecords());
+        assertEquals(0, report.getRejected());
+        assertEquals(2, prior.getCount(0, 0, 0, 0));
+        assertEquals(1, prior.getCount(0, 1, 1, 3));
+        assertEquals(1, prior.getCount(0, 3, 1, 1));
+        assertEquals(1, prior.getCount(1, 2, 1, 1));
+        assertEquals(0, prior.getCount(1, 0, 1, 1));
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        String log = "0,0,0\n" //Missing ship
+                + "0,0,0 0,0,0 0,0,0\n" //Extra ship
+                + "0,0,2 0,0,0\n" //Out of board
+                + "4,0,0 0,0,0\n" //Bad rotation
+                + "0,0,x 0,0,0\n" //Not a number
+                + "0,\u0661,0 0,0,0\n" //Arabic-Indic digit
+                + "0,0,\uff10 0,0,0\n" //Fullwidth digit
+                + "0,\uff19\uff19\uff19\uff19\uff19\uff19\uff19\uff19\uff19,0 0,0,0\n" //Would overflow
+                + "0,0,0 0,0,0\n";
+
+        GameLogAnalyzer.Report report = analyzer.analyze(new StringReader(log));
+
+        assertEquals(1, report.getRecords());
+        assertEquals(8, report.getRejected());
+    }
+
+    @Test
+    public void testPriorRoundTrip() throws Exception {
+        PlacementPrior prior = analyzer.analyze(new StringReader("1,1,3 0,3,3\n1,1,3 0,2,0\n")).getPrior();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        prior.write(out);
+        PlacementPrior read = PlacementPrior.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(2, read.getRecords());
+        assertEquals(4, read.getWidth());
+        assertEquals(2, read.getNumShips());
+        assertEquals(2, read.getCount(0, 1, 1, 3));
+        assertEquals(1, read.getCount(1, 0, 2, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativePriorSize() throws Exception {
+        readPrior(-4, 4, 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativePriorShips() throws Exception {
+        readPrior(4, 4, -1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverflowingPrior() throws Exception {
+        readPrior(0x10000, 0x10000, 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void testHugePrior() throws Exception {
+        readPrior(1000, 1000, 1000);
+    }
+
+    /**
+     * Reads a prior file of a 4x4 board with 2 ships, with the board and
+     * fleet size in its header replaced.
+     */
+    private static PlacementPrior readPrior(int width, int height, int numShips) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PlacementPrior(4, 4, 2).write(out);
+        byte[] bytes = out.toByteArray();
+
+        //The sizes follow the magic number and version
+        ByteBuffer.wrap(bytes, 8, 12).putInt(width).putInt(height).putInt(numShips);
+
+        return PlacementPrior.read(new ByteArrayInputStream(bytes));
+    }
+}
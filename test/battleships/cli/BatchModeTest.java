@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.cli;
+
+import battleships.controller.CommandCenterController;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code BatchMode}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class BatchModeTest {
+
+    BatchMode batch;
+
+    @Before
+    public void setUp() throws Exception {
+        batch = new BatchMode();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        batch = null;
+    }
+
+    /**
+     * Runs commands through the batch.
+     * <p>
+     * @param commands The commands, one per line
+     * @return The output
+     */
+    private String run(String commands) throws Exception {
+        StringWriter out = new StringWriter();
+        batch.run(new StringReader(commands), out);
+
+        return out.toString();
+    }
+
+    @Test
+    public void testHeatmap() throws Exception {
+        CommandCenterController controller = new CommandCenterController();
+        controller.stateChange(3, 4);
+        controller.stateChange(5, 5);
+        controller.stateChange(5, 5);
+
+        StringBuilder expected = new StringBuilder("a heatmap 10 10");
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                boolean open = controller.getStateData()[x][y] == battleships.model.Board.SquareState.OPEN;
+                expected.append(' ').append(open ? controller.getSqaureVal(x, y) : 0);
+            }
+        }
+
+        String output = run("# two games at once\n"
+                + "a new\n"
+                + "b new\n"
+                + "\n"
+                + "a miss 3 4\n"
+                + "b miss 0 0\n"
+                + "a hit 5 5\n"
+                + "a heatmap\n");
+
+        assertEquals(expected + "\n", output);
+        assertEquals(2, batch.getGames());
+        assertEquals(6, batch.getCommands());
+    }
+
+    @Test
+    public void testBest() throws Exception {
+        //The centre squares have the most placements on an open board
+        assertEquals("a best 4 4 68\n", run("a new\na best\n"));
+
+        StringBuilder misses = new StringBuilder("c new 3 3\n");
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                misses.append("c miss ").append(x).append(' ').append(y).append('\n');
+            }
+        }
+        misses.append("c best\n");
+
+        assertEquals("c best none\n", run(misses.toString()));
+    }
+
+    @Test
+    public void testSinkRaise() throws Exception {
+        String output = run("a new\n"
+                + "a hit 0 0\na hit 0 1\na hit 0 2\na hit 0 3\na hit 0 4\n"
+                + "a sink 0 0 0 0\n"
+                + "a hit 0 0\n"
+                + "a raise 0\n"
+                + "a open 0 0\n"
+                + "a sink 0 0 0 0\n"
+                + "a raise 0\n");
+
+        assertEquals("a error Square is sunk!\n"
+                + "a error Ship cannot be sunk there!\n"
+                + "a error No such sunken ship!\n", output);
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        String output = run("a best\n"
+                + "a new\n"
+                + "a new\n"
+                + "b new 100000 100000\n"
+                + "b new 0 5\n"
+                + "b new 40000 1\n"
+                + "a\n"
+                + "a fire 1 1\n"
+                + "a miss 1\n"
+                + "a miss x 1\n"
+                + "a miss 10 0\n"
+                + "a sink 5 0 0 0\n"
+                + "a target maybe\n"
+                + "a end\n"
+                + "a best\n");
+
+        assertEquals("a error No such game!\n"
+                + "a error Game already in play!\n"
+                + "b error Board must not have more than 65536 squares!\n"
+                + "b error Board width/height must be bigger than 0!\n"
+                + "b error Board width/height must not be bigger than 32767!\n"
+                + "a error Missing command!\n"
+                + "a error Unknown command!\n"
+                + "a error Malformed command!\n"
+                + "a error Malformed command!\n"
+                + "a error Square out of board!\n"
+                + "a error No such ship!\n"
+                + "a error Target mode must be on or off!\n"
+                + "a error No such game!\n", output);
+        assertEquals(0, batch.getGames());
+    }
+
+    @Test
+    public void testTargetMode() throws Exception {
+        //Only squares next to the hit are targeted
+        String output = run("a new\na hit 0 0\na target on\na heatmap\n");
+        String[] values = output.trim().split(" ");
+
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                long value = Long.parseLong(values[4 + x * 10 + y]);
+                boolean near = (x == 0 && y < 5 || y == 0 && x < 5) && !(x == 0 && y == 0);
+
+                assertEquals(near, value > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import battleships.model.BasicShip;
+import battleships.model.Board;
+import battleships.model.IndependentBoard;
+import battleships.model.Ship;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code CommandCenterController}.
+ * <p>
+ * Results are checked against a separate board with the same fleet, with the
+ * heatmap computed from the full ship matrix.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class CommandCenterControllerTest {
+
+    private static final double DELTA = 0.000000001;
+
+    CommandCenterController controller;
+    //Board mirroring the controller's
+    Board reference;
+
+    @Before
+    public void setUp() throws Exception {
+        controller = new CommandCenterController();
+        reference = new IndependentBoard(10, 10);
+
+        for (int size : new int[]{5, 4, 3, 3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            reference.addShip(ship);
+        }
+    }
+
+    @Test
+    public void testInitialData() throws Exception {
+        assertResults();
+    }
+
+    @Test
+    public void testStateChanges() throws Exception {
+        Random random = new Random(34);
+
+        for (int i = 0; i < 300; i++) {
+            int x = random.nextInt(10);
+            int y = random.nextInt(10);
+
+            controller.stateChange(x, y);
+            cycle(x, y);
+
+            assertResults();
+        }
+    }
+
+    @Test
+    public void testSinkRaise() throws Exception {
+        Ship destroyer = controller.getShip("Destroyer");
+
+        for (int y = 0; y < 2; y++) {
+            controller.stateChange(4, y);
+            controller.stateChange(4, y);
+            cycle(4, y);
+            cycle(4, y);
+        }
+
+        assertTrue(controller.sinkShip(destroyer, 0, 4, 0));
+        reference.sink(reference.getShips().toArray(new Ship[0])[4], 0, 4, 0);
+        assertResults();
+
+        controller.raiseShip(destroyer);
+        reference.raise(reference.getShips().toArray(new Ship[0])[4]);
+        assertResults();
+    }
+
+    @Test
+    public void testLogScale() throws Exception {
+        controller.stateChange(3, 3);
+        cycle(3, 3);
+        controller.setLogScale(true);
+
+        double max = maxLogJointCount();
+
+        assertEquals(Math.round(max), controller.getMax());
+        assertEquals(reference.getLogJointCount(5, 5) / max, controller.getData()[5][5], DELTA);
+        assertEquals(0, controller.getData()[3][3], DELTA);
+
+        //Every square changes with a state change
+        controller.stateChange(5, 6);
+        cycle(5, 6);
+        assertEquals(reference.getLogJointCount(0, 0) / maxLogJointCount(), controller.getData()[0][0], DELTA);
+
+        controller.setLogScale(false);
+        assertResults();
+    }
+
+    @Test
+    public void testTargetMode() throws Exception {
+        controller.setTargetMode(true);
+        assertResults();
+
+        //OPEN > MISS > HIT
+        controller.stateChange(4, 4);
+        controller.stateChange(4, 4);
+        reference.stateChange(4, 4, Board.SquareState.HIT);
+
+        long max = 0;
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                if (reference.getState(i, j) == Board.SquareState.OPEN) {
+                    max = Math.max(max, reference.getTargetCount(i, j));
+                }
+            }
+        }
+
+        assertEquals(max, controller.getMax());
+        assertEquals((double) reference.getTargetCount(4, 5) / max, controller.getData()[4][5], DELTA);
+        assertEquals(0, controller.getData()[0][0], DELTA);
+
+        //Back to placement counts once the hit is cleared
+        controller.stateChange(4, 4);
+        reference.stateChange(4, 4, Board.SquareState.OPEN);
+        assertResults();
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        controller.setCacheCapacity(256);
+        controller.getData();
+        CacheStats before = controller.getCacheStats();
+
+        //OPEN > MISS > HIT > OPEN comes back to the first state, which is kept
+        for (int i = 0; i < 3; i++) {
+            controller.stateChange(2, 2);
+        }
+
+        CacheStats after = controller.getCacheStats();
+        assertEquals(before.getHits(), after.getHits());
+        assertEquals(before.getMisses() + 3, after.getMisses());
+        assertEquals(1, after.getSize());
+
+        //Every state of the square has now been seen before
+        for (int i = 0; i < 3; i++) {
+            controller.stateChange(2, 2);
+        }
+
+        after = controller.getCacheStats();
+        assertEquals(before.getHits() + 1, after.getHits());
+        assertEquals(3, after.getSize());
+        assertResults();
+
+        //Results handed out are copies of the cached ones
+        controller.getData()[0][0] = -1;
+        controller.stateChange(2, 2);
+        cycle(2, 2);
+        controller.stateChange(2, 2);
+        controller.stateChange(2, 2);
+        controller.stateChange(2, 2);
+        assertResults();
+
+        controller.setCacheCapacity(1);
+        assertEquals(1, controller.getCacheStats().getSize());
+
+        controller.setCacheCapacity(0);
+        long hits = controller.getCacheStats().getHits();
+        for (int i = 0; i < 3; i++) {
+            controller.stateChange(2, 2);
+        }
+        assertEquals(hits, controller.getCacheStats().getHits());
+        assertEquals(0, controller.getCacheStats().getSize());
+        assertResults();
+    }
+
+    @Test
+    public void testCacheOptIn() throws Exception {
+        assertEquals(0, controller.getCacheStats().getCapacity());
+
+        CommandCenterController large = new CommandCenterController(40, 40, destroyerFleet());
+        large.setCacheCapacity(256);
+        large.getData();
+
+        //States seen once cost no copies
+        for (int x = 0; x < 40; x++) {
+            large.stateChange(x, x);
+            large.getData();
+        }
+        assertEquals(0, large.getCacheStats().getSize());
+        assertEquals(41, large.getCacheStats().getMisses());
+    }
+
+    /**
+     * Makes a fleet of a single destroyer.
+     */
+    private static Map<String, Ship> destroyerFleet() {
+        Map<String, Ship> fleet = new LinkedHashMap<>();
+        Ship ship = new BasicShip();
+        ship.addSquare(0, 0);
+        ship.addSquare(0, 1);
+        fleet.put("Destroyer", ship);
+
+        return fleet;
+    }
+
+    /**
+     * Finds the largest log joint count of the open squares of the reference
+     * board.
+     */
+    private double maxLogJointCount() {
+        double max = 0;
+
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                if (reference.getState(i, j) == Board.SquareState.OPEN) {
+                    max = Math.max(max, reference.getLogJointCount(i, j));
+                }
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Cycles a square of the reference board like the controller does.
+     */
+    private void cycle(int x, int y) {
+        switch (reference.getState(x, y)) {
+            case OPEN:
+                reference.stateChange(x, y, Board.SquareState.MISS);
+                break;
+            case MISS:
+                reference.stateChange(x, y, Board.SquareState.HIT);
+                break;
+            case HIT:
+                reference.stateChange(x, y, Board.SquareState.OPEN);
+                break;
+        }
+    }
+
+    /**
+     * Checks the controller's results against the reference board.
+     */
+    private void assertResults() {
+        Integer[][] raw = reference.getShipsMatrix();
+        Board.SquareState[][] states = reference.getStatesMatrix();
+
+        int max = 0;
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                if (states[i][j] == Board.SquareState.OPEN) {
+                    max = Math.max(max, raw[i][j]);
+                }
+            }
+        }
+
+        assertEquals(max, controller.getMax());
+        assertArrayEquals(states, controller.getStateData());
+
+        double[][] data = controller.getData();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                double expected = max == 0 || states[i][j] != Board.SquareState.OPEN ? 0 : (double) raw[i][j] / max;
+                assertEquals(expected, data[i][j], DELTA);
+            }
+        }
+    }
+}
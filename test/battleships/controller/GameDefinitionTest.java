@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import battleships.model.BasicShip;
+import battleships.model.PlacementStorage;
+import battleships.model.Ship;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test class for {@code GameDefinition}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class GameDefinitionTest {
+
+    private static final String DEFINITION = "# A small game\n"
+            + "board 8 6\n"
+            + "\n"
+            + "storage off-heap\n"
+            + "ship Frigate = 0,0 0,1 0,2\n"
+            + "  ship  Corner boat =1,0   0,0 0,1  \n";
+
+    @Test
+    public void testRead() throws Exception {
+        GameDefinition definition = GameDefinition.parse(DEFINITION);
+
+        assertEquals(8, definition.getWidth());
+        assertEquals(6, definition.getHeight());
+        assertEquals(PlacementStorage.OFF_HEAP, definition.getStorage());
+        assertEquals(Arrays.asList("Frigate", "Corner boat"), Arrays.asList(definition.getFleet().keySet().toArray()));
+        assertEquals(3, definition.getFleet().get("Corner boat").numSquares());
+
+        assertEquals("board 8 6\n"
+                + "storage off-heap\n"
+                + "ship Frigate = 0,0 0,1 0,2\n"
+                + "ship Corner boat = 0,0 0,1 1,0\n", definition.toString());
+
+        //The same settings are the same definition
+        assertSame(definition, GameDefinition.parse(definition.toString()));
+    }
+
+    @Test
+    public void testDefaults() {
+        GameDefinition definition = GameDefinition.parse("ship Dinghy = 0,0\n");
+
+        assertEquals(10, definition.getWidth());
+        assertEquals(10, definition.getHeight());
+        assertEquals(PlacementStorage.HEAP, definition.getStorage());
+    }
+
+    @Test
+    public void testStandard() {
+        CommandCenterController controller = new CommandCenterController();
+
+        assertEquals(GameDefinition.standard().getFleet().keySet(), controller.getShipNames());
+        assertEquals(10, controller.getBoardWidth());
+        assertEquals(10, controller.getBoardHeight());
+    }
+
+    @Test
+    public void testSharedTables() {
+        Map<String, Ship> fleet = new LinkedHashMap<>();
+        for (int size : new int[]{4, 3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.put("Ship " + size, ship);
+        }
+
+        GameDefinition definition = new GameDefinition(7, 9, fleet, PlacementStorage.HEAP);
+        //Ships are copied
+        fleet.get("Ship 4").addSquare(0, 4);
+
+        CommandCenterController first = new CommandCenterController(definition);
+        CommandCenterController second = new CommandCenterController(definition);
+        CommandCenterController reference = new CommandCenterController(7, 9, definition.getFleet());
+        CommandCenterController open = new CommandCenterController(7, 9, definition.getFleet());
+
+        first.stateChange(3, 3);
+        first.sinkShip(first.getShip("Ship 2"), 0, 5, 5);
+        reference.stateChange(3, 3);
+        reference.sinkShip(reference.getShip("Ship 2"), 0, 5, 5);
+
+        assertNotSame(fleet.get("Ship 4"), first.getShip("Ship 4"));
+        assertEquals(4, first.getShip("Ship 4").numSquares());
+
+        for (int x = 0; x < 7; x++) {
+            for (int y = 0; y < 9; y++) {
+                assertEquals(reference.getSqaureVal(x, y), first.getSqaureVal(x, y));
+                assertEquals(open.getSqaureVal(x, y), second.getSqaureVal(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testClose() {
+        GameDefinition definition = GameDefinition.parse("board 4 4\nstorage off-heap\nship Raft = 0,0 0,1\n");
+        assertEquals(8, definition.newBoard().getShipCount(1, 1));
+
+        definition.close();
+        definition.close();
+        assertTrue(definition.isClosed());
+
+        //A closed definition is read afresh
+        GameDefinition again = GameDefinition.parse(definition.toString());
+        assertNotSame(definition, again);
+        assertFalse(again.isClosed());
+        again.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedBoard() {
+        GameDefinition definition = new GameDefinition(4, 4, GameDefinition.standard().getFleet(),
+                PlacementStorage.HEAP);
+        definition.close();
+
+        definition.newBoard();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCloseStandard() {
+        GameDefinition.standard().close();
+    }
+
+    @Test
+    public void testReadBound() {
+        GameDefinition first = GameDefinition.parse("board 3 3\nship Raft = 0,0\n");
+
+        for (int i = 0; i < GameDefinition.MAX_READ; i++) {
+            GameDefinition.parse("board 3 " + (4 + i) + "\nship Raft = 0,0\n");
+        }
+
+        //Only the most recent definitions are remembered
+        assertNotSame(first, GameDefinition.parse("board 3 3\nship Raft = 0,0\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSetting() {
+        GameDefinition.parse("board 10 10\nfleet standard\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedSquare() {
+        GameDefinition.parse("ship Raft = 0;0\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownStorage() {
+        GameDefinition.parse("storage disk\nship Raft = 0,0\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateShip() {
+        GameDefinition.parse("ship Raft = 0,0\nship Raft = 0,0 0,1\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoShips() {
+        GameDefinition.parse("board 5 5\n");
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Test class for {@code MaxTree}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class MaxTreeTest {
+
+    @Test
+    public void testSingleValue() throws Exception {
+        MaxTree tree = new MaxTree(1);
+
+        assertEquals(0, tree.max(), 0);
+
+        tree.set(0, 3);
+        assertEquals(3, tree.max(), 0);
+    }
+
+    @Test
+    public void testRandomUpdates() throws Exception {
+        Random random = new Random(7);
+
+        //Not a power of 2
+        double[] values = new double[37];
+        MaxTree tree = new MaxTree(values.length);
+
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(values.length);
+            values[index] = random.nextInt(50);
+            tree.set(index, values[index]);
+
+            double max = 0;
+            for (double value : values) {
+                max = Math.max(max, value);
+            }
+
+            assertEquals(max, tree.max(), 0);
+            assertEquals(values[index], tree.get(index), 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() throws Exception {
+        new MaxTree(0);
+    }
+}
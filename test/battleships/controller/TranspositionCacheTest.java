@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test class for {@code TranspositionCache}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class TranspositionCacheTest {
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        TranspositionCache<String> cache = new TranspositionCache<>(4);
+
+        assertNull(cache.get(1));
+        cache.put(1, "one");
+        assertEquals("one", cache.get(1));
+        assertEquals("one", cache.get(1));
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2.0 / 3, stats.getHitRate(), 0.000001);
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        TranspositionCache<String> cache = new TranspositionCache<>(2);
+
+        cache.put(1, "one");
+        cache.put(2, "two");
+        //1 is now more recently used than 2
+        cache.get(1);
+        cache.put(3, "three");
+
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("three", cache.get(3));
+        assertEquals(1, cache.stats().getEvictions());
+
+        cache.setCapacity(1);
+        assertEquals(1, cache.stats().getSize());
+        assertEquals("three", cache.get(3));
+        assertEquals(2, cache.stats().getEvictions());
+    }
+
+    @Test
+    public void testSeenBefore() throws Exception {
+        TranspositionCache<String> cache = new TranspositionCache<>(1);
+
+        assertFalse(cache.seenBefore(1));
+        assertTrue(cache.seenBefore(1));
+
+        //Four hashes are remembered for each entry
+        for (long hash = 2; hash <= 5; hash++) {
+            assertFalse(cache.seenBefore(hash));
+        }
+        assertFalse(cache.seenBefore(1));
+
+        cache.clear();
+        assertFalse(cache.seenBefore(5));
+        cache.setCapacity(0);
+        assertFalse(cache.seenBefore(5));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        TranspositionCache<String> cache = new TranspositionCache<>(0);
+        assertFalse(cache.isEnabled());
+
+        cache.put(1, "one");
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().getSize());
+        assertEquals(0, cache.stats().getMisses());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        TranspositionCache<String> cache = new TranspositionCache<>(2);
+
+        cache.put(1, "one");
+        cache.get(1);
+        cache.clear();
+
+        assertNull(cache.get(1));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCapacity() throws Exception {
+        new TranspositionCache<String>(-1);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import battleships.model.BasicShip;
+import battleships.model.Board;
+import battleships.model.IndependentBoard;
+import battleships.model.Ship;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+/**
+ * Test class for the Flight Recorder events of {@code IndependentBoard}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class BoardEventTest {
+
+    @Test
+    public void testBoardEvents() throws Exception {
+        Path dump = Files.createTempFile("board-events", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(BoardCreatedEvent.class);
+            recording.enable(ShipAddedEvent.class);
+            recording.enable(StateChangeEvent.class);
+            recording.enable(SinkEvent.class);
+            recording.start();
+
+            Board board = new IndependentBoard(4, 3);
+
+            // x x
+            Ship ship = new BasicShip();
+            ship.addSquare(0, 0);
+            ship.addSquare(0, 1);
+            board.addShip(ship);
+
+            board.stateChange(0, 0, Board.SquareState.MISS);
+            board.sink(ship, 0, 1, 1);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                    .filter((RecordedEvent e) -> e.getEventType().getName().startsWith("battleships."))
+                    .collect(Collectors.toList());
+
+            assertEquals(4, events.size());
+
+            RecordedEvent stateChange = events.stream()
+                    .filter((RecordedEvent e) -> e.getEventType().getName().equals("battleships.StateChange"))
+                    .findFirst()
+                    .get();
+
+            assertEquals(4, stateChange.getInt("width"));
+            assertEquals(3, stateChange.getInt("height"));
+            assertEquals(1, stateChange.getInt("ships"));
+            assertEquals("MISS", stateChange.getString("state"));
+            //Vertical and horizontal configs at the corner, both directions
+            assertEquals(4, stateChange.getLong("configs"));
+
+            RecordedEvent sink = events.stream()
+                    .filter((RecordedEvent e) -> e.getEventType().getName().equals("battleships.Sink"))
+                    .findFirst()
+                    .get();
+
+            assertFalse(sink.getBoolean("sunk"));
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.metrics;
+
+import battleships.model.BasicShip;
+import battleships.model.Board;
+import battleships.model.IndependentBoard;
+import battleships.model.Ship;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code EngineMetrics}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class EngineMetricsTest {
+
+    Board board;
+
+    @Before
+    public void setUp() throws Exception {
+        EngineMetrics.reset();
+        EngineMetrics.setEnabled(true);
+
+        board = new IndependentBoard(3, 3);
+
+        // x x
+        Ship ship = new BasicShip();
+        ship.addSquare(0, 0);
+        ship.addSquare(0, 1);
+        board.addShip(ship);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        EngineMetrics.setEnabled(false);
+        EngineMetrics.setAllocationTracked(false);
+        EngineMetrics.reset();
+        board = null;
+    }
+
+    @Test
+    public void testGenMap() throws Exception {
+        OperationSnapshot genMap = EngineMetrics.snapshot(EngineMetrics.Operation.GEN_MAP);
+
+        assertEquals(1, genMap.getCalls());
+        //6 vertical and 6 horizontal, twice for the 180 degree rotations
+        assertEquals(24, genMap.getConfigsTouched());
+        assertEquals(48, genMap.getCounterWrites());
+    }
+
+    @Test
+    public void testStateChange() throws Exception {
+        board.stateChange(1, 1, Board.SquareState.MISS);
+        board.stateChange(1, 1, Board.SquareState.OPEN);
+
+        OperationSnapshot disable = EngineMetrics.snapshot(EngineMetrics.Operation.DISABLE);
+        OperationSnapshot enable = EngineMetrics.snapshot(EngineMetrics.Operation.ENABLE);
+
+        assertEquals(1, disable.getCalls());
+        assertEquals(8, disable.getConfigsTouched());
+        assertEquals(16, disable.getCounterWrites());
+        assertEquals(1, enable.getCalls());
+        assertEquals(16, enable.getCounterWrites());
+
+        long histogramCalls = 0;
+        for (long bucket : enable.getLatencyHistogram()) {
+            histogramCalls += bucket;
+        }
+        assertEquals(1, histogramCalls);
+        assertTrue(enable.getP99Nanos() <= enable.getMaxNanos());
+    }
+
+    @Test
+    public void testAllocationUntracked() throws Exception {
+        assertFalse(EngineMetrics.isAllocationTracked());
+        assertEquals(0, EngineMetrics.allocatedBytes());
+
+        board.stateChange(1, 1, Board.SquareState.MISS);
+
+        assertEquals(1, EngineMetrics.snapshot(EngineMetrics.Operation.DISABLE).getCalls());
+        assertEquals(0, EngineMetrics.snapshot(EngineMetrics.Operation.DISABLE).getAllocatedBytes());
+
+        //Calls started before tracking was turned on record nothing
+        EngineMetrics.setAllocationTracked(true);
+        EngineMetrics.record(EngineMetrics.Operation.RAISE, System.nanoTime(), 0, 0, 0);
+        assertEquals(0, EngineMetrics.snapshot(EngineMetrics.Operation.RAISE).getAllocatedBytes());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    EngineMetrics.record(EngineMetrics.Operation.SINK, System.nanoTime(), 0, 1, 0);
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        OperationSnapshot sink = EngineMetrics.snapshot(EngineMetrics.Operation.SINK);
+        long histogramCalls = 0;
+        for (long bucket : sink.getLatencyHistogram()) {
+            histogramCalls += bucket;
+        }
+
+        assertEquals(40000, sink.getCalls());
+        assertEquals(40000, histogramCalls);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        EngineMetrics.setEnabled(false);
+
+        board.stateChange(1, 1, Board.SquareState.MISS);
+
+        assertEquals(0, EngineMetrics.snapshot(EngineMetrics.Operation.DISABLE).getCalls());
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        EngineMetrics.registerMBean();
+        EngineMetrics.registerMBean();
+
+        Object operations = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(EngineMetrics.OBJECT_NAME), "Operations");
+
+        assertEquals(EngineMetrics.Operation.values().length, ((Object[]) operations).length);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test class for {@code FleetSampler}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class FleetSamplerTest {
+
+    /**
+     * Makes a straight ship.
+     * <p>
+     * @param length The number of squares
+     * @return The ship
+     */
+    private static Ship line(int length) {
+        Ship ship = new BasicShip();
+
+        for (int j = 0; j < length; j++) {
+            ship.addSquare(0, j);
+        }
+
+        return ship;
+    }
+
+    @Test
+    public void testUniform() {
+        // x x  and  x  on a 2x2 board
+        FleetSampler sampler = new FleetSampler(2, 2, Arrays.asList(line(2), line(1)));
+
+        assertEquals(8, sampler.getPlacementCount(0));
+        assertEquals(16, sampler.getPlacementCount(1));
+
+        Map<String, Integer> counts = new HashMap<>();
+        int[] placements = new int[6];
+        Random random = new Random(47);
+
+        for (int i = 0; i < 64000; i++) {
+            sampler.sample(random, placements);
+            counts.merge(Arrays.toString(placements), 1, Integer::sum);
+        }
+
+        //8 line placements, each leaving 2 squares for 4 rotations of the dot
+        assertEquals(64, counts.size());
+
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - 1000) < 200);
+        }
+    }
+
+    @Test
+    public void testWeighted() {
+        FleetSampler sampler = new FleetSampler(2, 1, Arrays.asList(line(1)),
+                Arrays.asList((PlacementWeight) (rotation, x, y) -> rotation == 0 ? (x == 0 ? 3 : 1) : 0));
+
+        int[] placements = new int[3];
+        Random random = new Random(47);
+        int left = 0;
+
+        for (int i = 0; i < 100000; i++) {
+            sampler.sample(random, placements);
+
+            assertEquals(0, placements[0]);
+            left += placements[1] == 0 ? 1 : 0;
+        }
+
+        assertEquals(0.75, left / 100000.0, 0.01);
+    }
+
+    @Test
+    public void testSinkable() {
+        List<Ship> fleet = new ArrayList<>();
+        for (int length : new int[]{5, 4, 3, 3, 2}) {
+            fleet.add(line(length));
+        }
+
+        FleetSampler sampler = new FleetSampler(10, 10, fleet);
+        int[] placements = new int[15];
+        int[] again = new int[15];
+
+        for (int seed = 0; seed < 50; seed++) {
+            sampler.sample(new Random(seed), placements);
+            sampler.sample(new Random(seed), again);
+            assertArrayEquals(placements, again);
+
+            IndependentBoard board = new IndependentBoard(10, 10);
+            for (Ship ship : fleet) {
+                board.addShip(ship);
+            }
+
+            int hits = 0;
+            for (int ship = 0; ship < fleet.size(); ship++) {
+                for (Square square : fleet.get(ship).rotateCWNinety(placements[ship * 3])) {
+                    int x = placements[ship * 3 + 1] + square.getX();
+                    int y = placements[ship * 3 + 2] + square.getY();
+
+                    //Squares of other ships would already be hit
+                    assertEquals(Board.SquareState.OPEN, board.getState(x, y));
+                    board.stateChange(x, y, Board.SquareState.HIT);
+                    hits++;
+                }
+            }
+            assertEquals(17, hits);
+
+            for (int ship = 0; ship < fleet.size(); ship++) {
+                assertTrue(board.sink(fleet.get(ship), placements[ship * 3],
+                        placements[ship * 3 + 1], placements[ship * 3 + 2]));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShipTooBig() {
+        new FleetSampler(3, 3, Arrays.asList(line(4)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        new FleetSampler(3, 3, Arrays.asList(line(2)), Arrays.asList((PlacementWeight) (rotation, x, y) -> -1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoRoom() {
+        new FleetSampler(1, 2, Arrays.asList(line(2), line(2))).sample(new Random(0), new int[6]);
+    }
+}
@@ -4,10 +4,14 @@
  */
 package battleships.model;
 
+import java.util.Random;
 import org.junit.After;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
@@ -125,6 +129,27 @@ public class IndependentBoardTest {
         assertArrayEquals(expected, shipMatrix);
     }
 
+    @Test
+    public void testMaxSize() throws Exception {
+        Ship raft = new BasicShip();
+        raft.addSquare(0, 0);
+        raft.addSquare(1, 0);
+
+        IndependentBoard wide = new IndependentBoard(IndependentBoard.MAX_SIZE, 1);
+        wide.addShip(raft);
+        wide.stateChange(IndependentBoard.MAX_SIZE - 1, 0, Board.SquareState.MISS);
+
+        //The far end of the board is unpacked the same as the near end
+        wide.stateChange(0, 0, Board.SquareState.MISS);
+        assertEquals(wide.getShipCount(1, 0), wide.getShipCount(IndependentBoard.MAX_SIZE - 2, 0));
+        assertEquals(0, wide.getShipCount(IndependentBoard.MAX_SIZE - 1, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() throws Exception {
+        new IndependentBoard(IndependentBoard.MAX_SIZE + 1, 1);
+    }
+
     @Test
     public void testShipWithinBoard() throws Exception {
         Ship testShip = new BasicShip();
@@ -208,6 +233,35 @@ public class IndependentBoardTest {
         assertArrayEquals(expected, board.getProbabilityMatrix());
     }
 
+    @Test
+    public void testPollChangedSquares() throws Exception {
+        //Every square changed as the ships were added
+        assertEquals(9, board.pollChangedSquares().length);
+        assertEquals(0, board.pollChangedSquares().length);
+
+        Integer[][] before = board.getShipsMatrix();
+        board.stateChange(0, 0, Board.SquareState.MISS);
+        Integer[][] after = board.getShipsMatrix();
+
+        boolean[] reported = new boolean[9];
+        for (int index : board.pollChangedSquares()) {
+            assertFalse(reported[index]);
+            reported[index] = true;
+        }
+
+        assertTrue(reported[0]);
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(after[i][j].intValue(), board.getShipCount(i, j));
+
+                if (!before[i][j].equals(after[i][j])) {
+                    assertTrue(reported[i * 3 + j]);
+                }
+            }
+        }
+    }
+
     @Test
     public void testSinkFalse() throws Exception {
         assertFalse(board.sink(ship1, 0, 0, 0));
@@ -280,4 +334,547 @@ public class IndependentBoardTest {
 
         assertArrayEquals(expected, board.getShipsMatrix());
     }
+
+    @Test
+    public void testSameShape() throws Exception {
+        //Same shape as ship2, laid out the other way
+        Ship ship4 = new BasicShip();
+        ship4.addSquare(0, 0);
+        ship4.addSquare(1, 0);
+        board.addShip(ship4);
+
+        assertArrayEquals(board.getShipsMatrix(ship2), board.getShipsMatrix(ship4));
+
+        board.stateChange(0, 0, Board.SquareState.HIT);
+        board.stateChange(0, 1, Board.SquareState.HIT);
+        Integer[][] before = board.getShipsMatrix(ship2);
+
+        assertTrue(board.sink(ship4, 1, 0, 0));
+        assertTrue(board.isSunk(ship4));
+        assertFalse(board.isSunk(ship2));
+
+        //Sinking one ship leaves the configurations of the other
+        assertArrayEquals(new int[3][3], board.getShipsMatrix(ship4));
+        assertEquals(before[2][2], board.getShipsMatrix(ship2)[2][2]);
+        assertEquals(0, board.getShipsMatrix(ship2)[0][0].intValue());
+        assertEquals(board.getShipsMatrix()[2][2].intValue(), board.getShipCount(2, 2));
+
+        board.raise(ship4);
+
+        assertArrayEquals(board.getShipsMatrix(ship2), board.getShipsMatrix(ship4));
+        assertEquals(board.getShipsMatrix()[1][1].intValue(), board.getShipCount(1, 1));
+    }
+
+    @Test
+    public void testJointCount() throws Exception {
+        board.stateChange(1, 1, Board.SquareState.MISS);
+
+        long[] totals = new long[3];
+        Ship[] fleet = {ship1, ship2, ship3};
+        Integer[][][] counts = new Integer[3][][];
+
+        for (int s = 0; s < fleet.length; s++) {
+            counts[s] = board.getShipsMatrix(fleet[s]);
+
+            //Each placement of a ship covers as many squares as the ship has
+            for (Integer[] col : counts[s]) {
+                for (Integer count : col) {
+                    totals[s] += count;
+                }
+            }
+            totals[s] /= fleet[s].numSquares();
+        }
+
+        long joint = totals[0] * totals[1] * totals[2];
+
+        assertEquals(joint, board.getJointCount());
+        assertEquals(Math.log(joint), board.getLogJointCount(), 0.000000001);
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                long missed = (totals[0] - counts[0][i][j]) * (totals[1] - counts[1][i][j])
+                        * (totals[2] - counts[2][i][j]);
+
+                assertEquals(Math.log(joint - missed), board.getLogJointCount(i, j), 0.000000001);
+            }
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testJointCountOverflow() throws Exception {
+        Board large = new IndependentBoard(1000, 1000);
+
+        for (int i = 0; i < 4; i++) {
+            Ship ship = new BasicShip();
+            ship.addSquare(0, 0);
+            large.addShip(ship);
+        }
+
+        //Each ship has a million squares, each placed in 4 rotations
+        assertEquals(4 * Math.log(4000000), large.getLogJointCount(), 0.000000001);
+        assertEquals(16, large.getShipCount(500, 500));
+
+        //Joint count is 2.56 * 10^26
+        large.getJointCount();
+    }
+
+    @Test
+    public void testTargetCount() throws Exception {
+        assertTargetCounts();
+
+        board.stateChange(1, 1, Board.SquareState.HIT);
+        board.stateChange(2, 1, Board.SquareState.MISS);
+        assertEquals(1, board.getHitCount());
+        assertTargetCounts();
+
+        board.stateChange(0, 0, Board.SquareState.HIT);
+        board.stateChange(0, 1, Board.SquareState.HIT);
+        board.stateChange(1, 0, Board.SquareState.HIT);
+        assertEquals(4, board.getHitCount());
+        assertTargetCounts();
+
+        //Hits of a sunk ship are resolved
+        board.sink(ship1, 0, 0, 0);
+        assertEquals(1, board.getHitCount());
+        assertTargetCounts();
+
+        board.raise(ship1);
+        assertEquals(4, board.getHitCount());
+        assertTargetCounts();
+
+        board.stateChange(1, 1, Board.SquareState.OPEN);
+        board.stateChange(2, 1, Board.SquareState.OPEN);
+        assertEquals(3, board.getHitCount());
+        assertTargetCounts();
+    }
+
+    /**
+     * Checks the target counts of the board against counting the hits of
+     * every placement from scratch.
+     */
+    private void assertTargetCounts() {
+        long[][] expected = new long[3][3];
+
+        for (Ship ship : board.getShips()) {
+            if (board.isSunk(ship)) {
+                continue;
+            }
+
+            for (int r = 0; r < 4; r++) {
+                ShipShape shape = ship.getShape().rotateCWNinety(r);
+
+                for (int x = 0; x < 3 - shape.getMaxX(); x++) {
+                    for (int y = 0; y < 3 - shape.getMaxY(); y++) {
+                        int hits = 0;
+                        boolean fits = true;
+
+                        for (int i = 0; i < shape.size(); i++) {
+                            Board.SquareState state = board.getState(x + shape.getX(i), y + shape.getY(i));
+
+                            fits &= state == Board.SquareState.OPEN || state == Board.SquareState.HIT;
+                            hits += state == Board.SquareState.HIT ? 1 : 0;
+                        }
+
+                        for (int i = 0; fits && i < shape.size(); i++) {
+                            expected[x + shape.getX(i)][y + shape.getY(i)] += hits;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(expected[i][j], board.getTargetCount(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testStateHash() throws Exception {
+        long empty = board.getStateHash();
+
+        board.stateChange(0, 0, Board.SquareState.MISS);
+        assertNotEquals(empty, board.getStateHash());
+
+        board.stateChange(1, 1, Board.SquareState.HIT);
+        board.stateChange(0, 0, Board.SquareState.OPEN);
+        board.stateChange(0, 0, Board.SquareState.MISS);
+
+        //Same fleet and state, reached in another order
+        IndependentBoard other = new IndependentBoard(3, 3);
+        other.addShip(ship1);
+        other.addShip(ship2);
+        other.addShip(ship3);
+        other.stateChange(0, 0, Board.SquareState.MISS);
+        other.stateChange(1, 1, Board.SquareState.HIT);
+        assertEquals(other.getStateHash(), board.getStateHash());
+
+        board.stateChange(0, 0, Board.SquareState.OPEN);
+        board.stateChange(1, 1, Board.SquareState.OPEN);
+        assertEquals(empty, board.getStateHash());
+
+        board.stateChange(0, 0, Board.SquareState.HIT);
+        board.stateChange(0, 1, Board.SquareState.HIT);
+        long hit = board.getStateHash();
+
+        board.sink(ship2, 0, 0, 0);
+        long sunk = board.getStateHash();
+        assertNotEquals(hit, sunk);
+
+        board.raise(ship2);
+        assertEquals(hit, board.getStateHash());
+
+        //Sunk by way of another ship sinking and raising
+        other.stateChange(1, 1, Board.SquareState.OPEN);
+        other.stateChange(0, 0, Board.SquareState.HIT);
+        other.stateChange(0, 1, Board.SquareState.HIT);
+        other.stateChange(1, 0, Board.SquareState.HIT);
+        other.sink(ship1, 0, 0, 0);
+        other.raise(ship1);
+        other.stateChange(1, 0, Board.SquareState.OPEN);
+        other.sink(ship2, 0, 0, 0);
+        assertEquals(sunk, other.getStateHash());
+    }
+
+    @Test
+    public void testProbabilityMatrixCache() throws Exception {
+        Double[][] all = board.getProbabilityMatrix();
+        Double[][] one = board.getProbabilityMatrix(ship2);
+
+        //Every call returns a new matrix, so changing one changes nothing else
+        assertNotSame(all, board.getProbabilityMatrix());
+        assertNotSame(one, board.getProbabilityMatrix(ship2));
+        double before = all[2][2];
+        double shipBefore = one[2][2];
+        all[2][2] = -1.0;
+        one[2][2] = -1.0;
+        assertEquals(before, board.getProbabilityMatrix()[2][2], DELTA);
+        assertEquals(before, board.getProbability(2, 2), DELTA);
+        assertEquals(shipBefore, board.getProbabilityMatrix(ship2)[2][2], DELTA);
+
+        board.stateChange(1, 1, Board.SquareState.MISS);
+
+        IndependentBoard other = new IndependentBoard(3, 3);
+        other.addShip(ship1);
+        other.addShip(ship2);
+        other.addShip(ship3);
+        other.stateChange(1, 1, Board.SquareState.MISS);
+        assertArrayEquals(other.getProbabilityMatrix(), board.getProbabilityMatrix());
+
+        Double[][] matrix = board.getProbabilityMatrix();
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                assertEquals(matrix[x][y], board.getProbability(x, y), 0);
+            }
+        }
+
+        board.stateChange(0, 0, Board.SquareState.HIT);
+        board.stateChange(0, 1, Board.SquareState.HIT);
+        one = board.getProbabilityMatrix(ship2);
+
+        board.sink(ship2, 0, 0, 0);
+        assertEquals(0, board.getProbabilityMatrix(ship2)[2][2], DELTA);
+
+        board.raise(ship2);
+        assertArrayEquals(one, board.getProbabilityMatrix(ship2));
+    }
+
+    @Test
+    public void testParallelMatrices() throws Exception {
+        IndependentBoard large = new IndependentBoard(100, 100);
+        Ship[] fleet = new Ship[12];
+
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = new BasicShip();
+
+            for (int j = 0; j <= i % 5; j++) {
+                fleet[i].addSquare(0, j);
+            }
+            if (i % 3 == 0) {
+                fleet[i].addSquare(1, 0);
+            }
+            large.addShip(fleet[i]);
+        }
+
+        //Enough work to be split
+        assertTrue((long) fleet.length * 100 * 100 > IndependentBoard.PARALLEL_THRESHOLD);
+
+        large.stateChange(50, 50, Board.SquareState.MISS);
+        large.stateChange(10, 10, Board.SquareState.HIT);
+        large.stateChange(10, 11, Board.SquareState.HIT);
+        large.sink(fleet[1], 0, 10, 10);
+
+        Integer[][] counts = large.getShipsMatrix();
+        Double[][] probs = large.getProbabilityMatrix();
+
+        long[][] expectedCounts = new long[100][100];
+        double[][] expectedProbs = new double[100][100];
+
+        for (Ship ship : fleet) {
+            Integer[][] shipCounts = large.getShipsMatrix(ship);
+            Double[][] shipProbs = large.getProbabilityMatrix(ship);
+
+            for (int i = 0; i < 100; i++) {
+                for (int j = 0; j < 100; j++) {
+                    expectedCounts[i][j] += shipCounts[i][j];
+                    expectedProbs[i][j] += shipProbs[i][j] - expectedProbs[i][j] * shipProbs[i][j];
+                }
+            }
+        }
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 100; j++) {
+                assertEquals(expectedCounts[i][j], (long) counts[i][j]);
+                assertEquals(large.getShipCount(i, j), (long) counts[i][j]);
+                assertEquals(expectedProbs[i][j], probs[i][j], 0.000000000001);
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeap() throws Exception {
+        IndependentBoard offHeap = new IndependentBoard(3, 3, PlacementStorage.OFF_HEAP);
+        offHeap.addShip(ship1);
+        offHeap.addShip(ship2);
+        offHeap.addShip(ship3);
+
+        assertEquals(PlacementStorage.HEAP, board.getPlacementStorage());
+        assertEquals(PlacementStorage.OFF_HEAP, offHeap.getPlacementStorage());
+
+        Random random = new Random(45);
+        Board.SquareState[] states = {Board.SquareState.OPEN, Board.SquareState.MISS, Board.SquareState.HIT};
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(3);
+            int y = random.nextInt(3);
+            Board.SquareState state = states[random.nextInt(states.length)];
+
+            if (board.getState(x, y) == Board.SquareState.SUNK) {
+                continue;
+            }
+
+            board.stateChange(x, y, state);
+            offHeap.stateChange(x, y, state);
+
+            assertArrayEquals(board.getShipsMatrix(), offHeap.getShipsMatrix());
+
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    assertEquals(board.getTargetCount(j, k), offHeap.getTargetCount(j, k));
+                }
+            }
+        }
+
+        offHeap.close();
+        offHeap.close();
+    }
+
+    @Test
+    public void testFork() throws Exception {
+        board.setPlacementWeights(ship2, (int rotation, int x, int y) -> x + 1);
+        board.stateChange(2, 2, Board.SquareState.MISS);
+        board.stateChange(0, 0, Board.SquareState.HIT);
+
+        IndependentBoard fork = board.fork();
+        Integer[][] counts = board.getShipsMatrix();
+        Double[][] weighted = board.getWeightedShipsMatrix();
+
+        assertArrayEquals(counts, fork.getShipsMatrix());
+        assertArrayEquals(weighted, fork.getWeightedShipsMatrix());
+        assertArrayEquals(board.getProbabilityMatrix(), fork.getProbabilityMatrix());
+        assertEquals(board.getStateHash(), fork.getStateHash());
+        assertEquals(1, fork.getHitCount());
+        assertEquals(0, fork.pollChangedSquares().length);
+
+        //Changes to the fork are not seen by the board
+        fork.stateChange(0, 1, Board.SquareState.HIT);
+        fork.stateChange(1, 0, Board.SquareState.HIT);
+        assertTrue(fork.sink(ship1, 0, 0, 0));
+        fork.addConfig(ship2, ship2, 1, 1);
+
+        assertArrayEquals(counts, board.getShipsMatrix());
+        assertArrayEquals(weighted, board.getWeightedShipsMatrix());
+        assertFalse(board.isSunk(ship1));
+        assertEquals(1, board.getHitCount());
+
+        //Both play on alike from the same state
+        fork = board.fork();
+        Random random = new Random(48);
+        Board.SquareState[] states = {Board.SquareState.OPEN, Board.SquareState.MISS, Board.SquareState.HIT};
+
+        for (int i = 0; i < 100; i++) {
+            int x = random.nextInt(3);
+            int y = random.nextInt(3);
+            Board.SquareState state = states[random.nextInt(states.length)];
+
+            board.stateChange(x, y, state);
+            fork.stateChange(x, y, state);
+
+            assertArrayEquals(board.getShipsMatrix(), fork.getShipsMatrix());
+            assertArrayEquals(board.getWeightedShipsMatrix(), fork.getWeightedShipsMatrix());
+            assertEquals(board.getStateHash(), fork.getStateHash());
+        }
+
+        fork.close();
+        board.getShipsMatrix();
+    }
+
+    @Test
+    public void testMarkShared() throws Exception {
+        board.markShared();
+
+        IndependentBoard first = board.fork();
+        IndependentBoard second = board.fork();
+        Integer[][] counts = board.getShipsMatrix();
+
+        //Placements added to a shared table are only seen by the board adding them
+        board.addConfig(ship2, ship2, 1, 1);
+        first.addConfig(ship2, ship2, 0, 0);
+
+        assertArrayEquals(counts, second.getShipsMatrix());
+        assertEquals(counts[1][1] + 1, (int) board.getShipsMatrix()[1][1]);
+        assertEquals(counts[0][0] + 1, (int) first.getShipsMatrix()[0][0]);
+        assertEquals(counts[0][0], board.getShipsMatrix()[0][0]);
+
+        //Later forks see the board as it is
+        assertArrayEquals(board.getShipsMatrix(), board.fork().getShipsMatrix());
+    }
+
+    @Test
+    public void testWeightedNoDrift() throws Exception {
+        //Weights whose sums are not exact in binary
+        board.setPlacementWeights(ship2, (int rotation, int x, int y) -> 0.1 * (x + 1) + 1e9 * y + 1e-7 * rotation);
+        Random random = new Random(27);
+        Board.SquareState[] states = {Board.SquareState.OPEN, Board.SquareState.MISS};
+
+        for (int i = 0; i < 5000; i++) {
+            board.stateChange(random.nextInt(3), random.nextInt(3), states[random.nextInt(states.length)]);
+
+            Integer[][] counts = board.getShipsMatrix(ship2);
+            Double[][] weighted = board.getWeightedShipsMatrix(ship2);
+
+            for (int x = 0; x < 3; x++) {
+                for (int y = 0; y < 3; y++) {
+                    if (counts[x][y] == 0) {
+                        assertEquals(0.0, weighted[x][y], 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWeightedShipsMatrixUnweighted() throws Exception {
+        Integer[][] counts = board.getShipsMatrix();
+        Double[][] weighted = board.getWeightedShipsMatrix();
+
+        for (int i = 0; i < counts.length; i++) {
+            for (int j = 0; j < counts[i].length; j++) {
+                assertEquals(counts[i][j], weighted[i][j], DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testPlacementWeights() throws Exception {
+        //Only the unrotated placement at the origin counts
+        board.setPlacementWeights(ship1, (int rotation, int x, int y) -> rotation == 0 && x == 0 && y == 0 ? 2 : 0);
+
+        double[][] expected = {{2, 2, 0}, {2, 0, 0}, {0, 0, 0}};
+        assertArrayEquals(expected, board.getWeightedShipsMatrix(ship1));
+
+        board.stateChange(1, 1, Board.SquareState.MISS);
+        assertArrayEquals(expected, board.getWeightedShipsMatrix(ship1));
+
+        board.stateChange(0, 1, Board.SquareState.MISS);
+        assertArrayEquals(new double[3][3], board.getWeightedShipsMatrix(ship1));
+
+        board.stateChange(0, 1, Board.SquareState.OPEN);
+        assertArrayEquals(expected, board.getWeightedShipsMatrix(ship1));
+
+        board.setPlacementWeights(ship1, null);
+        assertEquals(board.getShipsMatrix(ship1)[0][0], board.getWeightedShipsMatrix(ship1)[0][0], DELTA);
+    }
+
+    @Test
+    public void testPlacementWeightsSinkRaise() throws Exception {
+        board.setPlacementWeights(ship1, (int rotation, int x, int y) -> 0.5);
+
+        board.stateChange(0, 0, Board.SquareState.HIT);
+        board.stateChange(0, 1, Board.SquareState.HIT);
+        board.stateChange(1, 0, Board.SquareState.HIT);
+        board.sink(ship1, 0, 0, 0);
+
+        assertArrayEquals(new double[3][3], board.getWeightedShipsMatrix(ship1));
+
+        board.raise(ship1);
+
+        assertEquals(board.getShipsMatrix(ship1)[1][1] * 0.5, board.getWeightedShipsMatrix(ship1)[1][1], DELTA);
+    }
+
+    @Test
+    public void testBoardListener() throws Exception {
+        Integer[][] start = board.getShipsMatrix();
+        Double[][] startWeighted = board.getWeightedShipsMatrix();
+
+        int[] counts = new int[9];
+        double[] weighted = new double[9];
+        Board.SquareState[] states = new Board.SquareState[9];
+        int[] batches = new int[1];
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                counts[i * 3 + j] = start[i][j];
+                weighted[i * 3 + j] = startWeighted[i][j];
+                states[i * 3 + j] = Board.SquareState.OPEN;
+            }
+        }
+
+        board.addBoardListener((BoardDelta delta) -> {
+            batches[0]++;
+
+            for (int i = 0; i < delta.size(); i++) {
+                counts[delta.getSquare(i)] += delta.getCountDelta(i);
+                weighted[delta.getSquare(i)] += delta.getWeightedDelta(i);
+            }
+
+            for (int i = 0; i < delta.stateChanges(); i++) {
+                assertEquals(states[delta.getStateSquare(i)], delta.getOldState(i));
+                states[delta.getStateSquare(i)] = delta.getNewState(i);
+            }
+        });
+
+        board.setPlacementWeights(ship1, (int rotation, int x, int y) -> 0.5);
+        board.stateChange(1, 1, Board.SquareState.MISS);
+        board.stateChange(1, 1, Board.SquareState.OPEN);
+        board.stateChange(2, 2, Board.SquareState.MISS);
+        board.stateChange(0, 0, Board.SquareState.HIT);
+        board.stateChange(0, 1, Board.SquareState.HIT);
+        board.stateChange(1, 0, Board.SquareState.HIT);
+        board.sink(ship1, 0, 0, 0);
+
+        //One batch for each operation
+        assertEquals(8, batches[0]);
+        assertDelta(counts, weighted, states);
+
+        board.raise(ship1);
+        assertDelta(counts, weighted, states);
+    }
+
+    /**
+     * Checks the totals kept from board deltas against the board.
+     */
+    private void assertDelta(int[] counts, double[] weighted, Board.SquareState[] states) {
+        Integer[][] expected = board.getShipsMatrix();
+        Double[][] expectedWeighted = board.getWeightedShipsMatrix();
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(expected[i][j].intValue(), counts[i * 3 + j]);
+                assertEquals(expectedWeighted[i][j], weighted[i * 3 + j], 0.000000001);
+                assertEquals(board.getState(i, j), states[i * 3 + j]);
+            }
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test class for {@code PlacementTable}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class PlacementTableTest {
+
+    @Test
+    public void testHeap() throws Exception {
+        assertTable(new StoreArena(PlacementStorage.HEAP));
+    }
+
+    @Test
+    public void testOffHeap() throws Exception {
+        StoreArena arena = new StoreArena(PlacementStorage.OFF_HEAP);
+
+        assertTable(arena);
+        arena.close();
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        StoreArena arena = new StoreArena(PlacementStorage.OFF_HEAP);
+        PlacementTable table = new PlacementTable(lShape(), 4, 5, arena);
+        int open = arena.openStores();
+
+        //Stores replaced as the table grows are closed
+        ShipShape line = ShipShape.of(new int[]{Square.pack(0, 0), Square.pack(0, 1)});
+        for (int i = 0; i < 100; i++) {
+            table.add(line, -1, 3, 3);
+        }
+        assertEquals(open, arena.openStores());
+
+        //Copies are made by, and closed with, their own arena
+        StoreArena forked = new StoreArena(PlacementStorage.OFF_HEAP);
+        new PlacementTable(table, forked);
+        assertEquals(open, forked.openStores());
+
+        arena.close();
+        assertEquals(0, arena.openStores());
+        assertEquals(open, forked.openStores());
+        forked.close();
+        assertEquals(0, forked.openStores());
+
+        //Standard runtimes free the memory on the spot
+        assertTrue(IntStore.Direct.freesOnClose());
+    }
+
+    @Test
+    public void testReleaseUnavailable() throws Exception {
+        int[] calls = new int[1];
+        //Freeing at once fails, or cannot be done at all
+        StoreArena failing = new StoreArena(PlacementStorage.OFF_HEAP, buffer -> {
+            calls[0]++;
+            throw new IllegalStateException("No cleaner");
+        });
+        StoreArena unavailable = new StoreArena(PlacementStorage.OFF_HEAP, null);
+
+        for (StoreArena arena : new StoreArena[]{failing, unavailable}) {
+            IntStore store = arena.allocate(16);
+            store.set(3, 7);
+            assertEquals(7, store.get(3));
+
+            //Stores replaced by a resize are closed too
+            store = store.resize(32);
+            assertEquals(7, store.get(3));
+            assertEquals(1, arena.openStores());
+
+            store.close();
+            assertEquals(0, arena.openStores());
+
+            //Closing again does nothing
+            store.close();
+            arena.allocate(8);
+            arena.close();
+            arena.close();
+            assertEquals(0, arena.openStores());
+        }
+
+        assertEquals(3, calls[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedArena() throws Exception {
+        StoreArena arena = new StoreArena(PlacementStorage.OFF_HEAP);
+        arena.close();
+
+        new PlacementTable(lShape(), 4, 5, arena);
+    }
+
+    /**
+     * Checks the placements of an L shape on a 4x5 board, and the placements
+     * covering each square, before and after adding a placement.
+     */
+    private void assertTable(StoreArena arena) {
+        PlacementTable table = new PlacementTable(lShape(), 4, 5, arena);
+
+        //A 2x2 box fits 3 * 4 ways in each rotation
+        assertEquals(4 * 3 * 4, table.size());
+        assertCovers(table);
+
+        for (int config = 0; config < table.size(); config++) {
+            assertEquals(3, table.getConfigEnd(config) - table.getConfigStart(config));
+        }
+
+        ShipShape line = ShipShape.of(new int[]{Square.pack(0, 0), Square.pack(0, 1)});
+        int added = table.add(line, -1, 3, 3);
+
+        assertEquals(48, added);
+        assertEquals(-1, table.getRotation(added));
+        assertEquals(3, table.getOriginX(added));
+        assertEquals(3, table.getOriginY(added));
+        assertEquals(2, table.getConfig(added).length);
+        assertCovers(table);
+    }
+
+    /**
+     * Checks the placements listed for each square against the squares of
+     * every placement.
+     */
+    private void assertCovers(PlacementTable table) {
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 5; y++) {
+                int k = table.getCoverStart(x, y);
+
+                for (int config = 0; config < table.size(); config++) {
+                    boolean covers = false;
+
+                    for (int sqr : table.getConfig(config)) {
+                        covers |= sqr == Square.pack(x, y);
+                    }
+
+                    if (covers) {
+                        assertEquals(config, table.getCover(k++));
+                    }
+                }
+
+                assertEquals(table.getCoverEnd(x, y), k);
+            }
+        }
+    }
+
+    /**
+     * Returns the shape
+     * <pre>
+     * x x
+     * x
+     * </pre>
+     */
+    private static ShipShape lShape() {
+        return ShipShape.of(new int[]{Square.pack(0, 0), Square.pack(0, 1), Square.pack(1, 0)});
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ShipRegistry}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see ShipRegistry
+ * @since v1.1.0
+ */
+public class ShipRegistryTest {
+
+    @Test
+    public void testDenseIDs() throws Exception {
+        ShipRegistry registry = new ShipRegistry();
+        Ship[] ships = new Ship[20];
+
+        for (int i = 0; i < ships.length; i++) {
+            //Ships of the same shape are still told apart
+            ships[i] = new BasicShip();
+            ships[i].addSquare(0, 0);
+
+            assertEquals(i, registry.register(ships[i]));
+        }
+
+        assertEquals(ships.length, registry.size());
+
+        for (int i = 0; i < ships.length; i++) {
+            assertEquals(i, registry.idOf(ships[i]));
+            assertSame(ships[i], registry.get(i));
+        }
+
+        assertEquals(-1, registry.idOf(new BasicShip()));
+        assertEquals(Arrays.asList(ships), registry.toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterTwice() throws Exception {
+        ShipRegistry registry = new ShipRegistry();
+        Ship ship = new BasicShip();
+
+        registry.register(ship);
+        registry.register(ship);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ShipShape} and packed squares.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @see ShipShape
+ * @since v1.1.0
+ */
+public class ShipShapeTest {
+
+    @Test
+    public void testPack() throws Exception {
+        int[][] positions = {{0, 0}, {3, 7}, {-1, 4}, {5, -2}, {-300, -400}, {32767, 32767}};
+
+        for (int[] pos : positions) {
+            int packed = Square.pack(pos[0], pos[1]);
+
+            assertEquals(pos[0], Square.unpackX(packed));
+            assertEquals(pos[1], Square.unpackY(packed));
+        }
+    }
+
+    @Test
+    public void testPackOrder() throws Exception {
+        Square[] squares = {new Square(-1, 5), new Square(0, -3), new Square(0, 2), new Square(2, -9)};
+
+        for (int i = 1; i < squares.length; i++) {
+            assertTrue(squares[i - 1].compareTo(squares[i]) < 0);
+            assertTrue(squares[i - 1].pack() < squares[i].pack());
+        }
+    }
+
+    @Test
+    public void testShapeOfShip() throws Exception {
+        Ship ship = new BasicShip();
+        ship.addSquare(4, 3);
+        ship.addSquare(6, 1);
+        ship.addSquare(1, 7);
+
+        ShipShape shape = ship.getShape();
+
+        assertEquals(3, shape.size());
+        assertEquals(1, shape.getMinX());
+        assertEquals(1, shape.getMinY());
+        assertEquals(6, shape.getMaxX());
+        assertEquals(7, shape.getMaxY());
+        assertTrue(shape.contains(4, 3));
+        assertFalse(shape.contains(3, 4));
+
+        //Same order as the ship
+        List<Square> expected = new ArrayList<>();
+        ship.forEach(expected::add);
+        List<Square> results = new ArrayList<>();
+        shape.forEach(results::add);
+        assertEquals(expected, results);
+
+        for (int i = 0; i < shape.size(); i++) {
+            assertEquals(expected.get(i).getX(), shape.getX(i));
+            assertEquals(expected.get(i).getY(), shape.getY(i));
+        }
+
+        //Shape follows changes to the ship
+        ship.normalize();
+        assertEquals(0, ship.getShape().getMinX());
+        assertNotEquals(shape, ship.getShape());
+    }
+
+    @Test
+    public void testShapeOfPacked() throws Exception {
+        ShipShape shape = ShipShape.of(Square.pack(1, 0), Square.pack(0, 0), Square.pack(1, 0));
+
+        assertArrayEquals(new int[]{Square.pack(0, 0), Square.pack(1, 0)}, shape.toArray());
+
+        Ship ship = new BasicShip();
+        ship.addSquare(0, 0);
+        ship.addSquare(1, 0);
+
+        assertEquals(ship.getShape(), shape);
+        assertEquals(ship.getShape().hashCode(), shape.hashCode());
+    }
+
+    @Test
+    public void testRotations() throws Exception {
+        // x x
+        // x
+        Ship ship = new BasicShip();
+        ship.addSquare(3, 3);
+        ship.addSquare(3, 4);
+        ship.addSquare(4, 3);
+
+        for (int i = 0; i < 4; i++) {
+            Ship rotated = ship.rotateCWNinety(i);
+
+            //Same results as rotating squares one at a time
+            Ship expected = new BasicShip();
+            for (Square sqr : ship) {
+                Square copy = new Square(sqr);
+                for (int j = 0; j < i; j++) {
+                    copy.rotateCW();
+                }
+                expected.addSquare(copy);
+            }
+            expected.normalize();
+
+            assertEquals(expected.getShape(), rotated.getShape());
+            assertEquals(expected.getMaxSquare(), rotated.getMaxSquare());
+
+            //Shapes are shared and consistent
+            ShipShape shape = ship.getShape().rotateCWNinety(i);
+            assertSame(shape, rotated.getShape());
+            assertSame(shape, ship.getShape().rotateCWNinety(i + 4));
+            assertSame(ship.getShape().rotateCWNinety(i + 1), shape.rotateCWNinety(1));
+        }
+
+        assertSame(ship.getShape().rotateCWNinety(3), ship.getShape().rotateCWNinety(-1));
+    }
+
+    @Test
+    public void testCanonical() throws Exception {
+        // x x x
+        //     x
+        Ship ship = new BasicShip();
+        ship.addSquare(0, 0);
+        ship.addSquare(1, 0);
+        ship.addSquare(2, 0);
+        ship.addSquare(2, 1);
+
+        ShipShape canonical = ship.getCanonicalShape();
+
+        for (int i = 0; i < 4; i++) {
+            ShipShape rotated = ship.getShape().rotateCWNinety(i);
+
+            assertSame(canonical, rotated.canonical());
+            assertEquals(canonical.hashCode(), rotated.canonicalHash());
+        }
+
+        //Moving a ship doesn't change its type
+        ship.move(3, 4);
+        assertEquals(canonical, ship.getCanonicalShape());
+
+        //Mirror image is a different type
+        Ship mirrored = new BasicShip();
+        mirrored.addSquare(0, 0);
+        mirrored.addSquare(1, 0);
+        mirrored.addSquare(2, 0);
+        mirrored.addSquare(0, 1);
+
+        assertNotEquals(canonical, mirrored.getCanonicalShape());
+    }
+
+    @Test
+    public void testRotatedShipMutable() throws Exception {
+        Ship ship = new BasicShip();
+        ship.addSquare(0, 0);
+
+        //Rotated ships can be changed without touching the shared shapes
+        Ship rotated = ship.rotateCWNinety(1);
+        rotated.addSquare(1, 1);
+        rotated.move(2, 0);
+
+        assertEquals(2, rotated.numSquares());
+        assertEquals(new Square(3, 1), rotated.getMaxSquare());
+        assertEquals(1, ship.getShape().rotateCWNinety(1).size());
+        assertEquals(1, ship.rotateCWNinety(1).numSquares());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        Ship ship = new BasicShip();
+        ship.addSquare(0, 0);
+
+        ship.getShape().rotateCWNinety(1).addSquare(1, 1);
+    }
+
+    @Test
+    public void testLargestShape() throws Exception {
+        Ship ship = new BasicShip();
+        ship.addSquare(-Short.MAX_VALUE, 0);
+        ship.addSquare(0, Short.MAX_VALUE);
+
+        ShipShape rotated = ship.getShape().rotateCWNinety(1);
+        assertEquals(Short.MAX_VALUE, rotated.getMaxX());
+        assertEquals(Short.MAX_VALUE, rotated.getMaxY());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSquareOutOfRange() throws Exception {
+        Ship ship = new BasicShip();
+        ship.addSquare(0, Short.MAX_VALUE + 1);
+
+        ship.getShape();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShapeTooWide() throws Exception {
+        Ship ship = new BasicShip();
+        ship.addSquare(-1, 0);
+        ship.addSquare(Short.MAX_VALUE, 0);
+
+        ship.getShape();
+    }
+}
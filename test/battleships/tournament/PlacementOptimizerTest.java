@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.model.BasicShip;
+import battleships.model.Ship;
+import battleships.model.Square;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code PlacementOptimizer}.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class PlacementOptimizerTest {
+
+    List<Ship> fleet;
+
+    @Before
+    public void setUp() throws Exception {
+        fleet = new ArrayList<>();
+
+        for (int size : new int[]{3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        fleet = null;
+    }
+
+    /**
+     * Shoots every square in column order.
+     */
+    private static Strategy scan() {
+        return new Strategy() {
+            @Override
+            public String getName() {
+                return "scan";
+            }
+
+            @Override
+            public Player newPlayer(int width, int height, List<Ship> fleet, Random random) {
+                return new Player() {
+                    int next;
+
+                    @Override
+                    public Square nextShot() {
+                        Square square = new Square(next / height, next % height);
+                        next++;
+                        return square;
+                    }
+
+                    @Override
+                    public void miss(int x, int y) {
+                    }
+
+                    @Override
+                    public void hit(int x, int y) {
+                    }
+
+                    @Override
+                    public void sunk(int ship, int rotation, int x, int y) {
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void testNeighbour() {
+        PlacementOptimizer optimizer = new PlacementOptimizer(4, 4, fleet, scan(), 1, 4, 1);
+        Tournament referee = new Tournament(4, 4, fleet, Collections.singletonList(scan()), 1);
+        Random random = new Random(48);
+        int[] layout = {0, 0, 0, 1, 1, 3};
+
+        for (int i = 0; i < 200; i++) {
+            int[] moved = optimizer.neighbour(layout, random);
+
+            //Valid layouts are played without complaint
+            referee.play(scan(), moved, new Random(0));
+
+            int changed = 0;
+            for (int ship = 0; ship < 2; ship++) {
+                boolean same = moved[ship * 3] == layout[ship * 3] && moved[ship * 3 + 1] == layout[ship * 3 + 1]
+                        && moved[ship * 3 + 2] == layout[ship * 3 + 2];
+                changed += same ? 0 : 1;
+            }
+            assertTrue(changed <= 1);
+
+            layout = moved;
+        }
+    }
+
+    @Test
+    public void testOptimize() {
+        PlacementOptimizer optimizer = new PlacementOptimizer(4, 4, fleet, scan(), 1, 4, 3);
+        PlacementOptimizer.Result result = optimizer.optimize(100, 2, 48);
+
+        //The scan is slowest when a ship is on the last square
+        assertEquals(16.0, result.getScore(), 0);
+        assertTrue(result.getScore() >= result.getInitialScore());
+        //Repeated layouts are not played again
+        assertEquals(401, result.getEvaluations() + result.getRepeats());
+        assertTrue(result.getRepeats() > 0);
+        assertEquals(result.getScore(), optimizer.score(result.getPlacements(), 48), 0);
+
+        //Same search on any number of threads
+        PlacementOptimizer single = new PlacementOptimizer(4, 4, fleet, scan(), 1, 4, 1);
+        assertArrayEquals(result.getPlacements(), single.optimize(100, 2, 48).getPlacements());
+    }
+
+    @Test
+    public void testCoveredSquares() {
+        List<Ship> twins = new ArrayList<>(fleet);
+        twins.add(1, fleet.get(0));
+        PlacementOptimizer optimizer = new PlacementOptimizer(6, 6, twins, scan(), 1, 4, 1);
+
+        int[] layout = {0, 0, 0, 1, 0, 4, 0, 5, 4};
+        int[] key = optimizer.coveredSquares(layout);
+
+        //Straight ships turned half way round cover the same squares
+        assertArrayEquals(key, optimizer.coveredSquares(new int[]{2, 0, 0, 3, 0, 4, 2, 5, 4}));
+        //So do the two ships of length 3 trading places
+        assertArrayEquals(key, optimizer.coveredSquares(new int[]{1, 0, 4, 0, 0, 0, 0, 5, 4}));
+
+        //Moving a ship is a different layout
+        assertFalse(Arrays.equals(key, optimizer.coveredSquares(new int[]{0, 0, 0, 1, 0, 4, 0, 4, 4})));
+        //And so is swapping ships of different shapes
+        assertFalse(Arrays.equals(optimizer.coveredSquares(new int[]{0, 0, 0, 0, 1, 0, 0, 2, 0}),
+                optimizer.coveredSquares(new int[]{0, 2, 0, 0, 1, 0, 0, 0, 0})));
+    }
+
+    @Test
+    public void testBuiltInSolver() {
+        PlacementOptimizer optimizer = new PlacementOptimizer(5, 5, fleet, Strategies.maxCount(), 2, 2, 2);
+        PlacementOptimizer.Result result = optimizer.optimize(5, 1, 3);
+
+        assertTrue(result.getScore() >= result.getInitialScore());
+        assertTrue(result.getScore() >= 5 && result.getScore() <= 25);
+        assertEquals(11, result.getEvaluations() + result.getRepeats());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLayout() {
+        new Tournament(4, 4, fleet, Collections.singletonList(scan()), 1)
+                .play(scan(), new int[]{0, 0, 0, 0, 0, 1}, new Random(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoGames() {
+        new PlacementOptimizer(4, 4, fleet, scan(), 0, 4, 1);
+    }
+
+    @Test
+    public void testResult() {
+        PlacementOptimizer.Result result = new PlacementOptimizer.Result(new int[]{0, 1, 2, 3, 0, 0}, 5, 4, 9, 2, 1);
+
+        assertTrue(result.toString().startsWith("0,1,2 3,0,0"));
+        assertEquals(Arrays.toString(new int[]{0, 1, 2, 3, 0, 0}), Arrays.toString(result.getPlacements()));
+    }
+}
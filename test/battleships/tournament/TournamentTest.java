@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2015. Shen Yichen <2007.yichen@gmail.com>
+ * Under The MIT License.
+ */
+package battleships.tournament;
+
+import battleships.model.BasicShip;
+import battleships.model.Ship;
+import battleships.model.Square;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code Tournament} and the built in strategies.
+ * <p>
+ * @author Shen Yichen <2007.yichen@gmail.com>
+ * @since v1.1.0
+ */
+public class TournamentTest {
+
+    List<Ship> fleet;
+
+    @Before
+    public void setUp() throws Exception {
+        fleet = new ArrayList<>();
+
+        for (int size : new int[]{3, 2}) {
+            Ship ship = new BasicShip();
+
+            for (int j = 0; j < size; j++) {
+                ship.addSquare(0, j);
+            }
+            fleet.add(ship);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        fleet = null;
+    }
+
+    /**
+     * Shoots every square in column order.
+     */
+    private static Strategy scan() {
+        return new Strategy() {
+            @Override
+            public String getName() {
+                return "scan";
+            }
+
+            @Override
+            public Player newPlayer(int width, int height, List<Ship> fleet, Random random) {
+                return new Player() {
+                    int next;
+
+                    @Override
+                    public Square nextShot() {
+                        Square square = new Square(next / height, next % height);
+                        next++;
+                        return square;
+                    }
+
+                    @Override
+                    public void miss(int x, int y) {
+                    }
+
+                    @Override
+                    public void hit(int x, int y) {
+                    }
+
+                    @Override
+                    public void sunk(int ship, int rotation, int x, int y) {
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void testPlaceFleet() {
+        Tournament tournament = new Tournament(5, 5, fleet, Collections.singletonList(scan()), 1);
+
+        for (int game = 0; game < 100; game++) {
+            int[] placements = tournament.placeFleet(new Random(Tournament.gameSeed(7, game)));
+            boolean[] taken = new boolean[25];
+
+            for (int ship = 0; ship < fleet.size(); ship++) {
+                Ship rotated = fleet.get(ship).rotateCWNinety(placements[ship * 3]);
+
+                for (Square square : rotated) {
+                    int x = placements[ship * 3 + 1] + square.getX();
+                    int y = placements[ship * 3 + 2] + square.getY();
+
+                    assertTrue(x >= 0 && x < 5 && y >= 0 && y < 5);
+                    assertTrue(!taken[x * 5 + y]);
+                    taken[x * 5 + y] = true;
+                }
+            }
+        }
+
+        assertEquals(Arrays.toString(tournament.placeFleet(new Random(3))),
+                Arrays.toString(tournament.placeFleet(new Random(3))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFleetTooBig() {
+        new Tournament(2, 2, fleet, Collections.singletonList(scan()), 1).play(scan(), 0);
+    }
+
+    @Test
+    public void testPlay() {
+        Tournament tournament = new Tournament(5, 5, fleet, Collections.singletonList(scan()), 1);
+
+        for (int game = 0; game < 20; game++) {
+            long seed = Tournament.gameSeed(1, game);
+            int[] placements = tournament.placeFleet(new Random(seed));
+
+            //The scan wins on the last ship square in column order
+            int last = 0;
+            for (int ship = 0; ship < fleet.size(); ship++) {
+                for (Square square : fleet.get(ship).rotateCWNinety(placements[ship * 3])) {
+                    int x = placements[ship * 3 + 1] + square.getX();
+                    int y = placements[ship * 3 + 2] + square.getY();
+                    last = Math.max(last, x * 5 + y);
+                }
+            }
+
+            assertEquals(last + 1, tournament.play(scan(), seed));
+        }
+    }
+
+    @Test
+    public void testStrategies() {
+        Tournament tournament = new Tournament(6, 6, fleet, Strategies.all(), 1);
+
+        for (Strategy strategy : Strategies.all()) {
+            for (int game = 0; game < 10; game++) {
+                int shots = tournament.play(strategy, Tournament.gameSeed(2, game));
+
+                assertTrue(shots >= 5 && shots <= 36);
+                assertEquals(shots, tournament.play(strategy, Tournament.gameSeed(2, game)));
+            }
+        }
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        List<Strategy> strategies = new ArrayList<>(Strategies.all());
+        strategies.add(scan());
+
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        Tournament.Report report = new Tournament(6, 6, fleet, strategies, 3).run(12, 5, first);
+        new Tournament(6, 6, fleet, strategies, 1).run(12, 5, second);
+
+        assertEquals(12, report.getGames());
+        assertEquals(5, report.getResults().size());
+        assertNull(report.getResult("none"));
+        assertTrue(report.getGamesPerSecond() > 0);
+
+        //Same shots in every game, though written in a different order
+        assertEquals(withoutTimes(first.toString()), withoutTimes(second.toString()));
+
+        String[] lines = first.toString().split("\n");
+        assertEquals(Tournament.CSV_HEADER, lines[0]);
+        assertEquals(1 + 12 * 5, lines.length);
+
+        Tournament.Result scan = report.getResult("scan");
+        double sum = 0;
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",");
+
+            if (fields[2].equals("scan")) {
+                int game = Integer.parseInt(fields[0]);
+                assertEquals(Long.toString(Tournament.gameSeed(5, game)), fields[1]);
+                sum += Integer.parseInt(fields[3]);
+            }
+        }
+
+        assertEquals(sum / 12, scan.getMean(), 1e-9);
+        assertTrue(scan.getPercentile(0) <= scan.getPercentile(50));
+        assertTrue(scan.getPercentile(50) <= scan.getPercentile(100));
+        assertTrue(scan.getConfidence95() >= 0);
+    }
+
+    @Test
+    public void testResult() {
+        Tournament.Result result = new Tournament.Result("a", new int[]{40, 10, 30, 20});
+
+        assertEquals(25.0, result.getMean(), 1e-9);
+        assertEquals(Math.sqrt(500.0 / 3), result.getStandardDeviation(), 1e-9);
+        assertEquals(1.959964 * Math.sqrt(500.0 / 3) / 2, result.getConfidence95(), 1e-6);
+        assertEquals(10, result.getPercentile(0));
+        assertEquals(10, result.getPercentile(25));
+        assertEquals(20, result.getPercentile(50));
+        assertEquals(40, result.getPercentile(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateNames() {
+        new Tournament(5, 5, fleet, Arrays.asList(scan(), scan()), 1);
+    }
+
+    /**
+     * Drops the times from the results and sorts the lines.
+     * <p>
+     * @param results The CSV results
+     * @return The lines without times, sorted
+     */
+    private static String withoutTimes(String results) {
+        String[] lines = results.split("\n");
+
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lines[i].substring(0, lines[i].lastIndexOf(','));
+        }
+        Arrays.sort(lines);
+
+        return String.join("\n", lines);
+    }
+}